@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.lineperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.net.NetClient;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Connects to the line server and writes lines to it as fast as it can
+ */
+public class LineClient implements Verticle {
+
+  private NetClient client;
+
+  public void start() {
+    client = new NetClient().connect(1236, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        // 32K of 64 byte lines
+        Buffer buff = new Buffer(32 * 1024);
+        while (buff.length() < 32 * 1024) {
+          buff.appendString("GET /some/resource/path HTTP/1.1 Host: localhost User-Agent: te\n");
+        }
+        sendData(socket, buff);
+      }
+    });
+  }
+
+  public void stop() {
+    client.close();
+  }
+
+  private void sendData(final NetSocket socket, final Buffer buff) {
+    socket.write(buff);
+    SimpleHandler handler = new SimpleHandler() {
+      public void handle() {
+        sendData(socket, buff);
+      }
+    };
+    if (!socket.writeQueueFull()) {
+      Vertx.instance.runOnLoop(handler);
+    } else {
+      socket.drainHandler(handler);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.lineperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.net.NetServer;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.parsetools.RecordParser;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Accepts connections on port 1236, splits what it receives into lines and prints the rate at which it receives them
+ */
+public class LineServer implements Verticle {
+
+  private NetServer server;
+
+  public void start() {
+    server = new NetServer().connectHandler(new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        socket.dataHandler(RecordParser.newDelimited("\n", new Handler<Buffer>() {
+          final long batch = 10 * 1000 * 1000;
+          long lines;
+          long bytes;
+          long start = System.currentTimeMillis();
+          public void handle(Buffer line) {
+            lines++;
+            bytes += line.length() + 1;
+            if (lines == batch) {
+              long end = System.currentTimeMillis();
+              double rate = 1000 * (double)lines / (end - start);
+              double mbitsRate = 1000 * (double)bytes * 8 / ((end - start) * 1024 * 1024);
+              System.out.println("rate: " + rate + " lines/sec " + mbitsRate + " Mbits/sec");
+              lines = 0;
+              bytes = 0;
+              start = end;
+            }
+          }
+        }));
+      }
+    }).listen(1236);
+  }
+
+  public void stop() {
+    server.close();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.lineperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.parsetools.RecordParser;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Feeds the same input through a RecordParser over and over again and prints the rate at which it is parsed, for
+ * short lines delimited by '\n', short lines delimited by '\r\n' and lines which are much longer than the chunks
+ * they arrive in
+ */
+public class ParserPerf implements Verticle {
+
+  private static final int INPUT_SIZE = 32 * 1024 * 1024;
+  private static final int CHUNK_SIZE = 32 * 1024;
+
+  private boolean stopped;
+
+  public void start() {
+    final Buffer[] lf = chunks(80, "\n");
+    final Buffer[] crlf = chunks(80, "\r\n");
+    final Buffer[] longLines = chunks(1024 * 1024, "\n");
+    Vertx.instance.runOnLoop(new Handler<Void>() {
+      public void handle(Void v) {
+        run("short lines, \\n:  ", lf, "\n");
+        run("short lines, \\r\\n:", crlf, "\r\n");
+        run("1MB lines, \\n:    ", longLines, "\n");
+        if (!stopped) {
+          Vertx.instance.runOnLoop(this);
+        }
+      }
+    });
+  }
+
+  public void stop() {
+    stopped = true;
+  }
+
+  private void run(String name, Buffer[] chunks, String delim) {
+    final long[] records = new long[1];
+    RecordParser parser = RecordParser.newDelimited(delim, new Handler<Buffer>() {
+      public void handle(Buffer record) {
+        records[0]++;
+      }
+    });
+    long start = System.nanoTime();
+    for (Buffer chunk: chunks) {
+      parser.handle(chunk);
+    }
+    long end = System.nanoTime();
+    double secs = (end - start) / 1000000000d;
+    double mbytesRate = INPUT_SIZE / (1024 * 1024 * secs);
+    System.out.println(name + " " + (long)(records[0] / secs) + " records/sec " + (long)mbytesRate + " MB/sec");
+  }
+
+  // Builds the input out of lines of the given length, split into fixed size chunks as they would be read from a
+  // socket
+  private Buffer[] chunks(int lineLength, String delim) {
+    Buffer line = new Buffer(lineLength + delim.length());
+    for (int i = 0; i < lineLength; i++) {
+      line.appendByte((byte)('a' + i % 26));
+    }
+    line.appendString(delim);
+    Buffer input = new Buffer(INPUT_SIZE);
+    while (input.length() < INPUT_SIZE) {
+      input.appendBuffer(line);
+    }
+    Buffer[] chunks = new Buffer[INPUT_SIZE / CHUNK_SIZE];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = input.slice(i * CHUNK_SIZE, (i + 1) * CHUNK_SIZE);
+    }
+    return chunks;
+  }
+}
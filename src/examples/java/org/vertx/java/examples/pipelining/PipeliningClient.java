@@ -0,0 +1,80 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.pipelining;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.net.NetClient;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.parsetools.RecordParser;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Opens connections to both pipelining servers, keeps a fixed number of requests pipelined on each of them and
+ * prints the rate at which each server answers them every second
+ */
+public class PipeliningClient implements Verticle {
+
+  private static final int CONNECTIONS = 10;
+  private static final int DEPTH = 16;
+
+  private final Buffer request = new Buffer("GET /some/resource HTTP/1.1\r\nHost: localhost\r\n\r\n");
+  private final NetClient client = new NetClient();
+  private final long[] responses = new long[2];
+  private long timerID;
+
+  public void start() {
+    for (int i = 0; i < CONNECTIONS; i++) {
+      connect(8080, 0);
+      connect(8081, 1);
+    }
+    timerID = Vertx.instance.setPeriodic(1000, new Handler<Long>() {
+      long last = System.currentTimeMillis();
+      public void handle(Long timerID) {
+        long now = System.currentTimeMillis();
+        double secs = (now - last) / 1000d;
+        System.out.println("sequential: " + (long)(responses[0] / secs) + " requests/sec " +
+                           "pipelined: " + (long)(responses[1] / secs) + " requests/sec");
+        responses[0] = responses[1] = 0;
+        last = now;
+      }
+    });
+  }
+
+  public void stop() {
+    Vertx.instance.cancelTimer(timerID);
+    client.close();
+  }
+
+  private void connect(int port, final int counter) {
+    client.connect(port, "localhost", new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        // The responses have no body, so each one ends with the blank line after its headers
+        socket.dataHandler(RecordParser.newDelimited("\r\n\r\n", new Handler<Buffer>() {
+          public void handle(Buffer headers) {
+            responses[counter]++;
+            socket.write(request);
+          }
+        }));
+        for (int i = 0; i < DEPTH; i++) {
+          socket.write(request);
+        }
+      }
+    });
+  }
+}
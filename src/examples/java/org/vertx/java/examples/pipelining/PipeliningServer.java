@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.pipelining;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.http.HttpServer;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Two HTTP servers whose requests take a millisecond to answer, as if they were waiting for some other service. The
+ * one on port 8080 handles the requests pipelined on a connection one at a time, the one on port 8081 handles them
+ * concurrently
+ */
+public class PipeliningServer implements Verticle {
+
+  private HttpServer sequential;
+  private HttpServer pipelined;
+
+  public void start() {
+    Handler<HttpServerRequest> handler = new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        Vertx.instance.setTimer(1, new Handler<Long>() {
+          public void handle(Long timerID) {
+            req.response.end();
+          }
+        });
+      }
+    };
+    sequential = new HttpServer().requestHandler(handler).listen(8080);
+    pipelined = new HttpServer().setPipelining(true).requestHandler(handler).listen(8081);
+  }
+
+  public void stop() {
+    sequential.close();
+    pipelined.close();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.pumpperf;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.file.AsyncFile;
+import org.vertx.java.core.file.FileSystem;
+import org.vertx.java.core.net.NetClient;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.streams.Pump;
+import org.vertx.java.core.streams.ReadStream;
+import org.vertx.java.deploy.Verticle;
+
+import java.io.File;
+
+/**
+ * Connects to the sink and pumps a file to it over and over again, file to socket
+ */
+public class FileSource implements Verticle {
+
+  private static final String FILE_NAME = "pumpperf.dat";
+  private static final int FILE_SIZE = 1024 * 1024 * 64;
+
+  private NetClient client;
+
+  public void start() throws Exception {
+    if (!new File(FILE_NAME).exists()) {
+      FileSystem.instance.writeFileSync(FILE_NAME, new Buffer(new byte[FILE_SIZE]));
+    }
+    client = new NetClient().connect(1235, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        sendFile(socket);
+      }
+    });
+  }
+
+  public void stop() {
+    client.close();
+  }
+
+  private void sendFile(final NetSocket socket) {
+    FileSystem.instance.open(FILE_NAME, new AsyncResultHandler<AsyncFile>() {
+      public void handle(final AsyncResult<AsyncFile> ar) {
+        ReadStream rs = ar.result.getReadStream();
+        new Pump(rs, socket).start();
+        rs.endHandler(new SimpleHandler() {
+          public void handle() {
+            ar.result.close();
+            sendFile(socket);
+          }
+        });
+      }
+    });
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.pumpperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.net.NetServer;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Accepts connections on port 1235 and prints the rate at which it receives data
+ */
+public class Sink implements Verticle {
+
+  private NetServer server;
+
+  public void start() {
+    server = new NetServer().connectHandler(new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        socket.dataHandler(new Handler<Buffer>() {
+          final long batch = 1024 * 1024 * 512;
+          long bytesReceived;
+          long start = System.currentTimeMillis();
+          public void handle(Buffer buffer) {
+            bytesReceived += buffer.length();
+            if (bytesReceived > batch) {
+              long end = System.currentTimeMillis();
+              double rate = 1000 * (double)bytesReceived / (end - start);
+              double mbitsRate = rate * 8 / (1024 * 1024);
+              System.out.println("rate: " + rate + " bytes/sec " + mbitsRate + " Mbits/sec");
+              bytesReceived = 0;
+              start = end;
+            }
+          }
+        });
+      }
+    }).listen(1235);
+  }
+
+  public void stop() {
+    server.close();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.routematch;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.FormPart;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.core.http.RouteMatcher;
+import org.vertx.java.deploy.Verticle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routes the same requests through a RouteMatcher with a few hundred REST-style routes over and over again and prints
+ * the rate at which they are routed, next to the rate for matching each route's regular expression in turn as the
+ * RouteMatcher used to do
+ */
+public class RouteMatchPerf implements Verticle {
+
+  private static final int RESOURCES = 100;
+  private static final int REQUESTS = 100000;
+
+  private boolean stopped;
+
+  public void start() {
+    final RouteMatcher matcher = new RouteMatcher();
+    final LinearMatcher linear = new LinearMatcher();
+    final long[] handled = new long[1];
+    Handler<HttpServerRequest> handler = new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        handled[0]++;
+      }
+    };
+    for (int i = 0; i < RESOURCES; i++) {
+      String[] patterns = {
+        "/api/res" + i,
+        "/api/res" + i + "/:id",
+        "/api/res" + i + "/:id/items",
+        "/api/res" + i + "/:id/items/:item"
+      };
+      for (String pattern: patterns) {
+        matcher.get(pattern, handler);
+        linear.add(pattern, handler);
+      }
+    }
+    final StubRequest[] requests = new StubRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      int res = (i * 31) % RESOURCES;
+      switch (i % 4) {
+        case 0:
+          requests[i] = new StubRequest("/api/res" + res);
+          break;
+        case 1:
+          requests[i] = new StubRequest("/api/res" + res + "/" + i);
+          break;
+        case 2:
+          requests[i] = new StubRequest("/api/res" + res + "/" + i + "/items");
+          break;
+        default:
+          requests[i] = new StubRequest("/api/res" + res + "/" + i + "/items/" + (i % 10));
+      }
+    }
+    Vertx.instance.runOnLoop(new Handler<Void>() {
+      public void handle(Void v) {
+        run("route matcher:", matcher, requests, handled);
+        run("linear regex: ", linear, requests, handled);
+        if (!stopped) {
+          Vertx.instance.runOnLoop(this);
+        }
+      }
+    });
+  }
+
+  public void stop() {
+    stopped = true;
+  }
+
+  private void run(String name, Handler<HttpServerRequest> matcher, StubRequest[] requests, long[] handled) {
+    handled[0] = 0;
+    long start = System.nanoTime();
+    for (StubRequest request: requests) {
+      request.params.clear();
+      matcher.handle(request);
+    }
+    long end = System.nanoTime();
+    double secs = (end - start) / 1000000000d;
+    System.out.println(name + " " + (long)(handled[0] / secs) + " requests/sec");
+  }
+
+  // Matches each pattern as a regular expression in the order they were added, like the original RouteMatcher
+  private static class LinearMatcher implements Handler<HttpServerRequest> {
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<Set<String>> paramNames = new ArrayList<>();
+    private final List<Handler<HttpServerRequest>> handlers = new ArrayList<>();
+
+    void add(String input, Handler<HttpServerRequest> handler) {
+      Matcher m = Pattern.compile(":([A-Za-z][A-Za-z0-9]*)").matcher(input);
+      StringBuffer sb = new StringBuffer();
+      Set<String> groups = new HashSet<>();
+      while (m.find()) {
+        groups.add(m.group().substring(1));
+        m.appendReplacement(sb, "(?<$1>[^\\/]+)");
+      }
+      m.appendTail(sb);
+      patterns.add(Pattern.compile(sb.toString()));
+      paramNames.add(groups);
+      handlers.add(handler);
+    }
+
+    public void handle(HttpServerRequest request) {
+      for (int i = 0; i < patterns.size(); i++) {
+        Matcher m = patterns.get(i).matcher(request.path);
+        if (m.matches()) {
+          Map<String, String> params = new HashMap<>(m.groupCount());
+          for (String param: paramNames.get(i)) {
+            params.put(param, m.group(param));
+          }
+          request.getAllParams().putAll(params);
+          handlers.get(i).handle(request);
+          return;
+        }
+      }
+    }
+  }
+
+  // Just enough of a request to be routed
+  private static class StubRequest extends HttpServerRequest {
+
+    final Map<String, String> params = new HashMap<>();
+
+    StubRequest(String path) {
+      super("GET", path, path, null, null);
+    }
+
+    public String getHeader(String key) {
+      return null;
+    }
+
+    public Set<String> getHeaderNames() {
+      return null;
+    }
+
+    public Map<String, String> getAllHeaders() {
+      return null;
+    }
+
+    public Map<String, String> getAllParams() {
+      return params;
+    }
+
+    public void dataHandler(Handler<Buffer> handler) {
+    }
+
+    public void pause() {
+    }
+
+    public void resume() {
+    }
+
+    public void exceptionHandler(Handler<Exception> handler) {
+    }
+
+    public void endHandler(Handler<Void> handler) {
+    }
+
+    public void partHandler(Handler<FormPart> handler) {
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.sendfileperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HttpClient;
+import org.vertx.java.core.http.HttpClientResponse;
+import org.vertx.java.deploy.Verticle;
+
+/**
+ * Downloads the file served by {@link SendFilePerfServer} over a few connections, alternating every five seconds
+ * between plain HTTP and HTTPS, and prints the rate at which it is received every second
+ */
+public class SendFilePerfClient implements Verticle {
+
+  private static final int CONNECTIONS = 4;
+  private static final int PHASE_SECONDS = 5;
+
+  private final HttpClient plainClient = new HttpClient().setPort(8080).setMaxPoolSize(CONNECTIONS);
+  private final HttpClient sslClient = new HttpClient().setPort(4443).setSSL(true).setTrustAll(true)
+      .setMaxPoolSize(CONNECTIONS);
+  private boolean ssl;
+  private long bytes;
+  private long timerID;
+
+  public void start() {
+    for (int i = 0; i < CONNECTIONS; i++) {
+      download(false);
+    }
+    timerID = Vertx.instance.setPeriodic(1000, new Handler<Long>() {
+      long last = System.currentTimeMillis();
+      int seconds;
+      public void handle(Long timerID) {
+        long now = System.currentTimeMillis();
+        System.out.println((ssl ? "https: " : "http: ") + (bytes * 1000 / (now - last)) / (1024 * 1024) + " MB/sec");
+        bytes = 0;
+        last = now;
+        if (++seconds % PHASE_SECONDS == 0) {
+          // Downloads in progress finish on the old connections, new ones start on the other
+          ssl = !ssl;
+        }
+      }
+    });
+  }
+
+  public void stop() {
+    Vertx.instance.cancelTimer(timerID);
+    plainClient.close();
+    sslClient.close();
+  }
+
+  private void download(final boolean overSSL) {
+    (overSSL ? sslClient : plainClient).getNow("/", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        resp.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            bytes += data.length();
+          }
+        });
+        resp.endHandler(new SimpleHandler() {
+          public void handle() {
+            download(ssl);
+          }
+        });
+      }
+    });
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.sendfileperf;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.http.HttpServer;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.deploy.Verticle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Serves the same file with sendFile over plain HTTP on port 8080, where it is sent with zero-copy, and over HTTPS
+ * on port 4443
+ */
+public class SendFilePerfServer implements Verticle {
+
+  private static final int FILE_SIZE = 32 * 1024 * 1024;
+
+  private HttpServer plainServer;
+  private HttpServer sslServer;
+  private File file;
+
+  public void start() throws IOException {
+    file = File.createTempFile("sendfileperf", ".dat");
+    file.deleteOnExit();
+    byte[] bytes = new byte[64 * 1024];
+    new Random().nextBytes(bytes);
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      for (int i = 0; i < FILE_SIZE / bytes.length; i++) {
+        out.write(bytes);
+      }
+    }
+
+    Handler<HttpServerRequest> handler = new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response.sendFile(file.getPath());
+      }
+    };
+    plainServer = new HttpServer().requestHandler(handler).listen(8080);
+    sslServer = new HttpServer().requestHandler(handler).setSSL(true).setKeyStorePath("server-keystore.jks")
+        .setKeyStorePassword("wibble").listen(4443);
+  }
+
+  public void stop() {
+    plainServer.close();
+    sslServer.close();
+    file.delete();
+  }
+}
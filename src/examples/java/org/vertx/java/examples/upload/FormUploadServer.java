@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.examples.upload;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.FormPart;
+import org.vertx.java.core.http.HttpServer;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.deploy.Verticle;
+
+import java.util.UUID;
+
+public class FormUploadServer implements Verticle {
+
+  private static final String FORM =
+      "<html><body><form action=\"/\" method=\"post\" enctype=\"multipart/form-data\">" +
+      "<input type=\"text\" name=\"description\"/><input type=\"file\" name=\"file\"/>" +
+      "<input type=\"submit\"/></form></body></html>";
+
+  private HttpServer server;
+
+  public void start() {
+
+    server = new HttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        if (!req.method.equals("POST")) {
+          req.response.putHeader("Content-Type", "text/html");
+          req.response.end(FORM);
+          return;
+        }
+
+        req.partHandler(new Handler<FormPart>() {
+          public void handle(final FormPart part) {
+            if (part.isFile()) {
+              // The file is written as it arrives, never held in memory
+              final String filename = "upload/file-" + UUID.randomUUID().toString() + ".upload";
+              part.streamToFile(filename, new AsyncResultHandler<Void>() {
+                public void handle(AsyncResult<Void> ar) {
+                  if (ar.exception == null) {
+                    System.out.println("Uploaded " + part.filename + " to " + filename);
+                  } else {
+                    ar.exception.printStackTrace(System.err);
+                  }
+                }
+              });
+            } else {
+              part.bodyHandler(new Handler<Buffer>() {
+                public void handle(Buffer body) {
+                  System.out.println(part.name + ": " + body);
+                }
+              });
+            }
+          }
+        });
+        req.endHandler(new SimpleHandler() {
+          public void handle() {
+            req.response.end("Thanks!");
+          }
+        });
+      }
+    }).listen(8080);
+  }
+
+  public void stop() {
+    server.close();
+  }
+}
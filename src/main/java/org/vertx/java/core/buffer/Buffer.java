@@ -18,7 +18,9 @@ package org.vertx.java.core.buffer;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.buffer.DynamicChannelBuffer;
-import org.jboss.netty.util.CharsetUtil;
+import org.vertx.java.core.buffer.impl.BufferPool;
+import org.vertx.java.core.buffer.impl.PooledChannelBuffer;
+import org.vertx.java.core.buffer.impl.StringCodec;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
@@ -40,12 +42,21 @@ import java.nio.charset.Charset;
  * <p>Data can be read from a buffer by invoking methods which take the form {@code getXXX}. These methods take a parameter
  * representing the position in the Buffer from where to read data.</p>
  *
+ * <p>{@link #slice} and {@link #createComposite} return views which share storage with the Buffers they were created
+ * from, so no bytes are copied. A view has the size of the data it was created over; a write which needs it to grow
+ * first copies it into storage of its own, after which it no longer shares anything.</p>
+ *
+ * <p>When buffer pooling is enabled, {@link #createPooled} returns a Buffer whose storage comes from a per-thread pool.
+ * Such a Buffer should be handed back with {@link #release} once it is no longer needed, and must not be used after
+ * that.</p>
+ *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class Buffer {
 
-  // vert.x buffers are always dynamic
-  private DynamicChannelBuffer buffer;
+  // vert.x buffers always expand as necessary. Anything other than a DynamicChannelBuffer is a fixed size view which
+  // gets copied into a DynamicChannelBuffer the first time a write needs it to grow
+  private ChannelBuffer buffer;
 
   /**
    * Create an empty buffer
@@ -68,21 +79,22 @@ public class Buffer {
    * Create a new Buffer that contains the contents of the {@code byte[] bytes}
    */
   public Buffer(byte[] bytes) {
-    this(ChannelBuffers.wrappedBuffer(bytes));
+    this(bytes.length);
+    buffer.writeBytes(bytes);
   }
 
   /**
    * Create a new Buffer that contains the contents of {@code String str} encoded according to the encoding {@code enc}
    */
   public Buffer(String str, String enc) {
-    this(ChannelBuffers.copiedBuffer(str, Charset.forName(enc)));
+    this(ChannelBuffers.wrappedBuffer(StringCodec.encode(str, StringCodec.charset(enc))));
   }
 
   /**
    * Create a new Buffer that contains the contents of {@code String str} encoded with UTF-8 encoding
    */
   public Buffer(String str) {
-    this(str, "UTF-8");
+    this(ChannelBuffers.wrappedBuffer(StringCodec.encode(str, StringCodec.UTF_8)));
   }
 
   /**
@@ -91,13 +103,74 @@ public class Buffer {
    * This method is meant for internal use only.
    */
   public Buffer(ChannelBuffer buffer) {
-    if (buffer instanceof DynamicChannelBuffer) {
-      this.buffer = (DynamicChannelBuffer) buffer;
+    if (buffer instanceof DynamicChannelBuffer || buffer.readerIndex() == 0) {
+      this.buffer = buffer;
     } else {
-      //TODO - if Netty could provide a DynamicChannelBuffer constructor which took a HeapBuffer this would
-      //save an extra copy
-      this.buffer = (DynamicChannelBuffer) ChannelBuffers.dynamicBuffer(buffer.readableBytes());
-      this.buffer.writeBytes(buffer, 0, buffer.readableBytes());
+      this.buffer = buffer.slice();
+    }
+  }
+
+  /**
+   * Create a new Buffer which is the concatenation of {@code buffers}, without copying them. The returned Buffer is a
+   * view, so changes to the bytes of any of {@code buffers} are visible through it, and vice versa.
+   */
+  public static Buffer createComposite(Buffer... buffers) {
+    ChannelBuffer[] cbs = new ChannelBuffer[buffers.length];
+    for (int i = 0; i < buffers.length; i++) {
+      cbs[i] = buffers[i].buffer;
+    }
+    return new Buffer(ChannelBuffers.wrappedBuffer(cbs));
+  }
+
+  /**
+   * Create a new empty Buffer, like {@link #Buffer(int)}, whose storage is taken from the buffer pool if pooling is
+   * enabled. Call {@link #release} when the buffer is no longer needed, including by any pending write of it.
+   * If pooling is disabled this returns an ordinary Buffer, and {@code release} does nothing.
+   */
+  public static Buffer createPooled(int initialSizeHint) {
+    if (BufferPool.isEnabled()) {
+      return new Buffer(new PooledChannelBuffer(initialSizeHint));
+    } else {
+      return new Buffer(initialSizeHint);
+    }
+  }
+
+  /**
+   * Create a new empty Buffer, like {@link #Buffer(int)}, whose storage is off-heap. Data written to or read from
+   * files and sockets through a direct Buffer doesn't need to be copied between the Java heap and native memory.<p>
+   * Call {@link #release} when the buffer is no longer needed, including by any pending write of it, to free its
+   * native memory straight away, or to return it to the buffer pool if pooling is enabled. Otherwise the memory is
+   * freed when the Buffer is garbage collected.
+   */
+  public static Buffer createDirect(int initialSizeHint) {
+    return new Buffer(new PooledChannelBuffer(initialSizeHint, true));
+  }
+
+  /**
+   * Returns {@code true} if this Buffer was created by {@link #createPooled} while pooling was enabled, or by
+   * {@link #createDirect}, so should be released with {@link #release}
+   */
+  public boolean isPooled() {
+    return buffer instanceof PooledChannelBuffer;
+  }
+
+  /**
+   * Returns {@code true} if the storage of this Buffer is off-heap
+   */
+  public boolean isDirect() {
+    return buffer.isDirect();
+  }
+
+  /**
+   * Return the storage of a pooled or direct Buffer to the pool, or free it. The Buffer, and any slice,
+   * {@code ByteBuffer} or {@code ChannelBuffer} obtained from it, must not be used after this call. Does nothing for
+   * any other Buffer.
+   *
+   * @throws IllegalStateException if the Buffer has already been released
+   */
+  public void release() {
+    if (buffer instanceof PooledChannelBuffer) {
+      ((PooledChannelBuffer) buffer).release();
     }
   }
 
@@ -105,14 +178,14 @@ public class Buffer {
    * Returns a {@code String} represention of the Buffer assuming it contains a {@code String} encoding in UTF-8
    */
   public String toString() {
-    return buffer.toString(Charset.forName("UTF-8"));
+    return StringCodec.decode(buffer, 0, length(), StringCodec.UTF_8);
   }
 
   /**
    * Returns a {@code String} represention of the Buffer with the encoding specified by {@code enc}
    */
   public String toString(String enc) {
-    return buffer.toString(Charset.forName(enc));
+    return StringCodec.decode(buffer, 0, length(), StringCodec.charset(enc));
   }
 
   /**
@@ -199,27 +272,50 @@ public class Buffer {
    * and ending at position {@code end - 1}
    */
   public Buffer getBuffer(int start, int end) {
-    return new Buffer(getBytes(start, end));
+    return new Buffer(buffer.copy(start, end - start));
+  }
+
+  /**
+   * Returns a view of the sub-sequence of the Buffer starting at position {@code start} and ending at position
+   * {@code end - 1}. No bytes are copied: the view and this Buffer share their storage for those positions.
+   *
+   * @throws IndexOutOfBoundsException if {@code start} is negative, {@code end} is greater than the length of the
+   *                                   Buffer or {@code start} is greater than {@code end}
+   */
+  public Buffer slice(int start, int end) {
+    checkRange(start, end);
+    return new Buffer(buffer.slice(start, end - start));
+  }
+
+  /**
+   * Returns a view of the whole Buffer which shares its storage. Unlike {@link #copy} no bytes are copied.
+   */
+  public Buffer slice() {
+    return slice(0, length());
   }
 
   /**
    * Returns a copy of a sub-sequence the Buffer as a {@code byte[]} starting at position {@code start}
    * and ending at position {@code end - 1} interpreted as a String in the specified encoding
+   *
+   * @throws IndexOutOfBoundsException if {@code start} is negative, {@code end} is greater than the length of the
+   *                                   Buffer or {@code start} is greater than {@code end}
    */
   public String getString(int start, int end, String enc) {
-    byte[] bytes = getBytes(start, end);
-    Charset cs = Charset.forName(enc);
-    return new String(bytes, cs);
+    checkRange(start, end);
+    return StringCodec.decode(buffer, start, end, StringCodec.charset(enc));
   }
 
   /**
    * Returns a copy of a sub-sequence the Buffer as a {@code byte[]} starting at position {@code start}
    * and ending at position {@code end - 1} interpreted as a String in UTF-8 encoding
+   *
+   * @throws IndexOutOfBoundsException if {@code start} is negative, {@code end} is greater than the length of the
+   *                                   Buffer or {@code start} is greater than {@code end}
    */
   public String getString(int start, int end) {
-    byte[] bytes = getBytes(start, end);
-    Charset cs = Charset.forName("UTF-8");
-    return new String(bytes, cs);
+    checkRange(start, end);
+    return StringCodec.decode(buffer, start, end, StringCodec.UTF_8);
   }
 
   /**
@@ -227,9 +323,8 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendBuffer(Buffer buff) {
-    ChannelBuffer cb = buff.getChannelBuffer();
-    buffer.writeBytes(buff.getChannelBuffer());
-    cb.readerIndex(0); // Need to reset readerindex since Netty write modifies readerIndex of source!
+    int len = buff.length();
+    writable(len).writeBytes(buff.buffer, 0, len);
     return this;
   }
 
@@ -238,7 +333,16 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendBytes(byte[] bytes) {
-    buffer.writeBytes(bytes);
+    writable(bytes.length).writeBytes(bytes);
+    return this;
+  }
+
+  /**
+   * Appends {@code len} bytes of the specified {@code byte[]}, starting at {@code offset}, to the end of the Buffer. The buffer will expand as necessary to accomodate any bytes written.<p>
+   * Returns a reference to {@code this} so multiple operations can be appended together.
+   */
+  public Buffer appendBytes(byte[] bytes, int offset, int len) {
+    writable(len).writeBytes(bytes, offset, len);
     return this;
   }
 
@@ -247,7 +351,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendByte(byte b) {
-    buffer.writeByte(b);
+    writable(1).writeByte(b);
     return this;
   }
 
@@ -256,7 +360,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendInt(int i) {
-    buffer.writeInt(i);
+    writable(4).writeInt(i);
     return this;
   }
 
@@ -265,7 +369,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendLong(long l) {
-    buffer.writeLong(l);
+    writable(8).writeLong(l);
     return this;
   }
 
@@ -274,7 +378,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendShort(short s) {
-    buffer.writeShort(s);
+    writable(2).writeShort(s);
     return this;
   }
 
@@ -283,7 +387,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendFloat(float f) {
-    buffer.writeFloat(f);
+    writable(4).writeFloat(f);
     return this;
   }
 
@@ -292,7 +396,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendDouble(double d) {
-    buffer.writeDouble(d);
+    writable(8).writeDouble(d);
     return this;
   }
 
@@ -302,7 +406,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.<p>
    */
   public Buffer appendString(String str, String enc) {
-    return append(str, Charset.forName(enc));
+    return append(str, StringCodec.charset(enc));
   }
 
   /**
@@ -311,7 +415,7 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together<p>
    */
   public Buffer appendString(String str) {
-    return append(str, CharsetUtil.UTF_8);
+    return append(str, StringCodec.UTF_8);
   }
 
   /**
@@ -380,7 +484,7 @@ public class Buffer {
    */
   public Buffer setBuffer(int pos, Buffer b) {
     ensureWritable(pos, b.length());
-    buffer.setBytes(pos, b.getChannelBuffer());
+    buffer.setBytes(pos, b.buffer, 0, b.length());
     return this;
   }
 
@@ -409,7 +513,7 @@ public class Buffer {
    * The buffer will expand as necessary to accomodate any value written.
    */
   public Buffer setString(int pos, String str) {
-    return setBytes(pos, str, CharsetUtil.UTF_8);
+    return setBytes(pos, str, StringCodec.UTF_8);
   }
 
   /**
@@ -417,7 +521,7 @@ public class Buffer {
    * The buffer will expand as necessary to accomodate any value written.
    */
   public Buffer setString(int pos, String str, String enc) {
-    return setBytes(pos, str, Charset.forName(enc));
+    return setBytes(pos, str, StringCodec.charset(enc));
   }
 
   /**
@@ -444,15 +548,52 @@ public class Buffer {
   }
 
   private Buffer append(String str, Charset charset) {
-    byte[] bytes = str.getBytes(charset);
-    buffer.writeBytes(bytes);
+    int len = StringCodec.encodedLength(str, charset);
+    if (len == -1) {
+      byte[] bytes = str.getBytes(charset);
+      writable(bytes.length).writeBytes(bytes);
+    } else {
+      ChannelBuffer cb = writable(len);
+      cb.ensureWritableBytes(len);
+      int pos = cb.writerIndex();
+      encode(cb, pos, str, charset, len);
+      cb.writerIndex(pos + len);
+    }
     return this;
   }
 
+  // Encodes straight into the backing array if there is one
+  private static void encode(ChannelBuffer cb, int pos, String str, Charset charset, int len) {
+    if (cb.hasArray()) {
+      StringCodec.encode(str, charset, cb.array(), cb.arrayOffset() + pos);
+    } else {
+      byte[] bytes = new byte[len];
+      StringCodec.encode(str, charset, bytes, 0);
+      cb.setBytes(pos, bytes);
+    }
+  }
+
+  // Returns the storage to append len bytes to, first copying a view which isn't big enough into storage of its own
+  private ChannelBuffer writable(int len) {
+    if (buffer.writableBytes() < len && !(buffer instanceof DynamicChannelBuffer)) {
+      int length = buffer.writerIndex();
+      ChannelBuffer dynamic = ChannelBuffers.dynamicBuffer(Math.max(length + len, 64));
+      dynamic.writeBytes(buffer, 0, length);
+      buffer = dynamic;
+    }
+    return buffer;
+  }
+
   private Buffer setBytes(int pos, String str, Charset charset) {
-    byte[] bytes = str.getBytes(charset);
-    ensureWritable(pos, bytes.length);
-    buffer.setBytes(pos, bytes);
+    int len = StringCodec.encodedLength(str, charset);
+    if (len == -1) {
+      byte[] bytes = str.getBytes(charset);
+      ensureWritable(pos, bytes.length);
+      buffer.setBytes(pos, bytes);
+    } else {
+      ensureWritable(pos, len);
+      encode(buffer, pos, str, charset, len);
+    }
     return this;
   }
 
@@ -460,6 +601,9 @@ public class Buffer {
   //like Netty that would be preferable
   private void ensureWritable(int pos, int len) {
     int ni = pos + len;
+    if (ni > buffer.capacity()) {
+      writable(ni - buffer.writerIndex());
+    }
     int cap = buffer.capacity();
     int over = ni - cap;
     if (over > 0) {
@@ -472,6 +616,12 @@ public class Buffer {
     }
   }
 
+  private void checkRange(int start, int end) {
+    if (start < 0 || end > length() || start > end) {
+      throw new IndexOutOfBoundsException("Invalid range " + start + " to " + end + " of buffer of length " + length());
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.buffer.impl;
+
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>An opt-in pool of byte arrays and direct byte buffers used as the backing storage of pooled and direct
+ * {@link org.vertx.java.core.buffer.Buffer} instances and of temporary buffers on internal I/O paths.</p>
+ *
+ * <p>Storage is bucketed into power of two size classes from {@link #MIN_SIZE} to {@link #MAX_SIZE} bytes. Each
+ * thread (in practice each event loop) keeps its own free list per size class, so allocating and releasing never
+ * contends with other threads. Requests larger than {@link #MAX_SIZE} are not pooled.</p>
+ *
+ * <p>Pooling is disabled unless the system property {@code org.vertx.pooled-buffers} is set to {@code true}, or
+ * {@link #setEnabled} is called. When disabled, {@link #allocate} simply returns a new array, and direct storage
+ * passed to {@link #releaseDirect} is freed immediately rather than waiting for the garbage collector.</p>
+ *
+ * <p>If the system property {@code org.vertx.direct-buffers} is {@code true}, I/O paths which hand data straight on to
+ * another channel, such as file read streams and socket reads, use direct buffers to avoid copying between the heap
+ * and native memory.</p>
+ *
+ * <p>If the system property {@code org.vertx.buffer-leak-detection} is {@code true}, every pooled Buffer records where
+ * it was allocated, and a pooled Buffer which is garbage collected without being released is logged as a leak.</p>
+ *
+ * <p>This class shouldn't be used directly from user applications.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class BufferPool {
+
+  private static final Logger log = LoggerFactory.getLogger(BufferPool.class);
+
+  public static final String POOLED_BUFFERS_PROP_NAME = "org.vertx.pooled-buffers";
+  public static final String LEAK_DETECTION_PROP_NAME = "org.vertx.buffer-leak-detection";
+  public static final String DIRECT_BUFFERS_PROP_NAME = "org.vertx.direct-buffers";
+
+  public static final int MIN_SIZE = 256;
+  public static final int MAX_SIZE = 64 * 1024;
+
+  private static final int MIN_SHIFT = 8;
+  private static final int NUM_CLASSES = 9;
+  // The most memory each thread will keep cached in a single size class
+  private static final int MAX_CACHED_BYTES_PER_CLASS = 1024 * 1024;
+  private static final int MAX_CACHED_ARRAYS_PER_CLASS = 512;
+
+  private static volatile boolean enabled = Boolean.getBoolean(POOLED_BUFFERS_PROP_NAME);
+  private static volatile boolean leakDetection = Boolean.getBoolean(LEAK_DETECTION_PROP_NAME);
+  private static volatile boolean directByDefault = Boolean.getBoolean(DIRECT_BUFFERS_PROP_NAME);
+
+  private static final ThreadLocal<ThreadCache> caches = new ThreadLocal<ThreadCache>() {
+    protected ThreadCache initialValue() {
+      return new ThreadCache();
+    }
+  };
+  private static final ThreadLocal<ThreadCache> directCaches = new ThreadLocal<ThreadCache>() {
+    protected ThreadCache initialValue() {
+      return new ThreadCache();
+    }
+  };
+  private static final Cleaner cleaner = Cleaner.create();
+
+  private static final ReferenceQueue<Object> leakQueue = new ReferenceQueue<>();
+  private static final Set<LeakTracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+  private static final AtomicLong leakCount = new AtomicLong(0);
+
+  private BufferPool() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    BufferPool.enabled = enabled;
+  }
+
+  public static boolean isLeakDetection() {
+    return leakDetection;
+  }
+
+  public static void setLeakDetection(boolean leakDetection) {
+    BufferPool.leakDetection = leakDetection;
+  }
+
+  public static boolean isDirectByDefault() {
+    return directByDefault;
+  }
+
+  public static void setDirectByDefault(boolean directByDefault) {
+    BufferPool.directByDefault = directByDefault;
+  }
+
+  /**
+   * Return an array of at least {@code size} bytes. If pooling is enabled and {@code size} is no larger than
+   * {@link #MAX_SIZE}, the array length will be the size class of {@code size} and it may have been used before, so
+   * its contents are undefined.
+   */
+  public static byte[] allocate(int size) {
+    if (!enabled || size > MAX_SIZE) {
+      return new byte[size];
+    }
+    int sizeClass = sizeClassIndex(size);
+    byte[] arr = (byte[]) caches.get().poll(sizeClass);
+    return arr != null ? arr : new byte[MIN_SIZE << sizeClass];
+  }
+
+  /**
+   * Return a direct buffer with a capacity of at least {@code size} bytes, and with position zero and limit equal
+   * to its capacity. If pooling is enabled the buffer may have been used before, so its contents are undefined.
+   */
+  public static ByteBuffer allocateDirect(int size) {
+    if (!enabled || size > MAX_SIZE) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    int sizeClass = sizeClassIndex(size);
+    ByteBuffer buff = (ByteBuffer) directCaches.get().poll(sizeClass);
+    if (buff == null) {
+      return ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+    }
+    buff.clear();
+    return buff;
+  }
+
+  /**
+   * Return a buffer obtained from {@link #allocateDirect}. It is kept in the calling thread's cache if pooling is
+   * enabled and there's room, otherwise its native memory is freed straight away. The buffer, and any view of it,
+   * must not be used after this call.
+   */
+  public static void releaseDirect(ByteBuffer buff) {
+    if (buff == null) {
+      return;
+    }
+    int cap = buff.capacity();
+    if (enabled && cap >= MIN_SIZE && cap <= MAX_SIZE && (cap & (cap - 1)) == 0 &&
+        directCaches.get().offer(sizeClassIndex(cap), buff)) {
+      return;
+    }
+    cleaner.clean(buff);
+  }
+
+  /**
+   * Return an array obtained from {@link #allocate} to the calling thread's cache. The array must not be used after
+   * this call. Arrays which aren't exactly a size class, or which don't fit in the cache, are left to the garbage
+   * collector.
+   */
+  public static void release(byte[] arr) {
+    if (!enabled || arr == null) {
+      return;
+    }
+    int len = arr.length;
+    if (len < MIN_SIZE || len > MAX_SIZE || (len & (len - 1)) != 0) {
+      return;
+    }
+    caches.get().offer(sizeClassIndex(len), arr);
+  }
+
+  /**
+   * Return the length of the arrays which {@link #allocate} hands out for a request of {@code size} bytes
+   */
+  public static int sizeClass(int size) {
+    if (size > MAX_SIZE) {
+      return size;
+    }
+    return MIN_SIZE << sizeClassIndex(size);
+  }
+
+  /**
+   * Return the number of arrays currently cached by the calling thread
+   */
+  public static int getCachedCount() {
+    return caches.get().cachedCount();
+  }
+
+  /**
+   * Return the number of direct buffers currently cached by the calling thread
+   */
+  public static int getCachedDirectCount() {
+    return directCaches.get().cachedCount();
+  }
+
+  /**
+   * Return the total number of leaks detected so far
+   */
+  public static long getLeakCount() {
+    return leakCount.get();
+  }
+
+  /**
+   * Log any pooled buffers which have been garbage collected without being released and return how many were found.
+   * This is also done on every pooled allocation when leak detection is enabled.
+   */
+  public static int detectLeaks() {
+    int found = 0;
+    LeakTracker tracker;
+    while ((tracker = (LeakTracker) leakQueue.poll()) != null) {
+      if (trackers.remove(tracker)) {
+        found++;
+        leakCount.incrementAndGet();
+        log.error("LEAK: a pooled Buffer was garbage collected without being released. Allocated at:", tracker.allocationSite);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Start tracking {@code buffer} for leaks, if leak detection is enabled.
+   * @return The tracker to close when the buffer is released, or null
+   */
+  static LeakTracker track(Object buffer) {
+    if (!leakDetection) {
+      return null;
+    }
+    detectLeaks();
+    LeakTracker tracker = new LeakTracker(buffer, leakQueue);
+    trackers.add(tracker);
+    return tracker;
+  }
+
+  private static int sizeClassIndex(int size) {
+    if (size <= MIN_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+
+  static class LeakTracker extends PhantomReference<Object> {
+    final Exception allocationSite = new Exception("Buffer allocation site");
+
+    LeakTracker(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+    }
+
+    void close() {
+      trackers.remove(this);
+      clear();
+    }
+  }
+
+  private static class ThreadCache {
+    final Object[][] stacks = new Object[NUM_CLASSES][];
+    final int[] counts = new int[NUM_CLASSES];
+
+    ThreadCache() {
+      for (int i = 0; i < NUM_CLASSES; i++) {
+        int max = Math.min(MAX_CACHED_ARRAYS_PER_CLASS, Math.max(8, MAX_CACHED_BYTES_PER_CLASS / (MIN_SIZE << i)));
+        stacks[i] = new Object[max];
+      }
+    }
+
+    Object poll(int sizeClass) {
+      int count = counts[sizeClass];
+      if (count == 0) {
+        return null;
+      }
+      Object[] stack = stacks[sizeClass];
+      Object storage = stack[--count];
+      stack[count] = null;
+      counts[sizeClass] = count;
+      return storage;
+    }
+
+    boolean offer(int sizeClass, Object storage) {
+      Object[] stack = stacks[sizeClass];
+      int count = counts[sizeClass];
+      if (count < stack.length) {
+        stack[count] = storage;
+        counts[sizeClass] = count + 1;
+        return true;
+      }
+      return false;
+    }
+
+    int cachedCount() {
+      int tot = 0;
+      for (int count: counts) {
+        tot += count;
+      }
+      return tot;
+    }
+  }
+
+  /*
+  There's no public API to free the native memory of a direct buffer, so use the JDK internal one if it's there,
+  otherwise the memory is freed when the buffer is garbage collected
+   */
+  private static abstract class Cleaner {
+
+    abstract void clean(ByteBuffer buff);
+
+    static Cleaner create() {
+      try {
+        // Java 9 and later
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        final Object unsafe = field.get(null);
+        final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        return new Cleaner() {
+          void clean(ByteBuffer buff) {
+            try {
+              invokeCleaner.invoke(unsafe, buff);
+            } catch (Exception ignore) {
+              // Not freed till it's garbage collected
+            }
+          }
+        };
+      } catch (Exception e) {
+        // Fall through
+      }
+      try {
+        // Java 7 and 8
+        ByteBuffer probe = ByteBuffer.allocateDirect(1);
+        final Method cleanerMethod = probe.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        final Method cleanMethod = cleanerMethod.getReturnType().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        return new Cleaner() {
+          void clean(ByteBuffer buff) {
+            try {
+              Object cleaner = cleanerMethod.invoke(buff);
+              if (cleaner != null) {
+                cleanMethod.invoke(cleaner);
+              }
+            } catch (Exception ignore) {
+              // Not freed till it's garbage collected
+            }
+          }
+        };
+      } catch (Exception e) {
+        log.debug("Direct buffers will be freed by the garbage collector", e);
+        return new Cleaner() {
+          void clean(ByteBuffer buff) {
+          }
+        };
+      }
+    }
+  }
+}
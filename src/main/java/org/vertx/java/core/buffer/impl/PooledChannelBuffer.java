@@ -0,0 +1,168 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.buffer.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DynamicChannelBuffer;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A dynamic channel buffer whose backing storage, either heap arrays or direct buffers, is taken from the
+ * {@link BufferPool}.</p>
+ *
+ * <p>When the buffer expands, the storage it outgrew is kept until {@link #release}, since a view of it taken
+ * earlier with {@code toByteBuffer()}, e.g. by a pending file write, may still be in use. {@code release} returns the
+ * current and the outgrown storage to the pool, after which the buffer must not be used.</p>
+ *
+ * <p>This class shouldn't be used directly from user applications.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class PooledChannelBuffer extends DynamicChannelBuffer {
+
+  private final StorageFactory storage;
+  private final BufferPool.LeakTracker tracker;
+  // Storage the buffer has expanded out of, freed on release
+  private List<Object> outgrown;
+  private boolean released;
+
+  public PooledChannelBuffer(int estimatedLength) {
+    this(estimatedLength, false);
+  }
+
+  public PooledChannelBuffer(int estimatedLength, boolean direct) {
+    this(estimatedLength, new StorageFactory(direct));
+  }
+
+  private PooledChannelBuffer(int estimatedLength, StorageFactory storage) {
+    super(ByteOrder.BIG_ENDIAN, estimatedLength, storage);
+    this.storage = storage;
+    this.tracker = BufferPool.track(this);
+  }
+
+  public void ensureWritableBytes(int minWritableBytes) {
+    Object old = storage.current;
+    super.ensureWritableBytes(minWritableBytes);
+    if (storage.current != old && old != null) {
+      if (outgrown == null) {
+        outgrown = new ArrayList<>();
+      }
+      outgrown.add(old);
+    }
+  }
+
+  public ChannelBuffer copy(int index, int length) {
+    // Copies are owned by whoever asked for them, so they must not take storage from the pool
+    DynamicChannelBuffer copy = new DynamicChannelBuffer(order(), Math.max(length, 64));
+    copy.writeBytes(this, index, length);
+    return copy;
+  }
+
+  public boolean isReleased() {
+    return released;
+  }
+
+  /**
+   * Return the backing storage to the pool
+   * @throws IllegalStateException if the buffer has already been released
+   */
+  public void release() {
+    if (released) {
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    released = true;
+    if (tracker != null) {
+      tracker.close();
+    }
+    if (outgrown != null) {
+      for (Object old: outgrown) {
+        storage.free(old);
+      }
+      outgrown = null;
+    }
+    storage.free(storage.current);
+    storage.current = null;
+  }
+
+  /*
+  Each buffer has its own factory so it can tell which storage it is currently using
+   */
+  private static class StorageFactory implements ChannelBufferFactory {
+
+    final boolean direct;
+    Object current;
+
+    StorageFactory(boolean direct) {
+      this.direct = direct;
+    }
+
+    public ChannelBuffer getBuffer(int capacity) {
+      return getBuffer(getDefaultOrder(), capacity);
+    }
+
+    public ChannelBuffer getBuffer(ByteOrder order, int capacity) {
+      if (capacity == 0) {
+        current = null;
+        return ChannelBuffers.EMPTY_BUFFER;
+      }
+      ChannelBuffer buff;
+      if (direct) {
+        ByteBuffer bb = BufferPool.allocateDirect(capacity);
+        current = bb;
+        buff = ChannelBuffers.wrappedBuffer(bb.order(order));
+      } else {
+        byte[] arr = BufferPool.allocate(capacity);
+        current = arr;
+        buff = ChannelBuffers.wrappedBuffer(order, arr);
+      }
+      buff.clear();
+      return buff;
+    }
+
+    void free(Object storage) {
+      if (storage instanceof ByteBuffer) {
+        BufferPool.releaseDirect((ByteBuffer) storage);
+      } else if (storage != null) {
+        BufferPool.release((byte[]) storage);
+      }
+    }
+
+    public ChannelBuffer getBuffer(byte[] array, int offset, int length) {
+      return HeapChannelBufferFactory.getInstance().getBuffer(array, offset, length);
+    }
+
+    public ChannelBuffer getBuffer(ByteOrder order, byte[] array, int offset, int length) {
+      return HeapChannelBufferFactory.getInstance(order).getBuffer(order, array, offset, length);
+    }
+
+    public ChannelBuffer getBuffer(ByteBuffer nioBuffer) {
+      return HeapChannelBufferFactory.getInstance().getBuffer(nioBuffer);
+    }
+
+    public ByteOrder getDefaultOrder() {
+      return ByteOrder.BIG_ENDIAN;
+    }
+  }
+}
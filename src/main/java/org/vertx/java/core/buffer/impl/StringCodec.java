@@ -0,0 +1,180 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.buffer.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.util.CharsetUtil;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Encodes and decodes Strings straight to and from the storage of a buffer.</p>
+ *
+ * <p>UTF-8, US-ASCII and ISO-8859-1 are encoded directly into the destination, without an intermediate byte array or
+ * encoder. Decoding reads straight from the backing array of heap buffers. Charsets are looked up once per name.</p>
+ *
+ * <p>This class shouldn't be used directly from user applications.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class StringCodec {
+
+  public static final Charset UTF_8 = CharsetUtil.UTF_8;
+  public static final Charset US_ASCII = CharsetUtil.US_ASCII;
+  public static final Charset ISO_8859_1 = CharsetUtil.ISO_8859_1;
+
+  private static final ConcurrentMap<String, Charset> charsets = new ConcurrentHashMap<>();
+
+  private StringCodec() {
+  }
+
+  /**
+   * Return the charset called {@code enc}, looking it up only the first time it is asked for
+   */
+  public static Charset charset(String enc) {
+    if (enc.equals("UTF-8")) {
+      return UTF_8;
+    }
+    Charset cs = charsets.get(enc);
+    if (cs == null) {
+      cs = Charset.forName(enc);
+      charsets.putIfAbsent(enc, cs);
+    }
+    return cs;
+  }
+
+  /**
+   * Return the number of bytes {@code str} encodes to in charset {@code cs}, or -1 if it isn't a charset which can be
+   * encoded directly
+   */
+  public static int encodedLength(String str, Charset cs) {
+    if (cs == UTF_8) {
+      return utf8Length(str);
+    } else if (cs == US_ASCII || cs == ISO_8859_1) {
+      int len = str.length();
+      for (int i = 0; i < len; i++) {
+        if (Character.isSurrogate(str.charAt(i))) {
+          // A surrogate pair becomes a single '?', so leave these rare strings to the JDK
+          return -1;
+        }
+      }
+      return len;
+    } else {
+      return -1;
+    }
+  }
+
+  /**
+   * Encode {@code str} into {@code dst} starting at {@code pos}. {@code cs} must be a charset for which
+   * {@link #encodedLength} doesn't return -1, and {@code dst} must have room for that many bytes.
+   */
+  public static void encode(String str, Charset cs, byte[] dst, int pos) {
+    if (cs == UTF_8) {
+      encodeUtf8(str, dst, pos);
+    } else {
+      char max = cs == US_ASCII ? (char) 0x7F : (char) 0xFF;
+      int len = str.length();
+      for (int i = 0; i < len; i++) {
+        char c = str.charAt(i);
+        dst[pos++] = (byte) (c <= max ? c : '?');
+      }
+    }
+  }
+
+  /**
+   * Return {@code str} encoded in charset {@code cs}
+   */
+  public static byte[] encode(String str, Charset cs) {
+    int len = encodedLength(str, cs);
+    if (len == -1) {
+      return str.getBytes(cs);
+    }
+    byte[] bytes = new byte[len];
+    encode(str, cs, bytes, 0);
+    return bytes;
+  }
+
+  /**
+   * Decode the bytes from position {@code start} to {@code end - 1} of {@code buff} in charset {@code cs}
+   */
+  public static String decode(ChannelBuffer buff, int start, int end, Charset cs) {
+    if (buff.hasArray()) {
+      return new String(buff.array(), buff.arrayOffset() + start, end - start, cs);
+    } else {
+      return buff.toString(start, end - start, cs);
+    }
+  }
+
+  private static int utf8Length(String str) {
+    int len = str.length();
+    int bytes = len;
+    for (int i = 0; i < len; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80) {
+        if (c < 0x800) {
+          bytes++;
+        } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+          // A surrogate pair is 4 bytes for 2 chars
+          bytes += 2;
+          i++;
+        } else if (Character.isSurrogate(c)) {
+          // Unpaired surrogates are replaced with '?', like String.getBytes does
+        } else {
+          bytes += 2;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static void encodeUtf8(String str, byte[] dst, int pos) {
+    int len = str.length();
+    int i = 0;
+    // Most strings are mostly ASCII
+    for (; i < len; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      dst[pos++] = (byte) c;
+    }
+    for (; i < len; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        dst[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        dst[pos++] = (byte) (0xC0 | (c >> 6));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, str.charAt(++i));
+        dst[pos++] = (byte) (0xF0 | (cp >> 18));
+        dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        dst[pos++] = (byte) '?';
+      } else {
+        dst[pos++] = (byte) (0xE0 | (c >> 12));
+        dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        dst[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+}
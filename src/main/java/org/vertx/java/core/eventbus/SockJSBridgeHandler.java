@@ -20,6 +20,7 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.json.impl.Json;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.sockjs.SockJSSocket;
@@ -87,11 +88,20 @@ public class SockJSBridgeHandler implements Handler<SockJSSocket> {
       }
 
       private void deliverMessage(String address, Message<JsonObject> jsonMessage) {
-        JsonObject envelope = new JsonObject().putString("address", address).putObject("body", jsonMessage.body);
+        // The envelope is written by hand so the body can be copied in as it is, rather than being decoded into the
+        // envelope and then encoded again
+        Buffer envelope = new Buffer();
+        envelope.appendString("{\"address\":").appendString(Json.encode(address)).appendString(",\"body\":");
+        if (jsonMessage.body == null) {
+          envelope.appendString("null");
+        } else {
+          jsonMessage.body.writeTo(envelope);
+        }
         if (jsonMessage.replyAddress != null) {
-          envelope.putString("replyAddress", jsonMessage.replyAddress);
+          envelope.appendString(",\"replyAddress\":").appendString(Json.encode(jsonMessage.replyAddress));
         }
-        sock.writeBuffer(new Buffer(envelope.encode()));
+        envelope.appendString("}");
+        sock.writeBuffer(envelope);
       }
 
       private void handleRegister(final String address) {
@@ -130,7 +140,7 @@ public class SockJSBridgeHandler implements Handler<SockJSSocket> {
 
       public void handle(Buffer data)  {
 
-        JsonObject msg = new JsonObject(data.toString());
+        JsonObject msg = new JsonObject(data);
 
         String type = getMandatoryString(msg, "type");
         String address = getMandatoryString(msg, "address");
@@ -18,6 +18,7 @@ package org.vertx.java.core.eventbus.impl;
 
 import org.jboss.netty.util.CharsetUtil;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
@@ -83,7 +84,7 @@ public abstract class BaseMessage<T> extends Message<T> {
     int length = 1 + 4 + address.length() + 1 + 4 * sender.host.length() +
         4 + (replyAddress == null ? 0 : replyAddress.length()) +
         getBodyLength();
-    Buffer totBuff = new Buffer(length);
+    final Buffer totBuff = Buffer.createPooled(length);
     totBuff.appendInt(0);
     totBuff.appendByte(type());
     writeString(totBuff, address);
@@ -96,7 +97,16 @@ public abstract class BaseMessage<T> extends Message<T> {
     }
     writeBody(totBuff);
     totBuff.setInt(0, totBuff.length() - 4);
-    socket.write(totBuff);
+    if (totBuff.isPooled()) {
+      // The frame can only go back to the pool once it has actually been written to the wire
+      socket.write(totBuff, new SimpleHandler() {
+        public void handle() {
+          totBuff.release();
+        }
+      });
+    } else {
+      socket.write(totBuff);
+    }
   }
 
   protected void writeString(Buffer buff, String str) {
@@ -33,7 +33,7 @@ import org.vertx.java.core.net.NetClient;
 import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.core.net.impl.ServerID;
-import org.vertx.java.core.parsetools.RecordParser;
+import org.vertx.java.core.parsetools.FrameParser;
 
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
@@ -267,28 +267,17 @@ public class DefaultEventBus extends EventBus {
   private NetServer setServer() {
     return new NetServer().connectHandler(new Handler<NetSocket>() {
       public void handle(final NetSocket socket) {
-        final RecordParser parser = RecordParser.newFixed(4, null);
-        Handler<Buffer> handler = new Handler<Buffer>() {
-          int size = -1;
+        socket.dataHandler(FrameParser.newFixedLength(4, new Handler<Buffer>() {
           public void handle(Buffer buff) {
-            if (size == -1) {
-              size = buff.getInt(0);
-              parser.fixedSizeMode(size);
+            BaseMessage received = MessageFactory.read(buff);
+            if (received.type() == MessageFactory.TYPE_PING) {
+              // Send back a pong - a byte will do
+              socket.write(PONG);
             } else {
-              BaseMessage received = MessageFactory.read(buff);
-              if (received.type() == MessageFactory.TYPE_PING) {
-                // Send back a pong - a byte will do
-                socket.write(PONG);
-              } else {
-                receiveMessage(received);
-              }
-              parser.fixedSizeMode(4);
-              size = -1;
+              receiveMessage(received);
             }
           }
-        };
-        parser.setOutput(handler);
-        socket.dataHandler(parser);
+        }));
       }
     }).listen(serverID.port, serverID.host);
   }
@@ -16,7 +16,6 @@
 
 package org.vertx.java.core.eventbus.impl;
 
-import org.jboss.netty.util.CharsetUtil;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
@@ -31,7 +30,8 @@ class JsonMessage extends BaseMessage<JsonObject> {
 
   private static final Logger log = LoggerFactory.getLogger(JsonMessage.class);
 
-  private byte[] encoded;
+  // The length of the last body encoded, used to guess the size of bodies whose length isn't known in advance
+  private static volatile int lastEncodedLength = 128;
 
   JsonMessage(String address, JsonObject body) {
     super(address, body);
@@ -54,9 +54,9 @@ class JsonMessage extends BaseMessage<JsonObject> {
       pos++;
       int strLength = readBuff.getInt(pos);
       pos += 4;
-      byte[] bytes = readBuff.getBytes(pos, pos + strLength);
-      String str = new String(bytes, CharsetUtil.UTF_8);
-      body = new JsonObject(str);
+      // Validated here but decoded lazily, so handlers only pay for the fields they read and forwarding the body
+      // doesn't re-encode it
+      body = new JsonObject(readBuff.getBytes(pos, pos + strLength));
     }
   }
 
@@ -65,19 +65,24 @@ class JsonMessage extends BaseMessage<JsonObject> {
       buff.appendByte((byte)0);
     } else {
       buff.appendByte((byte)1);
-      buff.appendInt(encoded.length);
-      buff.appendBytes(encoded);
+      // The body is encoded straight into the frame, so its length is filled in afterwards
+      int lengthPos = buff.length();
+      buff.appendInt(0);
+      body.writeTo(buff);
+      int bodyLength = buff.length() - lengthPos - 4;
+      buff.setInt(lengthPos, bodyLength);
+      lastEncodedLength = bodyLength;
     }
   }
 
   protected int getBodyLength() {
     if (body == null) {
       return 1;
-    } else {
-      String strJson = body.encode();
-      encoded = strJson.getBytes(CharsetUtil.UTF_8);
-      return 1 + 4 + encoded.length;
     }
+    // A body which hasn't been modified since it was decoded has a known length, otherwise this is only a guess to
+    // size the frame, which grows if the body turns out to be bigger
+    int length = body.encodedLength();
+    return 1 + 4 + (length == -1 ? lastEncodedLength : length);
   }
 
   protected Message copy() {
@@ -38,6 +38,12 @@ public class HazelcastSubsMap implements SubsMap, EntryListener<String, Hazelcas
 
   private static final Logger log = LoggerFactory.getLogger(HazelcastSubsMap.class);
 
+  /**
+   * If a worker pool with this name has been declared, cluster subscription lookups run on it instead of on the pool
+   * of the calling context
+   */
+  public static final String WORKER_POOL_NAME = "vert.x-cluster";
+
   private final com.hazelcast.core.MultiMap<String, HazelcastServerID> map;
 
   /*
@@ -59,7 +65,7 @@ public class HazelcastSubsMap implements SubsMap, EntryListener<String, Hazelcas
 
   @Override
   public void put(final String subName, final ServerID serverID, final AsyncResultHandler<Void> completionHandler) {
-    new BlockingAction<Void>(completionHandler) {
+    new BlockingAction<Void>(WORKER_POOL_NAME, completionHandler) {
       public Void action() throws Exception {
         map.put(subName, new HazelcastServerID(serverID));
         return null;
@@ -73,7 +79,7 @@ public class HazelcastSubsMap implements SubsMap, EntryListener<String, Hazelcas
     if (entries != null && entries.initialised) {
       completionHandler.handle(new AsyncResult<>(entries.ids));
     } else {
-      new BlockingAction<Collection<HazelcastServerID>>(new AsyncResultHandler<Collection<HazelcastServerID>>() {
+      new BlockingAction<Collection<HazelcastServerID>>(WORKER_POOL_NAME, new AsyncResultHandler<Collection<HazelcastServerID>>() {
         public void handle(AsyncResult<Collection<HazelcastServerID>> result) {
           AsyncResult<Collection<ServerID>> sresult;
           if (result.succeeded()) {
@@ -110,7 +116,7 @@ public class HazelcastSubsMap implements SubsMap, EntryListener<String, Hazelcas
 
   @Override
   public void remove(final String subName, final ServerID serverID, final AsyncResultHandler<Boolean> completionHandler) {
-    new BlockingAction<Boolean>(completionHandler) {
+    new BlockingAction<Boolean>(WORKER_POOL_NAME, completionHandler) {
       public Boolean action() throws Exception {
         return map.remove(subName, new HazelcastServerID(serverID));
       }
@@ -16,10 +16,14 @@
 
 package org.vertx.java.core.file;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
+import org.jboss.netty.buffer.DynamicChannelBuffer;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.buffer.impl.BufferPool;
 import org.vertx.java.core.impl.BlockingAction;
 import org.vertx.java.core.impl.Context;
 import org.vertx.java.core.impl.VertxInternal;
@@ -30,6 +34,7 @@ import org.vertx.java.core.streams.WriteStream;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
@@ -38,6 +43,7 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Represents a file on the file-system which can be read from, or written to asynchronously.
@@ -75,11 +81,14 @@ public class AsyncFile {
     if (write) options.add(StandardOpenOption.WRITE);
     if (createNew) options.add(StandardOpenOption.CREATE);
     if (flush) options.add(StandardOpenOption.DSYNC);
+    // The channel group runs the JDK's own completion tasks, which must never be rejected, so it always uses the
+    // unbounded background pool. Named pool limits only apply to blocking actions submitted by vert.x
+    ExecutorService pool = VertxInternal.instance.getBackgroundPool();
     if (perms != null) {
       FileAttribute<?> attrs = PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(perms));
-      ch = AsynchronousFileChannel.open(file, options, VertxInternal.instance.getBackgroundPool(), attrs);
+      ch = AsynchronousFileChannel.open(file, options, pool, attrs);
     } else {
-      ch = AsynchronousFileChannel.open(file, options, VertxInternal.instance.getBackgroundPool());
+      ch = AsynchronousFileChannel.open(file, options, pool);
     }
     this.context = context;
   }
@@ -124,8 +133,15 @@ public class AsyncFile {
    */
   public void read(Buffer buffer, int offset, int position, int length, AsyncResultHandler<Buffer> handler) {
     check();
-    ByteBuffer bb = ByteBuffer.allocate(length);
-    doRead(buffer, offset, bb, position, handler);
+    ChannelBuffer cb = buffer.getChannelBuffer();
+    if (cb.isDirect() && offset + length <= cb.capacity()) {
+      // Read straight into the buffer's native memory, so the channel doesn't have to copy through a temporary one
+      doRead(buffer, offset, cb.toByteBuffer(offset, length), position, true, handler);
+    } else {
+      // The read is staged in a temporary buffer which is only ours, so it can come from the pool
+      ByteBuffer bb = ByteBuffer.wrap(BufferPool.allocate(length), 0, length);
+      doRead(buffer, offset, bb, position, false, handler);
+    }
   }
 
   /**
@@ -224,7 +240,14 @@ public class AsyncFile {
         void doRead() {
           if (!readInProgress) {
             readInProgress = true;
-            Buffer buff = new Buffer(BUFFER_SIZE);
+            Buffer buff;
+            if (BufferPool.isDirectByDefault()) {
+              // The data is usually pumped straight to a socket, which can then write it without copying
+              buff = new Buffer(new DynamicChannelBuffer(ByteOrder.BIG_ENDIAN, BUFFER_SIZE,
+                                                         DirectChannelBufferFactory.getInstance()));
+            } else {
+              buff = new Buffer(BUFFER_SIZE);
+            }
             read(buff, 0, pos, BUFFER_SIZE, new AsyncResultHandler<Buffer>() {
 
               public void handle(AsyncResult<Buffer> ar) {
@@ -323,14 +346,14 @@ public class AsyncFile {
    * or an error occurs
    * @param handler
    */
-  public void flush(AsyncResultHandler handler) {
+  public void flush(AsyncResultHandler<Void> handler) {
     doFlush(handler);
   }
 
-  private void doFlush(AsyncResultHandler handler) {
+  private void doFlush(AsyncResultHandler<Void> handler) {
     checkClosed();
     checkContext();
-    new BlockingAction<Void>(handler) {
+    new BlockingAction<Void>(FileSystem.WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         ch.force(false);
         return null;
@@ -382,7 +405,8 @@ public class AsyncFile {
     });
   }
 
-  private void doRead(final Buffer writeBuff, final int offset, final ByteBuffer buff, final int position, final AsyncResultHandler<Buffer> handler) {
+  private void doRead(final Buffer writeBuff, final int offset, final ByteBuffer buff, final int position,
+                      final boolean inPlace, final AsyncResultHandler<Buffer> handler) {
 
     ch.read(buff, position, null, new java.nio.channels.CompletionHandler<Integer, Object>() {
 
@@ -391,8 +415,14 @@ public class AsyncFile {
       private void done() {
         context.execute(new Runnable() {
           public void run() {
-            buff.flip();
-            writeBuff.setBytes(offset, buff);
+            if (inPlace) {
+              ChannelBuffer cb = writeBuff.getChannelBuffer();
+              cb.writerIndex(Math.max(cb.writerIndex(), offset + buff.position()));
+            } else {
+              buff.flip();
+              writeBuff.setBytes(offset, buff);
+              BufferPool.release(buff.array());
+            }
             handler.handle(new AsyncResult<>(writeBuff));
           }
         });
@@ -406,7 +436,7 @@ public class AsyncFile {
           // partial read
           pos += bytesRead;
           // resubmit
-          doRead(writeBuff, offset, buff, pos, handler);
+          doRead(writeBuff, offset, buff, pos, inPlace, handler);
         } else {
           // It's been fully written
           done();
@@ -418,6 +448,9 @@ public class AsyncFile {
           final Exception e = (Exception) exc;
           context.execute(new Runnable() {
             public void run() {
+              if (!inPlace) {
+                BufferPool.release(buff.array());
+              }
               handler.handle(new AsyncResult(e));
             }
           });
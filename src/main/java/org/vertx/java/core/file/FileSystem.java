@@ -16,9 +16,12 @@
 
 package org.vertx.java.core.file;
 
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.impl.BlockingAction;
+import org.vertx.java.core.impl.BlockingActionBatch;
 import org.vertx.java.core.impl.Context;
 
 import java.io.File;
@@ -58,6 +61,12 @@ import java.util.regex.Pattern;
  */
 public class FileSystem {
 
+  /**
+   * If a worker pool with this name has been declared, file system operations run on it instead of on the pool of the
+   * calling context
+   */
+  public static final String WORKER_POOL_NAME = "vert.x-filesystem";
+
   public static FileSystem instance = new FileSystem();
 
   private FileSystem() {
@@ -197,6 +206,42 @@ public class FileSystem {
     return lpropsInternal(path, null).action();
   }
 
+  /**
+   * Obtain properties for each of the files represented by {@code paths}, asynchronously.
+   * All the files are examined in a single task on the worker pool, so this is much cheaper than calling
+   * {@link #props(String, AsyncResultHandler)} once per file.
+   * If a file is a link, the link will be followed.<p>
+   * The result has one entry per path, in the same order, which is {@code null} if the file does not exist.
+   * The handler will be called when the operation completes or an error occurs
+   */
+  public void props(String[] paths, AsyncResultHandler<FileProps[]> handler) {
+    props(paths, true, handler);
+  }
+
+  /**
+   * Synchronous version of {@link #props(String[], AsyncResultHandler)}
+   */
+  public FileProps[] propsSync(String[] paths) throws Exception {
+    return propsSync(paths, true);
+  }
+
+  /**
+   * Obtain properties for each of the links represented by {@code paths}, asynchronously.
+   * The links will not be followed.<p>
+   * The result has one entry per path, in the same order, which is {@code null} if the file does not exist.
+   * The handler will be called when the operation completes or an error occurs
+   */
+  public void lprops(String[] paths, AsyncResultHandler<FileProps[]> handler) {
+    props(paths, false, handler);
+  }
+
+  /**
+   * Synchronous version of {@link #lprops(String[], AsyncResultHandler)}
+   */
+  public FileProps[] lpropsSync(String[] paths) throws Exception {
+    return propsSync(paths, false);
+  }
+
   /**
    * Create a hard link on the file system from {@code link} to {@code existing}, asynchronously.<p>
    * The handler will be called when the operation completes or an error occurs
@@ -570,6 +615,32 @@ public class FileSystem {
     return existsInternal(path, null).action();
   }
 
+  /**
+   * Determines whether each of the files specified by {@code paths} exists, asynchronously, using a single task on
+   * the worker pool.<p>
+   * The result has one entry per path, in the same order.
+   * The handler will be called when the operation completes or an error occurs.
+   */
+  public void exists(String[] paths, AsyncResultHandler<Boolean[]> handler) {
+    BatchResults<Boolean> results = new BatchResults<>(new Boolean[paths.length], handler);
+    BlockingActionBatch batch = new BlockingActionBatch(WORKER_POOL_NAME);
+    for (int i = 0; i < paths.length; i++) {
+      batch.add(existsInternal(paths[i], results.handler(i)));
+    }
+    batch.run(results);
+  }
+
+  /**
+   * Synchronous version of {@link #exists(String[], AsyncResultHandler)}
+   */
+  public Boolean[] existsSync(String[] paths) throws Exception {
+    Boolean[] exists = new Boolean[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      exists[i] = existsInternal(paths[i], null).action();
+    }
+    return exists;
+  }
+
   /**
    * Returns properties of the file-system being used by the specified {@code path}, asynchronously.<p>
    * The handler will be called when the operation completes or an error occurs.
@@ -593,7 +664,7 @@ public class FileSystem {
     
     final Path source = Paths.get(from);
     final Path target = Paths.get(to);
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           if (recursive) {
@@ -635,7 +706,7 @@ public class FileSystem {
     //TODO atomic moves - but they have different semantics, e.g. on Linux if target already exists it is overwritten
     final Path source = Paths.get(from);
     final Path target = Paths.get(to);
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           Files.move(source, target);
@@ -651,7 +722,7 @@ public class FileSystem {
 
   private BlockingAction<Void> truncateInternal(final String path, final long len, AsyncResultHandler<Void> handler) {
      
-     return new BlockingAction<Void>(handler) {
+     return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
        public Void action() throws Exception {
          if (len < 0) {
            throw new FileSystemException("Cannot truncate file to size < 0");
@@ -683,7 +754,7 @@ public class FileSystem {
     final Path target = Paths.get(path);
     final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString(perms);
     final Set<PosixFilePermission> dirPermissions = dirPerms == null ? null : PosixFilePermissions.fromString(dirPerms);
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           if (dirPermissions != null) {
@@ -722,23 +793,61 @@ public class FileSystem {
   private BlockingAction<FileProps> props(String path, final boolean followLinks, AsyncResultHandler<FileProps> handler) {
     
     final Path target = Paths.get(path);
-    return new BlockingAction<FileProps>(handler) {
+    return new BlockingAction<FileProps>(WORKER_POOL_NAME, handler) {
       public FileProps action() throws Exception {
-        try {
-          BasicFileAttributes attrs;
-          if (followLinks) {
-            attrs = Files.readAttributes(target, BasicFileAttributes.class);
-          } else {
-            attrs = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-          }
-          return new FileProps(attrs);
-        } catch (NoSuchFileException e) {
+        FileProps props = readProps(target, followLinks);
+        if (props == null) {
           throw new FileSystemException("No such file: " + target);
         }
+        return props;
+      }
+    };
+  }
+
+  /*
+  Unlike the single path version a missing file is not an error, it just has null props
+   */
+  private BlockingAction<FileProps> propsOrNull(String path, final boolean followLinks,
+                                                AsyncResultHandler<FileProps> handler) {
+    final Path target = Paths.get(path);
+    return new BlockingAction<FileProps>(WORKER_POOL_NAME, handler) {
+      public FileProps action() throws Exception {
+        return readProps(target, followLinks);
       }
     };
   }
 
+  private static FileProps readProps(Path target, boolean followLinks) throws IOException {
+    try {
+      BasicFileAttributes attrs;
+      if (followLinks) {
+        attrs = Files.readAttributes(target, BasicFileAttributes.class);
+      } else {
+        attrs = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      }
+      return new FileProps(attrs);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private void props(String[] paths, boolean followLinks, AsyncResultHandler<FileProps[]> handler) {
+    BatchResults<FileProps> results = new BatchResults<>(new FileProps[paths.length], handler);
+    BlockingActionBatch batch = new BlockingActionBatch(WORKER_POOL_NAME);
+    for (int i = 0; i < paths.length; i++) {
+      batch.add(propsOrNull(paths[i], followLinks, results.handler(i)));
+    }
+    batch.run(results);
+  }
+
+  private FileProps[] propsSync(String[] paths, boolean followLinks) throws Exception {
+    FileProps[] props = new FileProps[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      props[i] = readProps(Paths.get(paths[i]), followLinks);
+    }
+    return props;
+  }
+
   private BlockingAction<Void> linkInternal(String link, String existing, AsyncResultHandler<Void> handler) {
     return link(link, existing, false, handler);
   }
@@ -751,7 +860,7 @@ public class FileSystem {
     
     final Path source = Paths.get(link);
     final Path target = Paths.get(existing);
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           if (symbolic) {
@@ -774,7 +883,7 @@ public class FileSystem {
   private BlockingAction<String> readSymlinkInternal(String link, AsyncResultHandler<String> handler) {
     
     final Path source = Paths.get(link);
-    return new BlockingAction<String>(handler) {
+    return new BlockingAction<String>(WORKER_POOL_NAME, handler) {
       public String action() throws Exception {
         try {
           return Files.readSymbolicLink(source).toString();
@@ -792,7 +901,7 @@ public class FileSystem {
   private BlockingAction<Void> deleteInternal(String path, final boolean recursive, AsyncResultHandler<Void> handler) {
     
     final Path source = Paths.get(path);
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         if (recursive) {
           Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
@@ -839,7 +948,7 @@ public class FileSystem {
     
     final Path source = Paths.get(path);
     final FileAttribute<?> attrs = perms == null ? null : PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(perms));
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           if (createParents) {
@@ -871,7 +980,7 @@ public class FileSystem {
 
   private BlockingAction<String[]> readDirInternal(final String path, final String filter, AsyncResultHandler<String[]> handler) {
     
-    return new BlockingAction<String[]>(handler) {
+    return new BlockingAction<String[]>(WORKER_POOL_NAME, handler) {
       public String[] action() throws Exception {
         File file = new File(path);
         if (!file.exists()) {
@@ -909,7 +1018,7 @@ public class FileSystem {
 
   private BlockingAction<Buffer> readFileInternal(final String path, AsyncResultHandler<Buffer> handler) {
     
-    return new BlockingAction<Buffer>(handler) {
+    return new BlockingAction<Buffer>(WORKER_POOL_NAME, handler) {
       public Buffer action() throws Exception {
         Path target = Paths.get(path);
         byte[] bytes = Files.readAllBytes(target);
@@ -921,7 +1030,7 @@ public class FileSystem {
 
   private BlockingAction<Void> writeFileInternal(final String path, final Buffer data, AsyncResultHandler<Void> handler) {
     
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         Path target = Paths.get(path);
         Files.write(target, data.getBytes());
@@ -948,7 +1057,7 @@ public class FileSystem {
 
   private BlockingAction<AsyncFile> openInternal(final String path, final String perms, final boolean read, final boolean write, final boolean createNew,
                    final boolean flush, AsyncResultHandler<AsyncFile> handler) {
-    return new BlockingAction<AsyncFile>(handler) {
+    return new BlockingAction<AsyncFile>(WORKER_POOL_NAME, handler) {
       public AsyncFile action() throws Exception {
         return doOpen(path, perms, read, write, createNew, flush, context);
       }
@@ -967,7 +1076,7 @@ public class FileSystem {
   private BlockingAction<Void> createFileInternal(final String path, final String perms, AsyncResultHandler<Void> handler) {
     
     final FileAttribute<?> attrs = perms == null ? null : PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(perms));
-    return new BlockingAction<Void>(handler) {
+    return new BlockingAction<Void>(WORKER_POOL_NAME, handler) {
       public Void action() throws Exception {
         try {
           Path target = Paths.get(path);
@@ -986,7 +1095,7 @@ public class FileSystem {
 
   private BlockingAction<Boolean> existsInternal(final String path, AsyncResultHandler<Boolean> handler) {
     
-    return new BlockingAction<Boolean>(handler) {
+    return new BlockingAction<Boolean>(WORKER_POOL_NAME, handler) {
       public Boolean action() throws Exception {
         File file = new File(path);
         return file.exists();
@@ -994,9 +1103,10 @@ public class FileSystem {
     };
   }
 
+
   private BlockingAction<FileSystemProps> fsPropsInternal(final String path, AsyncResultHandler<FileSystemProps> handler) {
     
-    return new BlockingAction<FileSystemProps>(handler) {
+    return new BlockingAction<FileSystemProps>(WORKER_POOL_NAME, handler) {
       public FileSystemProps action() throws Exception {
         Path target = Paths.get(path);
         FileStore fs = Files.getFileStore(target);
@@ -1004,4 +1114,37 @@ public class FileSystem {
       }
     };
   }
+
+  /*
+  Collects the results of a batch of single path actions, in order, and hands them to the handler once the whole
+  batch is done. The first failure, if any, fails the lot
+   */
+  private static class BatchResults<T> implements Handler<Void> {
+    private final T[] results;
+    private final AsyncResultHandler<T[]> handler;
+    private Exception failure;
+
+    BatchResults(T[] results, AsyncResultHandler<T[]> handler) {
+      this.results = results;
+      this.handler = handler;
+    }
+
+    AsyncResultHandler<T> handler(final int index) {
+      return new AsyncResultHandler<T>() {
+        public void handle(AsyncResult<T> res) {
+          if (res.succeeded()) {
+            results[index] = res.result;
+          } else if (failure == null) {
+            failure = res.exception;
+          }
+        }
+      };
+    }
+
+    public void handle(Void v) {
+      if (handler != null) {
+        handler.handle(failure == null ? new AsyncResult<>(results) : new AsyncResult<T[]>(failure));
+      }
+    }
+  }
 }
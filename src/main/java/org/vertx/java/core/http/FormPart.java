@@ -0,0 +1,148 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.http;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.file.AsyncFile;
+import org.vertx.java.core.file.FileSystem;
+import org.vertx.java.core.http.impl.HttpReadStreamBase;
+import org.vertx.java.core.streams.Pump;
+
+import java.util.Map;
+
+/**
+ * Represents one part of a {@code multipart/form-data} request body, such as a form field or an uploaded file.
+ * <p>
+ * Instances of this class are passed to the handler set with {@link HttpServerRequest#partHandler} as the parts
+ * arrive. The content of the part is read like any other {@link org.vertx.java.core.streams.ReadStream}, and is never
+ * held in memory as a whole unless {@link #bodyHandler} is used. Pausing a part pauses the request it is part of, so a
+ * part can be pumped to a slower {@link org.vertx.java.core.streams.WriteStream} without the rest of the request
+ * building up in memory.
+ * <p>
+ * Content which arrives before a data handler is set is dropped, so handlers should be set in the part handler.
+ * <p>
+ * Instances of this class are not thread-safe
+ * <p>
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public abstract class FormPart extends HttpReadStreamBase {
+
+  protected FormPart(String name, String filename, String contentType) {
+    this.name = name;
+    this.filename = filename;
+    this.contentType = contentType;
+  }
+
+  /**
+   * The name of the form field, from the {@code Content-Disposition} header of the part, or null if it has none
+   */
+  public final String name;
+
+  /**
+   * The name of the uploaded file, from the {@code Content-Disposition} header of the part, or null if the part is
+   * not a file
+   */
+  public final String filename;
+
+  /**
+   * The {@code Content-Type} header of the part, or null if it has none
+   */
+  public final String contentType;
+
+  /**
+   * Return the header of the part with the name {@code key}, or null if there is no such header. Header names are
+   * not case sensitive.
+   */
+  public abstract String getHeader(String key);
+
+  /**
+   * Returns a map of all the headers of the part
+   */
+  public abstract Map<String, String> getAllHeaders();
+
+  /**
+   * @return true if the part is an uploaded file
+   */
+  public boolean isFile() {
+    return filename != null;
+  }
+
+  /**
+   * Write the content of the part to the file at {@code path}, which is created if it does not exist and replaced if
+   * it does. The content is pumped to the file as it arrives, pausing the request while writes are outstanding.<p>
+   * {@code doneHandler} is called once the whole part has been written and the file closed, or with an exception if
+   * the file could not be written or the request failed. If the file could not be written the rest of the part is
+   * dropped, so the parts after it can still be read.
+   */
+  public void streamToFile(final String path, final AsyncResultHandler<Void> doneHandler) {
+    // Nothing can be written until the file is open
+    pause();
+    FileSystem.instance.open(path, new AsyncResultHandler<AsyncFile>() {
+      public void handle(AsyncResult<AsyncFile> ar) {
+        if (ar.failed()) {
+          drop();
+          doneHandler.handle(new AsyncResult<Void>(ar.exception));
+          return;
+        }
+        final AsyncFile file = ar.result;
+        // Opening doesn't truncate, so anything beyond the end of the part would be left in an existing file
+        FileSystem.instance.truncate(path, 0, new AsyncResultHandler<Void>() {
+          public void handle(AsyncResult<Void> tr) {
+            if (tr.failed()) {
+              drop();
+              file.close();
+              doneHandler.handle(new AsyncResult<Void>(tr.exception));
+            } else {
+              pumpTo(file, doneHandler);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void pumpTo(final AsyncFile file, final AsyncResultHandler<Void> doneHandler) {
+    final Pump pump = new Pump(this, file.getWriteStream());
+    final Handler<Exception> failed = new Handler<Exception>() {
+      public void handle(Exception e) {
+        pump.stop();
+        drop();
+        file.close();
+        doneHandler.handle(new AsyncResult<Void>(e));
+      }
+    };
+    exceptionHandler(failed);
+    file.getWriteStream().exceptionHandler(failed);
+    endHandler(new SimpleHandler() {
+      public void handle() {
+        file.close(doneHandler);
+      }
+    });
+    pump.start();
+    resume();
+  }
+
+  private void drop() {
+    dataHandler(null);
+    endHandler(null);
+    exceptionHandler(null);
+    resume();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http;
+
+import org.vertx.java.core.buffer.Buffer;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable set of HTTP headers which is serialized once, when it is created, and then copied verbatim into each
+ * response it is added to with {@link HttpServerResponse#putHeaderBlock}.<p>
+ * Use it for headers which are the same on many responses, for example a {@code Content-Type} and
+ * {@code Cache-Control} pair. Instances can be shared between any number of responses and threads.<p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public final class HeaderBlock {
+
+  // The charset HTTP header values are historically defined in
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+  // Headers which frame the response or which the server sets itself. They must go through the response so it
+  // knows about them
+  private static final String[] RESERVED = {"Content-Length", "Transfer-Encoding", "Connection", "Date"};
+
+  private final Map<String, String> headers;
+  private final byte[] bytes;
+
+  /**
+   * Create a header block containing the specified headers, in the iteration order of {@code headers}.
+   * The {@link Object#toString()} method will be called on the header values to determine the String value to actually
+   * use for the header value.
+   * @throws IllegalArgumentException if a header is invalid, or is one of {@code Content-Length},
+   * {@code Transfer-Encoding}, {@code Connection} or {@code Date}. Those must be set with
+   * {@link HttpServerResponse#putHeader}
+   */
+  public HeaderBlock(Map<String, ? extends Object> headers) {
+    Map<String, String> copy = new LinkedHashMap<>();
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, ? extends Object> entry: headers.entrySet()) {
+      String name = entry.getKey();
+      String value = entry.getValue().toString();
+      if (name.isEmpty() || !isValid(name) || !isValid(value) || name.indexOf(':') != -1) {
+        throw new IllegalArgumentException("Invalid header " + name + ": " + value);
+      }
+      for (String reserved: RESERVED) {
+        if (name.equalsIgnoreCase(reserved)) {
+          throw new IllegalArgumentException(reserved + " cannot be put in a header block");
+        }
+      }
+      copy.put(name, value);
+      sb.append(name).append(": ").append(value).append("\r\n");
+    }
+    this.headers = Collections.unmodifiableMap(copy);
+    this.bytes = sb.toString().getBytes(ISO_8859_1);
+  }
+
+  /**
+   * @return The headers in the block. The map cannot be modified.
+   */
+  public Map<String, String> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Append the serialized headers, each one followed by CRLF, to {@code buff}
+   */
+  public void writeTo(Buffer buff) {
+    buff.appendBytes(bytes);
+  }
+
+  private static boolean isValid(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '\r' || c == '\n') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -89,6 +89,62 @@ public class HttpClient {
     return this;
   }
 
+  /**
+   * Set the number of requests which will be sent on a keep alive connection before it is closed. Once the last of
+   * them has been sent the connection is not returned to the pool, and it is closed when the responses have been
+   * received.<p>
+   * The default is {@code 0}, which means no limit.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  public synchronized HttpClient setMaxRequestsPerConnection(int max) {
+    client.setMaxRequestsPerConnection(max);
+    return this;
+  }
+
+  /**
+   * Returns the number of requests sent on a connection before it is closed, or {@code 0} if there is no limit
+   */
+  public synchronized int getMaxRequestsPerConnection() {
+    return client.getMaxRequestsPerConnection();
+  }
+
+  /**
+   * Close connections which nothing has been read from for {@code timeout} milliseconds, including connections
+   * waiting in the pool. Timeouts are checked on a wheel shared by the connections of each event loop, which ticks
+   * every 100 ms, so a connection may stay open for up to a tick longer than this.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  public synchronized HttpClient setIdleReadTimeout(long timeout) {
+    client.setIdleReadTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Returns the time in milliseconds after which connections nothing has been read from are closed, or {@code 0}
+   */
+  public synchronized long getIdleReadTimeout() {
+    return client.getIdleReadTimeout();
+  }
+
+  /**
+   * Close connections which nothing has been written to for {@code timeout} milliseconds, checked in the same way as
+   * {@link #setIdleReadTimeout}.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  public synchronized HttpClient setIdleWriteTimeout(long timeout) {
+    client.setIdleWriteTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Returns the time in milliseconds after which connections nothing has been written to are closed, or {@code 0}
+   */
+  public synchronized long getIdleWriteTimeout() {
+    return client.getIdleWriteTimeout();
+  }
+
   /**
    * Set the port that the tcpHelper will attempt to connect to on the server to {@code port}. The default value is {@code 80}<p>
    * @return A reference to this, so multiple invocations can be chained together.
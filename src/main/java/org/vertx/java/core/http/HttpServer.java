@@ -21,6 +21,8 @@ import org.vertx.java.core.http.impl.DefaultHttpServer;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
+import java.util.Set;
+
 /**
  * An HTTP and WebSockets server
  * <p>
@@ -183,6 +185,68 @@ public class HttpServer {
     return this;
   }
 
+  /**
+   * If {@code pipelining} is set to {@code true} then the requests a client pipelines on a connection will be passed to
+   * the request handler as soon as they arrive, rather than each one waiting until the response to the previous one
+   * has been ended. Responses are still sent in the order the requests arrived, so what is written to a response
+   * while earlier responses on the same connection are still being written is buffered until it is its turn.<p>
+   * The default is {@code false}.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setPipelining(boolean pipelining) {
+    server.setPipelining(pipelining);
+    return this;
+  }
+
+  /**
+   * Set the maximum number of bytes, per connection, that will be buffered for pipelined responses which cannot be
+   * written yet. Once it is reached the server stops reading further requests from the connection, and
+   * {@link HttpServerResponse#writeQueueFull} returns {@code true} for the buffered responses, until earlier responses
+   * have been written. The default is 65536.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setPipeliningBufferSize(int size) {
+    server.setPipeliningBufferSize(size);
+    return this;
+  }
+
+  /**
+   * If {@code compression} is set to {@code true} then response bodies are compressed with the gzip or deflate
+   * content coding when the request's {@code Accept-Encoding} header allows it, the response's {@code Content-Type}
+   * is one of the {@link #setCompressibleContentTypes compressible types}, and the body is chunked or at least
+   * {@link #setCompressionThreshold threshold} bytes long. Responses which already have a {@code Content-Encoding}
+   * or a {@code Content-Range}, responses to {@code HEAD} requests, and files sent with
+   * {@link HttpServerResponse#sendFile} are never compressed. Large bodies passed to {@link HttpServerResponse#end}
+   * are compressed on a background thread. A strong {@code ETag} on a compressed response is made weak.<p>
+   * The default is {@code false}.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setCompression(boolean compression) {
+    server.setCompression(compression);
+    return this;
+  }
+
+  /**
+   * Set the size, in bytes, below which a response body with a {@code Content-Length} will not be compressed. The
+   * default is 1024.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setCompressionThreshold(int threshold) {
+    server.setCompressionThreshold(threshold);
+    return this;
+  }
+
+  /**
+   * Set the content types which will be compressed. A type such as {@code text/*} matches every subtype. The default
+   * is {@code text/*}, {@code application/json}, {@code application/javascript}, {@code application/xml} and
+   * {@code image/svg+xml}.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setCompressibleContentTypes(Set<String> types) {
+    server.setCompressibleContentTypes(types);
+    return this;
+  }
+
   /**
    * If {@code tcpNoDelay} is set to {@code true} then <a href="http://en.wikipedia.org/wiki/Nagle's_algorithm">Nagle's algorithm</a>
    * will turned <b>off</b> for the TCP connections created by this instance.
@@ -247,6 +311,122 @@ public class HttpServer {
     return this;
   }
 
+  /**
+   * Set the size in bytes of the chunks files are sent in by {@code sendFile} on SSL connections created by this
+   * instance. Plain connections send files with zero-copy instead. The default of 16384 is the most data a single SSL
+   * record can carry.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setSendFileChunkSize(int size) {
+    server.setSendFileChunkSize(size);
+    return this;
+  }
+
+  /**
+   * Close connections which nothing has been read from for {@code timeout} milliseconds. Timeouts are checked on a
+   * wheel shared by the connections of each event loop, which ticks every 100 ms, so a connection may stay open for
+   * up to a tick longer than this.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setIdleReadTimeout(long timeout) {
+    server.setIdleReadTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Close connections which nothing has been written to for {@code timeout} milliseconds, checked in the same way as
+   * {@link #setIdleReadTimeout}.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setIdleWriteTimeout(long timeout) {
+    server.setIdleWriteTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Set the number of requests which will be answered on a keep alive connection before it is closed. The response
+   * to the last of them has a {@code Connection: close} header, and any requests pipelined after it are dropped.<p>
+   * The default is {@code 0}, which means no limit.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setMaxRequestsPerConnection(int max) {
+    server.setMaxRequestsPerConnection(max);
+    return this;
+  }
+
+  /**
+   * Set the maximum number of connections the server will hold open. The first request on a connection over the
+   * limit is answered with a {@code 503 Service Unavailable} with a {@code Retry-After} header, and the connection is
+   * closed. When several servers share a port the limit of the first one to listen applies.<p>
+   * The default is {@code 0}, which means no limit.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setMaxConnections(int max) {
+    server.setMaxConnections(max);
+    return this;
+  }
+
+  /**
+   * Set the maximum number of requests the server will handle at once. A request counts from when it arrives until
+   * its response has been ended and written. Requests over the limit are answered with a
+   * {@code 503 Service Unavailable} with a {@code Retry-After} header, and are never passed to the request handler.<p>
+   * The default is {@code 0}, which means no limit.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setMaxInFlightRequests(int max) {
+    server.setMaxInFlightRequests(max);
+    return this;
+  }
+
+  /**
+   * Set how long, in milliseconds, work may wait in an event loop's queue before the server starts turning requests
+   * away. While an event loop is falling further behind than this, requests arriving on it are answered with a
+   * {@code 503 Service Unavailable} with a {@code Retry-After} header, and are never passed to the request handler.<p>
+   * The default is {@code 0}, which means no limit.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized HttpServer setMaxQueueLatency(long millis) {
+    server.setMaxQueueLatency(millis);
+    return this;
+  }
+
+  /**
+   * @return true if pipelined requests are handled concurrently
+   */
+  public synchronized boolean isPipelining() {
+    return server.isPipelining();
+  }
+
+  /**
+   * @return The maximum number of bytes buffered per connection for pipelined responses
+   */
+  public synchronized int getPipeliningBufferSize() {
+    return server.getPipeliningBufferSize();
+  }
+
+  /**
+   * @return true if responses are compressed
+   */
+  public synchronized boolean isCompression() {
+    return server.isCompression();
+  }
+
+  /**
+   * @return The size below which a response body with a {@code Content-Length} is not compressed
+   */
+  public synchronized int getCompressionThreshold() {
+    return server.getCompressionThreshold();
+  }
+
+  /**
+   * @return The content types which are compressed
+   */
+  public synchronized Set<String> getCompressibleContentTypes() {
+    return server.getCompressibleContentTypes();
+  }
+
   /**
    * @return true if Nagle's algorithm is disabled.
    */
@@ -300,6 +480,78 @@ public class HttpServer {
     return server.getTrafficClass();
   }
 
+  /**
+   *
+   * @return the size of the chunks files are sent in on SSL connections
+   */
+  public synchronized int getSendFileChunkSize() {
+    return server.getSendFileChunkSize();
+  }
+
+  /**
+   * @return The time in milliseconds after which connections nothing has been read from are closed, or {@code 0}
+   */
+  public synchronized long getIdleReadTimeout() {
+    return server.getIdleReadTimeout();
+  }
+
+  /**
+   * @return The time in milliseconds after which connections nothing has been written to are closed, or {@code 0}
+   */
+  public synchronized long getIdleWriteTimeout() {
+    return server.getIdleWriteTimeout();
+  }
+
+  /**
+   * @return The number of requests answered on a connection before it is closed, or {@code 0} if there is no limit
+   */
+  public synchronized int getMaxRequestsPerConnection() {
+    return server.getMaxRequestsPerConnection();
+  }
+
+  /**
+   * @return The maximum number of open connections, or {@code 0} if there is no limit
+   */
+  public synchronized int getMaxConnections() {
+    return server.getMaxConnections();
+  }
+
+  /**
+   * @return The maximum number of requests handled at once, or {@code 0} if there is no limit
+   */
+  public synchronized int getMaxInFlightRequests() {
+    return server.getMaxInFlightRequests();
+  }
+
+  /**
+   * @return The event loop queue latency, in milliseconds, above which requests are turned away, or {@code 0} if
+   * there is no limit
+   */
+  public synchronized long getMaxQueueLatency() {
+    return server.getMaxQueueLatency();
+  }
+
+  /**
+   * @return The number of connections turned away because there were too many open
+   */
+  public synchronized long getShedConnectionCount() {
+    return server.getShedConnectionCount();
+  }
+
+  /**
+   * @return The number of requests turned away because too many were being handled
+   */
+  public synchronized long getShedInFlightCount() {
+    return server.getShedInFlightCount();
+  }
+
+  /**
+   * @return The number of requests turned away because an event loop was falling behind
+   */
+  public synchronized long getShedLatencyCount() {
+    return server.getShedLatencyCount();
+  }
+
   /**
    *
    * @return true if this server will make SSL connections
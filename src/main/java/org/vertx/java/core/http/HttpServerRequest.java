@@ -16,6 +16,7 @@
 
 package org.vertx.java.core.http;
 
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.http.impl.HttpReadStreamBase;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
@@ -97,4 +98,15 @@ public abstract class HttpServerRequest extends HttpReadStreamBase {
    * Returns a map of all the parameters in the request
    */
   public abstract Map<String, String> getAllParams();
+
+  /**
+   * Parse the body of this request as {@code multipart/form-data} as it arrives, calling {@code handler} with each
+   * {@link FormPart} of it in turn. The body is parsed incrementally, so only a small, bounded part of it is held in
+   * memory at any time, however big it is.<p>
+   * Once this is called the body is no longer passed to the data handler of the request. The end handler of the
+   * request is called after the last part has ended. If the body is malformed the exception handler of the request,
+   * and of the part being read, are called and the rest of the body is dropped.
+   * @throws IllegalStateException if the request is not {@code multipart/form-data}, or has no boundary
+   */
+  public abstract void partHandler(Handler<FormPart> handler);
 }
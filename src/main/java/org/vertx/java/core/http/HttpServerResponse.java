@@ -93,6 +93,15 @@ public abstract class HttpServerResponse implements WriteStream {
    */
   public abstract HttpServerResponse putAllHeaders(Map<String, ? extends Object> m);
 
+  /**
+   * Inserts a pre-serialized block of headers into the response. The block is copied into the response exactly as it
+   * is, after any headers inserted with {@link #putHeader} or {@link #putAllHeaders}, so it should not contain headers
+   * which are also inserted that way. Framing headers such as {@code Content-Length} cannot be put in a block.<p>
+   *
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public abstract HttpServerResponse putHeaderBlock(HeaderBlock block);
+
   /**
    * Inserts a trailer into the response. The {@link Object#toString()} method
    * will be called on {@code value} to determine
@@ -120,6 +129,11 @@ public abstract class HttpServerResponse implements WriteStream {
    */
   public abstract void closeHandler(Handler<Void> handler);
 
+  /**
+   * @return The close handler set for the response, or null if there is none
+   */
+  public abstract Handler<Void> closeHandler();
+
   /**
    * Write a {@link Buffer} to the response body.<p>
    *
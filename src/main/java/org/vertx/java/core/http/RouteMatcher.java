@@ -21,6 +21,7 @@ import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -71,15 +72,15 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
 
   private static final Logger log = LoggerFactory.getLogger(RouteMatcher.class);
 
-  private List<PatternBinding> getBindings = new ArrayList<>();
-  private List<PatternBinding> putBindings = new ArrayList<>();
-  private List<PatternBinding> postBindings = new ArrayList<>();
-  private List<PatternBinding> deleteBindings = new ArrayList<>();
-  private List<PatternBinding> optionsBindings = new ArrayList<>();
-  private List<PatternBinding> headBindings = new ArrayList<>();
-  private List<PatternBinding> traceBindings = new ArrayList<>();
-  private List<PatternBinding> connectBindings = new ArrayList<>();
-  private List<PatternBinding> patchBindings = new ArrayList<>();
+  private final Bindings getBindings = new Bindings();
+  private final Bindings putBindings = new Bindings();
+  private final Bindings postBindings = new Bindings();
+  private final Bindings deleteBindings = new Bindings();
+  private final Bindings optionsBindings = new Bindings();
+  private final Bindings headBindings = new Bindings();
+  private final Bindings traceBindings = new Bindings();
+  private final Bindings connectBindings = new Bindings();
+  private final Bindings patchBindings = new Bindings();
   private Handler<HttpServerRequest> noMatchHandler;
 
   @Override
@@ -321,9 +322,9 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
   }
 
 
-  private void addPattern(String input, Handler<HttpServerRequest> handler, List<PatternBinding> bindings) {
+  private void addPattern(String input, Handler<HttpServerRequest> handler, Bindings bindings) {
     // We need to search for any :<token name> tokens in the String and replace them with named capture groups
-    Matcher m =  Pattern.compile(":([A-Za-z][A-Za-z0-9]*)").matcher(input);
+    Matcher m =  PARAM.matcher(input);
     StringBuffer sb = new StringBuffer();
     Set<String> groups = new HashSet<>();
     while (m.find()) {
@@ -335,21 +336,29 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
       groups.add(group);
     }
     m.appendTail(sb);
-    String regex = sb.toString();
-    PatternBinding binding = new PatternBinding(Pattern.compile(regex), groups, handler);
-    bindings.add(binding);
+    // Patterns made only of literal and whole parameter segments go in the tree, anything else is matched as a regex
+    if (!bindings.addToTree(input, handler)) {
+      String regex = sb.toString();
+      bindings.addRegEx(new PatternBinding(Pattern.compile(regex), groups, handler));
+    }
   }
 
-  private void addRegEx(String input, Handler<HttpServerRequest> handler, List<PatternBinding> bindings) {
-    PatternBinding binding = new PatternBinding(Pattern.compile(input), null, handler);
-    bindings.add(binding);
+  private void addRegEx(String input, Handler<HttpServerRequest> handler, Bindings bindings) {
+    bindings.addRegEx(new PatternBinding(Pattern.compile(input), null, handler));
   }
 
-  private void route(HttpServerRequest request, List<PatternBinding> bindings) {
-    for (PatternBinding binding: bindings) {
-      Matcher m = binding.pattern.matcher(request.path);
+  private void route(HttpServerRequest request, Bindings bindings) {
+    String path = request.path;
+    Route route = bindings.find(path);
+    int bound = route == null ? Integer.MAX_VALUE : route.index;
+    // Only regexes added before the route found in the tree can take precedence over it
+    for (PatternBinding binding: bindings.regExBindings) {
+      if (binding.index > bound) {
+        break;
+      }
+      Matcher m = binding.pattern.matcher(path);
       if (m.matches()) {
-        Map<String, String> params = new HashMap<>(m.groupCount());
+        Map<String, String> params = request.getAllParams();
         if (binding.paramNames != null) {
           // Named params
           for (String param: binding.paramNames) {
@@ -361,11 +370,21 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
             params.put("param" + i, m.group(i + 1));
           }
         }
-        request.getAllParams().putAll(params);
         binding.handler.handle(request);
         return;
       }
     }
+    if (route != null) {
+      if (route.paramNames.length != 0) {
+        Map<String, String> params = request.getAllParams();
+        int[] bounds = bindings.matchedParams;
+        for (int i = 0; i < route.paramNames.length; i++) {
+          params.put(route.paramNames[i], path.substring(bounds[i << 1], bounds[(i << 1) + 1]));
+        }
+      }
+      route.handler.handle(request);
+      return;
+    }
     if (noMatchHandler != null) {
       noMatchHandler.handle(request);
     } else {
@@ -375,10 +394,15 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
     }
   }
 
+  private static final Pattern PARAM = Pattern.compile(":([A-Za-z][A-Za-z0-9]*)");
+  private static final Pattern PARAM_SEGMENT = Pattern.compile(":[A-Za-z][A-Za-z0-9]*");
+  private static final Pattern LITERAL_SEGMENT = Pattern.compile("[^\\\\.\\[\\]{}()*+?^$|:]*");
+
   private static class PatternBinding {
     final Pattern pattern;
     final Handler<HttpServerRequest> handler;
     final Set<String> paramNames;
+    int index;
 
     private PatternBinding(Pattern pattern, Set<String> paramNames, Handler<HttpServerRequest> handler) {
       this.pattern = pattern;
@@ -387,4 +411,164 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
     }
   }
 
+  private static class Route {
+    final int index;
+    final String[] paramNames;
+    final Handler<HttpServerRequest> handler;
+
+    private Route(int index, String[] paramNames, Handler<HttpServerRequest> handler) {
+      this.index = index;
+      this.paramNames = paramNames;
+      this.handler = handler;
+    }
+  }
+
+  /*
+  The patterns for one HTTP method. Simple patterns are compiled into a tree with a level for each '/' separated
+  segment of the path, where each node has children for literal segments and a child for a parameter. Patterns which
+  use regular expression syntax, and the *WithRegEx patterns, are kept in a list and matched in turn.
+  Each pattern is numbered in the order it was added, so the first one added which matches can still be chosen when
+  several do.
+   */
+  private static class Bindings {
+    final Node root = new Node();
+    final List<PatternBinding> regExBindings = new ArrayList<>();
+    int count;
+
+    // State of the current search. Instances of RouteMatcher are not thread-safe so this can be shared
+    int[] params = new int[8];
+    int[] matchedParams = new int[8];
+    Route best;
+
+    void addRegEx(PatternBinding binding) {
+      binding.index = count++;
+      regExBindings.add(binding);
+    }
+
+    boolean addToTree(String pattern, Handler<HttpServerRequest> handler) {
+      String[] segments = pattern.split("/", -1);
+      List<String> paramNames = new ArrayList<>();
+      for (String segment: segments) {
+        if (PARAM_SEGMENT.matcher(segment).matches()) {
+          paramNames.add(segment.substring(1));
+        } else if (!LITERAL_SEGMENT.matcher(segment).matches()) {
+          return false;
+        }
+      }
+      Route route = new Route(count++, paramNames.toArray(new String[paramNames.size()]), handler);
+      Node node = root;
+      for (String segment: segments) {
+        node.minIndex = Math.min(node.minIndex, route.index);
+        node = segment.startsWith(":") ? node.paramChild() : node.literalChild(segment);
+      }
+      node.minIndex = Math.min(node.minIndex, route.index);
+      if (node.route == null) {
+        node.route = route;
+      }
+      if (params.length < paramNames.size() * 2) {
+        params = new int[paramNames.size() * 2];
+        matchedParams = new int[paramNames.size() * 2];
+      }
+      return true;
+    }
+
+    // Find the first added route in the tree which matches path, leaving the bounds of its parameters in matchedParams
+    Route find(String path) {
+      best = null;
+      search(root, path, 0, 0);
+      Route route = best;
+      best = null;
+      return route;
+    }
+
+    private void search(Node node, String path, int start, int numParams) {
+      if (best != null && node.minIndex >= best.index) {
+        return;
+      }
+      int end = path.indexOf('/', start);
+      boolean last = end == -1;
+      if (last) {
+        end = path.length();
+      }
+      Node child = node.findLiteral(path, start, end);
+      if (child != null) {
+        descend(child, path, end, last, numParams);
+      }
+      child = node.paramChild;
+      if (child != null && end > start) {
+        params[numParams << 1] = start;
+        params[(numParams << 1) + 1] = end;
+        descend(child, path, end, last, numParams + 1);
+      }
+    }
+
+    private void descend(Node child, String path, int end, boolean last, int numParams) {
+      if (!last) {
+        search(child, path, end + 1, numParams);
+      } else if (child.route != null && (best == null || child.route.index < best.index)) {
+        best = child.route;
+        System.arraycopy(params, 0, matchedParams, 0, numParams << 1);
+      }
+    }
+  }
+
+  private static class Node {
+    private static final int MAX_SCANNED = 8;
+
+    int minIndex = Integer.MAX_VALUE;   // Lowest index of any route in the subtree
+    Route route;                        // The first route added which ends here
+    String[] literals = new String[2];
+    Node[] literalChildren = new Node[2];
+    int numLiterals;
+    Map<String, Node> literalMap;       // Only used once there are too many literals to scan quickly
+    Node paramChild;
+
+    Node paramChild() {
+      if (paramChild == null) {
+        paramChild = new Node();
+      }
+      return paramChild;
+    }
+
+    Node literalChild(String segment) {
+      for (int i = 0; i < numLiterals; i++) {
+        if (literals[i].equals(segment)) {
+          return literalChildren[i];
+        }
+      }
+      if (numLiterals == literals.length) {
+        literals = Arrays.copyOf(literals, numLiterals << 1);
+        literalChildren = Arrays.copyOf(literalChildren, numLiterals << 1);
+      }
+      Node child = new Node();
+      literals[numLiterals] = segment;
+      literalChildren[numLiterals++] = child;
+      if (numLiterals > MAX_SCANNED) {
+        if (literalMap == null) {
+          literalMap = new HashMap<>();
+          for (int i = 0; i < numLiterals; i++) {
+            literalMap.put(literals[i], literalChildren[i]);
+          }
+        } else {
+          literalMap.put(segment, child);
+        }
+      }
+      return child;
+    }
+
+    Node findLiteral(String path, int start, int end) {
+      if (literalMap != null) {
+        return literalMap.get(path.substring(start, end));
+      }
+      int len = end - start;
+      for (int i = 0; i < numLiterals; i++) {
+        String literal = literals[i];
+        if (literal.length() == len && path.regionMatches(start, literal, 0, len)) {
+          return literalChildren[i];
+        }
+      }
+      return null;
+    }
+  }
+
 }
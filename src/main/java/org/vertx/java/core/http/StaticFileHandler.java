@@ -0,0 +1,650 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.file.AsyncFile;
+import org.vertx.java.core.file.FileSystem;
+import org.vertx.java.core.http.impl.HttpCompressor;
+import org.vertx.java.core.impl.BlockingAction;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * A handler which serves the files under a web root directory, for use with a {@link HttpServer} or as the no match
+ * handler of a {@link RouteMatcher}.<p>
+ * Files are looked up and read on a background thread, never on the event loop. What is found is kept in a cache for
+ * each instance of the handler: files up to {@link #setMaxCachedFileSize} bytes are held in memory along with their
+ * headers, larger files are kept open and read a chunk at a time as they are sent, with one open file shared by all
+ * the requests for it. Each cached file is checked again, on a background thread, when it is requested more than
+ * {@link #setValidationPeriod} milliseconds after it was last checked, so files which are changed are picked up
+ * within that period.<p>
+ * Responses carry {@code ETag} and {@code Last-Modified} headers, and the handler answers {@code If-None-Match} and
+ * {@code If-Modified-Since} requests with {@code 304 Not Modified} and single {@code Range} requests with
+ * {@code 206 Partial Content}.<p>
+ * Requests which accept gzip are sent a gzipped copy of the file when there is one: a {@code .gz} file next to it
+ * that is at least as new, or, for text, JSON, JavaScript, XML and SVG files held in memory, a copy compressed when
+ * the file is loaded and cached with it.<p>
+ * Only {@code GET} and {@code HEAD} requests are accepted. A request for a directory serves its index page, which is
+ * {@code index.html} by default.<p>
+ * Instances of this class are not thread-safe, each verticle instance should create its own.<p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class StaticFileHandler implements Handler<HttpServerRequest> {
+
+  private static final Logger log = LoggerFactory.getLogger(StaticFileHandler.class);
+
+  private static final long[] UNSATISFIABLE = new long[0];
+  // Files smaller than this are not worth compressing
+  private static final int MIN_COMPRESS_SIZE = 256;
+  // How much of a file too large to cache is read at a time
+  private static final int STREAM_CHUNK_SIZE = 64 * 1024;
+
+  private final Path webRoot;
+  private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, List<HttpServerRequest>> loading = new HashMap<>();
+  private final SimpleDateFormat dateFormat;
+  private String indexPage = "index.html";
+  private int maxCachedFileSize = 64 * 1024;
+  private long cacheSize = 16 * 1024 * 1024;
+  private int maxCachedFiles = 1000;
+  private long validationPeriod = 1000;
+  private long cachedBytes;
+
+  /**
+   * Create a handler which serves the files under the directory {@code webRoot}
+   */
+  public StaticFileHandler(String webRoot) {
+    this.webRoot = Paths.get(webRoot).toAbsolutePath().normalize();
+    dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+  }
+
+  /**
+   * Set the name of the file served for requests for a directory
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public StaticFileHandler setIndexPage(String indexPage) {
+    this.indexPage = indexPage;
+    return this;
+  }
+
+  /**
+   * Set the size in bytes of the largest file which is held in memory. Larger files are streamed from disk.
+   * The default is 65536.
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public StaticFileHandler setMaxCachedFileSize(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Max cached file size must be >= 0");
+    }
+    this.maxCachedFileSize = size;
+    return this;
+  }
+
+  /**
+   * Set the total size in bytes of the files held in memory. The least recently used files are evicted to stay
+   * within it. The default is 16MB.
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public StaticFileHandler setCacheSize(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Cache size must be >= 0");
+    }
+    this.cacheSize = size;
+    return this;
+  }
+
+  /**
+   * Set the maximum number of files to cache, counting both those held in memory and larger ones which are kept
+   * open. The default is 1000.
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public StaticFileHandler setMaxCachedFiles(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Max cached files must be >= 0");
+    }
+    this.maxCachedFiles = max;
+    return this;
+  }
+
+  /**
+   * Set how long, in milliseconds, a cached file is served before checking whether it has changed. The default
+   * is 1000.
+   * @return A reference to this, so multiple method calls can be chained.
+   */
+  public StaticFileHandler setValidationPeriod(long period) {
+    if (period < 0) {
+      throw new IllegalArgumentException("Validation period must be >= 0");
+    }
+    this.validationPeriod = period;
+    return this;
+  }
+
+  public void handle(final HttpServerRequest req) {
+    if (!"GET".equals(req.method) && !"HEAD".equals(req.method)) {
+      req.response.statusCode = 405;
+      req.response.putHeader("Allow", "GET, HEAD");
+      req.response.end();
+      return;
+    }
+    final String path = req.path;
+    Entry entry = cache.get(path);
+    if (entry != null && System.currentTimeMillis() - entry.validated < validationPeriod) {
+      serve(req, entry);
+      return;
+    }
+    List<HttpServerRequest> waiting = loading.get(path);
+    if (waiting != null) {
+      waiting.add(req);
+      return;
+    }
+    final Path file = resolve(path);
+    if (file == null) {
+      sendStatus(req, 404);
+      return;
+    }
+    waiting = new ArrayList<>();
+    waiting.add(req);
+    loading.put(path, waiting);
+    final Entry previous = entry;
+    new BlockingAction<Entry>(new AsyncResultHandler<Entry>() {
+      public void handle(AsyncResult<Entry> res) {
+        loaded(path, res);
+      }
+    }) {
+      public Entry action() throws Exception {
+        return load(file.toFile(), previous);
+      }
+    }.run();
+  }
+
+  // Map the request path to a file under the web root, or null if it is outside it
+  private Path resolve(String path) {
+    if (path == null || path.indexOf('\0') != -1) {
+      return null;
+    }
+    Path file = webRoot.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+    return file.startsWith(webRoot) ? file : null;
+  }
+
+  // Called on a background thread
+  private Entry load(File file, Entry previous) throws Exception {
+    if (file.isDirectory()) {
+      file = new File(file, indexPage);
+    }
+    if (!file.isFile()) {
+      return null;
+    }
+    long size = file.length();
+    long lastModified = file.lastModified();
+    File gzipFile = new File(file.getPath() + ".gz");
+    long gzipLastModified = gzipFile.isFile() && gzipFile.lastModified() >= lastModified ? gzipFile.lastModified() : -1;
+    if (previous != null && previous.file.equals(file) && previous.size == size &&
+        previous.lastModified == lastModified && previous.gzipLastModified == gzipLastModified) {
+      return previous;
+    }
+    ChannelBuffer content = read(file, size);
+    String contentType = Files.probeContentType(file.toPath());
+    long memory = content == null ? 0 : size;
+    ChannelBuffer gzip = null;
+    long gzipSize = -1;
+    if (gzipLastModified != -1 && gzipFile.length() <= Integer.MAX_VALUE) {
+      gzipSize = gzipFile.length();
+      gzip = read(gzipFile, gzipSize);
+      memory += gzip == null ? 0 : gzipSize;
+    } else if (content != null && size >= MIN_COMPRESS_SIZE &&
+        HttpCompressor.isCompressible(contentType, HttpCompressor.DEFAULT_COMPRESSIBLE_TYPES)) {
+      ChannelBuffer compressed = new HttpCompressor(HttpCompressor.GZIP).compressAll(content);
+      if (compressed.readableBytes() < size) {
+        gzip = compressed;
+        gzipSize = compressed.readableBytes();
+        memory += gzipSize;
+      }
+    }
+    return new Entry(file, size, lastModified, contentType, content, memory, gzip, gzipSize, gzipLastModified);
+  }
+
+  // Read a file into memory, or return null if it is too large to cache. Large files are never mapped: a mapped file
+  // which is truncated while it is being sent crashes the event loop
+  private ChannelBuffer read(File file, long size) throws Exception {
+    if (size > maxCachedFileSize) {
+      return null;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      byte[] bytes = new byte[(int) size];
+      raf.readFully(bytes);
+      return ChannelBuffers.wrappedBuffer(bytes);
+    }
+  }
+
+  private void loaded(String path, AsyncResult<Entry> res) {
+    List<HttpServerRequest> waiting = loading.remove(path);
+    if (res.failed()) {
+      log.error("Failed to read file for " + path, res.exception);
+      for (HttpServerRequest req: waiting) {
+        sendStatus(req, 500);
+      }
+      return;
+    }
+    Entry entry = res.result;
+    Entry previous = cache.remove(path);
+    if (previous != null) {
+      cachedBytes -= previous.memory;
+      if (previous != entry) {
+        previous.retire();
+      }
+    }
+    if (entry == null) {
+      for (HttpServerRequest req: waiting) {
+        sendStatus(req, 404);
+      }
+      return;
+    }
+    entry.validated = System.currentTimeMillis();
+    if (entry.headers == null) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      if (entry.contentType != null) {
+        headers.put("Content-Type", entry.contentType);
+      }
+      headers.put("ETag", entry.etag);
+      headers.put("Last-Modified", dateFormat.format(new Date(entry.lastModified)));
+      if (entry.size <= Integer.MAX_VALUE) {
+        headers.put("Accept-Ranges", "bytes");
+      }
+      if (entry.gzipSize != -1) {
+        headers.put("Vary", "Accept-Encoding");
+      }
+      entry.headers = new HeaderBlock(headers);
+      if (entry.gzipSize != -1) {
+        headers.remove("Accept-Ranges");
+        headers.put("Content-Encoding", HttpCompressor.GZIP);
+        headers.put("ETag", entry.gzipEtag);
+        entry.gzipHeaders = new HeaderBlock(headers);
+      }
+    }
+    cache(path, entry);
+    for (HttpServerRequest req: waiting) {
+      serve(req, entry);
+    }
+  }
+
+  private void cache(String path, Entry entry) {
+    if (entry.memory > cacheSize) {
+      entry.retire();
+      return;
+    }
+    cachedBytes += entry.memory;
+    cache.put(path, entry);
+    Iterator<Entry> iter = cache.values().iterator();
+    while (iter.hasNext() && (cache.size() > maxCachedFiles || cachedBytes > cacheSize)) {
+      Entry eldest = iter.next();
+      iter.remove();
+      cachedBytes -= eldest.memory;
+      eldest.retire();
+    }
+  }
+
+  private void serve(HttpServerRequest req, Entry entry) {
+    HttpServerResponse resp = req.response;
+    boolean head = "HEAD".equals(req.method);
+    if (entry.gzipSize != -1 && req.getHeader("Range") == null &&
+        HttpCompressor.GZIP.equals(HttpCompressor.negotiate(req.getHeader("Accept-Encoding")))) {
+      resp.putHeaderBlock(entry.gzipHeaders);
+      if (notModified(req, entry.gzipEtag, entry.lastModified)) {
+        resp.statusCode = 304;
+        resp.end();
+      } else if (head) {
+        resp.putHeader("Content-Length", entry.gzipSize);
+        resp.end();
+      } else if (entry.gzip != null) {
+        resp.end(new Buffer(entry.gzip.slice()));
+      } else {
+        stream(req, entry, true, 0, (int) entry.gzipSize);
+      }
+      return;
+    }
+    resp.putHeaderBlock(entry.headers);
+    if (notModified(req, entry.etag, entry.lastModified)) {
+      resp.statusCode = 304;
+      resp.end();
+      return;
+    }
+    if (entry.size > Integer.MAX_VALUE) {
+      // Too large to read in chunks, it has to be sent as a whole
+      if (head) {
+        resp.putHeader("Content-Length", entry.size);
+        resp.end();
+      } else {
+        resp.sendFile(entry.file.getPath());
+      }
+      return;
+    }
+    long start = 0;
+    long end = entry.size - 1;
+    String range = req.getHeader("Range");
+    if (range != null && ifRangeMatches(req, entry)) {
+      long[] bounds = parseRange(range, entry.size);
+      if (bounds == UNSATISFIABLE) {
+        resp.statusCode = 416;
+        resp.putHeader("Content-Range", "bytes */" + entry.size);
+        resp.end();
+        return;
+      } else if (bounds != null) {
+        start = bounds[0];
+        end = bounds[1];
+        resp.statusCode = 206;
+        resp.putHeader("Content-Range", "bytes " + start + "-" + end + "/" + entry.size);
+      }
+    }
+    int length = (int) (end - start + 1);
+    if (head) {
+      resp.putHeader("Content-Length", length);
+      resp.end();
+    } else if (entry.content != null) {
+      resp.end(new Buffer(entry.content.slice((int) start, length)));
+    } else {
+      stream(req, entry, false, (int) start, length);
+    }
+  }
+
+  // Send part of a file which is too large to cache, reading the next chunk once the last has been written. The
+  // file is opened the first time it is sent and then kept open, with the entry, until the entry leaves the cache
+  private void stream(final HttpServerRequest req, final Entry entry, final boolean gzip, final int start,
+                      final int length) {
+    OpenFile open = gzip ? entry.openGzip : entry.open;
+    if (open != null) {
+      send(req, open, start, length);
+      return;
+    }
+    String path = gzip ? entry.file.getPath() + ".gz" : entry.file.getPath();
+    FileSystem.instance.open(path, null, true, false, false, new AsyncResultHandler<AsyncFile>() {
+      public void handle(AsyncResult<AsyncFile> res) {
+        if (res.failed()) {
+          // Deleted since it was looked up
+          sendStatus(req, 404);
+          return;
+        }
+        OpenFile open = gzip ? entry.openGzip : entry.open;
+        if (open == null) {
+          open = new OpenFile(res.result);
+          if (entry.retired) {
+            // Only used for this request
+            open.retire();
+          } else if (gzip) {
+            entry.openGzip = open;
+          } else {
+            entry.open = open;
+          }
+        } else {
+          // Another request opened it first
+          res.result.close();
+        }
+        send(req, open, start, length);
+      }
+    });
+  }
+
+  private static void send(HttpServerRequest req, OpenFile open, int start, int length) {
+    req.response.putHeader("Content-Length", length);
+    open.users++;
+    new FileSender(req.response, open, start, length).readNext();
+  }
+
+  private boolean notModified(HttpServerRequest req, String etag, long lastModified) {
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag: ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(etag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    long since = parseDate(req.getHeader("If-Modified-Since"));
+    return since != -1 && lastModified / 1000 <= since / 1000;
+  }
+
+  private boolean ifRangeMatches(HttpServerRequest req, Entry entry) {
+    String ifRange = req.getHeader("If-Range");
+    if (ifRange == null) {
+      return true;
+    } else if (ifRange.startsWith("\"")) {
+      return ifRange.equals(entry.etag);
+    } else {
+      return parseDate(ifRange) / 1000 == entry.lastModified / 1000;
+    }
+  }
+
+  // Returns the first and last byte of a single byte range, UNSATISFIABLE, or null if the range should be ignored
+  private static long[] parseRange(String range, long size) {
+    if (!range.startsWith("bytes=") || range.indexOf(',') != -1) {
+      return null;
+    }
+    if (size == 0) {
+      return UNSATISFIABLE;
+    }
+    String spec = range.substring(6).trim();
+    int dash = spec.indexOf('-');
+    if (dash == -1) {
+      return null;
+    }
+    try {
+      long first;
+      long last;
+      if (dash == 0) {
+        long suffix = Long.parseLong(spec.substring(1));
+        if (suffix == 0) {
+          return UNSATISFIABLE;
+        }
+        first = Math.max(0, size - suffix);
+        last = size - 1;
+      } else {
+        first = Long.parseLong(spec.substring(0, dash));
+        last = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+        if (first >= size) {
+          return UNSATISFIABLE;
+        }
+        if (last < first) {
+          return null;
+        }
+      }
+      return new long[] {first, last};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private long parseDate(String date) {
+    if (date == null) {
+      return -1;
+    }
+    try {
+      return dateFormat.parse(date).getTime();
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+
+  private static void sendStatus(HttpServerRequest req, int status) {
+    req.response.statusCode = status;
+    req.response.end();
+  }
+
+  // A file which is kept open to be sent, by any number of requests at once, while its entry is in the cache
+  private static class OpenFile {
+    final AsyncFile file;
+    int users;
+    boolean retired;
+
+    OpenFile(AsyncFile file) {
+      this.file = file;
+    }
+
+    void release() {
+      if (--users == 0 && retired) {
+        file.close();
+      }
+    }
+
+    void retire() {
+      retired = true;
+      if (users == 0) {
+        file.close();
+      }
+    }
+  }
+
+  private static class FileSender implements AsyncResultHandler<Buffer> {
+    final HttpServerResponse resp;
+    final OpenFile open;
+    int position;
+    int remaining;
+    boolean closed;
+
+    FileSender(HttpServerResponse resp, OpenFile open, int position, int length) {
+      this.resp = resp;
+      this.open = open;
+      this.position = position;
+      this.remaining = length;
+      final Handler<Void> closeHandler = resp.closeHandler();
+      resp.closeHandler(new SimpleHandler() {
+        public void handle() {
+          closed = true;
+          if (closeHandler != null) {
+            closeHandler.handle(null);
+          }
+        }
+      });
+    }
+
+    void readNext() {
+      if (closed) {
+        open.release();
+        return;
+      }
+      int len = Math.min(STREAM_CHUNK_SIZE, remaining);
+      open.file.read(new Buffer(len), 0, position, len, this);
+    }
+
+    public void handle(AsyncResult<Buffer> res) {
+      if (res.failed() || res.result.length() < Math.min(STREAM_CHUNK_SIZE, remaining)) {
+        // The file was truncated after it was looked up, so the response can't be finished
+        open.release();
+        resp.close();
+        return;
+      }
+      Buffer chunk = res.result;
+      position += chunk.length();
+      remaining -= chunk.length();
+      if (remaining == 0) {
+        resp.end(chunk);
+        open.release();
+      } else {
+        resp.write(chunk);
+        if (resp.writeQueueFull()) {
+          resp.drainHandler(new SimpleHandler() {
+            public void handle() {
+              resp.drainHandler(null);
+              readNext();
+            }
+          });
+        } else {
+          readNext();
+        }
+      }
+    }
+  }
+
+  private static class Entry {
+    final File file;
+    final long size;
+    final long lastModified;
+    final String contentType;
+    final String etag;
+    final ChannelBuffer content;   // The whole file, or null if it is too large to cache
+    final long memory;             // The bytes held in memory
+    final ChannelBuffer gzip;      // A gzipped copy of the file, or null if there is none or it is too large to cache
+    final long gzipSize;           // The size of the gzipped copy, or -1 if there is none
+    final long gzipLastModified;   // When the .gz file next to it was modified, or -1 if there is none
+    final String gzipEtag;
+    HeaderBlock headers;
+    HeaderBlock gzipHeaders;
+    long validated;
+    OpenFile open;                 // The file kept open to be sent, if it is too large to cache
+    OpenFile openGzip;             // The gzipped copy kept open to be sent, if it is too large to cache
+    boolean retired;               // Whether the entry has left the cache, so files must no longer be kept open
+
+    Entry(File file, long size, long lastModified, String contentType, ChannelBuffer content, long memory,
+          ChannelBuffer gzip, long gzipSize, long gzipLastModified) {
+      this.file = file;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.contentType = contentType;
+      this.content = content;
+      this.memory = memory;
+      this.gzip = gzip;
+      this.gzipSize = gzipSize;
+      this.gzipLastModified = gzipLastModified;
+      String tag = Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+      this.etag = "\"" + tag + "\"";
+      this.gzipEtag = "\"" + tag + "-gz" + (gzipLastModified == -1 ? "" : Long.toHexString(gzipLastModified)) + "\"";
+    }
+
+    // Called when the entry leaves the cache. Open files are closed once the requests sending them are finished
+    void retire() {
+      retired = true;
+      if (open != null) {
+        open.retire();
+        open = null;
+      }
+      if (openGzip != null) {
+        openGzip.retire();
+        openGzip = null;
+      }
+    }
+  }
+}
@@ -63,6 +63,9 @@ class ClientConnection extends AbstractConnection {
   boolean keepAlive;
   private final boolean ssl;
   private boolean wsHandshakeConnection;
+  // The number of requests sent before the connection is closed, 0 if not limited
+  private int maxRequests;
+  private int requestCount;
 
   private volatile DefaultHttpClientRequest currentRequest;
   // Requests can be pipelined so we need a queue to keep track of requests
@@ -147,6 +150,11 @@ class ClientConnection extends AbstractConnection {
     }
   }
 
+  // Close the connection once max requests have been sent on it
+  void maxRequests(int max) {
+    this.maxRequests = max;
+  }
+
   void internalClose() {
     channel.close();
   }
@@ -205,7 +213,8 @@ class ClientConnection extends AbstractConnection {
     } catch (Throwable t) {
       handleHandlerException(t);
     }
-    if (!keepAlive) {
+    if (!keepAlive && requests.isEmpty()) {
+      // Requests pipelined before keep alive was turned off may still be waiting for their responses
       close();
     }
   }
@@ -254,6 +263,10 @@ class ClientConnection extends AbstractConnection {
     }
     this.currentRequest = req;
     this.requests.add(req);
+    if (maxRequests > 0 && ++requestCount == maxRequests) {
+      // Don't return the connection to the pool, close it once the responses have been received
+      keepAlive = false;
+    }
   }
 
   void endRequest() {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.FormPart;
+
+import java.util.Map;
+
+/**
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class DefaultFormPart extends FormPart {
+
+  private final MultipartParser parser;
+  private final Map<String, String> headers;
+  private Handler<Buffer> dataHandler;
+  private Handler<Void> endHandler;
+  private Handler<Exception> exceptionHandler;
+
+  DefaultFormPart(MultipartParser parser, Map<String, String> headers, String name, String filename,
+                  String contentType) {
+    super(name, filename, contentType);
+    this.parser = parser;
+    this.headers = headers;
+  }
+
+  public String getHeader(String key) {
+    return headers.get(key);
+  }
+
+  public Map<String, String> getAllHeaders() {
+    return headers;
+  }
+
+  public void dataHandler(Handler<Buffer> dataHandler) {
+    this.dataHandler = dataHandler;
+  }
+
+  public void endHandler(Handler<Void> handler) {
+    this.endHandler = handler;
+  }
+
+  public void exceptionHandler(Handler<Exception> handler) {
+    this.exceptionHandler = handler;
+  }
+
+  public void pause() {
+    parser.pause();
+  }
+
+  public void resume() {
+    parser.resume();
+  }
+
+  void handleData(Buffer data) {
+    if (dataHandler != null) {
+      dataHandler.handle(data);
+    }
+  }
+
+  void handleEnd() {
+    if (endHandler != null) {
+      endHandler.handle(null);
+    }
+  }
+
+  void handleException(Exception e) {
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(e);
+    }
+  }
+}
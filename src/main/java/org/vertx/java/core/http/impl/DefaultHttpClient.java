@@ -77,6 +77,7 @@ public class DefaultHttpClient {
     }
   };
   private boolean keepAlive = true;
+  private int maxRequestsPerConnection;
 
   public DefaultHttpClient() {
     ctx = VertxInternal.instance.getOrAssignContext();
@@ -103,6 +104,36 @@ public class DefaultHttpClient {
     return this;
   }
 
+  public DefaultHttpClient setMaxRequestsPerConnection(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Max requests per connection must be >= 0");
+    }
+    this.maxRequestsPerConnection = max;
+    return this;
+  }
+
+  public int getMaxRequestsPerConnection() {
+    return maxRequestsPerConnection;
+  }
+
+  public DefaultHttpClient setIdleReadTimeout(long timeout) {
+    tcpHelper.setIdleReadTimeout(timeout);
+    return this;
+  }
+
+  public long getIdleReadTimeout() {
+    return tcpHelper.getIdleReadTimeout();
+  }
+
+  public DefaultHttpClient setIdleWriteTimeout(long timeout) {
+    tcpHelper.setIdleWriteTimeout(timeout);
+    return this;
+  }
+
+  public long getIdleWriteTimeout() {
+    return tcpHelper.getIdleWriteTimeout();
+  }
+
   public DefaultHttpClient setPort(int port) {
     this.port = port;
     return this;
@@ -351,6 +382,7 @@ public class DefaultHttpClient {
           pipeline.addLast("encoder", new HttpRequestEncoder());
           pipeline.addLast("decoder", new SwitchingHttpResponseDecoder());
           pipeline.addLast("handler", new ClientHandler());
+          tcpHelper.addIdleTimeoutHandler(pipeline);
           return pipeline;
         }
       });
@@ -396,9 +428,12 @@ public class DefaultHttpClient {
       public void run() {
         final ClientConnection conn = new ClientConnection(DefaultHttpClient.this, ch,
             host + ":" + port, tcpHelper.isSSL(), keepAlive, ctx);
+        if (maxRequestsPerConnection > 0) {
+          conn.maxRequests(maxRequestsPerConnection);
+        }
         conn.closedHandler(new SimpleHandler() {
           public void handle() {
-            pool.connectionClosed();
+            pool.connectionClosed(conn);
           }
         });
         connectionMap.put(ch, conn);
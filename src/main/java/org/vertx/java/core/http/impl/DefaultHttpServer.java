@@ -21,6 +21,7 @@ import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFutureListener;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
@@ -43,7 +44,6 @@ import org.jboss.netty.handler.codec.http.HttpMethod;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponse;
-import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.jboss.netty.handler.ssl.SslHandler;
 import org.jboss.netty.handler.stream.ChunkedWriteHandler;
@@ -57,6 +57,7 @@ import org.vertx.java.core.http.impl.ws.WebSocketFrame;
 import org.vertx.java.core.http.impl.ws.hybi00.Handshake00;
 import org.vertx.java.core.http.impl.ws.hybi08.Handshake08;
 import org.vertx.java.core.http.impl.ws.hybi17.Handshake17;
+import org.vertx.java.core.impl.ConcurrentHashSet;
 import org.vertx.java.core.impl.Context;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.logging.Logger;
@@ -74,8 +75,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
@@ -84,6 +89,7 @@ import static org.jboss.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+import static org.jboss.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 /**
@@ -104,6 +110,18 @@ public class DefaultHttpServer {
   private ChannelGroup serverChannelGroup;
   private boolean listening;
   private String serverOrigin;
+  private boolean pipelining;
+  private int pipeliningBufferSize = 64 * 1024;
+  private boolean compression;
+  private int compressionThreshold = 1024;
+  private Set<String> compressibleTypes = HttpCompressor.DEFAULT_COMPRESSIBLE_TYPES;
+  private int maxConnections;
+  private int maxInFlightRequests;
+  private long maxQueueLatency;
+  private int maxRequestsPerConnection;
+  private LoadShedder shedder;
+  // The connections over the limit
+  private final Set<Channel> shedChannels = new ConcurrentHashSet<>();
 
   private ServerID id;
   private DefaultHttpServer actualServer;
@@ -160,6 +178,7 @@ public class DefaultHttpServer {
                 availableWorkers);
         ServerBootstrap bootstrap = new ServerBootstrap(factory);
         bootstrap.setOptions(tcpHelper.generateConnectionOptions());
+        shedder = new LoadShedder(maxConnections, maxInFlightRequests, maxQueueLatency);
 
         tcpHelper.checkSSL();
 
@@ -187,11 +206,13 @@ public class DefaultHttpServer {
               pipeline.addLast("ssl", new SslHandler(engine));
             }
 
+            pipeline.addLast("coalescer", new WriteCoalescer());
             pipeline.addLast("decoder", new HttpRequestDecoder());
-            pipeline.addLast("encoder", new HttpResponseEncoder());
+            pipeline.addLast("encoder", new ServerResponseEncoder());
 
             pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());       // For large file / sendfile support
             pipeline.addLast("handler", new ServerHandler());
+            tcpHelper.addIdleTimeoutHandler(pipeline);
             return pipeline;
           }
         });
@@ -311,11 +332,93 @@ public class DefaultHttpServer {
     return this;
   }
 
+  public DefaultHttpServer setPipelining(boolean pipelining) {
+    this.pipelining = pipelining;
+    return this;
+  }
+
+  public DefaultHttpServer setPipeliningBufferSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Pipelining buffer size must be >= 1");
+    }
+    this.pipeliningBufferSize = size;
+    return this;
+  }
+
+  public DefaultHttpServer setCompression(boolean compression) {
+    this.compression = compression;
+    return this;
+  }
+
+  public DefaultHttpServer setCompressionThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Compression threshold must be >= 0");
+    }
+    this.compressionThreshold = threshold;
+    return this;
+  }
+
+  public DefaultHttpServer setCompressibleContentTypes(Set<String> types) {
+    Set<String> lower = new HashSet<>();
+    for (String type: types) {
+      lower.add(type.toLowerCase(Locale.ENGLISH));
+    }
+    this.compressibleTypes = Collections.unmodifiableSet(lower);
+    return this;
+  }
+
+  public DefaultHttpServer setMaxConnections(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Max connections must be >= 0");
+    }
+    this.maxConnections = max;
+    return this;
+  }
+
+  public DefaultHttpServer setMaxInFlightRequests(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Max in flight requests must be >= 0");
+    }
+    this.maxInFlightRequests = max;
+    return this;
+  }
+
+  public DefaultHttpServer setMaxQueueLatency(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("Max queue latency must be >= 0");
+    }
+    this.maxQueueLatency = millis;
+    return this;
+  }
+
   public DefaultHttpServer setTrafficClass(int trafficClass) {
     tcpHelper.setTrafficClass(trafficClass);
     return this;
   }
 
+  public DefaultHttpServer setSendFileChunkSize(int size) {
+    tcpHelper.setSendFileChunkSize(size);
+    return this;
+  }
+
+  public DefaultHttpServer setIdleReadTimeout(long timeout) {
+    tcpHelper.setIdleReadTimeout(timeout);
+    return this;
+  }
+
+  public DefaultHttpServer setIdleWriteTimeout(long timeout) {
+    tcpHelper.setIdleWriteTimeout(timeout);
+    return this;
+  }
+
+  public DefaultHttpServer setMaxRequestsPerConnection(int max) {
+    if (max < 0) {
+      throw new IllegalArgumentException("Max requests per connection must be >= 0");
+    }
+    this.maxRequestsPerConnection = max;
+    return this;
+  }
+
   public Boolean isTCPNoDelay() {
     return tcpHelper.isTCPNoDelay();
   }
@@ -344,6 +447,66 @@ public class DefaultHttpServer {
     return tcpHelper.getTrafficClass();
   }
 
+  public int getSendFileChunkSize() {
+    return tcpHelper.getSendFileChunkSize();
+  }
+
+  public long getIdleReadTimeout() {
+    return tcpHelper.getIdleReadTimeout();
+  }
+
+  public long getIdleWriteTimeout() {
+    return tcpHelper.getIdleWriteTimeout();
+  }
+
+  public int getMaxRequestsPerConnection() {
+    return maxRequestsPerConnection;
+  }
+
+  public boolean isPipelining() {
+    return pipelining;
+  }
+
+  public int getPipeliningBufferSize() {
+    return pipeliningBufferSize;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public int getMaxInFlightRequests() {
+    return maxInFlightRequests;
+  }
+
+  public long getMaxQueueLatency() {
+    return maxQueueLatency;
+  }
+
+  public long getShedConnectionCount() {
+    return actualServer == null ? 0 : actualServer.shedder.getShedConnectionCount();
+  }
+
+  public long getShedInFlightCount() {
+    return actualServer == null ? 0 : actualServer.shedder.getShedInFlightCount();
+  }
+
+  public long getShedLatencyCount() {
+    return actualServer == null ? 0 : actualServer.shedder.getShedLatencyCount();
+  }
+
+  public boolean isCompression() {
+    return compression;
+  }
+
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public Set<String> getCompressibleContentTypes() {
+    return compressibleTypes;
+  }
+
   public boolean isSSL() {
     return tcpHelper.isSSL();
   }
@@ -416,10 +579,25 @@ public class DefaultHttpServer {
       ch.write(resp);
     }
 
+    // Answer the first request on a connection over the limit with a 503, and close it
+    private void shedConnection(Channel ch) {
+      HttpResponse resp = new DefaultHttpResponse(HTTP_1_1, SERVICE_UNAVAILABLE);
+      resp.setHeader(HttpHeaders.Names.RETRY_AFTER, LoadShedder.RETRY_AFTER);
+      resp.setHeader(CONNECTION, HttpHeaders.Values.CLOSE);
+      resp.setHeader(HttpHeaders.Names.CONTENT_LENGTH, "0");
+      ch.write(resp).addListener(ChannelFutureListener.CLOSE);
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
       final NioSocketChannel ch = (NioSocketChannel) e.getChannel();
       Object msg = e.getMessage();
+      if (maxConnections > 0 && shedChannels.contains(ch)) {
+        if (msg instanceof HttpRequest) {
+          shedConnection(ch);
+        }
+        return;
+      }
       ServerConnection conn = connectionMap.get(ch);
       if (msg instanceof HttpRequest) {
         final HttpRequest request = (HttpRequest) msg;
@@ -505,7 +683,20 @@ public class DefaultHttpServer {
             HandlerHolder<HttpServerRequest> reqHandler = reqHandlerManager.chooseHandler(ch.getWorker());
             if (reqHandler != null) {
               conn = new ServerConnection(ch, reqHandler.context);
+              conn.setSendFileChunkSize(tcpHelper.getSendFileChunkSize());
               conn.requestHandler(reqHandler.handler);
+              if (pipelining) {
+                conn.pipelining(pipeliningBufferSize);
+              }
+              if (compression) {
+                conn.compression(compressionThreshold, compressibleTypes);
+              }
+              if (shedder.limitsRequests()) {
+                conn.loadShedding(shedder);
+              }
+              if (maxRequestsPerConnection > 0) {
+                conn.maxRequests(maxRequestsPerConnection);
+              }
               connectionMap.put(ch, conn);
               conn.handleMessage(msg);
             }
@@ -557,12 +748,17 @@ public class DefaultHttpServer {
 
     @Override
     public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) {
-      //NOOP
+      if (!shedder.connectionOpened()) {
+        shedChannels.add(e.getChannel());
+      }
     }
 
     @Override
     public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
       final NioSocketChannel ch = (NioSocketChannel) e.getChannel();
+      if (!shedChannels.remove(ch)) {
+        shedder.connectionClosed();
+      }
       final ServerConnection conn = connectionMap.remove(ch);
       if (conn != null) {
         conn.getContext().execute(new Runnable() {
@@ -578,7 +774,7 @@ public class DefaultHttpServer {
       final NioSocketChannel ch = (NioSocketChannel) e.getChannel();
       final ServerConnection conn = connectionMap.get(ch);
       ChannelState state = e.getState();
-      if (state == ChannelState.INTEREST_OPS) {
+      if (conn != null && state == ChannelState.INTEREST_OPS) {
         conn.getContext().execute(new Runnable() {
           public void run() {
             conn.handleInterestedOpsChanged();
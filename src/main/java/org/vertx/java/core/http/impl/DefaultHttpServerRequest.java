@@ -16,10 +16,12 @@
 
 package org.vertx.java.core.http.impl;
 
+import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.QueryStringDecoder;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.FormPart;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpServerResponse;
 import org.vertx.java.core.logging.Logger;
@@ -46,6 +48,7 @@ public class DefaultHttpServerRequest extends HttpServerRequest {
   private Map<String, String> params;
   //Cache this for performance
   private Map<String, String> headers;
+  private MultipartParser parser;
 
   DefaultHttpServerRequest(ServerConnection conn,
                            String method, String uri, String path, String query,
@@ -107,13 +110,32 @@ public class DefaultHttpServerRequest extends HttpServerRequest {
     this.endHandler = handler;
   }
 
+  public void partHandler(Handler<FormPart> handler) {
+    String boundary = MultipartParser.boundary(getHeader(HttpHeaders.Names.CONTENT_TYPE));
+    if (boundary == null) {
+      throw new IllegalStateException("Request is not multipart/form-data with a boundary");
+    }
+    parser = new MultipartParser(this, boundary, handler);
+  }
+
   void handleData(Buffer data) {
-    if (dataHandler != null) {
+    if (parser != null) {
+      parser.handleData(data);
+    } else if (dataHandler != null) {
       dataHandler.handle(data);
     }
   }
 
   void handleEnd() {
+    if (parser != null) {
+      // The parser calls handleBodyEnd once it has got through the rest of the body
+      parser.handleEnd();
+    } else {
+      handleBodyEnd();
+    }
+  }
+
+  void handleBodyEnd() {
     if (endHandler != null) {
       endHandler.handle(null);
     }
@@ -123,5 +145,8 @@ public class DefaultHttpServerRequest extends HttpServerRequest {
     if (exceptionHandler != null) {
       exceptionHandler.handle(e);
     }
+    if (parser != null) {
+      parser.handleException(e);
+    }
   }
 }
@@ -29,9 +29,13 @@ import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpResponse;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HeaderBlock;
 import org.vertx.java.core.http.HttpServerResponse;
+import org.vertx.java.core.impl.BlockingAction;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
@@ -39,7 +43,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.Queue;
 
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.OK;
@@ -53,10 +59,16 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultHttpServerResponse.class);
 
+  // Bodies at least this big are compressed on a background thread rather than on the event loop
+  private static final int BACKGROUND_COMPRESSION_SIZE = 64 * 1024;
+
   private final ServerConnection conn;
-  private final HttpResponse response;
+  private final ServerHttpResponse response;
   private final HttpVersion version;
   private final boolean keepAlive;
+  private final String encoding;
+  private HttpCompressor compressor;
+  private boolean compressing;
   private HttpChunkTrailer trailer;
   private boolean headWritten;
   private boolean written;
@@ -69,11 +81,17 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
   private boolean closed;
   private ChannelFuture channelFuture;
 
-  DefaultHttpServerResponse(ServerConnection conn, HttpVersion version, boolean keepAlive) {
+  // Whether the request was counted by the server's load shedder and has not been uncounted yet
+  boolean admitted;
+  // Writes made while earlier pipelined responses on the connection are still being written
+  final Queue<ServerConnection.DeferredWrite> deferred = new LinkedList<>();
+
+  DefaultHttpServerResponse(ServerConnection conn, HttpVersion version, boolean keepAlive, String encoding) {
     this.conn = conn;
-    this.response = new DefaultHttpResponse(version, HttpResponseStatus.OK);
+    this.response = new ServerHttpResponse(version);
     this.version = version;
     this.keepAlive = keepAlive;
+    this.encoding = encoding;
   }
 
   public DefaultHttpServerResponse setChunked(boolean chunked) {
@@ -104,6 +122,13 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
     return this;
   }
 
+  public DefaultHttpServerResponse putHeaderBlock(HeaderBlock block) {
+    checkWritten();
+    // Blocks never hold framing headers, so the response doesn't need to look inside it
+    response.addHeaderBlock(block);
+    return this;
+  }
+
   public DefaultHttpServerResponse putTrailer(String key, Object value) {
     checkChunked();
     checkWritten();
@@ -129,7 +154,7 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
 
   public boolean writeQueueFull() {
     checkWritten();
-    return conn.writeQueueFull();
+    return conn.writeQueueFull(this);
   }
 
   public void drainHandler(Handler<Void> handler) {
@@ -148,6 +173,10 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
     this.closeHandler = handler;
   }
 
+  public Handler<Void> closeHandler() {
+    return closeHandler;
+  }
+
   public void writeBuffer(Buffer chunk) {
     write(chunk.getChannelBuffer(), null);
   }
@@ -189,7 +218,18 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
       contentLength = chunk.length();
       response.setHeader(Names.CONTENT_LENGTH, String.valueOf(contentLength));
     }
-    write(chunk);
+    if (!headWritten && !chunked) {
+      // The whole response can be sent as one message, which the encoder writes as a single buffer
+      checkWritten();
+      checkLength(chunk.length());
+      if (checkCompression(chunk.length())) {
+        endCompressed(chunk.getChannelBuffer());
+        return;
+      }
+      response.setContent(chunk.getChannelBuffer());
+    } else {
+      write(chunk);
+    }
     end();
   }
 
@@ -208,24 +248,30 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
       if (headWritten) {
         closeConnAfterWrite();
       } else {
-        conn.close();
+        conn.close(this);
       }
       closed = true;
     }
   }
 
   public void end() {
-
     checkWritten();
+    doEnd();
+  }
+
+  private void doEnd() {
     writeHead();
     if (chunked) {
+      if (compressor != null) {
+        conn.write(this, new DefaultHttpChunk(compressor.finish()));
+      }
       HttpChunk nettyChunk;
       if (trailer == null) {
         nettyChunk = new DefaultHttpChunk(ChannelBuffers.EMPTY_BUFFER);
       } else {
         nettyChunk = trailer;
       }
-      channelFuture = conn.write(nettyChunk);
+      channelFuture = conn.write(this, nettyChunk);
     }
 
     if (!keepAlive) {
@@ -233,7 +279,7 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
     }
 
     written = true;
-    conn.responseComplete();
+    conn.responseComplete(this);
   }
 
   public DefaultHttpServerResponse sendFile(String filename) {
@@ -257,10 +303,10 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
         sendNotFound();
       }
 
-      conn.write(response);
-      channelFuture = conn.sendFile(file);
+      conn.write(this, response);
+      channelFuture = conn.sendFile(this, file);
       headWritten = written = true;
-      conn.responseComplete();
+      conn.responseComplete(this);
     }
 
     return this;
@@ -271,6 +317,15 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
     end("<html><body>Resource not found</body><html>");
   }
 
+  boolean isComplete() {
+    return written && !compressing;
+  }
+
+  // The future of the last write made for the response, or null if nothing has been written
+  ChannelFuture lastWrite() {
+    return channelFuture;
+  }
+
   void handleDrained() {
     if (drainHandler != null) {
       drainHandler.handle(null);
@@ -284,6 +339,11 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
   }
 
   void handleClosed() {
+    if (compressor != null) {
+      // The response will never be finished, so the deflater has to be released here or its native memory leaks
+      compressor.release();
+      compressor = null;
+    }
     if (closeHandler != null) {
       closeHandler.handle(null);
     }
@@ -314,36 +374,115 @@ public class DefaultHttpServerResponse extends HttpServerResponse {
     }
   }
 
+  private void checkLength(int length) {
+    writtenBytes += length;
+    if (version != HttpVersion.HTTP_1_0 && !chunked && writtenBytes > contentLength) {
+      throw new IllegalStateException("You must set the Content-Length header to be the total size of the message "
+          + "body BEFORE sending any data if you are not using HTTP chunked encoding. "
+          + "Current written: " + written + " Current Content-Length: " + contentLength);
+    }
+  }
+
+  // Whether the body should be compressed. If it could be, but the request did not accept it, we still need to say
+  // the response varies by Accept-Encoding
+  private boolean checkCompression(long length) {
+    if (statusCode < 200 || statusCode == 204 || statusCode == 304
+        || response.findHeader(Names.CONTENT_ENCODING) != null || response.findHeader(Names.CONTENT_RANGE) != null
+        || !conn.isCompressible(response.findHeader(Names.CONTENT_TYPE), length)) {
+      return false;
+    }
+    String vary = response.findHeader(Names.VARY);
+    if (vary == null || !vary.toLowerCase().contains("accept-encoding")) {
+      response.addHeader(Names.VARY, Names.ACCEPT_ENCODING);
+    }
+    if (encoding == null) {
+      return false;
+    }
+    response.setHeader(Names.CONTENT_ENCODING, encoding);
+    // The encoded body is not the one a strong ETag was made for, byte for byte, so it can only be a weak match
+    String etag = response.findHeader(Names.ETAG);
+    if (etag != null && !etag.startsWith("W/")) {
+      response.inlineHeaderBlocks();
+      response.setHeader(Names.ETAG, "W/" + etag);
+    }
+    return true;
+  }
+
+  // Compress the whole body and send it with the head, on a background thread if it is large. The response does not
+  // count as complete until then, so responses to later pipelined requests wait for it
+  private void endCompressed(final ChannelBuffer body) {
+    final HttpCompressor compressor = new HttpCompressor(encoding);
+    if (body.readableBytes() < BACKGROUND_COMPRESSION_SIZE) {
+      setCompressedContent(compressor.compressAll(body));
+      doEnd();
+    } else {
+      written = compressing = true;
+      new BlockingAction<ChannelBuffer>(new AsyncResultHandler<ChannelBuffer>() {
+        public void handle(AsyncResult<ChannelBuffer> res) {
+          compressing = false;
+          if (res.succeeded()) {
+            setCompressedContent(res.result);
+          } else {
+            log.error("Failed to compress response", res.exception);
+            response.removeHeader(Names.CONTENT_ENCODING);
+            response.setContent(body);
+          }
+          doEnd();
+        }
+      }) {
+        public ChannelBuffer action() {
+          return compressor.compressAll(body);
+        }
+      }.run();
+    }
+  }
+
+  private void setCompressedContent(ChannelBuffer content) {
+    response.setHeader(Names.CONTENT_LENGTH, String.valueOf(content.readableBytes()));
+    response.setContent(content);
+  }
+
+  // Compress a streamed body. Its length will change, so a body with a Content-Length is sent chunked instead
+  private void startCompression() {
+    compressor = new HttpCompressor(encoding);
+    if (!chunked) {
+      response.removeHeader(Names.CONTENT_LENGTH);
+      chunked = true;
+    }
+  }
+
   private void writeHead() {
     if (!headWritten) {
-      HttpResponseStatus status = statusMessage == null ? HttpResponseStatus.valueOf(statusCode) :
-          new HttpResponseStatus(statusCode, statusMessage);
-      response.setStatus(status);
+      response.setStatus(statusCode, statusMessage);
       if (version == HttpVersion.HTTP_1_0 && keepAlive) {
         response.setHeader("Connection", "Keep-Alive");
+      } else if (version == HttpVersion.HTTP_1_1 && !keepAlive) {
+        response.setHeader("Connection", "close");
       }
       if (chunked) {
         response.setHeader(Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
       } else if (version != HttpVersion.HTTP_1_0 && contentLength == 0) {
         response.setHeader(Names.CONTENT_LENGTH, "0");
       }
-      channelFuture = conn.write(response);
+      channelFuture = conn.write(this, response);
       headWritten = true;
     }
   }
 
   private DefaultHttpServerResponse write(ChannelBuffer chunk, final Handler<Void> doneHandler) {
     checkWritten();
-    writtenBytes += chunk.readableBytes();
-    if (version != HttpVersion.HTTP_1_0 && !chunked && writtenBytes > contentLength) {
-      throw new IllegalStateException("You must set the Content-Length header to be the total size of the message "
-          + "body BEFORE sending any data if you are not using HTTP chunked encoding. "
-          + "Current written: " + written + " Current Content-Length: " + contentLength);
+    checkLength(chunk.readableBytes());
+    if (!headWritten && (chunked || version != HttpVersion.HTTP_1_0)
+        && checkCompression(chunked ? Long.MAX_VALUE : contentLength)) {
+      startCompression();
     }
-
     writeHead();
+    if (compressor != null) {
+      chunk = compressor.compress(chunk);
+    }
     Object msg = chunked ? new DefaultHttpChunk(chunk) : chunk;
-    ChannelFuture writeFuture = conn.write(msg);
+    ChannelFuture writeFuture = conn.write(this, msg);
+    channelFuture = writeFuture;
     if (doneHandler != null) {
       conn.addFuture(doneHandler, writeFuture);
     }
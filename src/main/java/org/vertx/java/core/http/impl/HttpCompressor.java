@@ -0,0 +1,202 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses a response body with the gzip or deflate content coding, a piece at a time. Each piece is flushed, so
+ * what has been written can be decompressed straight away, which keeps streamed responses streaming.<p>
+ * Also holds the helpers for choosing a content coding from an {@code Accept-Encoding} header and deciding whether a
+ * content type is worth compressing.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class HttpCompressor {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
+  public static final Set<String> DEFAULT_COMPRESSIBLE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      "text/*", "application/json", "application/javascript", "application/xml", "image/svg+xml")));
+
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final Deflater deflater;
+  private final CRC32 crc;
+  private byte[] out = new byte[1024];
+  private boolean headerWritten;
+
+  /**
+   * @param encoding {@link #GZIP} or {@link #DEFLATE}
+   */
+  public HttpCompressor(String encoding) {
+    boolean gzip = GZIP.equals(encoding);
+    this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+    this.crc = gzip ? new CRC32() : null;
+  }
+
+  /**
+   * Compress {@code data} and flush it
+   */
+  public ChannelBuffer compress(ChannelBuffer data) {
+    byte[] bytes;
+    int offset;
+    int len = data.readableBytes();
+    if (data.hasArray()) {
+      bytes = data.array();
+      offset = data.arrayOffset() + data.readerIndex();
+    } else {
+      bytes = new byte[len];
+      offset = 0;
+      data.getBytes(data.readerIndex(), bytes);
+    }
+    if (crc != null) {
+      crc.update(bytes, offset, len);
+    }
+    deflater.setInput(bytes, offset, len);
+    ChannelBuffer compressed = start(len / 2 + 64);
+    deflate(compressed, Deflater.SYNC_FLUSH);
+    return compressed;
+  }
+
+  /**
+   * Finish compressing, returning whatever is left to write, and release the compressor
+   */
+  public ChannelBuffer finish() {
+    ChannelBuffer compressed = start(64);
+    deflater.finish();
+    deflate(compressed, Deflater.FULL_FLUSH);
+    if (crc != null) {
+      writeIntLE(compressed, (int) crc.getValue());
+      writeIntLE(compressed, (int) deflater.getBytesRead());
+    }
+    deflater.end();
+    return compressed;
+  }
+
+  /**
+   * Release the compressor without finishing, when the rest of the body will never be written. It does nothing if the
+   * compressor has already been released
+   */
+  public void release() {
+    deflater.end();
+  }
+
+  /**
+   * Compress the whole of {@code data}, releasing the compressor
+   */
+  public ChannelBuffer compressAll(ChannelBuffer data) {
+    return ChannelBuffers.wrappedBuffer(compress(data), finish());
+  }
+
+  /**
+   * Choose the content coding to use for a request with the {@code Accept-Encoding} header {@code acceptEncoding}
+   * @return {@link #GZIP}, {@link #DEFLATE} or null if the response should not be compressed
+   */
+  public static String negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    boolean gzip = false;
+    boolean deflate = false;
+    for (String coding: acceptEncoding.split(",")) {
+      String name = coding;
+      int semi = coding.indexOf(';');
+      if (semi != -1) {
+        name = coding.substring(0, semi);
+        if (isZeroQuality(coding.substring(semi + 1))) {
+          continue;
+        }
+      }
+      name = name.trim().toLowerCase(Locale.ENGLISH);
+      if (name.equals(GZIP) || name.equals("x-gzip") || name.equals("*")) {
+        gzip = true;
+      } else if (name.equals(DEFLATE)) {
+        deflate = true;
+      }
+    }
+    return gzip ? GZIP : deflate ? DEFLATE : null;
+  }
+
+  /**
+   * @return true if {@code contentType}, ignoring any parameters, is in {@code types}, or {@code types} contains the
+   * wildcard type for it, e.g. {@code text/*}
+   */
+  public static boolean isCompressible(String contentType, Set<String> types) {
+    if (contentType == null) {
+      return false;
+    }
+    int semi = contentType.indexOf(';');
+    String type = (semi == -1 ? contentType : contentType.substring(0, semi)).trim().toLowerCase(Locale.ENGLISH);
+    if (types.contains(type)) {
+      return true;
+    }
+    int slash = type.indexOf('/');
+    return slash != -1 && types.contains(type.substring(0, slash) + "/*");
+  }
+
+  private static boolean isZeroQuality(String params) {
+    for (String param: params.split(";")) {
+      param = param.trim();
+      if (param.startsWith("q=")) {
+        try {
+          return Double.parseDouble(param.substring(2)) == 0;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  private ChannelBuffer start(int size) {
+    ChannelBuffer compressed = ChannelBuffers.dynamicBuffer(size);
+    if (crc != null && !headerWritten) {
+      compressed.writeBytes(GZIP_HEADER);
+      headerWritten = true;
+    }
+    return compressed;
+  }
+
+  private void deflate(ChannelBuffer compressed, int flush) {
+    while (true) {
+      int n = deflater.deflate(out, 0, out.length, flush);
+      compressed.writeBytes(out, 0, n);
+      if (deflater.finished() || (n < out.length && !deflater.finished() && flush == Deflater.SYNC_FLUSH)) {
+        break;
+      }
+    }
+  }
+
+  private static void writeIntLE(ChannelBuffer buff, int i) {
+    buff.writeByte(i);
+    buff.writeByte(i >>> 8);
+    buff.writeByte(i >>> 16);
+    buff.writeByte(i >>> 24);
+  }
+}
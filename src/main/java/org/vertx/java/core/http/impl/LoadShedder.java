@@ -0,0 +1,173 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.impl.Context;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a server is too busy to take on more work, and counts what it turns away.<p>
+ * There are three limits, each of which is off when it is zero: the number of open connections, the number of
+ * requests being handled across all the server's event loops, and how long work has to wait in an event loop's queue
+ * before it runs. The last is measured by queueing a probe on the event loop when a request arrives and seeing how
+ * long it takes to run. While a probe is waiting its age counts as the latency, so a loop which is falling behind is
+ * noticed before the probe gets to run.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class LoadShedder {
+
+  // How many seconds clients are told to wait before retrying
+  static final int RETRY_AFTER = 1;
+
+  // A latency measured longer ago than this no longer says anything about the loop
+  private static final long PROBE_EXPIRY = TimeUnit.SECONDS.toNanos(1);
+
+  private final int maxConnections;
+  private final int maxInFlight;
+  private final long maxLatency;
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong shedConnections = new AtomicLong();
+  private final AtomicLong shedInFlight = new AtomicLong();
+  private final AtomicLong shedLatency = new AtomicLong();
+  private final ConcurrentMap<Context, LoopProbe> probes = new ConcurrentHashMap<>();
+
+  LoadShedder(int maxConnections, int maxInFlight, long maxLatencyMillis) {
+    this.maxConnections = maxConnections;
+    this.maxInFlight = maxInFlight;
+    this.maxLatency = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+  }
+
+  /**
+   * @return false if the connection is over the limit. It is not counted and should be turned away
+   */
+  boolean connectionOpened() {
+    if (maxConnections > 0 && connections.incrementAndGet() > maxConnections) {
+      connections.decrementAndGet();
+      shedConnections.incrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  void connectionClosed() {
+    if (maxConnections > 0) {
+      connections.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return The probe for the event loop of {@code context}, or null if queue latency is not limited
+   */
+  LoopProbe probe(Context context) {
+    if (maxLatency == 0) {
+      return null;
+    }
+    LoopProbe probe = probes.get(context);
+    if (probe == null) {
+      probe = new LoopProbe(context);
+      LoopProbe existing = probes.putIfAbsent(context, probe);
+      if (existing != null) {
+        probe = existing;
+      }
+    }
+    return probe;
+  }
+
+  /**
+   * Called on the event loop of {@code probe} when a request arrives
+   * @return false if the request should be turned away. Otherwise it is counted until {@link #requestEnded}
+   */
+  boolean admitRequest(LoopProbe probe) {
+    if (probe != null && probe.latency() > maxLatency) {
+      shedLatency.incrementAndGet();
+      return false;
+    }
+    if (maxInFlight > 0 && inFlight.incrementAndGet() > maxInFlight) {
+      inFlight.decrementAndGet();
+      shedInFlight.incrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  void requestEnded() {
+    if (maxInFlight > 0) {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  boolean limitsRequests() {
+    return maxInFlight > 0 || maxLatency > 0;
+  }
+
+  long getShedConnectionCount() {
+    return shedConnections.get();
+  }
+
+  long getShedInFlightCount() {
+    return shedInFlight.get();
+  }
+
+  long getShedLatencyCount() {
+    return shedLatency.get();
+  }
+
+  /**
+   * Measures the queue latency of one event loop. Only used from that loop
+   */
+  static class LoopProbe implements Runnable {
+
+    private final Context context;
+    private boolean queued;
+    private long sent;
+    private long measured;
+    private long measuredAt;
+
+    LoopProbe(Context context) {
+      this.context = context;
+      this.measuredAt = System.nanoTime() - PROBE_EXPIRY;
+    }
+
+    long latency() {
+      long now = System.nanoTime();
+      if (!queued) {
+        queued = true;
+        sent = now;
+        context.execute(this);
+      }
+      long latency = now - sent;
+      if (now - measuredAt < PROBE_EXPIRY) {
+        latency = Math.max(latency, measured);
+      }
+      return latency;
+    }
+
+    public void run() {
+      measuredAt = System.nanoTime();
+      measured = measuredAt - sent;
+      queued = false;
+    }
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.FormPart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Parses a {@code multipart/form-data} request body as it arrives, handing out each part as a {@link FormPart}.<p>
+ * Only the bytes which might be the start of a boundary, or the headers of a part, are held back between chunks of
+ * the body. Everything else is passed on as slices of the chunks it arrived in. While a part is paused the request
+ * is paused too, and whatever is left of the current chunk is kept until the part is resumed.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class MultipartParser {
+
+  // The most bytes the headers of a single part may take
+  private static final int MAX_HEADERS_SIZE = 8192;
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+
+  private enum State {
+    PREAMBLE, DELIMITER, HEADERS, BODY, EPILOGUE, FAILED
+  }
+
+  /**
+   * @return The boundary of a {@code multipart/form-data} content type, or null if it is not one or has no boundary
+   */
+  static String boundary(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    int semi = contentType.indexOf(';');
+    if (semi == -1 || !contentType.substring(0, semi).trim().equalsIgnoreCase("multipart/form-data")) {
+      return null;
+    }
+    String boundary = parameter(contentType, "boundary");
+    return boundary == null || boundary.isEmpty() ? null : boundary;
+  }
+
+  /**
+   * @return The value of the parameter called {@code name} in a header value such as
+   * {@code form-data; name="field"}, without any quotes, or null if there is no such parameter
+   */
+  static String parameter(String header, String name) {
+    int len = header.length();
+    int i = header.indexOf(';');
+    while (i != -1) {
+      int eq = header.indexOf('=', i + 1);
+      if (eq == -1) {
+        return null;
+      }
+      String key = header.substring(i + 1, eq).trim();
+      int start = eq + 1;
+      while (start < len && header.charAt(start) == ' ') {
+        start++;
+      }
+      String value;
+      if (start < len && header.charAt(start) == '"') {
+        // Only an escaped quote is unescaped. Browsers send Windows paths with their backslashes as they are
+        StringBuilder sb = new StringBuilder();
+        int j = start + 1;
+        while (j < len && header.charAt(j) != '"') {
+          if (header.charAt(j) == '\\' && j + 1 < len && header.charAt(j + 1) == '"') {
+            j++;
+          }
+          sb.append(header.charAt(j++));
+        }
+        value = sb.toString();
+        i = header.indexOf(';', j);
+      } else {
+        i = header.indexOf(';', start);
+        value = header.substring(start, i == -1 ? len : i).trim();
+      }
+      if (key.equalsIgnoreCase(name)) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private final DefaultHttpServerRequest request;
+  private final Handler<FormPart> partHandler;
+  private final byte[] delimiter;
+  // Received but not yet parsed. The body is parsed as if it started with a CRLF, so the first boundary matches the
+  // delimiter just as the others do
+  private Buffer pending = new Buffer(CRLF);
+  private State state = State.PREAMBLE;
+  private DefaultFormPart part;
+  private boolean paused;
+  private boolean parsing;
+  private boolean ended;
+  private boolean endHandled;
+
+  MultipartParser(DefaultHttpServerRequest request, String boundary, Handler<FormPart> partHandler) {
+    this.request = request;
+    this.partHandler = partHandler;
+    this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  void handleData(Buffer data) {
+    if (state == State.EPILOGUE || state == State.FAILED) {
+      return;
+    }
+    // Only a few bytes are ever left over, so copying them is cheaper than nesting composites
+    pending = pending.length() == 0 ? data : Buffer.createComposite(pending.copy(), data);
+    parse();
+  }
+
+  void handleEnd() {
+    ended = true;
+    parse();
+  }
+
+  void handleException(Exception e) {
+    if (part != null) {
+      part.handleException(e);
+    }
+  }
+
+  void pause() {
+    if (!paused) {
+      paused = true;
+      request.pause();
+    }
+  }
+
+  void resume() {
+    if (paused) {
+      paused = false;
+      request.resume();
+      parse();
+    }
+  }
+
+  private void parse() {
+    if (parsing) {
+      // Called back from a handler. The loop below carries on with whatever has changed
+      return;
+    }
+    parsing = true;
+    try {
+      while (!paused && parseNext()) {
+      }
+      if (!paused && ended && !endHandled) {
+        endHandled = true;
+        if (state != State.EPILOGUE && state != State.FAILED) {
+          fail("body ended before the closing boundary");
+        }
+        request.handleBodyEnd();
+      }
+    } finally {
+      parsing = false;
+    }
+  }
+
+  // Parse as far as the next event, with the bytes parsed removed from pending before any handler is called.
+  // Returns false if more data is needed
+  private boolean parseNext() {
+    switch (state) {
+      case PREAMBLE: {
+        int i = indexOf(delimiter);
+        if (i == -1) {
+          consume(Math.max(0, pending.length() - delimiter.length + 1));
+          return false;
+        }
+        consume(i + delimiter.length);
+        state = State.DELIMITER;
+        return true;
+      }
+      case DELIMITER: {
+        if (pending.length() < 2) {
+          return false;
+        }
+        byte b0 = pending.getByte(0);
+        byte b1 = pending.getByte(1);
+        consume(2);
+        if (b0 == '-' && b1 == '-') {
+          state = State.EPILOGUE;
+        } else if (b0 == '\r' && b1 == '\n') {
+          state = State.HEADERS;
+        } else {
+          fail("boundary is not followed by a CRLF");
+          return false;
+        }
+        return true;
+      }
+      case HEADERS: {
+        int i = pending.length() >= 2 && pending.getByte(0) == '\r' && pending.getByte(1) == '\n' ? -2 :
+            indexOf(HEADERS_END);
+        if (i == -1) {
+          if (pending.length() > MAX_HEADERS_SIZE) {
+            fail("part headers are longer than " + MAX_HEADERS_SIZE + " bytes");
+          }
+          return false;
+        }
+        String headers = i == -2 ? "" : pending.getString(0, i, "UTF-8");
+        consume(i + 4);
+        part = createPart(headers);
+        state = State.BODY;
+        partHandler.handle(part);
+        return true;
+      }
+      case BODY: {
+        int i = indexOf(delimiter);
+        if (i == 0) {
+          consume(delimiter.length);
+          state = State.DELIMITER;
+          DefaultFormPart finished = part;
+          part = null;
+          finished.handleEnd();
+          return true;
+        }
+        // Hold back anything which could be the start of a delimiter
+        int end = i == -1 ? pending.length() - delimiter.length + 1 : i;
+        if (end <= 0) {
+          return false;
+        }
+        Buffer data = pending.slice(0, end);
+        consume(end);
+        part.handleData(data);
+        return true;
+      }
+      default: {
+        consume(pending.length());
+        return false;
+      }
+    }
+  }
+
+  private DefaultFormPart createPart(String block) {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    String last = null;
+    for (String line: block.split("\r\n")) {
+      if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t') && last != null) {
+        // A folded header continues the previous one
+        headers.put(last, headers.get(last) + " " + line.trim());
+        continue;
+      }
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        last = line.substring(0, colon).trim();
+        headers.put(last, line.substring(colon + 1).trim());
+      }
+    }
+    String disposition = headers.get("Content-Disposition");
+    String name = disposition == null ? null : parameter(disposition, "name");
+    String filename = disposition == null ? null : parameter(disposition, "filename");
+    return new DefaultFormPart(this, Collections.unmodifiableMap(headers), name, filename,
+                               headers.get("Content-Type"));
+  }
+
+  private void fail(String message) {
+    state = State.FAILED;
+    consume(pending.length());
+    Exception e = new IllegalArgumentException("Invalid multipart body: " + message);
+    DefaultFormPart failed = part;
+    part = null;
+    if (failed != null) {
+      failed.handleException(e);
+    }
+    request.handleException(e);
+    if (paused) {
+      paused = false;
+      request.resume();
+    }
+  }
+
+  private void consume(int bytes) {
+    pending = pending.slice(bytes, pending.length());
+  }
+
+  private int indexOf(byte[] pattern) {
+    ChannelBuffer buf = pending.getChannelBuffer();
+    int last = pending.length() - pattern.length;
+    for (int i = 0; i <= last; i++) {
+      i = buf.indexOf(i, last + 1, pattern[0]);
+      if (i == -1) {
+        return -1;
+      }
+      int j = 1;
+      while (j < pattern.length && buf.getByte(i + j) == pattern[j]) {
+        j++;
+      }
+      if (j == pattern.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -20,9 +20,13 @@ import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
 import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpMessage;
 import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
@@ -42,6 +46,9 @@ import java.net.URISyntaxException;
 import java.nio.channels.ClosedChannelException;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Set;
+
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -51,11 +58,27 @@ class ServerConnection extends AbstractConnection {
   private static final Logger log = LoggerFactory.getLogger(ServerConnection.class);
 
   private static final int CHANNEL_PAUSE_QUEUE_SIZE = 5;
+  private static final int MAX_PIPELINED_REQUESTS = 32;
 
   private Handler<HttpServerRequest> requestHandler;
   private Handler<ServerWebSocket> wsHandler;
   private DefaultHttpServerRequest currentRequest;
-  private DefaultHttpServerResponse pendingResponse;
+  // Responses which have not been completely written yet, in the order their requests arrived. Only the first one
+  // writes to the channel, the others are buffered until it is their turn
+  private final Queue<DefaultHttpServerResponse> responses = new LinkedList<>();
+  private int maxResponses = 1;
+  // The number of requests answered before the connection is closed, 0 if not limited
+  private int maxRequests;
+  private int requestCount;
+  private int maxBuffered;
+  private int buffered;
+  private boolean bufferFull;
+  // Null unless responses are compressed
+  private Set<String> compressibleTypes;
+  private int compressionThreshold;
+  // Null unless the server limits the requests it takes on
+  private LoadShedder shedder;
+  private LoadShedder.LoopProbe probe;
   private DefaultWebSocket ws;
   private boolean channelPaused;
   private boolean paused;
@@ -82,7 +105,7 @@ class ServerConnection extends AbstractConnection {
   }
 
   void handleMessage(Object msg) {
-    if (paused || (msg instanceof HttpRequest && pendingResponse != null) || !pending.isEmpty()) {
+    if (paused || (msg instanceof HttpRequest && responses.size() >= maxResponses) || !pending.isEmpty()) {
       //We queue requests if paused or a request is in progress to prevent responses being written in the wrong order
       pending.add(msg);
       if (pending.size() == CHANNEL_PAUSE_QUEUE_SIZE) {
@@ -96,11 +119,85 @@ class ServerConnection extends AbstractConnection {
     }
   }
 
-  void responseComplete() {
-    pendingResponse = null;
+  void responseComplete(final DefaultHttpServerResponse resp) {
+    // The request counts against the load shedder until its response has been written, not just ended
+    ChannelFuture written = resp.lastWrite();
+    if (resp.admitted && written != null) {
+      written.addListener(new ChannelFutureListener() {
+        public void operationComplete(ChannelFuture future) throws Exception {
+          requestEnded(resp);
+        }
+      });
+    } else {
+      requestEnded(resp);
+    }
+    if (resp == responses.peek()) {
+      responses.poll();
+      // The next responses may have been written already while waiting their turn
+      DefaultHttpServerResponse next;
+      while ((next = responses.peek()) != null) {
+        flushDeferred(next);
+        if (next.isComplete()) {
+          responses.poll();
+        } else {
+          if (channel.isWritable()) {
+            next.handleDrained();
+          }
+          break;
+        }
+      }
+    }
     checkNextTick();
   }
 
+  ChannelFuture write(DefaultHttpServerResponse resp, Object msg) {
+    return resp == responses.peek() ? write(msg) : defer(resp, msg);
+  }
+
+  ChannelFuture sendFile(DefaultHttpServerResponse resp, File file) {
+    return resp == responses.peek() ? sendFile(file) : defer(resp, file);
+  }
+
+  void close(DefaultHttpServerResponse resp) {
+    if (resp == responses.peek()) {
+      close();
+    } else {
+      defer(resp, null);
+    }
+  }
+
+  boolean writeQueueFull(DefaultHttpServerResponse resp) {
+    return resp == responses.peek() ? writeQueueFull() : bufferFull;
+  }
+
+  // Handle requests pipelined on this connection concurrently, buffering up to maxBuffered bytes of their responses
+  void pipelining(int maxBuffered) {
+    this.maxResponses = MAX_PIPELINED_REQUESTS;
+    this.maxBuffered = maxBuffered;
+  }
+
+  // Close the connection once max requests have been answered on it
+  void maxRequests(int max) {
+    this.maxRequests = max;
+  }
+
+  // Compress the responses to requests which accept it, if they are of one of the types and big enough
+  void compression(int threshold, Set<String> types) {
+    this.compressionThreshold = threshold;
+    this.compressibleTypes = types;
+  }
+
+  boolean isCompressible(String contentType, long length) {
+    return compressibleTypes != null && length >= compressionThreshold &&
+        HttpCompressor.isCompressible(contentType, compressibleTypes);
+  }
+
+  // Turn requests away when the server is over its limits
+  void loadShedding(LoadShedder shedder) {
+    this.shedder = shedder;
+    this.probe = shedder.probe(context);
+  }
+
   void requestHandler(Handler<HttpServerRequest> handler) {
     this.requestHandler = handler;
   }
@@ -118,7 +215,7 @@ class ServerConnection extends AbstractConnection {
     setContext();
     try {
       this.currentRequest = req;
-      pendingResponse = resp;
+      responses.add(resp);
       if (requestHandler != null) {
         requestHandler.handle(req);
       }
@@ -127,6 +224,22 @@ class ServerConnection extends AbstractConnection {
     }
   }
 
+  // Answer the request with a 503 without passing it to the handler. Its body is read and dropped
+  private void shed(DefaultHttpServerRequest req, DefaultHttpServerResponse resp) {
+    this.currentRequest = req;
+    responses.add(resp);
+    resp.statusCode = HttpResponseStatus.SERVICE_UNAVAILABLE.getCode();
+    resp.putHeader(Names.RETRY_AFTER, LoadShedder.RETRY_AFTER);
+    resp.end();
+  }
+
+  private void requestEnded(DefaultHttpServerResponse resp) {
+    if (resp.admitted) {
+      resp.admitted = false;
+      shedder.requestEnded();
+    }
+  }
+
   private void handleChunk(Buffer chunk) {
     try {
       setContext();
@@ -150,8 +263,9 @@ class ServerConnection extends AbstractConnection {
     try {
       if (channel.isWritable()) {
         setContext();
-        if (pendingResponse != null) {
-          pendingResponse.handleDrained();
+        DefaultHttpServerResponse resp = responses.peek();
+        if (resp != null) {
+          resp.handleDrained();
         } else if (ws != null) {
           ws.writable();
         }
@@ -189,8 +303,9 @@ class ServerConnection extends AbstractConnection {
     if (ws != null) {
       ws.handleClosed();
     }
-    if (pendingResponse != null) {
-      pendingResponse.handleClosed();
+    for (DefaultHttpServerResponse resp: responses) {
+      requestEnded(resp);
+      resp.handleClosed();
     }
   }
 
@@ -203,8 +318,8 @@ class ServerConnection extends AbstractConnection {
     if (currentRequest != null) {
       currentRequest.handleException(e);
     }
-    if (pendingResponse != null) {
-      pendingResponse.handleException(e);
+    for (DefaultHttpServerResponse resp: responses) {
+      resp.handleException(e);
     }
     if (ws != null) {
       ws.handleException(e);
@@ -240,6 +355,10 @@ class ServerConnection extends AbstractConnection {
 
       HttpRequest request = (HttpRequest) msg;
 
+      if (maxRequests > 0 && ++requestCount > maxRequests) {
+        // Pipelined after the last request allowed. The connection closes once that is answered
+        return;
+      }
       String method = request.getMethod().toString();
       URI theURI;
       try {
@@ -253,9 +372,21 @@ class ServerConnection extends AbstractConnection {
       HttpVersion ver = request.getProtocolVersion();
       boolean keepAlive = ver == HttpVersion.HTTP_1_1 ||
           (ver == HttpVersion.HTTP_1_0 && "Keep-Alive".equalsIgnoreCase(request.getHeader("Connection")));
-      DefaultHttpServerResponse resp = new DefaultHttpServerResponse(this, request.getProtocolVersion(), keepAlive);
+      if (maxRequests > 0 && requestCount == maxRequests) {
+        keepAlive = false;
+      }
+      String encoding = compressibleTypes == null || method.equals("HEAD") ? null :
+          HttpCompressor.negotiate(request.getHeader(Names.ACCEPT_ENCODING));
+      DefaultHttpServerResponse resp = new DefaultHttpServerResponse(this, ver, keepAlive, encoding);
       DefaultHttpServerRequest req = new DefaultHttpServerRequest(this, method, uri, path, query, resp, request);
-      handleRequest(req, resp);
+      if (shedder == null) {
+        handleRequest(req, resp);
+      } else if (shedder.admitRequest(probe)) {
+        resp.admitted = true;
+        handleRequest(req, resp);
+      } else {
+        shed(req, resp);
+      }
 
       ChannelBuffer requestBody = request.getContent();
 
@@ -277,6 +408,9 @@ class ServerConnection extends AbstractConnection {
       }
     } else if (msg instanceof HttpChunk) {
       HttpChunk chunk = (HttpChunk) msg;
+      if (maxRequests > 0 && requestCount > maxRequests) {
+        return;
+      }
       if (chunk.getContent().readable()) {
         Buffer buff = new Buffer(chunk.getContent());
         handleChunk(buff);
@@ -301,7 +435,8 @@ class ServerConnection extends AbstractConnection {
 
   private void checkNextTick() {
     // Check if there are more pending messages in the queue that can be processed next time around
-    if (!sentCheck && !pending.isEmpty() && !paused && (pendingResponse == null || pending.peek() instanceof HttpChunk)) {
+    if (!sentCheck && !pending.isEmpty() && !paused &&
+        (responses.size() < maxResponses || pending.peek() instanceof HttpChunk)) {
       sentCheck = true;
       Vertx.instance.runOnLoop(new SimpleHandler() {
         public void handle() {
@@ -313,12 +448,86 @@ class ServerConnection extends AbstractConnection {
             }
             if (channelPaused && pending.isEmpty()) {
               //Resume the actual channel
-              ServerConnection.super.resume();
               channelPaused = false;
+              if (!bufferFull) {
+                ServerConnection.super.resume();
+              }
             }
           }
         }
       });
     }
   }
+
+  private ChannelFuture defer(DefaultHttpServerResponse resp, Object msg) {
+    ChannelFuture future = Channels.future(channel);
+    resp.deferred.add(new DeferredWrite(msg, future));
+    buffered += sizeOf(msg);
+    if (!bufferFull && buffered >= maxBuffered) {
+      //Stop reading more requests until the responses already buffered have been written
+      bufferFull = true;
+      super.pause();
+    }
+    return future;
+  }
+
+  private void flushDeferred(DefaultHttpServerResponse resp) {
+    DeferredWrite deferred;
+    while ((deferred = resp.deferred.poll()) != null) {
+      buffered -= sizeOf(deferred.msg);
+      final ChannelFuture future = deferred.future;
+      if (deferred.msg == null) {
+        close();
+        future.setSuccess();
+        continue;
+      }
+      ChannelFuture written = deferred.msg instanceof File ? sendFile((File) deferred.msg) : write(deferred.msg);
+      if (written == null) {
+        future.setFailure(new ClosedChannelException());
+      } else {
+        written.addListener(new ChannelFutureListener() {
+          public void operationComplete(ChannelFuture written) throws Exception {
+            if (written.isSuccess()) {
+              future.setSuccess();
+            } else {
+              future.setFailure(written.getCause());
+            }
+          }
+        });
+      }
+    }
+    if (bufferFull && buffered < maxBuffered / 2) {
+      bufferFull = false;
+      if (!channelPaused) {
+        super.resume();
+      }
+      for (DefaultHttpServerResponse waiting: responses) {
+        if (waiting != resp) {
+          waiting.handleDrained();
+        }
+      }
+    }
+  }
+
+  private static int sizeOf(Object msg) {
+    if (msg instanceof ChannelBuffer) {
+      return ((ChannelBuffer) msg).readableBytes();
+    } else if (msg instanceof HttpChunk) {
+      return ((HttpChunk) msg).getContent().readableBytes();
+    } else if (msg instanceof HttpMessage) {
+      return ((HttpMessage) msg).getContent().readableBytes();
+    } else {
+      return 0;
+    }
+  }
+
+  static class DeferredWrite {
+    final Object msg;
+    final ChannelFuture future;
+
+    DeferredWrite(Object msg, ChannelFuture future) {
+      this.msg = msg;
+      this.future = future;
+    }
+  }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.vertx.java.core.http.HeaderBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response head written by {@link DefaultHttpServerResponse}. It carries the status code and reason as they were
+ * set, so that {@link ServerResponseEncoder} can use a pre-encoded status line, and any header blocks to be copied
+ * into the head.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class ServerHttpResponse extends DefaultHttpResponse {
+
+  int code = HttpResponseStatus.OK.getCode();
+  String reason;
+  List<HeaderBlock> headerBlocks;
+
+  ServerHttpResponse(HttpVersion version) {
+    super(version, HttpResponseStatus.OK);
+  }
+
+  void setStatus(int code, String reason) {
+    this.code = code;
+    this.reason = reason;
+  }
+
+  void addHeaderBlock(HeaderBlock block) {
+    if (headerBlocks == null) {
+      headerBlocks = new ArrayList<>(2);
+    }
+    headerBlocks.add(block);
+  }
+
+  // Copy the headers of the header blocks into the head, so they can be changed
+  void inlineHeaderBlocks() {
+    if (headerBlocks != null) {
+      for (HeaderBlock block: headerBlocks) {
+        for (Map.Entry<String, String> header: block.getHeaders().entrySet()) {
+          addHeader(header.getKey(), header.getValue());
+        }
+      }
+      headerBlocks = null;
+    }
+  }
+
+  // Look a header up in the head and in its header blocks
+  String findHeader(String name) {
+    String value = getHeader(name);
+    if (value == null && headerBlocks != null) {
+      for (HeaderBlock block: headerBlocks) {
+        for (Map.Entry<String, String> header: block.getHeaders().entrySet()) {
+          if (name.equalsIgnoreCase(header.getKey())) {
+            return header.getValue();
+          }
+        }
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public HttpResponseStatus getStatus() {
+    return reason == null ? HttpResponseStatus.valueOf(code) : new HttpResponseStatus(code, reason);
+  }
+}
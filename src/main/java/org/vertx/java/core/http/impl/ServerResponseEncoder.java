@@ -0,0 +1,200 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunkTrailer;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HeaderBlock;
+
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Encodes HTTP responses like Netty's {@code HttpResponseEncoder}, but copies the status line from a table encoded
+ * once for each status code, copies header blocks verbatim, and adds a {@code Date} header which is formatted at most
+ * once a second.<p>
+ * One instance is used for each channel, as it remembers whether the response being written is chunked.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class ServerResponseEncoder extends OneToOneEncoder {
+
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+  // Header values are encoded the same way as in header blocks
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+  private static final byte[] CRLF = {'\r', '\n'};
+  private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(ASCII);
+  private static final int MIN_CODE = 100;
+  private static final int MAX_CODE = 599;
+
+  private static final byte[][] HTTP_1_1_STATUS_LINES = statusLines(HttpVersion.HTTP_1_1);
+  private static final byte[][] HTTP_1_0_STATUS_LINES = statusLines(HttpVersion.HTTP_1_0);
+
+  private static volatile DateHeader dateHeader = new DateHeader(System.currentTimeMillis());
+
+  private boolean chunked;
+
+  @Override
+  protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+    if (msg instanceof HttpResponse) {
+      return encodeHead((HttpResponse) msg);
+    } else if (msg instanceof HttpChunk) {
+      return encodeChunk((HttpChunk) msg);
+    } else {
+      return msg;
+    }
+  }
+
+  private Object encodeHead(HttpResponse resp) {
+    ServerHttpResponse serverResp = resp instanceof ServerHttpResponse ? (ServerHttpResponse) resp : null;
+    if (resp.isChunked() && !isTransferEncodingChunked(resp)) {
+      resp.addHeader(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+    }
+    chunked = isTransferEncodingChunked(resp);
+
+    ChannelBuffer head = ChannelBuffers.dynamicBuffer(256);
+    head.writeBytes(statusLine(resp, serverResp));
+    for (Map.Entry<String, String> header: resp.getHeaders()) {
+      head.writeBytes(header.getKey().getBytes(ISO_8859_1));
+      head.writeByte(':');
+      head.writeByte(' ');
+      head.writeBytes(header.getValue().getBytes(ISO_8859_1));
+      head.writeBytes(CRLF);
+    }
+    if (serverResp != null && serverResp.headerBlocks != null) {
+      // Header blocks can't contain a Date header
+      Buffer buff = new Buffer(head);
+      for (HeaderBlock block: serverResp.headerBlocks) {
+        block.writeTo(buff);
+      }
+    }
+    if (!resp.containsHeader(HttpHeaders.Names.DATE)) {
+      head.writeBytes(currentDate());
+    }
+    head.writeBytes(CRLF);
+
+    ChannelBuffer content = resp.getContent();
+    if (!content.readable()) {
+      return head;
+    } else if (chunked) {
+      throw new IllegalArgumentException("HttpMessage.content must be empty if Transfer-Encoding is chunked.");
+    } else {
+      return ChannelBuffers.wrappedBuffer(head, content);
+    }
+  }
+
+  private Object encodeChunk(HttpChunk chunk) {
+    if (!chunked) {
+      return chunk.getContent();
+    }
+    if (chunk.isLast()) {
+      chunked = false;
+      if (!(chunk instanceof HttpChunkTrailer) || ((HttpChunkTrailer) chunk).getHeaders().isEmpty()) {
+        return ChannelBuffers.wrappedBuffer(LAST_CHUNK);
+      }
+      ChannelBuffer trailer = ChannelBuffers.dynamicBuffer(64);
+      trailer.writeByte('0');
+      trailer.writeBytes(CRLF);
+      for (Map.Entry<String, String> header: ((HttpChunkTrailer) chunk).getHeaders()) {
+        trailer.writeBytes(header.getKey().getBytes(ISO_8859_1));
+        trailer.writeByte(':');
+        trailer.writeByte(' ');
+        trailer.writeBytes(header.getValue().getBytes(ISO_8859_1));
+        trailer.writeBytes(CRLF);
+      }
+      trailer.writeBytes(CRLF);
+      return trailer;
+    }
+    ChannelBuffer content = chunk.getContent();
+    return ChannelBuffers.wrappedBuffer(
+        ChannelBuffers.wrappedBuffer((Integer.toHexString(content.readableBytes()) + "\r\n").getBytes(ASCII)),
+        content,
+        ChannelBuffers.wrappedBuffer(CRLF));
+  }
+
+  private static boolean isTransferEncodingChunked(HttpResponse resp) {
+    for (String value: resp.getHeaders(HttpHeaders.Names.TRANSFER_ENCODING)) {
+      if (value.equalsIgnoreCase(HttpHeaders.Values.CHUNKED)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] statusLine(HttpResponse resp, ServerHttpResponse serverResp) {
+    HttpVersion version = resp.getProtocolVersion();
+    byte[][] lines = version == HttpVersion.HTTP_1_1 ? HTTP_1_1_STATUS_LINES :
+        version == HttpVersion.HTTP_1_0 ? HTTP_1_0_STATUS_LINES : null;
+    if (serverResp != null) {
+      if (serverResp.reason == null && lines != null && serverResp.code >= MIN_CODE && serverResp.code <= MAX_CODE) {
+        return lines[serverResp.code - MIN_CODE];
+      }
+      return statusLine(version, serverResp.getStatus());
+    }
+    return statusLine(version, resp.getStatus());
+  }
+
+  private static byte[] statusLine(HttpVersion version, HttpResponseStatus status) {
+    return (version + " " + status.getCode() + " " + status.getReasonPhrase() + "\r\n").getBytes(ASCII);
+  }
+
+  private static byte[][] statusLines(HttpVersion version) {
+    byte[][] lines = new byte[MAX_CODE - MIN_CODE + 1][];
+    for (int code = MIN_CODE; code <= MAX_CODE; code++) {
+      lines[code - MIN_CODE] = statusLine(version, HttpResponseStatus.valueOf(code));
+    }
+    return lines;
+  }
+
+  private static byte[] currentDate() {
+    DateHeader header = dateHeader;
+    long now = System.currentTimeMillis();
+    if (now >= header.expires) {
+      header = new DateHeader(now);
+      dateHeader = header;
+    }
+    return header.bytes;
+  }
+
+  // The encoded Date header for the current second
+  private static class DateHeader {
+    final long expires;
+    final byte[] bytes;
+
+    DateHeader(long now) {
+      SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+      format.setTimeZone(TimeZone.getTimeZone("GMT"));
+      this.expires = now - now % 1000 + 1000;
+      this.bytes = ("Date: " + format.format(new Date(now)) + "\r\n").getBytes(ASCII);
+    }
+  }
+}
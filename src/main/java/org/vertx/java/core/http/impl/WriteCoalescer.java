@@ -0,0 +1,114 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sits below the HTTP encoder and holds back the buffers written while a read from the socket is being handled, so
+ * that all the responses to the requests in one read go out in a single write once it has been handled, rather than
+ * a write for each response head and body.<p>
+ * Anything written outside of a read, or once {@link #MAX_PENDING} bytes are held, is written straight away.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class WriteCoalescer extends SimpleChannelHandler {
+
+  private static final int MAX_PENDING = 64 * 1024;
+
+  private Thread reading;
+  private final List<ChannelBuffer> pending = new ArrayList<>();
+  private final List<ChannelFuture> futures = new ArrayList<>();
+  private int pendingBytes;
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+    reading = Thread.currentThread();
+    try {
+      ctx.sendUpstream(e);
+    } finally {
+      reading = null;
+      flush(ctx);
+    }
+  }
+
+  @Override
+  public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+    if (Thread.currentThread() != reading) {
+      ctx.sendDownstream(e);
+    } else if (e.getMessage() instanceof ChannelBuffer) {
+      ChannelBuffer buff = (ChannelBuffer) e.getMessage();
+      pending.add(buff);
+      futures.add(e.getFuture());
+      pendingBytes += buff.readableBytes();
+      if (pendingBytes >= MAX_PENDING) {
+        flush(ctx);
+      }
+    } else {
+      // E.g. a file region, which must not overtake what has been written before it
+      flush(ctx);
+      ctx.sendDownstream(e);
+    }
+  }
+
+  @Override
+  public void closeRequested(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+    if (Thread.currentThread() == reading) {
+      flush(ctx);
+    }
+    ctx.sendDownstream(e);
+  }
+
+  private void flush(ChannelHandlerContext ctx) {
+    if (pending.isEmpty()) {
+      return;
+    }
+    if (pending.size() == 1) {
+      Channels.write(ctx, futures.get(0), pending.get(0));
+    } else {
+      final ChannelFuture[] written = futures.toArray(new ChannelFuture[futures.size()]);
+      ChannelFuture future = Channels.future(ctx.getChannel());
+      future.addListener(new ChannelFutureListener() {
+        public void operationComplete(ChannelFuture future) throws Exception {
+          for (ChannelFuture f: written) {
+            if (future.isSuccess()) {
+              f.setSuccess();
+            } else {
+              f.setFailure(future.getCause());
+            }
+          }
+        }
+      });
+      Channels.write(ctx, future, ChannelBuffers.wrappedBuffer(pending.toArray(new ChannelBuffer[pending.size()])));
+    }
+    pending.clear();
+    futures.clear();
+    pendingBytes = 0;
+  }
+}
@@ -20,7 +20,7 @@ package org.vertx.java.core.http.impl.ws;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.util.CharsetUtil;
+import org.vertx.java.core.buffer.impl.StringCodec;
 
 /**
  * The default {@link WebSocketFrame} implementation.
@@ -49,7 +49,7 @@ public class DefaultWebSocketFrame implements WebSocketFrame {
    * Creates a new text frame from with the specified string.
    */
   public DefaultWebSocketFrame(String textData) {
-    this(FrameType.TEXT, ChannelBuffers.copiedBuffer(textData, CharsetUtil.UTF_8));
+    this(FrameType.TEXT, ChannelBuffers.wrappedBuffer(StringCodec.encode(textData, StringCodec.UTF_8)));
   }
 
   /**
@@ -83,7 +83,8 @@ public class DefaultWebSocketFrame implements WebSocketFrame {
   }
 
   public String getTextData() {
-    return getBinaryData().toString(CharsetUtil.UTF_8);
+    ChannelBuffer data = getBinaryData();
+    return StringCodec.decode(data, data.readerIndex(), data.writerIndex(), StringCodec.UTF_8);
   }
 
   public void setBinaryData(ChannelBuffer binaryData) {
@@ -91,7 +92,7 @@ public class DefaultWebSocketFrame implements WebSocketFrame {
   }
 
   public void setTextData(String textData) {
-    this.binaryData = ChannelBuffers.copiedBuffer(textData, CharsetUtil.UTF_8);
+    this.binaryData = ChannelBuffers.wrappedBuffer(StringCodec.encode(textData, StringCodec.UTF_8));
   }
 
   @Override
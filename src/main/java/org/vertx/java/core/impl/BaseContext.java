@@ -19,6 +19,8 @@ package org.vertx.java.core.impl;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -30,6 +32,8 @@ public abstract class BaseContext implements Context {
 
   private VertxInternal vertx = VertxInternal.instance;
 
+  private ExecutorService backgroundPool;
+
   public void setDeploymentHandle(DeploymentHandle deploymentHandle) {
     this.deploymentContext = deploymentHandle;
   }
@@ -38,6 +42,14 @@ public abstract class BaseContext implements Context {
     return deploymentContext;
   }
 
+  public ExecutorService getBackgroundPool() {
+    return backgroundPool == null ? vertx.getBackgroundPool() : backgroundPool;
+  }
+
+  public void setBackgroundPool(ExecutorService pool) {
+    this.backgroundPool = pool;
+  }
+
   public void reportException(Throwable t) {
     if (deploymentContext != null) {
       deploymentContext.reportException(t);
@@ -19,6 +19,9 @@ package org.vertx.java.core.impl;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * <p>Internal class used to run specific blocking actions on the worker pool.</p>
  *
@@ -30,9 +33,20 @@ public abstract class BlockingAction<T>  {
 
   protected Context context;
 
-  private final AsyncResultHandler handler;
+  private final AsyncResultHandler<T> handler;
+
+  private final String poolName;
 
-  public BlockingAction(AsyncResultHandler handler) {
+  public BlockingAction(AsyncResultHandler<T> handler) {
+    this(null, handler);
+  }
+
+  /**
+   * @param poolName The name of the worker pool to run the action on. If no pool with that name has been declared
+   *                 then the pool of the calling context is used.
+   */
+  public BlockingAction(String poolName, AsyncResultHandler<T> handler) {
+    this.poolName = poolName;
     this.handler = handler;
   }
 
@@ -45,18 +59,11 @@ public abstract class BlockingAction<T>  {
     Runnable runner = new Runnable() {
       public void run() {
         try {
-          AsyncResult<T> res;
-          try {
-            final T result = action();
-            res = new AsyncResult<>(result);
-          } catch (final Exception e) {
-            res = new AsyncResult<>(e);
-          }
+          final AsyncResult<T> res = runAction();
           if (handler != null) {
-            final AsyncResult<T> theRes = res;
             context.execute(new Runnable() {
               public void run() {
-                handler.handle(theRes);
+                handleResult(res);
               }
             });
           }
@@ -66,9 +73,47 @@ public abstract class BlockingAction<T>  {
       }
     };
 
-    VertxInternal.instance.getBackgroundPool().execute(runner);
+    try {
+      getPool(poolName, context).execute(runner);
+    } catch (final RejectedExecutionException e) {
+      if (handler != null) {
+        context.execute(new Runnable() {
+          public void run() {
+            handleResult(new AsyncResult<T>(e));
+          }
+        });
+      }
+    }
   }
 
   public abstract T action() throws Exception;
 
+  AsyncResult<T> runAction() {
+    try {
+      return new AsyncResult<>(action());
+    } catch (Exception e) {
+      return new AsyncResult<>(e);
+    }
+  }
+
+  void handleResult(AsyncResult<T> res) {
+    if (handler != null) {
+      handler.handle(res);
+    }
+  }
+
+  void setContext(Context context) {
+    this.context = context;
+  }
+
+  static Executor getPool(String poolName, Context context) {
+    if (poolName != null) {
+      NamedWorkerPool namedPool = VertxInternal.instance.getNamedWorkerPool(poolName);
+      if (namedPool != null) {
+        return namedPool.getExecutor();
+      }
+    }
+    return context.getBackgroundPool();
+  }
+
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>Internal class used to run several blocking actions as a single task on the worker pool.</p>
+ *
+ * <p>All the actions are run in order on one worker thread, then all of their handlers are called, in the same
+ * order, from a single task executed on the calling context. This avoids a pair of thread hand-offs per action
+ * when many small actions are submitted in a burst.</p>
+ *
+ * <p>This class shouldn't be used directly from user applications.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class BlockingActionBatch {
+
+  private final String poolName;
+
+  private final List<Entry<?>> entries = new ArrayList<>();
+
+  public BlockingActionBatch() {
+    this(null);
+  }
+
+  /**
+   * @param poolName The name of the worker pool to run the batch on. If no pool with that name has been declared
+   *                 then the pool of the calling context is used.
+   */
+  public BlockingActionBatch(String poolName) {
+    this.poolName = poolName;
+  }
+
+  /**
+   * Add an action to the batch. The action will not be run until {@link #run()} is called.
+   */
+  public BlockingActionBatch add(BlockingAction<?> action) {
+    entries.add(new Entry<>(action));
+    return this;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Run all the actions added so far using a single thread from the worker pool. The batch is emptied so it can be
+   * reused.
+   */
+  public void run() {
+    run(null);
+  }
+
+  /**
+   * Run all the actions added so far using a single thread from the worker pool. The batch is emptied so it can be
+   * reused. {@code doneHandler} is called on the calling context after the handlers of all the actions, even if the
+   * batch is empty.
+   */
+  public void run(final Handler<Void> doneHandler) {
+    final Context context = VertxInternal.instance.getOrAssignContext();
+    final Entry<?>[] batch = entries.toArray(new Entry<?>[entries.size()]);
+    entries.clear();
+    if (batch.length == 0) {
+      if (doneHandler != null) {
+        context.execute(new Runnable() {
+          public void run() {
+            doneHandler.handle(null);
+          }
+        });
+      }
+      return;
+    }
+    for (Entry<?> entry: batch) {
+      entry.action.setContext(context);
+    }
+
+    final Runnable deliver = new Runnable() {
+      public void run() {
+        for (Entry<?> entry: batch) {
+          entry.handleResult();
+        }
+        if (doneHandler != null) {
+          doneHandler.handle(null);
+        }
+      }
+    };
+
+    Runnable runner = new Runnable() {
+      public void run() {
+        try {
+          for (Entry<?> entry: batch) {
+            entry.runAction();
+          }
+          context.execute(deliver);
+        } catch (Throwable t) {
+          VertxInternal.instance.reportException(t);
+        }
+      }
+    };
+
+    try {
+      BlockingAction.getPool(poolName, context).execute(runner);
+    } catch (RejectedExecutionException e) {
+      for (Entry<?> entry: batch) {
+        entry.fail(e);
+      }
+      context.execute(deliver);
+    }
+  }
+
+  /*
+  Keeps an action together with its result so both have the same type parameter
+   */
+  private static final class Entry<T> {
+    final BlockingAction<T> action;
+    AsyncResult<T> result;
+
+    Entry(BlockingAction<T> action) {
+      this.action = action;
+    }
+
+    void runAction() {
+      result = action.runAction();
+    }
+
+    void fail(Exception e) {
+      result = new AsyncResult<>(e);
+    }
+
+    void handleResult() {
+      try {
+        action.handleResult(result);
+      } catch (Throwable t) {
+        // One failing handler mustn't stop the rest of the batch being delivered
+        VertxInternal.instance.reportException(t);
+      }
+    }
+  }
+}
@@ -85,11 +85,12 @@ public abstract class ConnectionPool<T> {
   }
 
   /**
-   * Inform the pool that the connection has been closed externally.
+   * Inform the pool that the connection has been closed externally. If it was available it is taken out of the pool.
    */
-  public void connectionClosed() {
+  public void connectionClosed(T conn) {
     Waiter waiter;
     synchronized (this) {
+      available.remove(conn);
       connectionCount--;
       if (connectionCount < maxPoolSize) {
         //Now the connection count has come down, maybe there is another waiter that can
@@ -16,6 +16,8 @@
 
 package org.vertx.java.core.impl;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -28,4 +30,11 @@ public interface Context {
   DeploymentHandle getDeploymentHandle();
 
   void reportException(Throwable t);
+
+  /**
+   * @return The pool used to run blocking actions submitted from this context
+   */
+  ExecutorService getBackgroundPool();
+
+  void setBackgroundPool(ExecutorService pool);
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A named, bounded pool of worker threads.</p>
+ *
+ * <p>Named pools let deployments and subsystems isolate their blocking work from each other, so a slow dependency
+ * only saturates its own pool and not the shared background pool.</p>
+ *
+ * <p>This class shouldn't be used directly from user applications.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class NamedWorkerPool {
+
+  /**
+   * What to do with a task when all threads are busy and the queue is full
+   */
+  public enum RejectionPolicy {
+    /**
+     * Reject the task. Blocking actions will be failed with a {@link RejectedExecutionException}
+     */
+    FAIL,
+    /**
+     * Run the task on the submitting thread. Only use this for pools which are never submitted to from an event loop
+     */
+    CALLER_RUNS
+  }
+
+  private final String name;
+  private final int size;
+  private final int maxQueued;
+  private final RejectionPolicy rejectionPolicy;
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong rejectedCount = new AtomicLong(0);
+  private volatile int peakQueued;
+
+  /**
+   * @param name The name of the pool
+   * @param size The number of threads in the pool
+   * @param maxQueued The maximum number of tasks waiting for a thread, or -1 for no limit
+   * @param rejectionPolicy What to do when the pool is saturated
+   */
+  public NamedWorkerPool(String name, int size, int maxQueued, RejectionPolicy rejectionPolicy) {
+    this(name, size, maxQueued, rejectionPolicy, new VertxImpl.VertxThreadFactory("vert.x-" + name + "-thread-"));
+  }
+
+  /**
+   * @param name The name of the pool
+   * @param size The number of threads in the pool
+   * @param maxQueued The maximum number of tasks waiting for a thread, or -1 for no limit
+   * @param rejectionPolicy What to do when the pool is saturated
+   * @param threadFactory Creates the threads of the pool
+   */
+  public NamedWorkerPool(String name, int size, int maxQueued, RejectionPolicy rejectionPolicy,
+                         ThreadFactory threadFactory) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Pool size must be > 0");
+    }
+    this.name = name;
+    this.size = size;
+    this.maxQueued = maxQueued;
+    this.rejectionPolicy = rejectionPolicy;
+    BlockingQueue<Runnable> queue;
+    if (maxQueued < 0) {
+      queue = new LinkedBlockingQueue<>();
+    } else if (maxQueued == 0) {
+      queue = new SynchronousQueue<>();
+    } else {
+      queue = new LinkedBlockingQueue<>(maxQueued);
+    }
+    executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, queue,
+                                      threadFactory,
+                                      createRejectionHandler(rejectionPolicy)) {
+      public void execute(Runnable command) {
+        super.execute(command);
+        int queued = getQueue().size();
+        if (queued > peakQueued) {
+          peakQueued = queued;
+        }
+      }
+    };
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public RejectionPolicy getRejectionPolicy() {
+    return rejectionPolicy;
+  }
+
+  /**
+   * @return The executor which runs tasks on this pool
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  /**
+   * @return The number of threads currently running a task
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * @return The number of tasks currently waiting for a thread
+   */
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * @return The highest number of tasks that have been waiting for a thread at the same time
+   */
+  public int getPeakQueuedCount() {
+    return peakQueued;
+  }
+
+  /**
+   * @return The number of tasks that have completed
+   */
+  public long getCompletedCount() {
+    return executor.getCompletedTaskCount();
+  }
+
+  /**
+   * @return The number of tasks that were rejected because the pool was saturated
+   */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /**
+   * @return true if all threads are busy and the queue is full
+   */
+  public boolean isSaturated() {
+    return executor.getActiveCount() >= size && executor.getQueue().remainingCapacity() == 0;
+  }
+
+  public void close() {
+    executor.shutdown();
+  }
+
+  public String toString() {
+    return "NamedWorkerPool[name=" + name + ", size=" + size + ", active=" + getActiveCount() +
+           ", queued=" + getQueuedCount() + ", peakQueued=" + peakQueued + ", completed=" + getCompletedCount() +
+           ", rejected=" + getRejectedCount() + "]";
+  }
+
+  private RejectedExecutionHandler createRejectionHandler(RejectionPolicy policy) {
+    final RejectedExecutionHandler delegate;
+    switch (policy) {
+      case FAIL:
+        delegate = new ThreadPoolExecutor.AbortPolicy();
+        break;
+      case CALLER_RUNS:
+        delegate = new ThreadPoolExecutor.CallerRunsPolicy();
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported rejection policy: " + policy);
+    }
+    return new RejectedExecutionHandler() {
+      public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        rejectedCount.incrementAndGet();
+        delegate.rejectedExecution(task, executor);
+      }
+    };
+  }
+}
@@ -106,7 +106,14 @@ public class OrderedExecutorFactory {
         tasks.add(command);
         if (!running) {
           running = true;
-          parent.execute(runner);
+          try {
+            parent.execute(runner);
+          } catch (RuntimeException e) {
+            // The parent rejected the runner, e.g. because it is a saturated bounded pool
+            running = false;
+            tasks.removeLast();
+            throw e;
+          }
         }
       }
     }
@@ -20,11 +20,13 @@ import org.jboss.netty.channel.socket.nio.NioWorker;
 import org.jboss.netty.channel.socket.nio.NioWorkerPool;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
 import org.jboss.netty.util.TimerTask;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
@@ -42,13 +44,17 @@ public class VertxImpl implements VertxInternal {
 
   private static final Logger log = LoggerFactory.getLogger(VertxImpl.class);
 
+  public static final String VIRTUAL_WORKER_THREADS_PROP_NAME = "org.vertx.virtual-worker-threads";
+
   private int backgroundPoolSize = 1;
+  private boolean virtualWorkerThreads = Boolean.getBoolean(VIRTUAL_WORKER_THREADS_PROP_NAME);
   private int corePoolSize = Runtime.getRuntime().availableProcessors();
   private ExecutorService backgroundPool;
   private OrderedExecutorFactory orderedFact;
   private ExecutorService corePool;
   private NioWorkerPool workerPool;
   private ExecutorService acceptorPool;
+  private final Map<String, NamedWorkerPool> namedPools = new ConcurrentHashMap<>();
 
   private static final ThreadLocal<Context> contextTL = new ThreadLocal<>();
   //For now we use a hashed wheel with it's own thread for timeouts - ideally the event loop would have
@@ -84,6 +90,23 @@ public class VertxImpl implements VertxInternal {
     return backgroundPoolSize;
   }
 
+  /**
+   * If true, worker contexts and blocking actions run on virtual threads, one per task, instead of on a fixed size
+   * pool. Tasks submitted to the same worker context are still executed in order. Requires a JDK with virtual thread
+   * support, otherwise the fixed size pool is used. Named worker pools keep their size and queue limits but run their
+   * tasks on virtual threads too.
+   */
+  public synchronized void setVirtualWorkerThreads(boolean virtual) {
+    if (backgroundPool != null || !namedPools.isEmpty()) {
+      throw new IllegalStateException("Cannot set virtual worker threads after pool has been created");
+    }
+    virtualWorkerThreads = virtual;
+  }
+
+  public synchronized boolean isVirtualWorkerThreads() {
+    return virtualWorkerThreads;
+  }
+
   public Context startOnEventLoop(final Runnable runnable) {
     Context context  = createEventLoopContext();
     runOnContext(context, runnable);
@@ -91,11 +114,39 @@ public class VertxImpl implements VertxInternal {
   }
 
   public Context startInBackground(final Runnable runnable) {
-    Context context  = createWorkerContext();
+    Context context  = createWorkerContext(null);
     runOnContext(context, runnable);
     return context;
   }
 
+  public synchronized NamedWorkerPool declareWorkerPool(String name, int size, int maxQueued,
+                                                        NamedWorkerPool.RejectionPolicy rejectionPolicy) {
+    NamedWorkerPool pool = namedPools.get(name);
+    if (pool == null) {
+      pool = new NamedWorkerPool(name, size, maxQueued, rejectionPolicy, newWorkerThreadFactory("vert.x-" + name));
+      namedPools.put(name, pool);
+    } else if (pool.getSize() != size || pool.getMaxQueued() != maxQueued ||
+               pool.getRejectionPolicy() != rejectionPolicy) {
+      log.warn("Worker pool " + name + " has already been declared with different settings: " + pool);
+    }
+    return pool;
+  }
+
+  public NamedWorkerPool getNamedWorkerPool(String name) {
+    return namedPools.get(name);
+  }
+
+  public Map<String, NamedWorkerPool> getNamedWorkerPools() {
+    return namedPools;
+  }
+
+  public synchronized void closeWorkerPools() {
+    for (NamedWorkerPool pool: namedPools.values()) {
+      pool.close();
+    }
+    namedPools.clear();
+  }
+
   private void runOnContext(final Context context, final Runnable runnable) {
     context.execute(new Runnable() {
       public void run() {
@@ -145,7 +196,13 @@ public class VertxImpl implements VertxInternal {
       synchronized (this) {
         result = backgroundPool;
         if (result == null) {
-          backgroundPool = result = Executors.newFixedThreadPool(backgroundPoolSize, new VertxThreadFactory("vert.x-worker-thread-"));
+          if (virtualWorkerThreads) {
+            result = newVirtualThreadPool("vert.x-virtual-worker-thread-");
+          }
+          if (result == null) {
+            result = Executors.newFixedThreadPool(backgroundPoolSize, new VertxThreadFactory("vert.x-worker-thread-"));
+          }
+          backgroundPool = result;
           orderedFact = new OrderedExecutorFactory(backgroundPool);
         }
       }
@@ -238,6 +295,10 @@ public class VertxImpl implements VertxInternal {
     return cancelTimeout(id);
   }
 
+  public Timer getTimer() {
+    return timer;
+  }
+
   public Context createEventLoopContext() {
     NioWorker worker = getWorkerPool().nextWorker();
     return new EventLoopContext(worker);
@@ -269,9 +330,55 @@ public class VertxImpl implements VertxInternal {
     return id;
   }
 
-  private Context createWorkerContext() {
-    getBackgroundPool();
-    return new WorkerContext(orderedFact.getExecutor());
+  /*
+  Creates the threads of a named worker pool, which are virtual if virtual worker threads are enabled and supported
+   */
+  private ThreadFactory newWorkerThreadFactory(String prefix) {
+    ThreadFactory factory = null;
+    if (virtualWorkerThreads) {
+      factory = newVirtualThreadFactory(prefix + "-virtual-thread-");
+    }
+    return factory != null ? factory : new VertxThreadFactory(prefix + "-thread-");
+  }
+
+  private ExecutorService newVirtualThreadPool(String prefix) {
+    ThreadFactory factory = newVirtualThreadFactory(prefix);
+    if (factory == null) {
+      return null;
+    }
+    try {
+      Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (ExecutorService) newExecutor.invoke(null, factory);
+    } catch (Exception e) {
+      log.warn("Virtual threads are not supported by this JVM, falling back to platform threads");
+      return null;
+    }
+  }
+
+  /*
+  Virtual threads only exist on recent JDKs so we look them up reflectively. Returns null if they are not supported.
+   */
+  private ThreadFactory newVirtualThreadFactory(String prefix) {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (Exception e) {
+      log.warn("Virtual threads are not supported by this JVM, falling back to platform threads");
+      return null;
+    }
+  }
+
+  public Context createWorkerContext(NamedWorkerPool pool) {
+    if (pool == null) {
+      getBackgroundPool();
+      return new WorkerContext(orderedFact.getExecutor());
+    } else {
+      WorkerContext context = new WorkerContext(new OrderedExecutorFactory(pool.getExecutor()).getExecutor());
+      context.setBackgroundPool(pool.getExecutor());
+      return context;
+    }
   }
 
   private static class InternalTimerHandler implements Runnable {
@@ -297,7 +404,7 @@ public class VertxImpl implements VertxInternal {
     }
   }
 
-  private static class VertxThreadFactory implements ThreadFactory {
+  static class VertxThreadFactory implements ThreadFactory {
 
     private String prefix;
     private AtomicInteger threadCount = new AtomicInteger(0);
@@ -17,8 +17,10 @@
 package org.vertx.java.core.impl;
 
 import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.jboss.netty.util.Timer;
 import org.vertx.java.core.Vertx;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
@@ -47,7 +49,34 @@ public interface VertxInternal extends Vertx {
 
   Context startInBackground(Runnable runnable);
 
+  Context createEventLoopContext();
+
+  /**
+   * Create a worker context whose tasks and blocking actions run on {@code pool}, or on the shared background pool
+   * if {@code pool} is null
+   */
+  Context createWorkerContext(NamedWorkerPool pool);
+
+  /**
+   * Declare a named worker pool. If a pool with the same name has already been declared then that pool is returned.
+   */
+  NamedWorkerPool declareWorkerPool(String name, int size, int maxQueued, NamedWorkerPool.RejectionPolicy rejectionPolicy);
+
+  NamedWorkerPool getNamedWorkerPool(String name);
+
+  Map<String, NamedWorkerPool> getNamedWorkerPools();
+
+  /**
+   * Shut down and forget all named worker pools. Tasks already submitted to them are allowed to finish
+   */
+  void closeWorkerPools();
+
   Context getOrAssignContext();
 
+  /**
+   * @return The timer vert.x timeouts are scheduled on
+   */
+  Timer getTimer();
+
   void reportException(Throwable t);
 }
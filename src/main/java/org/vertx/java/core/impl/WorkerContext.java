@@ -17,6 +17,7 @@
 package org.vertx.java.core.impl;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -30,10 +31,16 @@ public class WorkerContext extends BaseContext {
   }
 
   public void execute(final Runnable task) {
-    bgExec.execute(new Runnable() {
-      public void run() {
-        wrapTask(task).run();
-      }
-    });
+    try {
+      bgExec.execute(new Runnable() {
+        public void run() {
+          wrapTask(task).run();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // A saturated named pool must not throw into the event loop which delivered the task, so we drop the task
+      // and report it against the deployment instead
+      reportException(e);
+    }
   }
 }
@@ -16,6 +16,7 @@
 
 package org.vertx.java.core.json;
 
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.impl.ws.Base64;
 import org.vertx.java.core.json.impl.Json;
 
@@ -50,13 +51,21 @@ public class JsonArray implements Iterable<Object> {
     list = (List)Json.decodeValue(jsonString, List.class);
   }
 
+  /**
+   * Create a JSON array from a buffer containing the UTF-8 encoded form of a JSON array, without first converting it
+   * to a String
+   */
+  public JsonArray(Buffer buffer) {
+    list = (List)Json.decodeValue(buffer, List.class);
+  }
+
   public JsonArray addString(String str) {
     list.add(str);
     return this;
   }
 
   public JsonArray addObject(JsonObject value) {
-    list.add(value.map);
+    list.add(value.map());
     return this;
   }
 
@@ -83,7 +92,7 @@ public class JsonArray implements Iterable<Object> {
 
   public JsonArray add(Object obj) {
     if (obj instanceof JsonObject) {
-      obj = ((JsonObject)obj).map;
+      obj = ((JsonObject)obj).map();
     } else if (obj instanceof JsonArray) {
       obj = ((JsonArray)obj).list;
     }
@@ -124,10 +133,68 @@ public class JsonArray implements Iterable<Object> {
     };
   }
 
+  /**
+   * Return an iterator over the elements of this array which uses a single {@link JsonObject} as a view of every
+   * object element in turn, instead of creating a new one for each. The view returned by {@code next()} is only valid
+   * until {@code next()} is called again, so it must not be kept. Array elements are returned as new JsonArrays, as
+   * with {@link #iterator()}. {@code remove()} removes the last element returned from this array.
+   */
+  public Iterator<Object> flyweightIterator() {
+    return new Iterator<Object>() {
+
+      Iterator<?> iter = list.iterator();
+      JsonObject objectView;
+
+      @Override
+      public boolean hasNext() {
+        return iter.hasNext();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Object next() {
+        Object next = iter.next();
+        if (next instanceof Map) {
+          Map<String, Object> map = (Map<String, Object>) next;
+          if (objectView == null) {
+            objectView = new JsonObject(map);
+          } else {
+            objectView.reset(map);
+          }
+          next = objectView;
+        } else if (next instanceof List) {
+          next = new JsonArray((List<?>) next);
+        }
+        return next;
+      }
+
+      @Override
+      public void remove() {
+        iter.remove();
+      }
+    };
+  }
+
   public String encode() throws EncodeException {
     return Json.encode(this.list);
   }
 
+  /**
+   * Encode this array as UTF-8 into a new {@link Buffer}
+   */
+  public Buffer encodeToBuffer() throws EncodeException {
+    Buffer buff = new Buffer(128);
+    writeTo(buff);
+    return buff;
+  }
+
+  /**
+   * Append this array, encoded as UTF-8, to {@code buff}. The JSON is generated straight into the buffer.
+   */
+  public void writeTo(Buffer buff) throws EncodeException {
+    Json.encode(this.list, buff);
+  }
+
   public boolean equals(Object o) {
     if (this == o) return true;
 
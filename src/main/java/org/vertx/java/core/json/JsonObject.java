@@ -16,10 +16,15 @@
 
 package org.vertx.java.core.json;
 
+import org.jboss.netty.util.CharsetUtil;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.impl.ws.Base64;
 import org.vertx.java.core.json.impl.Json;
+import org.vertx.java.core.json.impl.JsonIndex;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,12 +32,27 @@ import java.util.Set;
 /**
  *
  * Represents a JSON object
+ * <p>A JSON object created from bytes with {@link #JsonObject(byte[])} is decoded lazily: the bytes are checked and
+ * the positions of its fields found straight away, but each field is only decoded when it is first read. As long as
+ * the object isn't modified it is encoded again by copying the original bytes. A lazy object can be read from several
+ * threads at once, like any other object which isn't being modified.</p>
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class JsonObject {
 
-  final Map<String, Object> map;
+  private static final Object UNDECODED = new Object();
+
+  private Map<String, Object> map;
+
+  // While the object hasn't been materialized into a map it is backed by its original encoding. Reading fields
+  // changes the lazy state, so it is guarded by this object's lock, and bytes is only read outside the lock to check
+  // whether the object is still lazy. Once it is null the map can be read without locking.
+  private volatile byte[] bytes;
+  private int offset;
+  private int length;
+  private JsonIndex index;
+  private Object[] values;    // Field values decoded so far, by index position
 
   /**
    * Create a JSON object based on the specified Map
@@ -57,69 +77,162 @@ public class JsonObject {
     map = (Map)Json.decodeValue(jsonString, Map.class);
   }
 
+  /**
+   * Create a JSON object from the UTF-8 encoded form of a JSON object. The bytes are validated here but the fields are
+   * only decoded when they are read. The array must not be modified afterwards.
+   * @param bytes The UTF-8 encoded form of a JSON object
+   * @throws DecodeException if the bytes aren't a valid JSON object
+   */
+  public JsonObject(byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Create a JSON object from a buffer containing the UTF-8 encoded form of a JSON object. The bytes are copied out
+   * of the buffer and parsed lazily, as with {@link #JsonObject(byte[])}.
+   * @param buffer The UTF-8 encoded form of a JSON object
+   */
+  public JsonObject(Buffer buffer) {
+    this(buffer.getBytes());
+  }
+
+  JsonObject(byte[] bytes, int offset, int length) {
+    this(bytes, offset, length, new JsonIndex(bytes, offset, length));
+  }
+
+  private JsonObject(byte[] bytes, int offset, int length, JsonIndex index) {
+    this.offset = offset;
+    this.length = length;
+    this.index = index;
+    values = new Object[index.size()];
+    Arrays.fill(values, UNDECODED);
+    this.bytes = bytes;
+  }
+
   public JsonObject putString(String fieldName, String value) {
-    map.put(fieldName, value);
+    map().put(fieldName, value);
     return this;
   }
 
   public JsonObject putObject(String fieldName, JsonObject value) {
-    map.put(fieldName, value.map);
+    map().put(fieldName, value.map());
     return this;
   }
 
   public JsonObject putArray(String fieldName, JsonArray value) {
-    map.put(fieldName, value.list);
+    map().put(fieldName, value.list);
     return this;
   }
 
   public JsonObject putNumber(String fieldName, Number value) {
-    map.put(fieldName, value);
+    map().put(fieldName, value);
     return this;
   }
 
   public JsonObject putBoolean(String fieldName, Boolean value) {
-    map.put(fieldName, value);
+    map().put(fieldName, value);
     return this;
   }
 
   public JsonObject putBinary(String fieldName, byte[] binary) {
-    map.put(fieldName, Base64.encodeBytes(binary));
+    map().put(fieldName, Base64.encodeBytes(binary));
     return this;
   }
 
   public String getString(String fieldName) {
-    return (String)map.get(fieldName);
+    return (String)get(fieldName);
   }
 
   public JsonObject getObject(String fieldName) {
-    Map m = (Map)map.get(fieldName);
+    Object obj = get(fieldName);
+    if (obj instanceof JsonObject) {
+      return (JsonObject)obj;
+    }
+    Map m = (Map)obj;
     return m == null ? null : new JsonObject(m);
   }
 
   public JsonArray getArray(String fieldName) {
-    List l = (List)map.get(fieldName);
+    List l = (List)get(fieldName);
     return l == null ? null : new JsonArray(l);
   }
 
   public Number getNumber(String fieldName) {
-    return (Number)map.get(fieldName);
+    return (Number)get(fieldName);
+  }
+
+  /**
+   * Get the value of a number field as a long, or {@code def} if there is no such field or it is null. If the
+   * object was created from bytes the number is read without being decoded into a Number.
+   */
+  public long getLong(String fieldName, long def) {
+    if (bytes != null) {
+      synchronized (this) {
+        if (bytes != null) {
+          int i = index.find(fieldName);
+          if (i == -1) {
+            return def;
+          }
+          if (values[i] == UNDECODED) {
+            return index.isNull(i) ? def : index.longValue(i);
+          }
+        }
+      }
+    }
+    Number num = (Number)get(fieldName);
+    return num == null ? def : num.longValue();
+  }
+
+  /**
+   * Get the value of a number field as an int, or {@code def} if there is no such field or it is null. If the
+   * object was created from bytes the number is read without being decoded into a Number.
+   * @throws ArithmeticException if the value is out of the range of an int
+   */
+  public int getInt(String fieldName, int def) {
+    long value = getLong(fieldName, def);
+    if ((int)value != value) {
+      throw new ArithmeticException("Value of " + fieldName + " is out of range for an int: " + value);
+    }
+    return (int)value;
+  }
+
+  /**
+   * Get the value of a number field as a double, or {@code def} if there is no such field or it is null. If the
+   * object was created from bytes the number is read without being decoded into a Number.
+   */
+  public double getDouble(String fieldName, double def) {
+    if (bytes != null) {
+      synchronized (this) {
+        if (bytes != null) {
+          int i = index.find(fieldName);
+          if (i == -1) {
+            return def;
+          }
+          if (values[i] == UNDECODED) {
+            return index.isNull(i) ? def : index.doubleValue(i);
+          }
+        }
+      }
+    }
+    Number num = (Number)get(fieldName);
+    return num == null ? def : num.doubleValue();
   }
 
   public Boolean getBoolean(String fieldName) {
-    return (Boolean)map.get(fieldName);
+    return (Boolean)get(fieldName);
   }
 
   public byte[] getBinary(String fieldName) {
-    String encoded = (String)map.get(fieldName);
+    String encoded = (String)get(fieldName);
     return Base64.decode(encoded);
   }
 
   public Set<String> getFieldNames() {
-    return map.keySet();
+    return map().keySet();
   }
 
   public Object getField(String fieldName) {
-    Object obj = map.get(fieldName);
+    Object obj = get(fieldName);
     if (obj instanceof Map) {
       return new JsonObject((Map)obj);
     } else if (obj instanceof List) {
@@ -130,23 +243,101 @@ public class JsonObject {
   }
 
   public Object removeField(String fieldName) {
-    return map.remove(fieldName) != null;
+    return map().remove(fieldName) != null;
   }
 
   public int size() {
+    if (bytes != null) {
+      synchronized (this) {
+        if (bytes != null) {
+          return index.size();
+        }
+      }
+    }
     return map.size();
   }
 
   public JsonObject mergeIn(JsonObject other) {
-    map.putAll(other.map);
+    map().putAll(other.map());
     return this;
   }
 
   public String encode() {
-    return Json.encode(this.map);
+    if (bytes != null) {
+      synchronized (this) {
+        if (isUnmodified()) {
+          return new String(bytes, offset, length, CharsetUtil.UTF_8);
+        }
+      }
+    }
+    return Json.encode(map());
+  }
+
+  /**
+   * Encode this object as UTF-8 bytes. If the object was created from bytes and hasn't been modified this is a copy
+   * of the original bytes.
+   */
+  public byte[] encodeToBytes() {
+    if (bytes != null) {
+      synchronized (this) {
+        if (isUnmodified()) {
+          return Arrays.copyOfRange(bytes, offset, offset + length);
+        }
+      }
+    }
+    return Json.encodeToBytes(map());
+  }
+
+  /**
+   * @return The length of the UTF-8 encoding of this object if it is known without encoding it, because the object
+   * was created from bytes and hasn't been modified, otherwise -1
+   */
+  public int encodedLength() {
+    if (bytes != null) {
+      synchronized (this) {
+        if (isUnmodified()) {
+          return length;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Encode this object as UTF-8 into a new {@link Buffer}
+   */
+  public Buffer encodeToBuffer() {
+    int len = encodedLength();
+    Buffer buff = new Buffer(len == -1 ? 128 : len);
+    writeTo(buff);
+    return buff;
+  }
+
+  /**
+   * Append this object, encoded as UTF-8, to {@code buff}. The JSON is generated straight into the buffer, or if the
+   * object was created from bytes and hasn't been modified the original bytes are copied.
+   */
+  public void writeTo(Buffer buff) {
+    if (bytes != null) {
+      synchronized (this) {
+        if (isUnmodified()) {
+          buff.appendBytes(bytes, offset, length);
+          return;
+        }
+      }
+    }
+    Json.encode(map(), buff);
   }
 
   public JsonObject copy() {
+    if (bytes != null) {
+      synchronized (this) {
+        if (isUnmodified()) {
+          // The original bytes and their index are never modified so can be shared by the copy
+          return new JsonObject(bytes, offset, length, index);
+        }
+      }
+    }
     return new JsonObject(encode());
   }
 
@@ -161,16 +352,19 @@ public class JsonObject {
 
     JsonObject that = (JsonObject) o;
 
-    if (this.map.size() != that.map.size()) return false;
+    Map<String, Object> thisMap = map();
+    Map<String, Object> thatMap = that.map();
+
+    if (thisMap.size() != thatMap.size()) return false;
 
-    for (Map.Entry<String, Object> entry: this.map.entrySet()) {
+    for (Map.Entry<String, Object> entry: thisMap.entrySet()) {
       Object val = entry.getValue();
       if (val == null) {
-        if (that.map.get(entry.getKey()) != null) {
+        if (thatMap.get(entry.getKey()) != null) {
           return false;
         }
       } else {
-        if (!entry.getValue().equals(that.map.get(entry.getKey()))) {
+        if (!entry.getValue().equals(thatMap.get(entry.getKey()))) {
           return false;
         }
       }
@@ -179,7 +373,96 @@ public class JsonObject {
   }
 
   public Map<String, Object> toMap() {
-    return convertMap(map);
+    return convertMap(map());
+  }
+
+  Map<String, Object> map() {
+    if (bytes != null) {
+      synchronized (this) {
+        if (bytes != null) {
+          materialize();
+        }
+      }
+    }
+    return map;
+  }
+
+  // Point this object at a different map, so one instance can be used as a view of many maps in turn
+  JsonObject reset(Map<String, Object> map) {
+    this.map = map;
+    bytes = null;
+    index = null;
+    values = null;
+    return this;
+  }
+
+  // Get the raw value of a field, without decoding the whole object if it is still backed by bytes. Objects are
+  // returned as lazy JsonObjects over the same bytes.
+  private Object get(String fieldName) {
+    if (bytes != null) {
+      synchronized (this) {
+        if (bytes != null) {
+          return lazyGet(fieldName);
+        }
+      }
+    }
+    return map.get(fieldName);
+  }
+
+  // Must be called with the lock held while the object is backed by bytes
+  private Object lazyGet(String fieldName) {
+    int i = index.find(fieldName);
+    if (i == -1) {
+      return null;
+    }
+    Object value = values[i];
+    if (value == UNDECODED) {
+      int start = index.start(i);
+      int end = index.end(i);
+      if (bytes[start] == '{') {
+        // Already validated as part of this object
+        value = new JsonObject(bytes, start, end - start, new JsonIndex(bytes, start, end - start, false));
+      } else {
+        value = index.decode(i);
+      }
+      values[i] = value;
+    }
+    return value;
+  }
+
+  // Whether the object is still backed by bytes which are a correct encoding of it. Objects and arrays handed out by
+  // getters can be modified by the caller, so arrays, and child objects no longer backed by bytes, mean the bytes
+  // can't be relied on. Must be called with the lock held.
+  private boolean isUnmodified() {
+    if (bytes == null) {
+      return false;
+    }
+    for (Object value: values) {
+      if (value instanceof List || (value instanceof JsonObject && ((JsonObject)value).encodedLength() == -1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Decode the whole object into a map. Values already handed out are kept so changes to them are still seen.
+  // Must be called with the lock held.
+  private void materialize() {
+    Map<String, Object> m = new LinkedHashMap<>(Math.max(16, index.size() * 2));
+    for (int i = 0; i < index.size(); i++) {
+      Object value = values[i];
+      if (value == UNDECODED) {
+        value = index.decode(i);
+      } else if (value instanceof JsonObject) {
+        value = ((JsonObject)value).map();
+      }
+      m.put(index.name(i), value);
+    }
+    map = m;
+    index = null;
+    values = null;
+    // Publishes the map to readers which don't take the lock
+    bytes = null;
   }
 
   static Map<String, Object> convertMap(Map<String, Object> map) {
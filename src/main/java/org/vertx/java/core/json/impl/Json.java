@@ -17,11 +17,16 @@
 package org.vertx.java.core.json.impl;
 
 import org.codehaus.jackson.map.ObjectMapper;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.json.DecodeException;
 import org.vertx.java.core.json.EncodeException;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
+import java.io.OutputStream;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -40,6 +45,35 @@ public class Json {
     }
   }
 
+  public static byte[] encodeToBytes(Object obj) throws EncodeException {
+    try {
+      return mapper.writeValueAsBytes(obj);
+    }
+    catch (Exception e) {
+      throw new EncodeException("Failed to encode as JSON");
+    }
+  }
+
+  /**
+   * Encode {@code obj} as UTF-8 and append it to {@code buff}, without encoding to an intermediate String or byte[]
+   */
+  public static void encode(Object obj, final Buffer buff) throws EncodeException {
+    try {
+      mapper.writeValue(new OutputStream() {
+        public void write(int b) {
+          buff.appendByte((byte)b);
+        }
+
+        public void write(byte[] b, int off, int len) {
+          buff.appendBytes(b, off, len);
+        }
+      }, obj);
+    }
+    catch (Exception e) {
+      throw new EncodeException("Failed to encode as JSON");
+    }
+  }
+
   public static Object decodeValue(String str, Class clazz) throws DecodeException {
     try {
       return mapper.readValue(str, clazz);
@@ -49,4 +83,30 @@ public class Json {
     }
   }
 
+  /**
+   * Decode the UTF-8 encoded JSON in {@code buff}, reading it straight from the buffer's storage where possible. Like
+   * the other methods of Buffer this reads the bytes from position 0 up to {@link Buffer#length()}.
+   */
+  public static Object decodeValue(Buffer buff, Class<?> clazz) throws DecodeException {
+    ChannelBuffer cb = buff.getChannelBuffer();
+    if (cb.hasArray()) {
+      return decodeValue(cb.array(), cb.arrayOffset(), buff.length(), clazz);
+    }
+    try {
+      return mapper.readValue(new ChannelBufferInputStream(cb.slice(0, buff.length())), clazz);
+    }
+    catch (Exception e) {
+      throw new DecodeException("Failed to decode");
+    }
+  }
+
+  public static Object decodeValue(byte[] bytes, int offset, int length, Class<?> clazz) throws DecodeException {
+    try {
+      return mapper.readValue(bytes, offset, length, clazz);
+    }
+    catch (Exception e) {
+      throw new DecodeException("Failed to decode");
+    }
+  }
+
 }
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.json.impl;
+
+import org.jboss.netty.util.CharsetUtil;
+import org.vertx.java.core.json.DecodeException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The positions of the fields of an encoded JSON object.<p>
+ * Building the index checks the whole object is valid JSON and finds where each top level value starts and ends, but
+ * it doesn't decode the values, so it is much cheaper than decoding the whole object when only a few fields are
+ * needed.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JsonIndex {
+
+  // Deeper nesting is rejected rather than risk overflowing the stack while validating
+  private static final int MAX_DEPTH = 1000;
+
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+  private final byte[] bytes;
+  private final int end;
+  private final Map<String, Integer> positions = new HashMap<>();
+  private String[] names = new String[16];
+  private int[] spans = new int[32];
+  private int size;
+
+  /**
+   * Index the JSON object encoded as UTF-8 in {@code length} bytes of {@code bytes} starting at {@code offset}.
+   * @throws DecodeException if the bytes aren't a valid JSON object
+   */
+  public JsonIndex(byte[] bytes, int offset, int length) throws DecodeException {
+    this(bytes, offset, length, true);
+  }
+
+  /**
+   * Index the JSON object encoded as UTF-8 in {@code length} bytes of {@code bytes} starting at {@code offset}.
+   * If {@code validate} is false the bytes must already be known to be valid, e.g. because they are part of an object
+   * which has been indexed, and the field values are only scanned as far as needed to find where they end.
+   * @throws DecodeException if the bytes aren't a valid JSON object
+   */
+  public JsonIndex(byte[] bytes, int offset, int length, boolean validate) throws DecodeException {
+    this.bytes = bytes;
+    this.end = offset + length;
+    int pos = skipWhitespace(offset);
+    expect(pos, '{');
+    pos = skipWhitespace(pos + 1);
+    if (peek(pos) == '}') {
+      pos++;
+    } else {
+      while (true) {
+        expect(pos, '"');
+        int nameEnd = validate ? validateString(pos) : skipString(pos);
+        String name = decodeString(pos, nameEnd);
+        pos = skipWhitespace(nameEnd);
+        expect(pos, ':');
+        int valueStart = skipWhitespace(pos + 1);
+        int valueEnd = validate ? validateValue(valueStart, 0) : skipValue(valueStart);
+        add(name, valueStart, valueEnd);
+        pos = skipWhitespace(valueEnd);
+        byte b = peek(pos);
+        pos = skipWhitespace(pos + 1);
+        if (b == '}') {
+          break;
+        } else if (b != ',') {
+          throw new DecodeException("Expected ',' or '}' at " + (pos - 1));
+        }
+      }
+    }
+    if (skipWhitespace(pos) != end) {
+      throw new DecodeException("Unexpected data after object");
+    }
+  }
+
+  /**
+   * @return the number of fields
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the position of the field called {@code name}, or -1 if there is no such field
+   */
+  public int find(String name) {
+    Integer i = positions.get(name);
+    return i == null ? -1 : i;
+  }
+
+  public String name(int i) {
+    return names[i];
+  }
+
+  /**
+   * @return the offset of the first byte of the value of field {@code i}
+   */
+  public int start(int i) {
+    return spans[i << 1];
+  }
+
+  /**
+   * @return the offset after the last byte of the value of field {@code i}
+   */
+  public int end(int i) {
+    return spans[(i << 1) + 1];
+  }
+
+  /**
+   * Decode the value of field {@code i}, as a String, Number, Boolean or null, or as a Map or List
+   */
+  public Object decode(int i) throws DecodeException {
+    int start = start(i);
+    int end = end(i);
+    if (bytes[start] == '"') {
+      return decodeString(start, end);
+    }
+    return Json.decodeValue(bytes, start, end - start, Object.class);
+  }
+
+  /**
+   * @return whether the value of field {@code i} is null
+   */
+  public boolean isNull(int i) {
+    return bytes[start(i)] == 'n';
+  }
+
+  /**
+   * Read the value of number field {@code i} as a long. Integers of up to 18 digits are read straight from the bytes.
+   */
+  public long longValue(int i) throws DecodeException {
+    int pos = start(i);
+    int end = end(i);
+    boolean negative = bytes[pos] == '-';
+    if (negative) {
+      pos++;
+    }
+    if (end - pos > 0 && end - pos <= 18) {
+      long l = 0;
+      for (; pos < end; pos++) {
+        int digit = bytes[pos] - '0';
+        if (digit < 0 || digit > 9) {
+          break;
+        }
+        l = l * 10 + digit;
+      }
+      if (pos == end) {
+        return negative ? -l : l;
+      }
+    }
+    return number(i).longValue();
+  }
+
+  /**
+   * Read the value of number field {@code i} as a double
+   */
+  public double doubleValue(int i) throws DecodeException {
+    int start = start(i);
+    int end = end(i);
+    for (int pos = bytes[start] == '-' ? start + 1 : start; pos < end; pos++) {
+      byte b = bytes[pos];
+      if (b < '0' || b > '9') {
+        return number(i).doubleValue();
+      }
+    }
+    return end - start <= 18 ? longValue(i) : number(i).doubleValue();
+  }
+
+  private Number number(int i) {
+    Object value = decode(i);
+    if (!(value instanceof Number)) {
+      throw new ClassCastException("Field " + names[i] + " is not a number");
+    }
+    return (Number)value;
+  }
+
+  private void add(String name, int start, int end) {
+    if (size == names.length) {
+      String[] newNames = new String[size << 1];
+      System.arraycopy(names, 0, newNames, 0, size);
+      names = newNames;
+      int[] newSpans = new int[size << 2];
+      System.arraycopy(spans, 0, newSpans, 0, size << 1);
+      spans = newSpans;
+    }
+    names[size] = name;
+    spans[size << 1] = start;
+    spans[(size << 1) + 1] = end;
+    // As with decoding into a Map, the last of any duplicate fields wins
+    positions.put(name, size);
+    size++;
+  }
+
+  private String decodeString(int start, int end) {
+    for (int i = start + 1; i < end - 1; i++) {
+      if (bytes[i] == '\\') {
+        return (String) Json.decodeValue(bytes, start, end - start, String.class);
+      }
+    }
+    return new String(bytes, start + 1, end - start - 2, CharsetUtil.UTF_8);
+  }
+
+  private byte peek(int pos) {
+    if (pos >= end) {
+      throw new DecodeException("Unexpected end of input");
+    }
+    return bytes[pos];
+  }
+
+  private void expect(int pos, char c) {
+    if (peek(pos) != c) {
+      throw new DecodeException("Expected '" + c + "' at " + pos);
+    }
+  }
+
+  private int skipWhitespace(int pos) {
+    while (pos < end) {
+      byte b = bytes[pos];
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        break;
+      }
+      pos++;
+    }
+    return pos;
+  }
+
+  // Returns the position after the closing quote of the string starting at pos
+  private int skipString(int pos) {
+    pos++;
+    while (true) {
+      byte b = peek(pos++);
+      if (b == '"') {
+        return pos;
+      } else if (b == '\\') {
+        pos++;
+      }
+    }
+  }
+
+  // Returns the position after the value starting at pos
+  private int skipValue(int pos) {
+    byte b = peek(pos);
+    if (b == '"') {
+      return skipString(pos);
+    } else if (b == '{' || b == '[') {
+      int depth = 0;
+      while (true) {
+        b = peek(pos);
+        if (b == '"') {
+          pos = skipString(pos);
+          continue;
+        } else if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          if (--depth == 0) {
+            return pos + 1;
+          }
+        }
+        pos++;
+      }
+    } else {
+      int start = pos;
+      while (pos < end) {
+        b = bytes[pos];
+        if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+          break;
+        }
+        pos++;
+      }
+      if (pos == start) {
+        throw new DecodeException("Expected a value at " + start);
+      }
+      return pos;
+    }
+  }
+
+  // Returns the position after the valid JSON value starting at pos
+  private int validateValue(int pos, int depth) {
+    if (depth == MAX_DEPTH) {
+      throw new DecodeException("Nesting too deep at " + pos);
+    }
+    byte b = peek(pos);
+    switch (b) {
+      case '"':
+        return validateString(pos);
+      case '{':
+        pos = skipWhitespace(pos + 1);
+        if (peek(pos) == '}') {
+          return pos + 1;
+        }
+        while (true) {
+          expect(pos, '"');
+          pos = skipWhitespace(validateString(pos));
+          expect(pos, ':');
+          pos = skipWhitespace(validateValue(skipWhitespace(pos + 1), depth + 1));
+          b = peek(pos);
+          if (b == '}') {
+            return pos + 1;
+          } else if (b != ',') {
+            throw new DecodeException("Expected ',' or '}' at " + pos);
+          }
+          pos = skipWhitespace(pos + 1);
+        }
+      case '[':
+        pos = skipWhitespace(pos + 1);
+        if (peek(pos) == ']') {
+          return pos + 1;
+        }
+        while (true) {
+          pos = skipWhitespace(validateValue(pos, depth + 1));
+          b = peek(pos);
+          if (b == ']') {
+            return pos + 1;
+          } else if (b != ',') {
+            throw new DecodeException("Expected ',' or ']' at " + pos);
+          }
+          pos = skipWhitespace(pos + 1);
+        }
+      case 't':
+        return validateLiteral(pos, TRUE);
+      case 'f':
+        return validateLiteral(pos, FALSE);
+      case 'n':
+        return validateLiteral(pos, NULL);
+      default:
+        return validateNumber(pos);
+    }
+  }
+
+  // Returns the position after the closing quote of the valid string starting at pos
+  private int validateString(int pos) {
+    pos++;
+    while (true) {
+      byte b = peek(pos++);
+      if (b == '"') {
+        return pos;
+      } else if (b >= 0 && b < 0x20) {
+        throw new DecodeException("Illegal control character in string at " + (pos - 1));
+      } else if (b == '\\') {
+        b = peek(pos++);
+        if (b == 'u') {
+          for (int i = 0; i < 4; i++) {
+            if (Character.digit(peek(pos++), 16) < 0) {
+              throw new DecodeException("Illegal unicode escape at " + (pos - 1));
+            }
+          }
+        } else if (b != '"' && b != '\\' && b != '/' && b != 'b' && b != 'f' && b != 'n' && b != 'r' && b != 't') {
+          throw new DecodeException("Illegal escape at " + (pos - 1));
+        }
+      }
+    }
+  }
+
+  private int validateLiteral(int pos, byte[] literal) {
+    for (byte b: literal) {
+      if (peek(pos++) != b) {
+        throw new DecodeException("Unexpected character at " + (pos - 1));
+      }
+    }
+    return pos;
+  }
+
+  // -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+  private int validateNumber(int pos) {
+    int start = pos;
+    if (peek(pos) == '-') {
+      pos++;
+    }
+    if (peek(pos) == '0') {
+      pos++;
+    } else {
+      pos = validateDigits(pos);
+    }
+    if (pos < end && bytes[pos] == '.') {
+      pos = validateDigits(pos + 1);
+    }
+    if (pos < end && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+      pos++;
+      if (pos < end && (bytes[pos] == '+' || bytes[pos] == '-')) {
+        pos++;
+      }
+      pos = validateDigits(pos);
+    }
+    if (pos < end) {
+      byte b = bytes[pos];
+      if ((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+        throw new DecodeException("Illegal number at " + start);
+      }
+    }
+    return pos;
+  }
+
+  // Returns the position after one or more digits starting at pos
+  private int validateDigits(int pos) {
+    int start = pos;
+    while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+      pos++;
+    }
+    if (pos == start) {
+      throw new DecodeException("Expected a digit at " + start);
+    }
+    return pos;
+  }
+}
@@ -246,6 +246,17 @@ public class NetClient {
     return this;
   }
 
+  /**
+   * Set the size in bytes of the chunks files are sent in by {@code sendFile} on SSL connections created by this
+   * instance. Plain connections send files with zero-copy instead. The default of 16384 is the most data a single SSL
+   * record can carry.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized NetClient setSendFileChunkSize(int size) {
+    client.setSendFileChunkSize(size);
+    return this;
+  }
+
   /**
    * @return true if Nagle's algorithm is disabled.
    */
@@ -299,6 +310,14 @@ public class NetClient {
     return client.getTrafficClass();
   }
 
+  /**
+   *
+   * @return the size of the chunks files are sent in on SSL connections
+   */
+  public synchronized int getSendFileChunkSize() {
+    return client.getSendFileChunkSize();
+  }
+
   /**
    *
    * @return true if this client will make SSL connections
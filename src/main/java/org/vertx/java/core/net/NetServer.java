@@ -218,6 +218,40 @@ public class NetServer {
     return this;
   }
 
+  /**
+   * Set the size in bytes of the chunks files are sent in by {@code sendFile} on SSL connections created by this
+   * instance. Plain connections send files with zero-copy instead. The default of 16384 is the most data a single SSL
+   * record can carry.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized NetServer setSendFileChunkSize(int size) {
+    server.setSendFileChunkSize(size);
+    return this;
+  }
+
+  /**
+   * Close connections which nothing has been read from for {@code timeout} milliseconds. Timeouts are checked on a
+   * wheel shared by the connections of each event loop, which ticks every 100 ms, so a connection may stay open for
+   * up to a tick longer than this.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized NetServer setIdleReadTimeout(long timeout) {
+    server.setIdleReadTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Close connections which nothing has been written to for {@code timeout} milliseconds, checked in the same way as
+   * {@link #setIdleReadTimeout}.<p>
+   * The default is {@code 0}, which means connections are never closed for being idle.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  public synchronized NetServer setIdleWriteTimeout(long timeout) {
+    server.setIdleWriteTimeout(timeout);
+    return this;
+  }
+
   /**
    * @return true if Nagle's algorithm is disabled.
    */
@@ -271,6 +305,28 @@ public class NetServer {
     return server.getTrafficClass();
   }
 
+  /**
+   *
+   * @return the size of the chunks files are sent in on SSL connections
+   */
+  public synchronized int getSendFileChunkSize() {
+    return server.getSendFileChunkSize();
+  }
+
+  /**
+   * @return The time in milliseconds after which connections nothing has been read from are closed, or {@code 0}
+   */
+  public synchronized long getIdleReadTimeout() {
+    return server.getIdleReadTimeout();
+  }
+
+  /**
+   * @return The time in milliseconds after which connections nothing has been written to are closed, or {@code 0}
+   */
+  public synchronized long getIdleWriteTimeout() {
+    return server.getIdleWriteTimeout();
+  }
+
   /**
    *
    * @return true if this server will make SSL connections
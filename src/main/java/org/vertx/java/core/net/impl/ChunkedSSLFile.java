@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.core.net.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The chunks a file is sent in with sendFile when zero-copy is not possible because the connection is encrypted.<p>
+ * Each chunk is read from the file straight into its own buffer. The buffer can't be reused for the next chunk, as a
+ * chunk may be held on to, by the write coalescer or by the SSL handler during a handshake, after the next one has
+ * been read. The chunk size should be close to the largest SSL record, so that each chunk is encrypted as a single
+ * record.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+class ChunkedSSLFile implements ChunkedInput {
+
+  static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+  private final FileChannel channel;
+  private final long end;
+  private final int chunkSize;
+  private long position;
+
+  ChunkedSSLFile(FileChannel channel, long offset, long length, int chunkSize) {
+    this.channel = channel;
+    this.position = offset;
+    this.end = offset + length;
+    this.chunkSize = chunkSize;
+  }
+
+  public boolean hasNextChunk() throws Exception {
+    return position < end;
+  }
+
+  public boolean isEndOfInput() throws Exception {
+    return !hasNextChunk();
+  }
+
+  public Object nextChunk() throws Exception {
+    if (position >= end) {
+      return null;
+    }
+    int size = (int) Math.min(chunkSize, end - position);
+    ChannelBuffer chunk = ChannelBuffers.buffer(size);
+    ByteBuffer bb = chunk.toByteBuffer(0, size);
+    while (bb.hasRemaining()) {
+      int read = channel.read(bb, position);
+      if (read < 0) {
+        throw new IOException("File truncated while being sent");
+      }
+      position += read;
+    }
+    chunk.writerIndex(size);
+    return chunk;
+  }
+
+  public void close() throws Exception {
+    channel.close();
+  }
+}
@@ -23,7 +23,6 @@ import org.jboss.netty.channel.DefaultFileRegion;
 import org.jboss.netty.channel.FileRegion;
 import org.jboss.netty.channel.socket.nio.NioSocketChannelConfig;
 import org.jboss.netty.handler.ssl.SslHandler;
-import org.jboss.netty.handler.stream.ChunkedFile;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.Vertx;
@@ -57,6 +56,7 @@ public abstract class ConnectionBase {
 
   protected Handler<Exception> exceptionHandler;
   protected Handler<Void> closedHandler;
+  private int sendFileChunkSize = ChunkedSSLFile.DEFAULT_CHUNK_SIZE;
 
   /**
    * Pause the connection, see {@link ReadStream#pause}
@@ -88,6 +88,13 @@ public abstract class ConnectionBase {
     return !channel.isWritable();
   }
 
+  /**
+   * Set the size of the chunks files are sent in by {@link #sendFile} when the connection is encrypted
+   */
+  public void setSendFileChunkSize(int size) {
+    this.sendFileChunkSize = size;
+  }
+
   /**
    * Close the connection
    */
@@ -181,7 +188,7 @@ public abstract class ConnectionBase {
       ChannelFuture writeFuture;
       if (isSSL()) {
         // Cannot use zero-copy with HTTPS.
-        writeFuture = channel.write(new ChunkedFile(raf, 0, fileLength, 8192));
+        writeFuture = channel.write(new ChunkedSSLFile(raf.getChannel(), 0, fileLength, sendFileChunkSize));
       } else {
         // No encryption - use zero-copy.
         final FileRegion region =
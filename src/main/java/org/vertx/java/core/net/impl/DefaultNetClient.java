@@ -139,6 +139,10 @@ public class DefaultNetClient {
     return tcpHelper.getTrafficClass();
   }
 
+  public int getSendFileChunkSize() {
+    return tcpHelper.getSendFileChunkSize();
+  }
+
   public void setTCPNoDelay(Boolean tcpNoDelay) {
     tcpHelper.setTCPNoDelay(tcpNoDelay);
   }
@@ -167,6 +171,10 @@ public class DefaultNetClient {
     tcpHelper.setTrafficClass(trafficClass);
   }
 
+  public void setSendFileChunkSize(int size) {
+    tcpHelper.setSendFileChunkSize(size);
+  }
+
   public boolean isSSL() {
     return tcpHelper.isSSL();
   }
@@ -314,6 +322,7 @@ public class DefaultNetClient {
       public void run() {
         VertxInternal.instance.setContext(ctx);
         DefaultNetSocket sock = new DefaultNetSocket(ch, ctx);
+        sock.setSendFileChunkSize(tcpHelper.getSendFileChunkSize());
         socketMap.put(ch, sock);
         connectHandler.handle(sock);
       }
@@ -140,6 +140,7 @@ public class DefaultNetServer {
             }
             pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());  // For large file / sendfile support
             pipeline.addLast("handler", new ServerHandler());
+            tcpHelper.addIdleTimeoutHandler(pipeline);
             return pipeline;
           }
         });
@@ -261,6 +262,18 @@ public class DefaultNetServer {
     return tcpHelper.getTrafficClass();
   }
 
+  public int getSendFileChunkSize() {
+    return tcpHelper.getSendFileChunkSize();
+  }
+
+  public long getIdleReadTimeout() {
+    return tcpHelper.getIdleReadTimeout();
+  }
+
+  public long getIdleWriteTimeout() {
+    return tcpHelper.getIdleWriteTimeout();
+  }
+
   public void setTCPNoDelay(Boolean tcpNoDelay) {
     tcpHelper.setTCPNoDelay(tcpNoDelay);
   }
@@ -289,6 +302,18 @@ public class DefaultNetServer {
     tcpHelper.setTrafficClass(trafficClass);
   }
 
+  public void setSendFileChunkSize(int size) {
+    tcpHelper.setSendFileChunkSize(size);
+  }
+
+  public void setIdleReadTimeout(long timeout) {
+    tcpHelper.setIdleReadTimeout(timeout);
+  }
+
+  public void setIdleWriteTimeout(long timeout) {
+    tcpHelper.setIdleWriteTimeout(timeout);
+  }
+
   public boolean isSSL() {
     return tcpHelper.isSSL();
   }
@@ -381,6 +406,7 @@ public class DefaultNetServer {
       handler.context.execute(new Runnable() {
         public void run() {
           DefaultNetSocket sock = new DefaultNetSocket(ch, handler.context);
+          sock.setSendFileChunkSize(tcpHelper.getSendFileChunkSize());
           socketMap.put(ch, sock);
           handler.handler.handle(sock);
         }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.WriteCompletionEvent;
+import org.jboss.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Closes a connection when nothing has been read from it, or nothing written to it, for too long.<p>
+ * Reads and writes only record the current tick of the event loop's {@link TimingWheel}, and the connection is
+ * only looked at again when its deadline comes round on the wheel, so a busy connection costs next to nothing.
+ * There is one of these per channel, at the head of its pipeline.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class IdleTimeoutHandler extends SimpleChannelUpstreamHandler {
+
+  // In ticks, 0 if not limited
+  private final long readTimeout;
+  private final long writeTimeout;
+  private Channel channel;
+  private TimingWheel wheel;
+  private long lastRead;
+  private long lastWrite;
+
+  private final TimingWheel.Entry entry = new TimingWheel.Entry() {
+    protected long expired(long now) {
+      long deadline = deadline();
+      if (deadline <= now) {
+        channel.close();
+        return 0;
+      }
+      return deadline;
+    }
+  };
+
+  public IdleTimeoutHandler(long readTimeoutMillis, long writeTimeoutMillis) {
+    this.readTimeout = TimingWheel.toTicks(readTimeoutMillis);
+    this.writeTimeout = TimingWheel.toTicks(writeTimeoutMillis);
+  }
+
+  private long deadline() {
+    long readDeadline = readTimeout == 0 ? Long.MAX_VALUE : lastRead + readTimeout;
+    long writeDeadline = writeTimeout == 0 ? Long.MAX_VALUE : lastWrite + writeTimeout;
+    return Math.min(readDeadline, writeDeadline);
+  }
+
+  @Override
+  public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+    final NioSocketChannel ch = (NioSocketChannel) e.getChannel();
+    channel = ch;
+    ch.getWorker().executeInIoThread(new Runnable() {
+      public void run() {
+        if (channel.isOpen()) {
+          wheel = TimingWheel.forWorker(ch.getWorker());
+          wheel.add(entry, Math.min(readTimeout == 0 ? Long.MAX_VALUE : readTimeout,
+                                    writeTimeout == 0 ? Long.MAX_VALUE : writeTimeout));
+          // Adding to an empty wheel moves its tick on, so only read it now
+          lastRead = lastWrite = wheel.ticks();
+        }
+      }
+    }, false);
+    super.channelConnected(ctx, e);
+  }
+
+  @Override
+  public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+    if (wheel != null) {
+      lastRead = wheel.ticks();
+    }
+    super.messageReceived(ctx, e);
+  }
+
+  @Override
+  public void writeComplete(ChannelHandlerContext ctx, WriteCompletionEvent e) throws Exception {
+    if (wheel != null) {
+      lastWrite = wheel.ticks();
+    }
+    super.writeComplete(ctx, e);
+  }
+
+  @Override
+  public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+    if (wheel != null) {
+      wheel.remove(entry);
+    }
+    super.channelClosed(ctx, e);
+  }
+}
@@ -16,8 +16,11 @@
 
 package org.vertx.java.core.net.impl;
 
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
+import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.socket.nio.NioSocketChannel;
 import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.impl.BufferPool;
 import org.vertx.java.core.impl.Context;
 import org.vertx.java.core.impl.EventLoopContext;
 import org.vertx.java.core.impl.VertxInternal;
@@ -65,6 +68,9 @@ public class TCPSSLHelper {
   private Boolean reuseAddress;
   private Boolean soLinger;
   private Integer trafficClass;
+  private int sendFileChunkSize = ChunkedSSLFile.DEFAULT_CHUNK_SIZE;
+  private long idleReadTimeout;
+  private long idleWriteTimeout;
 
   private SSLContext sslContext;
 
@@ -111,6 +117,12 @@ public class TCPSSLHelper {
     if (trafficClass != null) {
       options.put("child.trafficClass", trafficClass);
     }
+    if (BufferPool.isDirectByDefault()) {
+      // Received data is wrapped in a Buffer without copying, so when it's proxied it can be written straight back
+      // out of native memory
+      options.put("child.bufferFactory", DirectChannelBufferFactory.getInstance());
+      options.put("bufferFactory", DirectChannelBufferFactory.getInstance());
+    }
     return options;
   }
 
@@ -142,6 +154,48 @@ public class TCPSSLHelper {
     return trafficClass;
   }
 
+  public int getSendFileChunkSize() {
+    return sendFileChunkSize;
+  }
+
+  public void setSendFileChunkSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Send file chunk size must be >= 1");
+    }
+    this.sendFileChunkSize = size;
+  }
+
+  public long getIdleReadTimeout() {
+    return idleReadTimeout;
+  }
+
+  public void setIdleReadTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Idle read timeout must be >= 0");
+    }
+    this.idleReadTimeout = timeout;
+  }
+
+  public long getIdleWriteTimeout() {
+    return idleWriteTimeout;
+  }
+
+  public void setIdleWriteTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Idle write timeout must be >= 0");
+    }
+    this.idleWriteTimeout = timeout;
+  }
+
+  /**
+   * Add a handler which closes idle connections to the head of {@code pipeline}, if any idle timeout is set
+   */
+  public void addIdleTimeoutHandler(ChannelPipeline pipeline) {
+    if (idleReadTimeout > 0 || idleWriteTimeout > 0) {
+      pipeline.addFirst("idle", new IdleTimeoutHandler(idleReadTimeout, idleWriteTimeout));
+    }
+  }
+
   public void setTCPNoDelay(Boolean tcpNoDelay) {
     this.tcpNoDelay = tcpNoDelay;
   }
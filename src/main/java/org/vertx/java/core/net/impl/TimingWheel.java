@@ -0,0 +1,211 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.vertx.java.core.impl.VertxInternal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel owned by one event loop, for deadlines which are pushed back far more often than they
+ * expire, such as idle timeouts.<p>
+ * Time is counted in ticks of {@link #TICK_MILLIS}. Entries are kept in intrusive linked lists, so adding and removing
+ * them is O(1) and allocates nothing, and the wheel ticks with a single timeout on the vert.x timer for however many
+ * entries it holds. It only ticks while it holds entries, and once it is empty it is dropped, so a closed server does
+ * not leave a wheel behind for each of its event loops. An entry is not moved when its deadline is pushed back -
+ * when its slot comes round it is asked for its new deadline instead.<p>
+ * Entries must only be added and removed on the event loop which owns the wheel.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class TimingWheel {
+
+  public static final long TICK_MILLIS = 100;
+
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+  private static final int WHEEL_SIZE = 512;
+  private static final int MASK = WHEEL_SIZE - 1;
+
+  private static final ConcurrentMap<NioWorker, TimingWheel> wheels = new ConcurrentHashMap<>();
+
+  /**
+   * @return The wheel for the event loop of {@code worker}. Call it on that event loop
+   */
+  public static TimingWheel forWorker(NioWorker worker) {
+    TimingWheel wheel = wheels.get(worker);
+    if (wheel == null) {
+      wheel = new TimingWheel(worker);
+      TimingWheel existing = wheels.putIfAbsent(worker, wheel);
+      if (existing != null) {
+        wheel = existing;
+      }
+    }
+    return wheel;
+  }
+
+  /**
+   * @return The number of event loops which currently have a wheel
+   */
+  public static int getWheelCount() {
+    return wheels.size();
+  }
+
+  /**
+   * @return The number of ticks, rounded up, in {@code millis}
+   */
+  public static long toTicks(long millis) {
+    return (millis + TICK_MILLIS - 1) / TICK_MILLIS;
+  }
+
+  private final NioWorker worker;
+  private final Entry[] slots = new Entry[WHEEL_SIZE];
+  private final long start = System.nanoTime();
+  private long tick;
+  private int size;
+  private boolean ticking;
+
+  private final Runnable tickTask = new Runnable() {
+    public void run() {
+      tick();
+    }
+  };
+
+  private final TimerTask timerTask = new TimerTask() {
+    public void run(Timeout timeout) {
+      worker.executeInIoThread(tickTask, true);
+    }
+  };
+
+  private TimingWheel(NioWorker worker) {
+    this.worker = worker;
+  }
+
+  /**
+   * @return The current tick. It only advances while the wheel holds entries
+   */
+  public long ticks() {
+    return tick;
+  }
+
+  /**
+   * Add {@code entry} to expire {@code ticks} ticks from now. It must not already be in the wheel
+   */
+  public void add(Entry entry, long ticks) {
+    if (size == 0 && !ticking) {
+      // Nothing has been counting while the wheel was empty, so catch up before the deadline is worked out
+      tick = currentTick();
+      ticking = true;
+      VertxInternal.instance.getTimer().newTimeout(timerTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    link(entry, tick + Math.max(ticks, 1));
+  }
+
+  /**
+   * Remove {@code entry} from the wheel, if it is in it
+   */
+  public void remove(Entry entry) {
+    if (entry.scheduled) {
+      unlink(entry);
+    }
+  }
+
+  private long currentTick() {
+    return (System.nanoTime() - start) / TICK_NANOS;
+  }
+
+  private void tick() {
+    long now = currentTick();
+    while (tick < now && size > 0) {
+      tick++;
+      expire(tick);
+    }
+    tick = now;
+    if (size > 0) {
+      VertxInternal.instance.getTimer().newTimeout(timerTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    } else {
+      // Nothing on the event loop has a deadline any more. The next thing that does gets a new wheel
+      ticking = false;
+      wheels.remove(worker, this);
+    }
+  }
+
+  private void expire(long now) {
+    Entry entry = slots[(int) (now & MASK)];
+    while (entry != null) {
+      // Entries which are rescheduled go to the head of a list, so they are not seen again on this pass
+      Entry next = entry.next;
+      if (entry.deadline <= now) {
+        unlink(entry);
+        long deadline = entry.expired(now);
+        if (deadline > 0) {
+          link(entry, Math.max(deadline, now + 1));
+        }
+      }
+      entry = next;
+    }
+  }
+
+  private void link(Entry entry, long deadline) {
+    int slot = (int) (deadline & MASK);
+    entry.deadline = deadline;
+    entry.prev = null;
+    entry.next = slots[slot];
+    if (entry.next != null) {
+      entry.next.prev = entry;
+    }
+    slots[slot] = entry;
+    entry.scheduled = true;
+    size++;
+  }
+
+  private void unlink(Entry entry) {
+    if (entry.prev == null) {
+      slots[(int) (entry.deadline & MASK)] = entry.next;
+    } else {
+      entry.prev.next = entry.next;
+    }
+    if (entry.next != null) {
+      entry.next.prev = entry.prev;
+    }
+    entry.prev = entry.next = null;
+    entry.scheduled = false;
+    size--;
+  }
+
+  /**
+   * Something with a deadline in a wheel
+   */
+  public static abstract class Entry {
+
+    private Entry prev;
+    private Entry next;
+    private long deadline;
+    private boolean scheduled;
+
+    /**
+     * Called on the event loop when the deadline has passed. The entry has been removed from the wheel
+     * @return The tick of the entry's next deadline, if its deadline has been pushed back, or 0 to leave it out of
+     * the wheel
+     */
+    protected abstract long expired(long now);
+  }
+}
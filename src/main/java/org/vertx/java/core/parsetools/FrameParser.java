@@ -0,0 +1,250 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.parsetools;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A helper class which allows you to easily parse protocols made of frames which are each preceded by their
+ * length.</p>
+ * <p>The length can either be a fixed width unsigned big endian integer of 1, 2 or 4 bytes, or a varint - an unsigned
+ * integer written 7 bits at a time, least significant group first, with the top bit of each byte set if more
+ * bytes follow (as used by Protocol Buffers). The length doesn't include the prefix itself, and the frames passed to
+ * the output don't include it either.</p>
+ * <p>Instances of this class take as input {@link Buffer} instances containing raw bytes, and output the frames. All
+ * the complete frames in each buffer are found in a single pass and passed to the output without copying where
+ * possible, so they may share storage with the buffers given to {@link #handle}. Use {@link Buffer#copy} if a frame
+ * must outlive changes to those buffers. Alternatively a batch output can be set, which receives all the complete
+ * frames in each buffer in a single call.</p>
+ * <p>A maximum frame size can be set to guard against a peer announcing a frame too big to buffer. If a frame is too
+ * big, or the length is malformed, the exception handler is called and any further input is ignored.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class FrameParser implements Handler<Buffer> {
+
+  private static final int VARINT = 0;
+
+  private final int prefixSize;   // Width of the length prefix, or VARINT
+  private int maxFrameSize = Integer.MAX_VALUE;
+  private Handler<Buffer> output;
+  private Handler<List<Buffer>> batchOutput;
+  private Handler<Exception> exceptionHandler;
+
+  private Buffer buff;            // Our own copy of data left over from previous buffers
+  private int frameSize = -1;     // Size of the current frame if its prefix has been read, otherwise -1
+  private boolean failed;
+
+  private FrameParser(int prefixSize, Handler<Buffer> output) {
+    this.prefixSize = prefixSize;
+    this.output = output;
+  }
+
+  /**
+   * Create a new {@code FrameParser} instance, where each frame is preceded by its length as a big endian unsigned
+   * integer of {@code prefixSize} bytes, which must be 1, 2 or 4.<p>
+   * {@code output} Will receive whole frames which have been parsed.
+   */
+  public static FrameParser newFixedLength(int prefixSize, Handler<Buffer> output) {
+    if (prefixSize != 1 && prefixSize != 2 && prefixSize != 4) {
+      throw new IllegalArgumentException("Prefix size must be 1, 2 or 4");
+    }
+    return new FrameParser(prefixSize, output);
+  }
+
+  /**
+   * Create a new {@code FrameParser} instance, where each frame is preceded by its length as a varint.<p>
+   * {@code output} Will receive whole frames which have been parsed.
+   */
+  public static FrameParser newVarint(Handler<Buffer> output) {
+    return new FrameParser(VARINT, output);
+  }
+
+  /**
+   * Append {@code value} to {@code buff} as a varint
+   */
+  public static Buffer appendVarint(Buffer buff, int value) {
+    if (value < 0) throw new IllegalArgumentException("Value must be >= 0");
+    while ((value & ~0x7F) != 0) {
+      buff.appendByte((byte)((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    return buff.appendByte((byte)value);
+  }
+
+  public void setOutput(Handler<Buffer> output) {
+    this.output = output;
+  }
+
+  /**
+   * Set a handler which receives all the complete frames in each buffer passed to {@link #handle} in a single call,
+   * instead of the output receiving them one at a time.
+   */
+  public void setBatchOutput(Handler<List<Buffer>> batchOutput) {
+    this.batchOutput = batchOutput;
+  }
+
+  /**
+   * Set the maximum size of a frame, not including its prefix. A frame which is bigger is treated as an error.
+   */
+  public void setMaxFrameSize(int maxFrameSize) {
+    if (maxFrameSize < 0) throw new IllegalArgumentException("Max frame size must be >= 0");
+    this.maxFrameSize = maxFrameSize;
+  }
+
+  /**
+   * Set a handler to be called if a frame is too big or its length is malformed. If no handler is set an
+   * {@link IllegalStateException} is thrown from {@link #handle} instead.
+   */
+  public void exceptionHandler(Handler<Exception> handler) {
+    this.exceptionHandler = handler;
+  }
+
+  /**
+   * This method is called to provide the parser with data.
+   * @param buffer
+   */
+  public void handle(Buffer buffer) {
+    if (failed) {
+      return;
+    }
+    boolean owned = buff != null;
+    Buffer data;
+    if (owned) {
+      buff.appendBuffer(buffer);
+      data = buff;
+    } else {
+      data = buffer;
+    }
+    int len = data.length();
+    int start = 0;
+    List<Buffer> batch = null;
+    while (true) {
+      if (frameSize == -1) {
+        int prefixEnd = readPrefix(data, start, len);
+        if (prefixEnd == -1 || failed) {
+          break;
+        }
+        start = prefixEnd;
+      }
+      if (len - start < frameSize) {
+        break;
+      }
+      int end = start + frameSize;
+      // A frame of our own pooled buffer is copied since its storage is reused
+      Buffer frame = owned && data.isPooled() ? data.getBuffer(start, end) : data.slice(start, end);
+      start = end;
+      frameSize = -1;
+      if (batchOutput != null) {
+        if (batch == null) {
+          batch = new ArrayList<>();
+        }
+        batch.add(frame);
+      } else {
+        output.handle(frame);
+      }
+    }
+
+    if (start == len || failed) {
+      releaseBuff();
+    } else if (!owned || start != 0) {
+      // Keep the remainder in a buffer of our own, big enough for the rest of the frame if its size is known
+      int rest = len - start;
+      Buffer newBuff = Buffer.createPooled(frameSize == -1 ? rest : Math.max(rest, frameSize));
+      newBuff.getChannelBuffer().writeBytes(data.getChannelBuffer(), start, rest);
+      releaseBuff();
+      buff = newBuff;
+    }
+    if (batch != null) {
+      batchOutput.handle(batch);
+    }
+  }
+
+  // Reads the length prefix at start into frameSize and returns the position after it, or -1 if it is incomplete
+  private int readPrefix(Buffer data, int start, int len) {
+    int size;
+    int end;
+    if (prefixSize == VARINT) {
+      size = 0;
+      end = start;
+      int shift = 0;
+      while (true) {
+        if (end == len) {
+          return -1;
+        }
+        byte b = data.getByte(end++);
+        size |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          if (shift == 28 && (b & 0x78) != 0) {
+            return fail("Varint frame length overflows", end);
+          }
+          break;
+        }
+        shift += 7;
+        if (shift > 28) {
+          return fail("Varint frame length is too long", end);
+        }
+      }
+    } else {
+      end = start + prefixSize;
+      if (end > len) {
+        return -1;
+      }
+      switch (prefixSize) {
+        case 1:
+          size = data.getByte(start) & 0xFF;
+          break;
+        case 2:
+          size = data.getShort(start) & 0xFFFF;
+          break;
+        default:
+          size = data.getInt(start);
+          if (size < 0) {
+            return fail("Frame length " + (size & 0xFFFFFFFFL) + " is too big", end);
+          }
+      }
+    }
+    if (size > maxFrameSize) {
+      return fail("Frame length " + size + " is bigger than the maximum of " + maxFrameSize, end);
+    }
+    frameSize = size;
+    return end;
+  }
+
+  private int fail(String message, int end) {
+    failed = true;
+    frameSize = -1;
+    IllegalStateException e = new IllegalStateException(message);
+    if (exceptionHandler == null) {
+      releaseBuff();
+      throw e;
+    }
+    exceptionHandler.handle(e);
+    return end;
+  }
+
+  private void releaseBuff() {
+    if (buff != null) {
+      buff.release();
+      buff = null;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.parsetools;
+
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * <p>An event emitted by a {@link JsonParser}.</p>
+ * <p><b>The parser re-uses the same instance for every event it emits.</b> Its fields change as soon as the handler
+ * returns, so don't hold on to it - use {@link #copy()}, or copy out the fields you need instead.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JsonEvent {
+
+  public enum Type {
+    START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, VALUE
+  }
+
+  private Type type;
+  private String fieldName;
+  private Object value;
+  private int depth;
+
+  JsonEvent() {
+  }
+
+  void set(Type type, String fieldName, Object value, int depth) {
+    this.type = type;
+    this.fieldName = fieldName;
+    this.value = value;
+    this.depth = depth;
+  }
+
+  /**
+   * @return a new event with the same fields, which the parser won't change
+   */
+  public JsonEvent copy() {
+    JsonEvent copy = new JsonEvent();
+    copy.set(type, fieldName, value, depth);
+    return copy;
+  }
+
+  /**
+   * @return the type of the event
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the name of the field this event belongs to, or null if it isn't a member of an object
+   */
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * Return the value of a {@link Type#VALUE} event. This is a String, Number, Boolean or null, or a {@link JsonObject}
+   * or {@link JsonArray} if the value was an object or array at the parser's value depth. Other events have a null
+   * value.
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  /**
+   * @return the number of objects and arrays enclosing the value this event belongs to. Top level values have
+   * depth 0.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public String toString() {
+    return type + (fieldName == null ? "" : " " + fieldName) + (type == Type.VALUE ? " " + value : "");
+  }
+}
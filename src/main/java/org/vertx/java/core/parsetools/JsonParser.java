@@ -0,0 +1,573 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.core.parsetools;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.util.CharsetUtil;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A push based JSON parser.</p>
+ * <p>Instances of this class take as input {@link Buffer} instances containing UTF-8 encoded JSON, split at any
+ * point, and output {@link JsonEvent}s as soon as each part of the document has been read. This means a document
+ * can be parsed as it arrives from any {@link org.vertx.java.core.streams.ReadStream}, without first aggregating it
+ * into a single buffer or String:</p>
+ * <pre>
+ * final JsonParser parser = JsonParser.newParser(handler);
+ * request.dataHandler(parser);
+ * request.endHandler(new SimpleHandler() {
+ *   public void handle() {
+ *     parser.end();
+ *   }
+ * });
+ * </pre>
+ * <p>By default every object, array and value is reported as a separate event. Alternatively the parser can be put
+ * into value mode with {@link #valueMode(int)}, in which case objects and arrays nested at the given depth are
+ * collected and emitted whole, as a single {@link JsonEvent.Type#VALUE} event holding a {@link JsonObject} or
+ * {@link JsonArray}. For example, in value mode with depth 1 each element of a large top level array is emitted as
+ * soon as it is complete. Either way the parser only holds on to the element currently being read, so memory use is
+ * bounded by the largest element rather than by the whole document.</p>
+ * <p>Several top level values separated by whitespace can be parsed one after the other, so this class can also
+ * be used for streams of JSON documents.</p>
+ * <p><b>The parser emits the same {@link JsonEvent} instance for every event, changing its fields each time.</b> An
+ * event is only valid until the handler returns: a handler which needs it later must copy it with
+ * {@link JsonEvent#copy()}, or take the fields it needs.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JsonParser implements Handler<Buffer> {
+
+  // What the parser expects next, outside of a token
+  private static final int VALUE = 0;
+  private static final int VALUE_OR_END = 1;
+  private static final int COMMA_OR_END = 2;
+  private static final int FIELD = 3;
+  private static final int FIELD_OR_END = 4;
+  private static final int COLON = 5;
+
+  // The token currently being read, if any
+  private static final int NONE = 0;
+  private static final int STRING = 1;
+  private static final int NUMBER = 2;
+  private static final int LITERAL = 3;
+
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+  private final JsonEvent event = new JsonEvent();
+  private Handler<JsonEvent> output;
+  private Handler<Exception> exceptionHandler;
+  private int valueDepth = -1;
+  private boolean failed;
+
+  private int state = VALUE;
+  private int depth;                                // Number of currently open objects and arrays
+  private boolean[] objects = new boolean[8];       // Whether each open container is an object or an array
+  private String[] fieldNames = new String[8];      // Current field name of each open object
+  private Object[] containers = new Object[8];      // Maps and Lists being collected in value mode
+
+  private int token = NONE;
+  private byte[] bytes = new byte[64];              // Raw bytes of the current token
+  private int len;
+  private StringBuilder chars;                      // Decoded characters of a string containing escapes
+  private boolean fieldName;                        // Whether the current string is a field name
+  private int escape;                               // 0, 1 after a backslash, 2-5 while reading \\u digits
+  private char unicode;
+  private byte[] literal;
+  private int literalPos;
+  private Object literalValue;
+
+  private JsonParser(Handler<JsonEvent> output) {
+    this.output = output;
+  }
+
+  /**
+   * Create a new {@code JsonParser} instance, initially in event mode.<p>
+   * {@code output} will receive the events as the input is parsed. The same {@link JsonEvent} instance is passed to
+   * every call, so it must not be kept after the call returns.
+   */
+  public static JsonParser newParser(Handler<JsonEvent> output) {
+    return new JsonParser(output);
+  }
+
+  public void setOutput(Handler<JsonEvent> output) {
+    this.output = output;
+  }
+
+  /**
+   * Set a handler to be called if the input is not valid JSON. If no handler is set the {@link DecodeException} is
+   * thrown from {@link #handle} or {@link #end} instead. Once an error has occurred any further input is ignored.
+   */
+  public void exceptionHandler(Handler<Exception> handler) {
+    this.exceptionHandler = handler;
+  }
+
+  /**
+   * Flip the parser into event mode, where every object, array and value results in its own events.<p>
+   * This method can be called while data is being parsed, and takes effect from the next object or array that is
+   * started.
+   */
+  public void eventMode() {
+    valueDepth = -1;
+  }
+
+  /**
+   * Flip the parser into value mode, where objects and arrays at {@code depth} are emitted whole as a single
+   * {@link JsonEvent.Type#VALUE} event. Events for objects and arrays enclosing them are still emitted as in event
+   * mode. Top level values have depth 0.<p>
+   * This method can be called while data is being parsed, and takes effect from the next object or array that is
+   * started.
+   */
+  public void valueMode(int depth) {
+    if (depth < 0) throw new IllegalArgumentException("Depth must be >= 0");
+    valueDepth = depth;
+  }
+
+  /**
+   * This method is called to provide the parser with data.
+   * @param buffer
+   */
+  public void handle(Buffer buffer) {
+    if (failed) {
+      return;
+    }
+    try {
+      ChannelBuffer cb = buffer.getChannelBuffer();
+      int length = buffer.length();
+      if (cb.hasArray()) {
+        // Same indexes as getByte, which ignores the reader index of the channel buffer
+        byte[] array = cb.array();
+        int offset = cb.arrayOffset();
+        for (int i = 0; i < length; i++) {
+          parse(array[offset + i]);
+        }
+      } else {
+        for (int i = 0; i < length; i++) {
+          parse(buffer.getByte(i));
+        }
+      }
+    } catch (DecodeException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Tell the parser there is no more input. This emits a trailing top level number, and reports an error if the
+   * input ended part way through a value.
+   */
+  public void end() {
+    if (failed) {
+      return;
+    }
+    try {
+      if (token == NUMBER) {
+        endNumber();
+      }
+      if (token != NONE || depth != 0) {
+        throw new DecodeException("Unexpected end of input");
+      }
+    } catch (DecodeException e) {
+      fail(e);
+    }
+  }
+
+  private void fail(DecodeException e) {
+    failed = true;
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(e);
+    } else {
+      throw e;
+    }
+  }
+
+  private void parse(byte b) {
+    switch (token) {
+      case STRING:
+        string(b);
+        return;
+      case LITERAL:
+        literal(b);
+        return;
+      case NUMBER:
+        if ((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+') {
+          append(b);
+          return;
+        }
+        endNumber();
+        // The byte which ended the number is structural
+    }
+    switch (b) {
+      case ' ':
+      case '\t':
+      case '\r':
+      case '\n':
+        return;
+      case '{':
+        expectValue();
+        start(true);
+        return;
+      case '[':
+        expectValue();
+        start(false);
+        return;
+      case '}':
+        if ((state != FIELD_OR_END && state != COMMA_OR_END) || !objects[depth - 1]) {
+          throw unexpected(b);
+        }
+        end(true);
+        return;
+      case ']':
+        if ((state != VALUE_OR_END && state != COMMA_OR_END) || objects[depth - 1]) {
+          throw unexpected(b);
+        }
+        end(false);
+        return;
+      case ',':
+        if (state != COMMA_OR_END) {
+          throw unexpected(b);
+        }
+        state = objects[depth - 1] ? FIELD : VALUE;
+        return;
+      case ':':
+        if (state != COLON) {
+          throw unexpected(b);
+        }
+        state = VALUE;
+        return;
+      case '"':
+        if (state == FIELD || state == FIELD_OR_END) {
+          fieldName = true;
+        } else {
+          expectValue();
+          fieldName = false;
+        }
+        token = STRING;
+        len = 0;
+        return;
+      case 't':
+        startLiteral(TRUE, Boolean.TRUE);
+        return;
+      case 'f':
+        startLiteral(FALSE, Boolean.FALSE);
+        return;
+      case 'n':
+        startLiteral(NULL, null);
+        return;
+      default:
+        if (b == '-' || (b >= '0' && b <= '9')) {
+          expectValue();
+          token = NUMBER;
+          len = 0;
+          append(b);
+          return;
+        }
+        throw unexpected(b);
+    }
+  }
+
+  private DecodeException unexpected(byte b) {
+    return new DecodeException("Unexpected character '" + (char) (b & 0xFF) + "'");
+  }
+
+  private void expectValue() {
+    if (state != VALUE && state != VALUE_OR_END) {
+      throw new DecodeException("Unexpected value");
+    }
+  }
+
+  private void append(byte b) {
+    if (len == bytes.length) {
+      byte[] newBytes = new byte[len << 1];
+      System.arraycopy(bytes, 0, newBytes, 0, len);
+      bytes = newBytes;
+    }
+    bytes[len++] = b;
+  }
+
+  private void string(byte b) {
+    if (escape != 0) {
+      escape(b);
+    } else if (b == '"') {
+      endString();
+    } else if (b == '\\') {
+      escape = 1;
+    } else if (b >= 0 && b < 0x20) {
+      throw new DecodeException("Illegal control character in string");
+    } else {
+      append(b);
+    }
+  }
+
+  private void escape(byte b) {
+    if (escape == 1) {
+      escape = 0;
+      switch (b) {
+        case '"':
+        case '\\':
+        case '/':
+          appendChar((char) b);
+          return;
+        case 'b':
+          appendChar('\b');
+          return;
+        case 'f':
+          appendChar('\f');
+          return;
+        case 'n':
+          appendChar('\n');
+          return;
+        case 'r':
+          appendChar('\r');
+          return;
+        case 't':
+          appendChar('\t');
+          return;
+        case 'u':
+          escape = 2;
+          unicode = 0;
+          return;
+        default:
+          throw new DecodeException("Illegal escape '\\" + (char) (b & 0xFF) + "'");
+      }
+    }
+    int digit = Character.digit(b, 16);
+    if (digit < 0) {
+      throw new DecodeException("Illegal unicode escape");
+    }
+    unicode = (char) ((unicode << 4) | digit);
+    if (escape++ == 5) {
+      escape = 0;
+      appendChar(unicode);
+    }
+  }
+
+  // Escaped characters are added to a StringBuilder, after decoding any raw bytes read before them. A multi-byte
+  // UTF-8 sequence can't be split by an escape, so the bytes decoded here are always complete characters.
+  private void appendChar(char c) {
+    if (chars == null) {
+      chars = new StringBuilder();
+    }
+    if (len != 0) {
+      chars.append(new String(bytes, 0, len, CharsetUtil.UTF_8));
+      len = 0;
+    }
+    chars.append(c);
+  }
+
+  private void endString() {
+    String str;
+    if (chars == null || chars.length() == 0) {
+      str = new String(bytes, 0, len, CharsetUtil.UTF_8);
+    } else {
+      if (len != 0) {
+        chars.append(new String(bytes, 0, len, CharsetUtil.UTF_8));
+      }
+      str = chars.toString();
+      chars.setLength(0);
+    }
+    token = NONE;
+    if (fieldName) {
+      fieldNames[depth - 1] = str;
+      state = COLON;
+    } else {
+      value(str);
+    }
+  }
+
+  private void endNumber() {
+    token = NONE;
+    String str = new String(bytes, 0, len, CharsetUtil.US_ASCII);
+    if (!validNumber()) {
+      // The scanner accepts any run of number characters, the parsers below are more lenient than JSON
+      throw new DecodeException("Illegal number " + str);
+    }
+    Number num;
+    try {
+      boolean integral = true;
+      for (int i = 0; i < len; i++) {
+        byte b = bytes[i];
+        if (b == '.' || b == 'e' || b == 'E') {
+          integral = false;
+          break;
+        }
+      }
+      if (!integral) {
+        num = Double.valueOf(str);
+      } else if (len <= 18) {
+        long l = Long.parseLong(str);
+        if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+          num = (int) l;
+        } else {
+          num = l;
+        }
+      } else {
+        BigInteger bi = new BigInteger(str);
+        num = bi.bitLength() < 64 ? (Number) bi.longValue() : bi;
+      }
+    } catch (NumberFormatException e) {
+      throw new DecodeException("Illegal number " + str);
+    }
+    value(num);
+  }
+
+  // -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?
+  private boolean validNumber() {
+    int i = 0;
+    if (bytes[i] == '-') {
+      i++;
+    }
+    if (i == len) {
+      return false;
+    }
+    if (bytes[i] == '0') {
+      i++;
+    } else {
+      i = digits(i);
+      if (i < 0) {
+        return false;
+      }
+    }
+    if (i < len && bytes[i] == '.') {
+      i = digits(i + 1);
+      if (i < 0) {
+        return false;
+      }
+    }
+    if (i < len && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      if (i < len && (bytes[i] == '+' || bytes[i] == '-')) {
+        i++;
+      }
+      i = digits(i);
+      if (i < 0) {
+        return false;
+      }
+    }
+    return i == len;
+  }
+
+  // Returns the index after one or more digits starting at i, or -1 if there is no digit at i
+  private int digits(int i) {
+    int start = i;
+    while (i < len && bytes[i] >= '0' && bytes[i] <= '9') {
+      i++;
+    }
+    return i == start ? -1 : i;
+  }
+
+  private void startLiteral(byte[] literal, Object value) {
+    expectValue();
+    token = LITERAL;
+    this.literal = literal;
+    literalPos = 1;
+    literalValue = value;
+  }
+
+  private void literal(byte b) {
+    if (b != literal[literalPos]) {
+      throw unexpected(b);
+    }
+    if (++literalPos == literal.length) {
+      token = NONE;
+      value(literalValue);
+    }
+  }
+
+  private String currentFieldName() {
+    return depth > 0 && objects[depth - 1] ? fieldNames[depth - 1] : null;
+  }
+
+  private void value(Object value) {
+    if (depth > 0 && containers[depth - 1] != null) {
+      addToParent(value);
+    } else {
+      emit(JsonEvent.Type.VALUE, currentFieldName(), value);
+    }
+    state = depth == 0 ? VALUE : COMMA_OR_END;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addToParent(Object value) {
+    Object parent = containers[depth - 1];
+    if (objects[depth - 1]) {
+      ((Map<String, Object>) parent).put(fieldNames[depth - 1], value);
+    } else {
+      ((List<Object>) parent).add(value);
+    }
+  }
+
+  private void start(boolean object) {
+    if (depth == objects.length) {
+      int newLength = depth << 1;
+      boolean[] newObjects = new boolean[newLength];
+      System.arraycopy(objects, 0, newObjects, 0, depth);
+      objects = newObjects;
+      String[] newFieldNames = new String[newLength];
+      System.arraycopy(fieldNames, 0, newFieldNames, 0, depth);
+      fieldNames = newFieldNames;
+      Object[] newContainers = new Object[newLength];
+      System.arraycopy(containers, 0, newContainers, 0, depth);
+      containers = newContainers;
+    }
+    // Once inside a value being collected, everything below it is collected too
+    boolean collect = depth > 0 && containers[depth - 1] != null || valueDepth >= 0 && depth >= valueDepth;
+    if (collect) {
+      containers[depth] = object ? new LinkedHashMap<String, Object>() : new ArrayList<>();
+    } else {
+      containers[depth] = null;
+      emit(object ? JsonEvent.Type.START_OBJECT : JsonEvent.Type.START_ARRAY, currentFieldName(), null);
+    }
+    objects[depth] = object;
+    fieldNames[depth] = null;
+    depth++;
+    state = object ? FIELD_OR_END : VALUE_OR_END;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void end(boolean object) {
+    depth--;
+    Object container = containers[depth];
+    containers[depth] = null;
+    fieldNames[depth] = null;
+    if (container == null) {
+      emit(object ? JsonEvent.Type.END_OBJECT : JsonEvent.Type.END_ARRAY, currentFieldName(), null);
+    } else if (depth > 0 && containers[depth - 1] != null) {
+      addToParent(container);
+    } else {
+      Object value = object ? new JsonObject((Map<String, Object>) container) : new JsonArray((List<Object>) container);
+      emit(JsonEvent.Type.VALUE, currentFieldName(), value);
+    }
+    state = depth == 0 ? VALUE : COMMA_OR_END;
+  }
+
+  private void emit(JsonEvent.Type type, String fieldName, Object value) {
+    event.set(type, fieldName, value, depth);
+    output.handle(event);
+  }
+}
@@ -16,6 +16,7 @@
 
 package org.vertx.java.core.parsetools;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 
@@ -40,6 +41,8 @@ import org.vertx.java.core.buffer.Buffer;
  * individual records are read, this allows you to parse protocols where, for example, the first 5 records might
  * all be fixed size (of potentially different sizes), followed by some delimited records, followed by more fixed
  * size records</p>
+ * <p>Records are passed to the output without copying where possible, so they may share storage with the buffers
+ * given to {@link #handle}. Use {@link Buffer#copy} if a record must outlive changes to those buffers.</p>
  * <p>Instances of this class can't currently be used for protocols where the text is encoded with something other than
  * a 1-1 byte-char mapping. TODO extend this class to cope with arbitrary character encodings</p>
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -48,13 +51,15 @@ import org.vertx.java.core.buffer.Buffer;
 public class RecordParser implements Handler<Buffer> {
 
   private Buffer buff;
-  private int pos;            // Current position in buffer
+  private int pos;            // Position of the next byte to examine in buffer
   private int start;          // Position of beginning of current record
-  private int delimPos;       // Position of current match in delimeter array
+  private int delimPos;       // Number of bytes of the delimiter matched so far
   private boolean reset;      // Allows user to toggle mode / change delim when records are emitted
+  private boolean ownsBuff;   // Whether buff is the parser's own copy rather than a buffer passed to handle
 
   private boolean delimited;
   private byte[] delim;
+  private int[] fallback;     // For each partial match, the length of the partial match to fall back to on a mismatch
   private int recordSize;
   private Handler<Buffer> output;
 
@@ -129,12 +134,31 @@ public class RecordParser implements Handler<Buffer> {
    * This method can be called multiple times with different values of delim while data is being parsed.
    */
   public void delimitedMode(byte[] delim) {
+    if (delim.length == 0) throw new IllegalArgumentException("Delimiter must not be empty");
     delimited = true;
     this.delim = delim;
+    fallback = fallbackTable(delim);
     delimPos = 0;
     reset = true;
   }
 
+  // The Knuth-Morris-Pratt failure function: entry i is the length of the longest proper prefix of delim[0..i]
+  // which is also a suffix of it
+  private static int[] fallbackTable(byte[] delim) {
+    int[] table = new int[delim.length];
+    int len = 0;
+    for (int i = 1; i < delim.length; i++) {
+      while (len > 0 && delim[i] != delim[len]) {
+        len = table[len - 1];
+      }
+      if (delim[i] == delim[len]) {
+        len++;
+      }
+      table[i] = len;
+    }
+    return table;
+  }
+
   /**
    * Flip the parser into fixed size mode, where the record size is specified by {@code size} in bytes.<p>
    * This method can be called multiple times with different values of size while data is being parsed.
@@ -159,37 +183,92 @@ public class RecordParser implements Handler<Buffer> {
 
     if (start == len) {
       //Nothing left
+      releaseBuff();
       buff = null;
       pos = 0;
-    } else {
-      buff = buff.getBuffer(start, len);
-      pos = buff.length();
+    } else if (!ownsBuff || start != 0) {
+      // Keep the unparsed remainder in a buffer of our own, which can come from the pool since nobody else sees it.
+      // If no record was emitted our own buffer is kept as it is, so a long record isn't copied again for every chunk
+      Buffer rest = Buffer.createPooled(len - start);
+      rest.getChannelBuffer().writeBytes(buff.getChannelBuffer(), start, len - start);
+      releaseBuff();
+      buff = rest;
+      ownsBuff = true;
+      pos -= start;
     }
     start = 0;
   }
 
+  // Records are views onto the data rather than copies, except of our own pooled buffer since its storage is reused
+  private Buffer record(int from, int to) {
+    if (ownsBuff && buff.isPooled()) {
+      return buff.getBuffer(from, to);
+    } else {
+      return buff.slice(from, to);
+    }
+  }
+
+  private void releaseBuff() {
+    if (ownsBuff) {
+      buff.release();
+      ownsBuff = false;
+    }
+  }
+
+  // Knuth-Morris-Pratt matching, except that while nothing is matched it skips straight to the next occurrence of the
+  // first byte of the delimiter, which makes a single byte delimiter a simple scan
   private void parseDelimited() {
     int len = buff.length();
-    for (; pos < len && !reset; pos++) {
-      if (buff.getByte(pos) == delim[delimPos]) {
-        delimPos++;
-        if (delimPos == delim.length) {
-          Buffer ret = buff.getBuffer(start, pos - delim.length + 1);
-          start = pos + 1;
-          delimPos = 0;
-          output.handle(ret);
+    ChannelBuffer cb = buff.getChannelBuffer();
+    byte[] array = cb.hasArray() ? cb.array() : null;
+    int offset = array == null ? 0 : cb.arrayOffset();
+    while (pos < len && !reset) {
+      if (delimPos == 0) {
+        int i = indexOf(cb, array, offset, pos, len, delim[0]);
+        if (i == -1) {
+          pos = len;
+          break;
+        }
+        pos = i + 1;
+        delimPos = 1;
+      } else {
+        byte b = array == null ? cb.getByte(pos) : array[offset + pos];
+        pos++;
+        while (delimPos > 0 && b != delim[delimPos]) {
+          delimPos = fallback[delimPos - 1];
+        }
+        if (b == delim[delimPos]) {
+          delimPos++;
         }
       }
+      if (delimPos == delim.length) {
+        Buffer ret = record(start, pos - delim.length);
+        start = pos;
+        delimPos = 0;
+        output.handle(ret);
+      }
+    }
+  }
+
+  private static int indexOf(ChannelBuffer cb, byte[] array, int offset, int from, int to, byte b) {
+    if (array == null) {
+      return cb.indexOf(from, to, b);
+    }
+    for (int i = from + offset, end = to + offset; i < end; i++) {
+      if (array[i] == b) {
+        return i - offset;
+      }
     }
+    return -1;
   }
 
   private void parseFixed() {
     int len = buff.length();
     while (len - start >= recordSize && !reset) {
       int end = start + recordSize;
-      Buffer ret = buff.getBuffer(start, end);
+      Buffer ret = record(start, end);
       start = end;
-      pos = start - 1;
+      pos = start;
       output.handle(ret);
     }
   }
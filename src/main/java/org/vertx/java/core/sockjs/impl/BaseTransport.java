@@ -148,7 +148,7 @@ class BaseTransport {
         // the result is not negative
         json.putNumber("entropy", RAND_OFFSET + new Random().nextInt());
         setCORS(req);
-        req.response.end(json.encode());
+        req.response.end(json.encodeToBuffer());
       }
     };
   }
@@ -17,6 +17,8 @@
 package org.vertx.java.deploy;
 
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.impl.NamedWorkerPool;
+import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.deploy.impl.VerticleManager;
@@ -88,8 +90,22 @@ public class Container {
    * @return Unique deployment id
    */
   public String deployWorkerVerticle(String main, JsonObject config, int instances, Handler<Void> doneHandler) {
+    return deployWorkerVerticle(main, config, instances, null, doneHandler);
+  }
+
+  /**
+   * Deploy a worker verticle programmatically, running it on a named worker pool
+   * @param main The main of the verticle
+   * @param config JSON config to provide to the verticle
+   * @param instances The number of instances to deploy (defaults to 1)
+   * @param poolName The name of a pool previously declared with {@link #declareWorkerPool}
+   * @param doneHandler The handler will be called when deployment is complete
+   * @return Unique deployment id
+   */
+  public String deployWorkerVerticle(String main, JsonObject config, int instances, String poolName,
+                                     Handler<Void> doneHandler) {
     URL[] currURLs = VerticleManager.instance.getDeploymentURLs();
-    return VerticleManager.instance.deploy(true, null, main, config, currURLs, instances, doneHandler);
+    return VerticleManager.instance.deploy(true, null, main, config, currURLs, instances, poolName, doneHandler);
   }
 
   /**
@@ -141,8 +157,34 @@ public class Container {
    * @return Unique deployment id
    */
   public String deployVerticle(String main, JsonObject config, int instances, Handler<Void> doneHandler) {
+    return deployVerticle(main, config, instances, null, doneHandler);
+  }
+
+  /**
+   * Deploy a verticle programmatically, running its blocking actions on a named worker pool
+   * @param main The main of the verticle
+   * @param config JSON config to provide to the verticle
+   * @param instances The number of instances to deploy (defaults to 1)
+   * @param poolName The name of a pool previously declared with {@link #declareWorkerPool}
+   * @param doneHandler The handler will be called when deployment is complete
+   * @return Unique deployment id
+   */
+  public String deployVerticle(String main, JsonObject config, int instances, String poolName,
+                               Handler<Void> doneHandler) {
     URL[] currURLs = VerticleManager.instance.getDeploymentURLs();
-    return VerticleManager.instance.deploy(false, null, main, config, currURLs, instances, doneHandler);
+    return VerticleManager.instance.deploy(false, null, main, config, currURLs, instances, poolName, doneHandler);
+  }
+
+  /**
+   * Declare a named worker pool which deployments can run on, isolated from other blocking work.
+   * If a pool with the same name has already been declared then it is reused.
+   * When the pool is saturated further blocking actions will fail.
+   * @param name The name of the pool
+   * @param size The number of threads in the pool
+   * @param maxQueued The maximum number of tasks waiting for a thread, or -1 for no limit
+   */
+  public void declareWorkerPool(String name, int size, int maxQueued) {
+    VertxInternal.instance.declareWorkerPool(name, size, maxQueued, NamedWorkerPool.RejectionPolicy.FAIL);
   }
 
   /**
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.deploy.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the bytes of the classes read from a set of classpath URLs.
+ * <p>
+ * Every instance of a verticle gets its own classloader so that instances can't see each other's statics. Without
+ * the cache each of those classloaders would read and parse the same jars again. With it the bytes of each class are
+ * read once per URL set and each classloader only has to define the class.
+ * <p>
+ * A cache lives as long as the deployments using its URLs. It holds at most {@code maxBytes} of class bytes, classes
+ * beyond that are read by each classloader as before. {@link #validate()} drops the classes whose jar or class file
+ * has changed since they were read, and is called each time a deployment starts using the cache.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class ClassBytesCache {
+
+  public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+  private final URL[] urls;
+  private final long maxBytes;
+  private final AtomicLong cachedBytes = new AtomicLong();
+  private final AtomicLong reads = new AtomicLong();
+  private final ConcurrentMap<String, CachedClass> classes = new ConcurrentHashMap<>();
+  // Classes which aren't on the URLs and must be loaded by the parent
+  private final ConcurrentMap<String, Boolean> notFound = new ConcurrentHashMap<>();
+
+  public ClassBytesCache(URL[] urls) {
+    this(urls, DEFAULT_MAX_BYTES);
+  }
+
+  public ClassBytesCache(URL[] urls, long maxBytes) {
+    this.urls = urls;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Forget the classes whose source has been modified since they were read, and the classes which weren't found,
+   * so they are read again by the next classloader which needs them
+   */
+  public void validate() {
+    Map<File, Boolean> changed = new HashMap<>();
+    for (Map.Entry<String, CachedClass> entry: classes.entrySet()) {
+      CachedClass clazz = entry.getValue();
+      if (clazz.source != null) {
+        Boolean sourceChanged = changed.get(clazz.source);
+        if (sourceChanged == null) {
+          sourceChanged = clazz.source.lastModified() != clazz.lastModified || clazz.source.length() != clazz.length;
+          changed.put(clazz.source, sourceChanged);
+        }
+        if (sourceChanged && classes.remove(entry.getKey(), clazz)) {
+          cachedBytes.addAndGet(-clazz.bytes.length);
+        }
+      }
+    }
+    notFound.clear();
+  }
+
+  /**
+   * Get the bytes of a class, reading them with {@code loader} if they're not cached
+   * @return The class, or null if the class isn't on the URLs
+   */
+  CachedClass getClass(String name, ParentLastURLClassLoader loader) throws IOException {
+    CachedClass clazz = classes.get(name);
+    if (clazz == null) {
+      if (notFound.containsKey(name)) {
+        return null;
+      }
+      URL url = loader.findResource(name.replace('.', '/').concat(".class"));
+      if (url == null) {
+        notFound.put(name, Boolean.TRUE);
+        return null;
+      }
+      URL entry = getClasspathEntry(url);
+      File source = getSourceFile(url, entry);
+      long lastModified = source == null ? 0 : source.lastModified();
+      long length = source == null ? 0 : source.length();
+      reads.incrementAndGet();
+      clazz = new CachedClass(readBytes(url), new CodeSource(entry, (Certificate[])null), source, lastModified,
+                              length);
+      if (cachedBytes.addAndGet(clazz.bytes.length) > maxBytes) {
+        // Full - the caller still gets the bytes but the next classloader will have to read them again
+        cachedBytes.addAndGet(-clazz.bytes.length);
+        return clazz;
+      }
+      CachedClass prev = classes.putIfAbsent(name, clazz);
+      if (prev != null) {
+        cachedBytes.addAndGet(-clazz.bytes.length);
+        clazz = prev;
+      }
+    }
+    return clazz;
+  }
+
+  /**
+   * @return The number of classes in the cache
+   */
+  public int size() {
+    return classes.size();
+  }
+
+  /**
+   * @return The total size of the classes in the cache, in bytes
+   */
+  public long getCachedBytes() {
+    return cachedBytes.get();
+  }
+
+  /**
+   * @return The number of times the bytes of a class have been read from the URLs, cache misses in other words
+   */
+  public long getReadCount() {
+    return reads.get();
+  }
+
+  /*
+  The file whose modification time tells us if the class has changed, the jar for a class in a jar, otherwise the
+  class file itself
+   */
+  private static File getSourceFile(URL resource, URL entry) {
+    URL file = resource.getProtocol().equals("jar") ? entry : resource;
+    if (!file.getProtocol().equals("file")) {
+      return null;
+    }
+    try {
+      return new File(file.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private URL getClasspathEntry(URL resource) throws MalformedURLException {
+    String sres = resource.toString();
+    if (sres.startsWith("jar:")) {
+      int pos = sres.indexOf("!/");
+      if (pos != -1) {
+        return new URL(sres.substring(4, pos));
+      }
+    }
+    for (URL url: urls) {
+      if (sres.startsWith(url.toString())) {
+        return url;
+      }
+    }
+    return resource;
+  }
+
+  private static byte[] readBytes(URL url) throws IOException {
+    try (InputStream is = url.openStream()) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      byte[] buff = new byte[4096];
+      int read;
+      while ((read = is.read(buff)) != -1) {
+        baos.write(buff, 0, read);
+      }
+      return baos.toByteArray();
+    }
+  }
+
+  static class CachedClass {
+    final byte[] bytes;
+    final CodeSource codeSource;
+    final File source;
+    final long lastModified;
+    final long length;
+
+    CachedClass(byte[] bytes, CodeSource codeSource, File source, long lastModified, long length) {
+      this.bytes = bytes;
+      this.codeSource = codeSource;
+      this.source = source;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+  }
+}
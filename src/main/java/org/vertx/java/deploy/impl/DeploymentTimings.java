@@ -0,0 +1,101 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.deploy.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time spent in each phase of starting the instances of a deployment.
+ * <p>
+ * Instances start concurrently so the times are totals over all instances, the elapsed time is the wall clock time
+ * from the start of the deployment until the last instance has started.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class DeploymentTimings {
+
+  private final long deployStart = System.nanoTime();
+  private final AtomicLong setup = new AtomicLong();
+  private final AtomicLong creation = new AtomicLong();
+  private final AtomicLong starting = new AtomicLong();
+  private final AtomicInteger started = new AtomicInteger();
+  private volatile long elapsed = -1;
+
+  void addSetup(long nanos) {
+    setup.addAndGet(nanos);
+  }
+
+  void addCreation(long nanos) {
+    creation.addAndGet(nanos);
+  }
+
+  void addStart(long nanos) {
+    starting.addAndGet(nanos);
+  }
+
+  int instanceStarted() {
+    return started.incrementAndGet();
+  }
+
+  void deployed() {
+    elapsed = System.nanoTime() - deployStart;
+  }
+
+  /**
+   * @return Total time spent locating the main and creating classloaders, in milliseconds. Loading the classes
+   * themselves happens when the verticle is created so it is part of {@link #getCreationTime()}
+   */
+  public long getSetupTime() {
+    return TimeUnit.NANOSECONDS.toMillis(setup.get());
+  }
+
+  /**
+   * @return Total time spent loading or compiling the main and instantiating the verticles, in milliseconds
+   */
+  public long getCreationTime() {
+    return TimeUnit.NANOSECONDS.toMillis(creation.get());
+  }
+
+  /**
+   * @return Total time spent in the start method of the verticles, in milliseconds
+   */
+  public long getStartTime() {
+    return TimeUnit.NANOSECONDS.toMillis(starting.get());
+  }
+
+  /**
+   * @return The number of instances which have started
+   */
+  public int getStartedInstances() {
+    return started.get();
+  }
+
+  /**
+   * @return The time taken to start all instances, in milliseconds, or -1 if they haven't all started yet
+   */
+  public long getElapsedTime() {
+    long e = elapsed;
+    return e == -1 ? -1 : TimeUnit.NANOSECONDS.toMillis(e);
+  }
+
+  public String toString() {
+    return "instances: " + getStartedInstances() + " elapsed: " + getElapsedTime() + "ms setup: " +
+           getSetupTime() + "ms creation: " + getCreationTime() + "ms start: " + getStartTime() + "ms";
+  }
+}
@@ -24,9 +24,12 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Adapted from http://stackoverflow.com/questions/5445511/how-do-i-create-a-parent-last-child-first-classloader-in-java-or-how-to-overr
@@ -35,11 +38,25 @@ public class ParentLastURLClassLoader extends URLClassLoader {
 
   private ClassLoader system;
 
+  private final ClassBytesCache cache;
+
+  // Packages defined by this classloader, as opposed to getPackage() which also looks in the parents
+  private final Set<String> packages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   private static final Logger log = LoggerFactory.getLogger(ParentLastURLClassLoader.class);
 
   public ParentLastURLClassLoader(URL[] classpath, ClassLoader parent) {
+    this(classpath, parent, null);
+  }
+
+  /**
+   * @param cache If not null, class bytes are taken from the cache, which is shared with other classloaders for the
+   *              same URLs, instead of being read from the classpath by each classloader
+   */
+  public ParentLastURLClassLoader(URL[] classpath, ClassLoader parent, ClassBytesCache cache) {
     super(classpath, parent);
     system = getSystemClassLoader();
+    this.cache = cache;
   }
 
   @Override
@@ -68,6 +85,34 @@ public class ParentLastURLClassLoader extends URLClassLoader {
     return c;
   }
 
+  @Override
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    if (cache == null) {
+      return super.findClass(name);
+    }
+    ClassBytesCache.CachedClass clazz;
+    try {
+      clazz = cache.getClass(name, this);
+    } catch (IOException e) {
+      throw new ClassNotFoundException(name, e);
+    }
+    if (clazz == null) {
+      throw new ClassNotFoundException(name);
+    }
+    int pos = name.lastIndexOf('.');
+    if (pos != -1) {
+      String pkgName = name.substring(0, pos);
+      if (packages.add(pkgName)) {
+        try {
+          definePackage(pkgName, null, null, null, null, null, null, null);
+        } catch (IllegalArgumentException e) {
+          // Already defined by URLClassLoader.findClass - ignore
+        }
+      }
+    }
+    return defineClass(name, clazz.bytes, 0, clazz.bytes.length, clazz.codeSource);
+  }
+
   private boolean isSystemClass(String name) {
     return (name.startsWith("org.vertx.") || name.startsWith("java.") || name.startsWith("javax.") ||
            name.startsWith("com.sun."));
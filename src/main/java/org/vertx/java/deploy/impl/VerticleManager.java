@@ -20,6 +20,7 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.impl.Context;
 import org.vertx.java.core.impl.DeploymentHandle;
+import org.vertx.java.core.impl.NamedWorkerPool;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.logging.Logger;
@@ -30,8 +31,11 @@ import org.vertx.java.deploy.impl.java.JavaVerticleFactory;
 import org.vertx.java.deploy.impl.jruby.JRubyVerticleFactory;
 import org.vertx.java.deploy.impl.rhino.RhinoVerticleFactory;
 
+import java.io.IOException;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +55,9 @@ public class VerticleManager {
   // deployment name --> deployment
   private final Map<String, Deployment> deployments = new HashMap();
 
+  // classpath URLs --> class bytes cache shared by the deployments using those URLs
+  private final Map<String, CacheHolder> classCaches = new HashMap<>();
+
   private CountDownLatch stopLatch = new CountDownLatch(1);
 
   private VerticleManager() {
@@ -91,15 +98,36 @@ public class VerticleManager {
     return holder == null ? null : holder.logger;
   }
 
-  public synchronized String deploy(boolean worker, String name, final String main,
-                                    final JsonObject config, final URL[] urls,
-                                    int instances,
-                                    final Handler<Void> doneHandler)
+  public String deploy(boolean worker, String name, final String main,
+                       final JsonObject config, final URL[] urls,
+                       int instances,
+                       final Handler<Void> doneHandler)
   {
-    if (deployments.containsKey(name)) {
-      throw new IllegalStateException("There is already a deployment with name: " + name);
-    }
+    return deploy(worker, name, main, config, urls, instances, null, doneHandler);
+  }
+
+  public String deploy(boolean worker, String name, final String main,
+                       final JsonObject config, final URL[] urls,
+                       int instances, String poolName,
+                       final Handler<Void> doneHandler)
+  {
+    return deploy(worker, name, main, config, urls, instances, poolName, false, doneHandler);
+  }
 
+  /**
+   * Deploy a verticle whose worker contexts and blocking actions run on the named worker pool {@code poolName}.
+   * If {@code poolName} is null the pool of the parent deployment is used, if any, otherwise the shared background
+   * pool.
+   * <p>
+   * By default each instance gets its own classloader, so instances can't see each other's statics, but the class
+   * bytes are read once and shared by all deployments with the same URLs. If {@code sharedClassLoader} is true all
+   * instances of the deployment share one classloader instead, so each class is only defined once.
+   */
+  public String deploy(boolean worker, String name, final String main,
+                       final JsonObject config, final URL[] urls,
+                       int instances, String poolName, boolean sharedClassLoader,
+                       final Handler<Void> doneHandler)
+  {
     if (urls == null) {
       throw new IllegalStateException("urls cannot be null");
     }
@@ -115,6 +143,14 @@ public class VerticleManager {
       type = VerticleType.GROOVY;
     }
 
+    NamedWorkerPool pool = null;
+    if (poolName != null) {
+      pool = VertxInternal.instance.getNamedWorkerPool(poolName);
+      if (pool == null) {
+        throw new IllegalArgumentException("There is no worker pool with name: " + poolName);
+      }
+    }
+
     final String deploymentName = name == null ?  "deployment-" + UUID.randomUUID().toString() : name;
 
     log.debug("Deploying name : " + deploymentName  + " main: " + main +
@@ -138,6 +174,22 @@ public class VerticleManager {
           throw new IllegalArgumentException("Unsupported type: " + type);
       }
 
+    final DeploymentTimings timings = new DeploymentTimings();
+
+    // Locate the main once for the whole deployment, rather than having every instance fail separately if it's
+    // missing
+    long start = System.nanoTime();
+    String mainResource = type == VerticleType.JAVA ? main.replace('.', '/') + ".class" : main;
+    boolean mainExists = mainExists(urls, mainResource);
+    timings.addSetup(System.nanoTime() - start);
+    if (!mainExists) {
+      log.error("Failed to create verticle, cannot find main: " + main);
+      if (doneHandler != null) {
+        doneHandler.handle(null);
+      }
+      return deploymentName;
+    }
+
     final int instCount = instances;
 
     class AggHandler {
@@ -145,6 +197,8 @@ public class VerticleManager {
 
       void started() {
         if (count.incrementAndGet() == instCount) {
+          timings.deployed();
+          log.debug("Deployed name: " + deploymentName + " " + timings);
           if (doneHandler != null) {
             doneHandler.handle(null);
           }
@@ -154,14 +208,38 @@ public class VerticleManager {
 
     final AggHandler aggHandler = new AggHandler();
 
-    String parentDeploymentName = getDeploymentName();
-    final Deployment deployment = new Deployment(deploymentName, verticleFactory, config == null ? new JsonObject() : config.copy(), urls, parentDeploymentName);
-    deployments.put(deploymentName, deployment);
-    if (parentDeploymentName != null) {
-      Deployment parent = deployments.get(parentDeploymentName);
-      parent.childDeployments.add(deploymentName);
+    final Deployment deployment;
+    final ClassBytesCache cache;
+    synchronized (this) {
+      if (deployments.containsKey(deploymentName)) {
+        throw new IllegalStateException("There is already a deployment with name: " + deploymentName);
+      }
+      cache = acquireClassCache(urls);
+      String parentDeploymentName = getDeploymentName();
+      if (parentDeploymentName != null && pool == null) {
+        pool = deployments.get(parentDeploymentName).pool;
+      }
+      deployment = new Deployment(deploymentName, verticleFactory, config == null ? new JsonObject() : config.copy(),
+                                  urls, parentDeploymentName, pool, timings);
+      deployments.put(deploymentName, deployment);
+      if (parentDeploymentName != null) {
+        Deployment parent = deployments.get(parentDeploymentName);
+        parent.childDeployments.add(deploymentName);
+      }
     }
 
+    final ClassLoader sharedCL;
+    if (sharedClassLoader) {
+      start = System.nanoTime();
+      sharedCL = new ParentLastURLClassLoader(urls, getClass().getClassLoader(), cache);
+      timings.addSetup(System.nanoTime() - start);
+    } else {
+      sharedCL = null;
+    }
+
+    // Each instance is created and started on its own context. Event loop contexts are allocated round robin so
+    // the instances are created in parallel across the cores
+
     for (int i = 0; i < instances; i++) {
 
       // Launch the verticle instance
@@ -171,36 +249,65 @@ public class VerticleManager {
 
           Verticle verticle;
           try {
-            verticle = verticleFactory.createVerticle(main, new ParentLastURLClassLoader(urls, getClass()
-                .getClassLoader()));
+            long start = System.nanoTime();
+            ClassLoader cl = sharedCL != null ? sharedCL :
+                             new ParentLastURLClassLoader(urls, getClass().getClassLoader(), cache);
+            long setUp = System.nanoTime();
+            verticle = verticleFactory.createVerticle(main, cl);
+            timings.addSetup(setUp - start);
+            timings.addCreation(System.nanoTime() - setUp);
           } catch (Throwable t) {
             log.error("Failed to create verticle", t);
-            doUndeploy(deploymentName, doneHandler);
+            instanceFailed(deployment, doneHandler);
             return;
           }
 
           try {
             addVerticle(deployment, verticle);
+            long start = System.nanoTime();
             verticle.start();
+            timings.addStart(System.nanoTime() - start);
+            timings.instanceStarted();
           } catch (Throwable t) {
             VertxInternal.instance.reportException(t);
-            doUndeploy(deploymentName, doneHandler);
+            instanceFailed(deployment, doneHandler);
           }
           aggHandler.started();
         }
       };
 
+      Context context;
       if (worker) {
-        VertxInternal.instance.startInBackground(runner);
+        context = VertxInternal.instance.createWorkerContext(pool);
       } else {
-        VertxInternal.instance.startOnEventLoop(runner);
+        context = VertxInternal.instance.createEventLoopContext();
+        if (pool != null) {
+          context.setBackgroundPool(pool.getExecutor());
+        }
       }
+      context.execute(runner);
 
     }
 
     return deploymentName;
   }
 
+  /**
+   * @return How long each phase of starting the deployment took, or null if there is no such deployment
+   */
+  public synchronized DeploymentTimings getDeploymentTimings(String name) {
+    Deployment deployment = deployments.get(name);
+    return deployment == null ? null : deployment.timings;
+  }
+
+  /**
+   * @return The cache of class bytes shared by the deployments from {@code urls}, or null if there are none
+   */
+  public synchronized ClassBytesCache getClassCache(URL[] urls) {
+    CacheHolder holder = classCaches.get(Arrays.toString(urls));
+    return holder == null ? null : holder.cache;
+  }
+
   public synchronized void undeployAll(final Handler<Void> doneHandler) {
     if (deployments.isEmpty()) {
       doneHandler.handle(null);
@@ -248,6 +355,50 @@ public class VerticleManager {
     context.setDeploymentHandle(holder);
   }
 
+  // Called on the instance's context if it fails to deploy. Only the first failure undeploys the deployment
+  private synchronized void instanceFailed(Deployment deployment, Handler<Void> doneHandler) {
+    if (!deployment.failed) {
+      deployment.failed = true;
+      if (deployments.get(deployment.name) == deployment) {
+        doUndeploy(deployment.name, doneHandler);
+      }
+    }
+  }
+
+  private ClassBytesCache acquireClassCache(URL[] urls) {
+    String key = Arrays.toString(urls);
+    CacheHolder holder = classCaches.get(key);
+    if (holder == null) {
+      holder = new CacheHolder(new ClassBytesCache(urls));
+      classCaches.put(key, holder);
+    } else {
+      // A jar may have been replaced since the cache was filled, e.g. by a redeploy
+      holder.cache.validate();
+    }
+    holder.refs++;
+    return holder.cache;
+  }
+
+  private void releaseClassCache(URL[] urls) {
+    String key = Arrays.toString(urls);
+    CacheHolder holder = classCaches.get(key);
+    if (holder != null && --holder.refs == 0) {
+      classCaches.remove(key);
+    }
+  }
+
+  private boolean mainExists(URL[] urls, String mainResource) {
+    ClassLoader parent = getClass().getClassLoader();
+    if (parent.getResource(mainResource) != null) {
+      return true;
+    }
+    try (URLClassLoader finder = new URLClassLoader(urls, null)) {
+      return finder.findResource(mainResource) != null;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
   private VerticleHolder getVerticleHolder() {
     Context context = VertxInternal.instance.getContext();
     if (context != null) {
@@ -270,6 +421,7 @@ public class VerticleManager {
   private void doUndeploy(String name, final UndeployCount count) {
 
     final Deployment deployment = deployments.remove(name);
+    releaseClassCache(deployment.urls);
 
     // Depth first - undeploy children first
     for (String childDeployment: deployment.childDeployments) {
@@ -335,13 +487,28 @@ public class VerticleManager {
     final List<VerticleHolder> verticles = new ArrayList<>();
     final List<String> childDeployments = new ArrayList<>();
     final String parentDeploymentName;
+    final NamedWorkerPool pool;
+    final DeploymentTimings timings;
+    boolean failed;
 
-    private Deployment(String name, VerticleFactory factory, JsonObject config, URL[] urls, String parentDeploymentName) {
+    private Deployment(String name, VerticleFactory factory, JsonObject config, URL[] urls, String parentDeploymentName,
+                       NamedWorkerPool pool, DeploymentTimings timings) {
       this.name = name;
       this.factory = factory;
       this.config = config;
       this.urls = urls;
       this.parentDeploymentName = parentDeploymentName;
+      this.pool = pool;
+      this.timings = timings;
+    }
+  }
+
+  private static class CacheHolder {
+    final ClassBytesCache cache;
+    int refs;
+
+    private CacheHolder(ClassBytesCache cache) {
+      this.cache = cache;
     }
   }
 
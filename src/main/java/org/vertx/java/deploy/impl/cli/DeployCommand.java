@@ -16,6 +16,8 @@
 
 package org.vertx.java.deploy.impl.cli;
 
+import org.vertx.java.core.impl.NamedWorkerPool;
+import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.deploy.impl.VerticleManager;
 
@@ -32,14 +34,27 @@ public class DeployCommand extends VertxCommand {
   public String conf;
   public URL[] urls;
   public int instances;
+  public String poolName;
+  public int poolSize;
+  public int poolMaxQueued;
+  public boolean sharedClassLoader;
 
   public DeployCommand(boolean worker, String name, String main, String conf, URL[] urls, int instances) {
+    this(worker, name, main, conf, urls, instances, null, -1, -1, false);
+  }
+
+  public DeployCommand(boolean worker, String name, String main, String conf, URL[] urls, int instances,
+                       String poolName, int poolSize, int poolMaxQueued, boolean sharedClassLoader) {
     this.worker = worker;
     this.name = name;
     this.conf = conf;
     this.main = main;
     this.urls = urls;
     this.instances = instances;
+    this.poolName = poolName;
+    this.poolSize = poolSize;
+    this.poolMaxQueued = poolMaxQueued;
+    this.sharedClassLoader = sharedClassLoader;
   }
 
   public DeployCommand() {
@@ -52,7 +67,16 @@ public class DeployCommand extends VertxCommand {
     } else {
       jsonConf = null;
     }
-    String appName = appMgr.deploy(worker, name, main, jsonConf, urls, instances, null);
+    declarePool();
+    String appName = appMgr.deploy(worker, name, main, jsonConf, urls, instances, poolName, sharedClassLoader,
+                                   null);
     return "Deployment: " + appName;
   }
+
+  public void declarePool() {
+    if (poolName != null) {
+      VertxInternal.instance.declareWorkerPool(poolName, poolSize == -1 ? 1 : poolSize, poolMaxQueued,
+                                               NamedWorkerPool.RejectionPolicy.FAIL);
+    }
+  }
 }
@@ -125,7 +125,9 @@ public class VertxMgr {
         } else {
           jsonConf = null;
         }
-        mgr.deploy(dc.worker, dc.name, dc.main, jsonConf, dc.urls, dc.instances, null);
+        dc.declarePool();
+        mgr.deploy(dc.worker, dc.name, dc.main, jsonConf, dc.urls, dc.instances, dc.poolName,
+                   dc.sharedClassLoader, null);
         mgr.block();
       }
     }
@@ -161,6 +163,7 @@ public class VertxMgr {
             //OK - can get spurious interupts
           }
         }
+        VertxInternal.instance.closeWorkerPools();
       }
     });
 
@@ -236,7 +239,26 @@ public class VertxMgr {
       conf = null;
     }
 
-    return new DeployCommand(worker, name, main, conf, urls, instances);
+    String poolName = args.map.get("-pool");
+    int poolSize;
+    int poolMaxQueued;
+    try {
+      poolSize = args.getInt("-pool-size");
+      poolMaxQueued = args.getInt("-pool-max-queued");
+    } catch (IllegalArgumentException e) {
+      displaySyntax();
+      return null;
+    }
+    if (poolName != null && poolSize != -1 && poolSize < 1) {
+      System.err.println("Invalid pool size");
+      displaySyntax();
+      return null;
+    }
+
+    boolean sharedClassLoader = args.map.get("-shared-classloader") != null;
+
+    return new DeployCommand(worker, name, main, conf, urls, instances, poolName, poolSize, poolMaxQueued,
+                             sharedClassLoader);
   }
 
 
@@ -315,6 +337,15 @@ public class VertxMgr {
 "                               cores on the system.\n" +
 "        -worker                if specified then the verticle is a worker\n" +
 "                               verticle.\n" +
+"        -pool <name>           runs worker contexts and blocking actions of the\n" +
+"                               verticle on an isolated worker pool called\n" +
+"                               <name>.\n" +
+"        -pool-size <size>      number of threads in the pool. Default is 1.\n" +
+"        -pool-max-queued <n>   maximum number of tasks queued on the pool before\n" +
+"                               further tasks are rejected. Default is no limit.\n" +
+"        -shared-classloader    if specified then all instances share one\n" +
+"                               classloader, and so share statics. By default\n" +
+"                               each instance has its own classloader.\n" +
 "        -cluster               if specified then the vert.x instance will form a\n" +
 "                               cluster with any other vert.x instances on the\n" +
 "                               network.\n" +
@@ -341,6 +372,15 @@ public class VertxMgr {
 "                               be deployed. Default is 1.\n" +
 "        -worker                if specified then the verticle is a worker\n" +
 "                               verticle.\n" +
+"        -pool <name>           runs worker contexts and blocking actions of the\n" +
+"                               verticle on an isolated worker pool called\n" +
+"                               <name>.\n" +
+"        -pool-size <size>      number of threads in the pool. Default is 1.\n" +
+"        -pool-max-queued <n>   maximum number of tasks queued on the pool before\n" +
+"                               further tasks are rejected. Default is no limit.\n" +
+"        -shared-classloader    if specified then all instances share one\n" +
+"                               classloader, and so share statics. By default\n" +
+"                               each instance has its own classloader.\n" +
 "        -port                  if specified then use the specified port for\n" +
 "                               connecting to the server for deployment.\n" +
 "                               Default is 25571.\n\n\n" +
@@ -10,4 +10,4 @@ set VERTX_CP=%VERTX_HOME%\conf;
 for %%a in ("%VERTX_HOME%\lib\jars\*.jar") do set VERTX_CP=!VERTX_CP!%%a;
 for /d %%a in ("%VERTX_HOME%\lib\*") do set VERTX_CP=!VERTX_CP!%%a;
 
-java -Djava.util.logging.config.file=%VERTX_HOME%\conf\logging.properties -Djruby.home=%JRUBY_HOME% -cp %VERTX_CP% org.vertx.java.deploy.impl.cli.VertxMgr %*
+java %JAVA_OPTS% -Djava.util.logging.config.file=%VERTX_HOME%\conf\logging.properties -Djruby.home=%JRUBY_HOME% -cp %VERTX_CP% org.vertx.java.deploy.impl.cli.VertxMgr %*
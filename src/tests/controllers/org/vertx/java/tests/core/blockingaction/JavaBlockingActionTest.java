@@ -41,5 +41,41 @@ public class JavaBlockingActionTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testBlockingActionBatch() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testBlockingActionOnNamedPool() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testBlockingActionOnNamedPoolCallerRuns() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testWorkerContextOnSaturatedPool() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testCloseWorkerPools() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testVirtualWorkerThreads() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
+
 
 }
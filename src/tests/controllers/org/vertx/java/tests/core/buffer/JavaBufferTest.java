@@ -19,8 +19,11 @@ package org.vertx.java.tests.core.buffer;
 import junit.framework.TestCase;
 import org.junit.Test;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.buffer.impl.BufferPool;
 import org.vertx.java.framework.TestUtils;
 
+import java.nio.ByteBuffer;
+
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -622,4 +625,302 @@ public class JavaBufferTest extends TestCase {
 
   }
 
+  @Test
+  public void testPooledBuffer() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      Buffer buff = Buffer.createPooled(100);
+      assertTrue(buff.isPooled());
+      byte[] bytes = TestUtils.generateRandomByteArray(100);
+      buff.appendBytes(bytes);
+      assertTrue(TestUtils.byteArraysEqual(bytes, buff.getBytes()));
+      byte[] arr = buff.getChannelBuffer().array();
+      assertEquals(BufferPool.MIN_SIZE, arr.length);
+
+      // A copy is never pooled
+      Buffer copy = buff.copy();
+      assertFalse(copy.isPooled());
+      assertTrue(TestUtils.buffersEqual(buff, copy));
+
+      buff.release();
+      try {
+        buff.release();
+        fail("Should throw exception");
+      } catch (IllegalStateException e) {
+        //OK
+      }
+
+      // The released storage is handed out again to the same thread
+      Buffer buff2 = Buffer.createPooled(BufferPool.MIN_SIZE);
+      assertSame(arr, buff2.getChannelBuffer().array());
+      assertEquals(0, buff2.length());
+      buff2.release();
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testPooledBufferExpands() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      Buffer buff = Buffer.createPooled(10);
+      byte[] first = buff.getChannelBuffer().array();
+      byte[] bytes = TestUtils.generateRandomByteArray(10000);
+      buff.appendBytes(bytes);
+      assertTrue(TestUtils.byteArraysEqual(bytes, buff.getBytes()));
+      assertEquals(BufferPool.sizeClass(10000), buff.getChannelBuffer().array().length);
+      // The array it outgrew goes back to the pool with the buffer
+      buff.release();
+      assertSame(first, BufferPool.allocate(10));
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testDirectBufferExpandsWithViewInUse() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      Buffer buff = Buffer.createDirect(3000);
+      byte[] bytes = TestUtils.generateRandomByteArray(3000);
+      buff.appendBytes(bytes);
+      // E.g. a file write which is still pending
+      ByteBuffer view = buff.getChannelBuffer().toByteBuffer(0, 3000);
+
+      buff.appendBytes(TestUtils.generateRandomByteArray(10000));
+      // Storage of the size the buffer outgrew must not be the storage behind the view
+      ByteBuffer other = BufferPool.allocateDirect(3000);
+      while (other.hasRemaining()) {
+        other.put((byte) 0);
+      }
+
+      byte[] viewed = new byte[3000];
+      view.get(viewed);
+      assertTrue(TestUtils.byteArraysEqual(bytes, viewed));
+      BufferPool.releaseDirect(other);
+      buff.release();
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testPooledBufferDisabled() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(false);
+    try {
+      Buffer buff = Buffer.createPooled(100);
+      assertFalse(buff.isPooled());
+      buff.appendInt(1);
+      buff.release();
+      buff.release();
+      assertEquals(1, buff.getInt(0));
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testPooledBufferLeakDetection() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    boolean leakDetection = BufferPool.isLeakDetection();
+    BufferPool.setEnabled(true);
+    BufferPool.setLeakDetection(true);
+    try {
+      BufferPool.detectLeaks();
+      Buffer released = Buffer.createPooled(100);
+      released.release();
+      long before = BufferPool.getLeakCount();
+      Buffer.createPooled(100).appendInt(1);
+      for (int i = 0; i < 100 && BufferPool.getLeakCount() == before; i++) {
+        System.gc();
+        Thread.sleep(10);
+        BufferPool.detectLeaks();
+      }
+      assertEquals(before + 1, BufferPool.getLeakCount());
+    } finally {
+      BufferPool.setEnabled(enabled);
+      BufferPool.setLeakDetection(leakDetection);
+    }
+  }
+
+  @Test
+  public void testSlice() throws Exception {
+    Buffer buff = new Buffer(TestUtils.generateRandomByteArray(100));
+    Buffer slice = buff.slice(10, 20);
+    assertEquals(10, slice.length());
+    assertTrue(TestUtils.byteArraysEqual(buff.getBytes(10, 20), slice.getBytes()));
+
+    // The slice shares storage with the buffer
+    slice.setByte(0, (byte) 123);
+    assertEquals((byte) 123, buff.getByte(10));
+    buff.setByte(19, (byte) 45);
+    assertEquals((byte) 45, slice.getByte(9));
+
+    // Until it has to grow
+    slice.appendByte((byte) 1);
+    assertEquals(11, slice.length());
+    assertEquals((byte) 1, slice.getByte(10));
+    slice.setByte(0, (byte) 67);
+    assertEquals((byte) 123, buff.getByte(10));
+    assertEquals(100, buff.length());
+
+    Buffer whole = buff.slice();
+    assertTrue(TestUtils.buffersEqual(buff, whole));
+    assertEquals(0, buff.slice(50, 50).length());
+
+    try {
+      buff.slice(90, 101);
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      //OK
+    }
+    try {
+      buff.slice(20, 10);
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      //OK
+    }
+  }
+
+  @Test
+  public void testComposite() throws Exception {
+    Buffer b1 = new Buffer(TestUtils.generateRandomByteArray(100));
+    Buffer b2 = new Buffer(TestUtils.generateRandomByteArray(50));
+    Buffer b3 = new Buffer();
+    Buffer comp = Buffer.createComposite(b1, b2, b3);
+    assertEquals(150, comp.length());
+    Buffer expected = new Buffer().appendBuffer(b1).appendBuffer(b2);
+    assertTrue(TestUtils.buffersEqual(expected, comp));
+    assertEquals(b2.getInt(0), comp.getInt(100));
+
+    b2.setByte(0, (byte) 12);
+    assertEquals((byte) 12, comp.getByte(100));
+
+    comp.appendInt(1234);
+    assertEquals(154, comp.length());
+    assertEquals(1234, comp.getInt(150));
+    assertEquals(100, b1.length());
+
+    Buffer other = new Buffer();
+    other.appendBuffer(comp);
+    assertTrue(TestUtils.buffersEqual(comp, other));
+  }
+
+  @Test
+  public void testDirectBuffer() throws Exception {
+    Buffer buff = Buffer.createDirect(100);
+    assertTrue(buff.isDirect());
+    assertTrue(buff.isPooled());
+    byte[] bytes = TestUtils.generateRandomByteArray(10000);
+    buff.appendBytes(bytes);
+    buff.appendString("foo");
+    assertEquals(10003, buff.length());
+    assertTrue(TestUtils.byteArraysEqual(bytes, buff.getBytes(0, 10000)));
+    assertEquals("foo", buff.getString(10000, 10003));
+    assertTrue(buff.isDirect());
+
+    Buffer copy = buff.copy();
+    assertFalse(copy.isPooled());
+    assertTrue(TestUtils.buffersEqual(buff, copy));
+
+    buff.release();
+    try {
+      buff.release();
+      fail("Should throw exception");
+    } catch (IllegalStateException e) {
+      //OK
+    }
+    assertFalse(new Buffer().isDirect());
+  }
+
+  @Test
+  public void testPooledDirectBuffer() throws Exception {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      int cached = BufferPool.getCachedDirectCount();
+      Buffer buff = Buffer.createDirect(100);
+      buff.appendInt(123);
+      buff.release();
+      assertEquals(cached + 1, BufferPool.getCachedDirectCount());
+      Buffer buff2 = Buffer.createDirect(200);
+      assertEquals(cached, BufferPool.getCachedDirectCount());
+      assertEquals(0, buff2.length());
+      buff2.appendInt(456);
+      assertEquals(456, buff2.getInt(0));
+      buff2.release();
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testStringEncodings() throws Exception {
+    String[] strs = new String[] {
+        "", "hello", TestUtils.randomAlphaString(1000), TestUtils.randomUnicodeString(1000),
+        "ab\u00e9\u07ff\u0800\uffe8", "pair \ud83d\ude00 end", "lone \ud83d end", "lone \ude00", "end \ud83d"
+    };
+    String[] encs = new String[] {"UTF-8", "US-ASCII", "ISO-8859-1", "UTF-16"};
+    for (String str: strs) {
+      for (String enc: encs) {
+        byte[] expected = str.getBytes(enc);
+
+        Buffer buff = new Buffer(str, enc);
+        assertTrue(TestUtils.byteArraysEqual(expected, buff.getBytes()));
+        assertEquals(new String(expected, enc), buff.toString(enc));
+
+        buff = new Buffer().appendString("x").appendString(str, enc);
+        assertTrue(TestUtils.byteArraysEqual(expected, buff.getBytes(1, buff.length())));
+        assertEquals(new String(expected, enc), buff.getString(1, buff.length(), enc));
+
+        buff = new Buffer().setString(3, str, enc);
+        assertTrue(TestUtils.byteArraysEqual(expected, buff.getBytes(3, buff.length())));
+
+        buff = Buffer.createDirect(10).appendString(str, enc);
+        assertTrue(TestUtils.byteArraysEqual(expected, buff.getBytes()));
+        assertEquals(new String(expected, enc), buff.toString(enc));
+        buff.release();
+      }
+      byte[] utf8 = str.getBytes("UTF-8");
+      assertEquals(new String(utf8, "UTF-8"), new Buffer(str).toString());
+      Buffer slice = new Buffer("abc" + str).slice(3, utf8.length + 3);
+      assertEquals(new String(utf8, "UTF-8"), slice.toString());
+      assertEquals(new String(utf8, "UTF-8"), slice.getString(0, slice.length()));
+    }
+  }
+
+  public void testGetStringOutOfRange() throws Exception {
+    Buffer slice = new Buffer("hello world").slice(0, 5);
+    assertEquals("hello", slice.getString(0, 5));
+    try {
+      slice.getString(0, 12);
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      // OK
+    }
+    try {
+      slice.getString(0, 6, "UTF-8");
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      // OK
+    }
+    try {
+      slice.getString(-1, 2);
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      // OK
+    }
+    try {
+      slice.getString(3, 2);
+      fail("Should throw exception");
+    } catch (IndexOutOfBoundsException e) {
+      // OK
+    }
+  }
+
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.tests.core.deploy;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.vertx.java.deploy.impl.ClassBytesCache;
+import org.vertx.java.deploy.impl.ParentLastURLClassLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Loads a class from a jar through several classloaders sharing a {@link ClassBytesCache}.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JavaClassBytesCacheTest extends TestCase {
+
+  private static final String CLASS_NAME = "vertx.tests.core.deploy.SlowStartVerticle";
+
+  private File jar;
+  private URL[] urls;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    jar = File.createTempFile("class-bytes-cache", ".jar");
+    writeJar(jar, false);
+    urls = new URL[] { jar.toURI().toURL() };
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    jar.delete();
+    super.tearDown();
+  }
+
+  @Test
+  public void testCacheHit() throws Exception {
+    ClassBytesCache cache = new ClassBytesCache(urls);
+    Class<?> first = loadClass(cache);
+    Class<?> second = loadClass(cache);
+    // Each classloader still defines its own class, but the bytes are only read once
+    assertNotSame(first, second);
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getReadCount());
+    assertTrue(cache.getCachedBytes() > 0);
+  }
+
+  @Test
+  public void testValidateUnchanged() throws Exception {
+    ClassBytesCache cache = new ClassBytesCache(urls);
+    loadClass(cache);
+    cache.validate();
+    loadClass(cache);
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.getReadCount());
+  }
+
+  @Test
+  public void testInvalidateAfterJarChanged() throws Exception {
+    ClassBytesCache cache = new ClassBytesCache(urls);
+    loadClass(cache);
+    long cachedBytes = cache.getCachedBytes();
+
+    writeJar(jar, true);
+    assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+    cache.validate();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getCachedBytes());
+
+    loadClass(cache);
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getReadCount());
+    assertEquals(cachedBytes, cache.getCachedBytes());
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    ClassBytesCache cache = new ClassBytesCache(urls, 1);
+    loadClass(cache);
+    loadClass(cache);
+    // Too big to cache, so every classloader reads it
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getCachedBytes());
+    assertEquals(2, cache.getReadCount());
+  }
+
+  private Class<?> loadClass(ClassBytesCache cache) throws Exception {
+    ParentLastURLClassLoader loader = new ParentLastURLClassLoader(urls, getClass().getClassLoader(), cache);
+    Class<?> clazz = loader.loadClass(CLASS_NAME);
+    assertSame(loader, clazz.getClassLoader());
+    assertEquals("vertx.tests.core.deploy", clazz.getPackage().getName());
+    return clazz;
+  }
+
+  private void writeJar(File file, boolean extraEntry) throws IOException {
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+      String resource = CLASS_NAME.replace('.', '/') + ".class";
+      out.putNextEntry(new JarEntry(resource));
+      out.write(readResource(resource));
+      out.closeEntry();
+      if (extraEntry) {
+        out.putNextEntry(new JarEntry("extra.txt"));
+        out.write("changed".getBytes("UTF-8"));
+        out.closeEntry();
+      }
+    }
+  }
+
+  private byte[] readResource(String resource) throws IOException {
+    try (InputStream is = getClass().getClassLoader().getResourceAsStream(resource)) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      byte[] buff = new byte[4096];
+      int read;
+      while ((read = is.read(buff)) != -1) {
+        baos.write(buff, 0, read);
+      }
+      return baos.toByteArray();
+    }
+  }
+}
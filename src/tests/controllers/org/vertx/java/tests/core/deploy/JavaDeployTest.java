@@ -46,4 +46,24 @@ public class JavaDeployTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testDeploymentTimings() throws Exception {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testDeployOnNamedPool() throws Exception {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testDeployOnUndeclaredPool() throws Exception {
+    startTest(getMethodName());
+  }
+
+  @Test
+  public void testRedeployReusesClassCache() throws Exception {
+    startTest(getMethodName());
+  }
+
 }
@@ -219,6 +219,10 @@ public class JavaFileSystemTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testPropsMultiple() throws Exception {
+    startTest(getMethodName());
+  }
+
   public void testLink() throws Exception {
     startTest(getMethodName());
   }
@@ -311,6 +315,10 @@ public class JavaFileSystemTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testPumpFileStreamsDirect() throws Exception {
+    startTest(getMethodName());
+  }
+
   public void testCreateFileWithPerms() throws Exception {
     startTest(getMethodName());
   }
@@ -331,6 +339,10 @@ public class JavaFileSystemTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testExistsMultiple() throws Exception {
+    startTest(getMethodName());
+  }
+
   public void testFSProps() throws Exception {
     startTest(getMethodName());
   }
@@ -231,6 +231,78 @@ public class JavaHttpTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testResponseHeaderBlock() {
+    startTest(getMethodName());
+  }
+
+  public void testHeaderBlockRefusesFramingHeaders() {
+    startTest(getMethodName());
+  }
+
+  public void testCompressionFixedLength() {
+    startTest(getMethodName());
+  }
+
+  public void testCompressionChunked() {
+    startTest(getMethodName());
+  }
+
+  public void testCompressionInBackground() {
+    startTest(getMethodName());
+  }
+
+  public void testCompressionSkipped() {
+    startTest(getMethodName());
+  }
+
+  public void testShedInFlight() {
+    startTest(getMethodName());
+  }
+
+  public void testShedInFlightUntilWritten() {
+    startTest(getMethodName());
+  }
+
+  public void testShedConnections() {
+    startTest(getMethodName());
+  }
+
+  public void testShedLatency() {
+    startTest(getMethodName());
+  }
+
+  public void testIdleReadTimeout() {
+    startTest(getMethodName());
+  }
+
+  public void testServerMaxRequestsPerConnection() {
+    startTest(getMethodName());
+  }
+
+  public void testClientMaxRequestsPerConnection() {
+    startTest(getMethodName());
+  }
+
+  public void testMultipartUpload() {
+    startTest(getMethodName());
+  }
+
+  public void testMultipartUploadReplacesFile() {
+    startTest(getMethodName());
+  }
+
+  public void testMultipartMalformed() {
+    startTest(getMethodName());
+  }
+
+  public void testPartHandlerNotMultipart() {
+    startTest(getMethodName());
+  }
+
+  public void testResponseDateHeader() {
+    startTest(getMethodName());
+  }
+
   public void testUseRequestAfterComplete() {
     startTest(getMethodName());
   }
@@ -443,10 +515,22 @@ public class JavaHttpTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testPipeliningConcurrent() {
+    startTest(getMethodName());
+  }
+
+  public void testPipeliningBufferFull() {
+    startTest(getMethodName());
+  }
+
   public void testSendFile() {
     startTest(getMethodName());
   }
 
+  public void testSendFileSSL() {
+    startTest(getMethodName());
+  }
+
   public void test100ContinueDefault() {
     startTest(getMethodName());
   }
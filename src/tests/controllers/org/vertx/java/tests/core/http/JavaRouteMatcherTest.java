@@ -141,4 +141,8 @@ public class JavaRouteMatcherTest extends TestBase {
   public void testRouteNoMatchHandlerRegex() {
     startTest(getMethodName());
   }
+
+  public void testRouteFirstMatchWins() {
+    startTest(getMethodName());
+  }
 }
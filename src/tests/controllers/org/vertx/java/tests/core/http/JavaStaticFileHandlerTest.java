@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.vertx.java.tests.core.http;
+
+import org.vertx.java.framework.TestBase;
+import vertx.tests.core.http.StaticFileHandlerTestClient;
+
+/**
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JavaStaticFileHandlerTest extends TestBase {
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    startApp(StaticFileHandlerTestClient.class.getName());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+  }
+
+  public void testServeFile() {
+    startTest(getMethodName());
+  }
+
+  public void testServeStreamedFile() {
+    startTest(getMethodName());
+  }
+
+  public void testStreamedFileTruncated() {
+    startTest(getMethodName());
+  }
+
+  public void testStreamedFileReplaced() {
+    startTest(getMethodName());
+  }
+
+  public void testStreamedFileCloseHandler() {
+    startTest(getMethodName());
+  }
+
+  public void testIndexPage() {
+    startTest(getMethodName());
+  }
+
+  public void testNotFound() {
+    startTest(getMethodName());
+  }
+
+  public void testMethodNotAllowed() {
+    startTest(getMethodName());
+  }
+
+  public void testHead() {
+    startTest(getMethodName());
+  }
+
+  public void testIfNoneMatch() {
+    startTest(getMethodName());
+  }
+
+  public void testIfModifiedSince() {
+    startTest(getMethodName());
+  }
+
+  public void testRange() {
+    startTest(getMethodName());
+  }
+
+  public void testFileChanged() {
+    startTest(getMethodName());
+  }
+
+  public void testCompressedVariant() {
+    startTest(getMethodName());
+  }
+
+  public void testServerCompressedETag() {
+    startTest(getMethodName());
+  }
+
+  public void testGzipSibling() {
+    startTest(getMethodName());
+  }
+}
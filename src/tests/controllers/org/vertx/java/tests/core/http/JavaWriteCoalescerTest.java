@@ -0,0 +1,257 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.tests.core.http;
+
+import junit.framework.TestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.AbstractChannel;
+import org.jboss.netty.channel.AbstractChannelSink;
+import org.jboss.netty.channel.ChannelConfig;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelState;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultChannelConfig;
+import org.jboss.netty.channel.FileRegion;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.util.CharsetUtil;
+import org.junit.Test;
+import org.vertx.java.core.http.impl.WriteCoalescer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives a {@link WriteCoalescer} through a pipeline whose sink records what reaches the socket, and lets the test
+ * complete the futures of those writes.
+ *
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JavaWriteCoalescerTest extends TestCase {
+
+  private static final Object CLOSE = new Object();
+
+  private final List<Object> sunk = new ArrayList<>();
+  private final List<ChannelFuture> sunkFutures = new ArrayList<>();
+  private Runnable onRead;
+  private TestChannel channel;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    ChannelPipeline pipeline = Channels.pipeline();
+    pipeline.addLast("coalescer", new WriteCoalescer());
+    pipeline.addLast("handler", new SimpleChannelUpstreamHandler() {
+      public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+        onRead.run();
+      }
+    });
+    channel = new TestChannel(pipeline, new AbstractChannelSink() {
+      public void eventSunk(ChannelPipeline pipeline, ChannelEvent e) {
+        if (e instanceof MessageEvent) {
+          sunk.add(((MessageEvent) e).getMessage());
+          sunkFutures.add(e.getFuture());
+        } else if (e instanceof ChannelStateEvent && ((ChannelStateEvent) e).getState() == ChannelState.OPEN) {
+          sunk.add(CLOSE);
+          e.getFuture().setSuccess();
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testPipelinedResponsesInOneRead() {
+    final List<ChannelFuture> futures = new ArrayList<>();
+    read(new Runnable() {
+      public void run() {
+        for (String response: new String[] {"head1", "body1", "head2", "body2", "head3"}) {
+          futures.add(Channels.write(channel, buffer(response)));
+        }
+        // Nothing is written until the read has been handled
+        assertTrue(sunk.isEmpty());
+      }
+    });
+    assertEquals(1, sunk.size());
+    assertEquals("head1body1head2body2head3", string(sunk.get(0)));
+    for (ChannelFuture future: futures) {
+      assertFalse(future.isDone());
+    }
+    sunkFutures.get(0).setSuccess();
+    for (ChannelFuture future: futures) {
+      assertTrue(future.isSuccess());
+    }
+
+    // Writes outside of a read go straight through, with their own future
+    ChannelFuture future = Channels.write(channel, buffer("later"));
+    assertEquals(2, sunk.size());
+    assertEquals("later", string(sunk.get(1)));
+    assertSame(future, sunkFutures.get(1));
+  }
+
+  @Test
+  public void testSingleWriteKeepsItsFuture() {
+    final ChannelFuture[] future = new ChannelFuture[1];
+    read(new Runnable() {
+      public void run() {
+        future[0] = Channels.write(channel, buffer("only"));
+      }
+    });
+    assertEquals(1, sunk.size());
+    assertSame(future[0], sunkFutures.get(0));
+  }
+
+  @Test
+  public void testFileRegionAfterBufferedBytes() {
+    final FileRegion region = new TestFileRegion();
+    read(new Runnable() {
+      public void run() {
+        Channels.write(channel, buffer("head"));
+        Channels.write(channel, region);
+        // The head must go out before the file
+        assertEquals(2, sunk.size());
+        Channels.write(channel, buffer("tail"));
+      }
+    });
+    assertEquals(3, sunk.size());
+    assertEquals("head", string(sunk.get(0)));
+    assertSame(region, sunk.get(1));
+    assertEquals("tail", string(sunk.get(2)));
+  }
+
+  @Test
+  public void testMaxPendingInOneRead() {
+    final int size = 40 * 1024;
+    read(new Runnable() {
+      public void run() {
+        Channels.write(channel, ChannelBuffers.wrappedBuffer(new byte[size]));
+        assertTrue(sunk.isEmpty());
+        // Over 64K is held now, so it is written without waiting for the end of the read
+        Channels.write(channel, ChannelBuffers.wrappedBuffer(new byte[size]));
+        assertEquals(1, sunk.size());
+        Channels.write(channel, buffer("rest"));
+        assertEquals(1, sunk.size());
+      }
+    });
+    assertEquals(2, sunk.size());
+    assertEquals(2 * size, ((ChannelBuffer) sunk.get(0)).readableBytes());
+    assertEquals("rest", string(sunk.get(1)));
+  }
+
+  @Test
+  public void testCloseInRead() {
+    read(new Runnable() {
+      public void run() {
+        Channels.write(channel, buffer("head"));
+        Channels.write(channel, buffer("body"));
+        Channels.close(channel);
+      }
+    });
+    // What was written before the close is not lost or reordered
+    assertEquals(2, sunk.size());
+    assertEquals("headbody", string(sunk.get(0)));
+    assertSame(CLOSE, sunk.get(1));
+  }
+
+  @Test
+  public void testWriteFailurePropagated() {
+    final List<ChannelFuture> futures = new ArrayList<>();
+    read(new Runnable() {
+      public void run() {
+        for (int i = 0; i < 3; i++) {
+          futures.add(Channels.write(channel, buffer("response" + i)));
+        }
+      }
+    });
+    assertEquals(1, sunk.size());
+    IOException cause = new IOException("Connection reset");
+    sunkFutures.get(0).setFailure(cause);
+    for (ChannelFuture future: futures) {
+      assertTrue(future.isDone());
+      assertFalse(future.isSuccess());
+      assertSame(cause, future.getCause());
+    }
+  }
+
+  private void read(Runnable whileReading) {
+    onRead = whileReading;
+    Channels.fireMessageReceived(channel, buffer("request"));
+  }
+
+  private static ChannelBuffer buffer(String str) {
+    return ChannelBuffers.copiedBuffer(str, CharsetUtil.UTF_8);
+  }
+
+  private static String string(Object buff) {
+    return ((ChannelBuffer) buff).toString(CharsetUtil.UTF_8);
+  }
+
+  private static class TestChannel extends AbstractChannel {
+
+    private final ChannelConfig config = new DefaultChannelConfig();
+
+    TestChannel(ChannelPipeline pipeline, AbstractChannelSink sink) {
+      super(null, null, pipeline, sink);
+    }
+
+    public ChannelConfig getConfig() {
+      return config;
+    }
+
+    public boolean isBound() {
+      return true;
+    }
+
+    public boolean isConnected() {
+      return true;
+    }
+
+    public SocketAddress getLocalAddress() {
+      return new InetSocketAddress(0);
+    }
+
+    public SocketAddress getRemoteAddress() {
+      return new InetSocketAddress(0);
+    }
+  }
+
+  private static class TestFileRegion implements FileRegion {
+
+    public long getPosition() {
+      return 0;
+    }
+
+    public long getCount() {
+      return 0;
+    }
+
+    public long transferTo(WritableByteChannel target, long position) {
+      return 0;
+    }
+
+    public void releaseExternalResources() {
+    }
+  }
+}
@@ -48,5 +48,10 @@ public class JavaIsolationTest extends TestBase {
     }
   }
 
+  @Test
+  public void testSharedClassLoader() throws Exception {
+    startApp(TestClient.class.getName());
+    startTest(getMethodName());
+  }
 
 }
@@ -17,11 +17,17 @@
 package org.vertx.java.tests.core.json;
 
 import org.junit.Test;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.framework.TestBase;
 
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  *
  * TODO complete testing!!
@@ -50,4 +56,271 @@ public class JavaJsonTest extends TestBase {
     assertEquals("bar", obj2.getString("foo"));
   }
 
+  @Test
+  public void testLazyJsonObject() throws Exception {
+    // Unusual spacing shows whether the original bytes were used to encode
+    String str = "{ \"foo\" : \"bar\", \"num\":123, \"big\":12345678901, \"dbl\":1.5, \"b\":true, " +
+        "\"n\":null, \"esc\\\"aped\":\"a\\nb\", \"obj\":{\"x\": [1, {\"y\":\"}\"}]}, \"arr\":[1,2] }";
+    JsonObject obj = new JsonObject(str.getBytes("UTF-8"));
+    assertEquals(9, obj.size());
+    assertEquals("bar", obj.getString("foo"));
+    assertEquals(123, obj.getNumber("num"));
+    assertEquals(12345678901L, obj.getNumber("big"));
+    assertEquals(1.5, obj.getNumber("dbl"));
+    assertEquals(Boolean.TRUE, obj.getBoolean("b"));
+    assertNull(obj.getField("n"));
+    assertNull(obj.getField("missing"));
+    assertEquals("a\nb", obj.getString("esc\"aped"));
+    assertEquals(str, obj.encode());
+    assertEquals(str, new String(obj.encodeToBytes(), "UTF-8"));
+    assertEquals(str, obj.copy().encode());
+    Iterator iter = obj.getObject("obj").getArray("x").iterator();
+    assertEquals(1, iter.next());
+    assertEquals("}", ((JsonObject) iter.next()).getString("y"));
+    assertEquals(new JsonObject(str), obj);
+
+    // Modifying the object means it must be encoded again
+    obj.putString("foo", "wibble");
+    assertEquals("wibble", obj.getString("foo"));
+    assertEquals(123, obj.getNumber("num"));
+    JsonObject decoded = new JsonObject(obj.encode());
+    assertEquals("wibble", decoded.getString("foo"));
+    assertEquals("a\nb", decoded.getString("esc\"aped"));
+    assertEquals(new JsonObject(str).putString("foo", "wibble"), decoded);
+  }
+
+  @Test
+  public void testLazyJsonObjectChildren() throws Exception {
+    String str = "{\"obj\":{\"a\":1, \"child\":{\"b\":2}},  \"arr\":[1]}";
+
+    // Changes to child objects are seen by the parent
+    JsonObject obj = new JsonObject(str.getBytes("UTF-8"));
+    obj.getObject("obj").getObject("child").putNumber("b", 3);
+    assertEquals(3, new JsonObject(obj.encode()).getObject("obj").getObject("child").getNumber("b"));
+    obj.getObject("obj").putString("c", "d");
+    assertEquals("d", new JsonObject(obj.encode()).getObject("obj").getString("c"));
+    assertEquals(3, obj.getObject("obj").getObject("child").getNumber("b"));
+
+    // Reading a child object doesn't stop the original bytes being used
+    obj = new JsonObject(str.getBytes("UTF-8"));
+    assertEquals(2, obj.getObject("obj").getObject("child").getNumber("b"));
+    assertEquals(str, obj.encode());
+
+    // Arrays could be changed by the caller, so aren't trusted
+    obj = new JsonObject(str.getBytes("UTF-8"));
+    obj.getArray("arr").addNumber(2);
+    assertEquals(2, new JsonObject(obj.encode()).getArray("arr").size());
+
+    // A copy isn't affected by changes to the original
+    obj = new JsonObject(str.getBytes("UTF-8"));
+    JsonObject copy = obj.copy();
+    obj.getObject("obj").putString("a", "changed");
+    assertEquals(1, copy.getObject("obj").getNumber("a"));
+    assertEquals(str, copy.encode());
+  }
+
+  @Test
+  public void testLazyJsonObjectInvalid() throws Exception {
+    // Rejected straight away, even where the bad part is in a field which is never read
+    String[] invalid = {"", "[1]", "{\"a\" 1}", "{\"a\":1", "{\"a\":1} x", "{\"a\":}", "{\"a\":01}",
+        "{\"a\":1.}", "{\"a\":-}", "{\"a\":1e}", "{\"a\":\"\\x\"}", "{\"a\":\"\\u12g4\"}", "{\"a\":tru}",
+        "{\"a\":[1,]}", "{\"a\":[1 2]}", "{\"a\":{\"b\":1,}}", "{\"a\":\"b\n\"}", "{\"a\":[{\"b\":x}]}"};
+    for (String str: invalid) {
+      try {
+        new JsonObject(str.getBytes("UTF-8"));
+        fail("Should throw exception for " + str);
+      } catch (DecodeException e) {
+        // OK
+      }
+    }
+    String valid = "{\"a\":[-0.5e+10, 0, 1E2, true, false, null, \"\\u00e9\\/\"], \"b\":{}, \"c\":[]}";
+    JsonObject obj = new JsonObject(valid.getBytes("UTF-8"));
+    assertEquals(valid, obj.encode());
+    assertEquals(3, obj.size());
+    assertEquals(valid.length(), obj.encodedLength());
+    obj.getObject("b").putString("x", "y");
+    assertEquals(-1, obj.encodedLength());
+  }
+
+  @Test
+  public void testLazyJsonObjectSharedBetweenThreads() throws Exception {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < 100; i++) {
+      sb.append(i == 0 ? "" : ",").append("\"f").append(i).append("\":{\"v\":").append(i).append("}");
+    }
+    final String str = sb.append("}").toString();
+    for (int run = 0; run < 20; run++) {
+      final JsonObject obj = new JsonObject(str.getBytes("UTF-8"));
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      Thread[] threads = new Thread[4];
+      for (int t = 0; t < threads.length; t++) {
+        final int thread = t;
+        threads[t] = new Thread() {
+          public void run() {
+            try {
+              for (int i = 0; i < 100; i++) {
+                int field = (i + thread * 25) % 100;
+                if (obj.getObject("f" + field).getNumber("v").intValue() != field) {
+                  throw new IllegalStateException("Wrong value for field " + field);
+                }
+                if (thread == 0 && i == 50) {
+                  // Forces the object to be decoded into a map while the other threads are reading it
+                  obj.toMap();
+                }
+              }
+              if (!str.equals(obj.encode())) {
+                throw new IllegalStateException("Wrong encoding");
+              }
+            } catch (Throwable e) {
+              failure.set(e);
+            }
+          }
+        };
+      }
+      for (Thread thread: threads) {
+        thread.start();
+      }
+      for (Thread thread: threads) {
+        thread.join();
+      }
+      assertNull(String.valueOf(failure.get()), failure.get());
+    }
+  }
+
+  @Test
+  public void testEncodeToBuffer() throws Exception {
+    JsonObject obj = new JsonObject().putString("foo", "bar\u00e9\u20ac").putNumber("num", 123)
+        .putArray("arr", new JsonArray().addString("a").addObject(new JsonObject().putBoolean("b", true)));
+    Buffer buff = obj.encodeToBuffer();
+    assertEquals(obj.encode(), buff.toString("UTF-8"));
+    assertEquals(obj, new JsonObject(buff));
+
+    // Appends to what is already in the buffer
+    buff = new Buffer("prefix");
+    obj.writeTo(buff);
+    assertEquals("prefix" + obj.encode(), buff.toString("UTF-8"));
+
+    // Decoding from a view onto part of a buffer
+    assertEquals(obj, new JsonObject(buff.slice(6, buff.length())));
+
+    // An unmodified lazy object is written out as it is
+    String str = "{ \"foo\" : [1, 2] }";
+    JsonObject lazy = new JsonObject(new Buffer(str));
+    buff = new Buffer("x");
+    lazy.writeTo(buff);
+    assertEquals("x" + str, buff.toString());
+    assertEquals(str, lazy.encodeToBuffer().toString());
+
+    JsonArray arr = new JsonArray().addString("\u00e9").addNumber(1.5).addObject(new JsonObject().putString("a", "b"));
+    buff = arr.encodeToBuffer();
+    assertEquals(arr.encode(), buff.toString("UTF-8"));
+    assertEquals(arr.encode(), new JsonArray(buff).encode());
+    buff = new Buffer("[");
+    arr.writeTo(buff);
+    assertEquals(arr.encode(), new JsonArray(buff.slice(1, buff.length())).encode());
+
+    // The whole buffer is decoded, as with getByte, wherever the underlying reader index has got to
+    buff = new Buffer();
+    arr.writeTo(buff);
+    buff.getChannelBuffer().readerIndex(3);
+    assertEquals(arr.encode(), new JsonArray(buff).encode());
+  }
+
+  @Test
+  public void testTypedGetters() throws Exception {
+    String str = "{\"int\":123, \"neg\":-45, \"long\":12345678901, \"huge\":123456789012345678901, " +
+        "\"dbl\":-1.5e2, \"null\":null, \"str\":\"s\"}";
+    JsonObject lazy = new JsonObject(str.getBytes("UTF-8"));
+    JsonObject eager = new JsonObject(str);
+    for (JsonObject obj: new JsonObject[] {lazy, eager}) {
+      assertEquals(123, obj.getInt("int", 0));
+      assertEquals(123L, obj.getLong("int", 0));
+      assertEquals(123.0, obj.getDouble("int", 0));
+      assertEquals(-45, obj.getInt("neg", 0));
+      assertEquals(12345678901L, obj.getLong("long", 0));
+      assertEquals(1.23456789012345678901e20, obj.getDouble("huge", 0));
+      assertEquals(-150.0, obj.getDouble("dbl", 0));
+      assertEquals(-150L, obj.getLong("dbl", 0));
+      assertEquals(7, obj.getInt("null", 7));
+      assertEquals(8L, obj.getLong("missing", 8));
+      assertEquals(9.5, obj.getDouble("missing", 9.5));
+      try {
+        obj.getInt("long", 0);
+        fail("Should throw exception");
+      } catch (ArithmeticException e) {
+        // OK
+      }
+      try {
+        obj.getLong("str", 0);
+        fail("Should throw exception");
+      } catch (ClassCastException e) {
+        // OK
+      }
+    }
+    // Values which have been decoded or changed are used
+    lazy.putNumber("int", 456);
+    assertEquals(456, lazy.getInt("int", 0));
+  }
+
+  @Test
+  public void testChildViews() throws Exception {
+    JsonObject obj = new JsonObject().putObject("obj", new JsonObject().putString("a", "b"))
+        .putArray("arr", new JsonArray().addNumber(1));
+    // Views are not cached, so reading never changes the object, but they share the data of the parent
+    JsonObject child = obj.getObject("obj");
+    assertNotSame(child, obj.getObject("obj"));
+    child.putString("c", "d");
+    assertEquals("d", obj.getObject("obj").getString("c"));
+    assertEquals("d", ((JsonObject) obj.getField("obj")).getString("c"));
+    obj.getArray("arr").addNumber(2);
+    assertEquals(2, ((JsonArray) obj.getField("arr")).size());
+
+    // Children handed out by lazy objects are still seen once the parent has been materialized
+    JsonObject lazy = new JsonObject("{\"obj\":{\"a\":1}}".getBytes("UTF-8"));
+    child = lazy.getObject("obj");
+    lazy.putString("x", "y");
+    child.putNumber("a", 2);
+    assertEquals(2, lazy.getObject("obj").getNumber("a"));
+    assertEquals(2, new JsonObject(lazy.encode()).getObject("obj").getNumber("a"));
+  }
+
+  @Test
+  public void testFlyweightIterator() throws Exception {
+    JsonArray arr = new JsonArray();
+    for (int i = 0; i < 10; i++) {
+      arr.addObject(new JsonObject().putNumber("i", i));
+    }
+    arr.addArray(new JsonArray().addString("a"));
+    arr.addArray(new JsonArray().addString("b"));
+    arr.addString("c");
+    Iterator iter = arr.flyweightIterator();
+    JsonObject view = null;
+    for (int i = 0; i < 10; i++) {
+      JsonObject obj = (JsonObject) iter.next();
+      if (view == null) {
+        view = obj;
+      }
+      assertSame(view, obj);
+      assertEquals(i, obj.getInt("i", -1));
+    }
+    assertEquals("a", ((JsonArray) iter.next()).iterator().next());
+    assertEquals("b", ((JsonArray) iter.next()).iterator().next());
+    assertEquals("c", iter.next());
+    assertFalse(iter.hasNext());
+
+    // Removing through the iterator removes from the array
+    iter = arr.flyweightIterator();
+    while (iter.hasNext()) {
+      if (!(iter.next() instanceof JsonObject)) {
+        iter.remove();
+      }
+    }
+    assertEquals(10, arr.size());
+
+    // Changes through a view change the array
+    iter = arr.flyweightIterator();
+    ((JsonObject) iter.next()).putString("changed", "yes");
+    assertEquals("yes", ((JsonObject) arr.iterator().next()).getString("changed"));
+  }
+
 }
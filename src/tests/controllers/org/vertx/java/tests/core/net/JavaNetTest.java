@@ -82,6 +82,11 @@ public class JavaNetTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testIdleReadTimeout() throws Exception {
+    startTest(getMethodName());
+  }
+
   @Test
   public void testEchoBytes() throws Exception {
     startApp(EchoServer.class.getName());
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.tests.core.parsetools;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.buffer.impl.BufferPool;
+import org.vertx.java.core.parsetools.FrameParser;
+import org.vertx.java.framework.TestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JavaFrameParserTest extends TestCase {
+
+  private static final int[] SIZES = {0, 1, 5, 127, 128, 200, 255, 300, 0, 1000, 16383, 16384, 3};
+
+  @Test
+  public void testFixedLength() {
+    for (int prefixSize: new int[]{1, 2, 4}) {
+      List<Buffer> frames = generateFrames(prefixSize == 1 ? 255 : Integer.MAX_VALUE);
+      Buffer input = new Buffer();
+      for (Buffer frame: frames) {
+        switch (prefixSize) {
+          case 1:
+            input.appendByte((byte) frame.length());
+            break;
+          case 2:
+            input.appendShort((short) frame.length());
+            break;
+          default:
+            input.appendInt(frame.length());
+        }
+        input.appendBuffer(frame);
+      }
+      parseAllChunkSizes(prefixSize, input, frames);
+    }
+  }
+
+  @Test
+  public void testVarint() {
+    List<Buffer> frames = generateFrames(Integer.MAX_VALUE);
+    Buffer input = new Buffer();
+    for (Buffer frame: frames) {
+      FrameParser.appendVarint(input, frame.length());
+      input.appendBuffer(frame);
+    }
+    parseAllChunkSizes(0, input, frames);
+  }
+
+  @Test
+  public void testPooled() {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      testFixedLength();
+      testVarint();
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testAppendVarint() {
+    int[] values = {0, 1, 127, 128, 300, 16384, Integer.MAX_VALUE};
+    int[] lengths = {1, 1, 1, 2, 2, 3, 5};
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(lengths[i], FrameParser.appendVarint(new Buffer(), values[i]).length());
+    }
+    Buffer buff = FrameParser.appendVarint(new Buffer(), 300);
+    assertEquals((byte) 0xAC, buff.getByte(0));
+    assertEquals((byte) 0x02, buff.getByte(1));
+  }
+
+  @Test
+  public void testBatchOutput() {
+    Buffer input = new Buffer();
+    for (int i = 0; i < 10; i++) {
+      input.appendInt(1).appendByte((byte) i);
+    }
+    final List<List<Buffer>> batches = new ArrayList<>();
+    FrameParser parser = FrameParser.newFixedLength(4, null);
+    parser.setBatchOutput(new Handler<List<Buffer>>() {
+      public void handle(List<Buffer> batch) {
+        batches.add(batch);
+      }
+    });
+    parser.handle(input.getBuffer(0, 22));
+    parser.handle(input.getBuffer(22, 23));
+    parser.handle(input.getBuffer(23, 50));
+    assertEquals(2, batches.size());
+    assertEquals(4, batches.get(0).size());
+    assertEquals(6, batches.get(1).size());
+    for (int i = 0; i < 10; i++) {
+      Buffer frame = i < 4 ? batches.get(0).get(i) : batches.get(1).get(i - 4);
+      assertEquals(1, frame.length());
+      assertEquals((byte) i, frame.getByte(0));
+    }
+  }
+
+  @Test
+  public void testMaxFrameSize() {
+    final List<Buffer> frames = new ArrayList<>();
+    final List<Exception> errors = new ArrayList<>();
+    FrameParser parser = FrameParser.newFixedLength(2, new Handler<Buffer>() {
+      public void handle(Buffer frame) {
+        frames.add(frame);
+      }
+    });
+    parser.setMaxFrameSize(10);
+    parser.exceptionHandler(new Handler<Exception>() {
+      public void handle(Exception e) {
+        errors.add(e);
+      }
+    });
+    Buffer input = new Buffer().appendShort((short) 10).appendBuffer(TestUtils.generateRandomBuffer(10));
+    input.appendShort((short) 11).appendBuffer(TestUtils.generateRandomBuffer(11));
+    input.appendShort((short) 1).appendByte((byte) 0);
+    parser.handle(input);
+    assertEquals(1, frames.size());
+    assertEquals(1, errors.size());
+    // Input after an error is ignored
+    parser.handle(new Buffer().appendShort((short) 1).appendByte((byte) 0));
+    assertEquals(1, frames.size());
+
+    // Without an exception handler the error is thrown
+    parser = FrameParser.newFixedLength(4, null);
+    try {
+      parser.handle(new Buffer().appendInt(-1));
+      fail("Should throw exception");
+    } catch (IllegalStateException e) {
+      // OK
+    }
+  }
+
+  @Test
+  public void testInvalidVarint() {
+    FrameParser parser = FrameParser.newVarint(null);
+    try {
+      parser.handle(new Buffer(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80}));
+      fail("Should throw exception");
+    } catch (IllegalStateException e) {
+      // OK
+    }
+    parser = FrameParser.newVarint(null);
+    try {
+      parser.handle(new Buffer(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x0F}));
+      fail("Should throw exception");
+    } catch (IllegalStateException e) {
+      // OK
+    }
+  }
+
+  private List<Buffer> generateFrames(int maxSize) {
+    List<Buffer> frames = new ArrayList<>();
+    for (int size: SIZES) {
+      frames.add(TestUtils.generateRandomBuffer(Math.min(size, maxSize)));
+    }
+    return frames;
+  }
+
+  // A prefix size of 0 means varint
+  private void parseAllChunkSizes(int prefixSize, Buffer input, List<Buffer> expected) {
+    for (int chunkSize = 1; chunkSize <= input.length(); chunkSize += chunkSize < 50 ? 1 : 97) {
+      final List<Buffer> frames = new ArrayList<>();
+      Handler<Buffer> output = new Handler<Buffer>() {
+        public void handle(Buffer frame) {
+          // Frames may share storage with the input so copy them
+          frames.add(frame.copy());
+        }
+      };
+      FrameParser parser = prefixSize == 0 ? FrameParser.newVarint(output) : FrameParser.newFixedLength(prefixSize, output);
+      for (int pos = 0; pos < input.length(); pos += chunkSize) {
+        parser.handle(input.getBuffer(pos, Math.min(pos + chunkSize, input.length())));
+      }
+      assertEquals(expected.size(), frames.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertTrue(TestUtils.buffersEqual(expected.get(i), frames.get(i)));
+      }
+    }
+  }
+}
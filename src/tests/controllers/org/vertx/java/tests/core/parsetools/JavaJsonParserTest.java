@@ -0,0 +1,288 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.vertx.java.tests.core.parsetools;
+
+import junit.framework.TestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.parsetools.JsonEvent;
+import org.vertx.java.core.parsetools.JsonParser;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class JavaJsonParserTest extends TestCase {
+
+  private static final String DOC = "{\"name\":\"vert.x\", \"version\" : 1, \"big\":12345678901, \"pi\":3.14, " +
+      "\"tags\":[\"a\",\"b\\n\\\"c\\\"\", \"\\u00e9\\ud83d\\ude00\", \"\u00e9\u20ac\"], \"empty\":{}, \"none\":[], " +
+      "\"flags\":[true,false,null], \"nested\":{\"a\":[{\"b\":-1.5e3}]}}";
+
+  @Test
+  public void testEvents() {
+    List<String> events = parse(DOC, -1, 1);
+    List<String> expected = new ArrayList<>();
+    expected.add("START_OBJECT 0");
+    expected.add("VALUE name vert.x 1");
+    expected.add("VALUE version 1 1");
+    expected.add("VALUE big 12345678901 1");
+    expected.add("VALUE pi 3.14 1");
+    expected.add("START_ARRAY tags 1");
+    expected.add("VALUE a 2");
+    expected.add("VALUE b\n\"c\" 2");
+    expected.add("VALUE \u00e9\ud83d\ude00 2");
+    expected.add("VALUE \u00e9\u20ac 2");
+    expected.add("END_ARRAY tags 1");
+    expected.add("START_OBJECT empty 1");
+    expected.add("END_OBJECT empty 1");
+    expected.add("START_ARRAY none 1");
+    expected.add("END_ARRAY none 1");
+    expected.add("START_ARRAY flags 1");
+    expected.add("VALUE true 2");
+    expected.add("VALUE false 2");
+    expected.add("VALUE null 2");
+    expected.add("END_ARRAY flags 1");
+    expected.add("START_OBJECT nested 1");
+    expected.add("START_ARRAY a 2");
+    expected.add("START_OBJECT 3");
+    expected.add("VALUE b -1500.0 4");
+    expected.add("END_OBJECT 3");
+    expected.add("END_ARRAY a 2");
+    expected.add("END_OBJECT nested 1");
+    expected.add("END_OBJECT 0");
+    assertEquals(expected, events);
+  }
+
+  @Test
+  public void testSplitAnywhere() {
+    // Feeding the document in chunks of any size must give the same result as feeding it all at once
+    List<String> expected = parse(DOC, -1, Integer.MAX_VALUE);
+    for (int chunk = 1; chunk < 20; chunk++) {
+      assertEquals(expected, parse(DOC, -1, chunk));
+    }
+  }
+
+  @Test
+  public void testValueModeTopLevel() {
+    List<String> events = parse(DOC, 0, 3);
+    assertEquals(1, events.size());
+    assertEquals("VALUE " + new JsonObject(DOC).encode() + " 0", events.get(0));
+  }
+
+  @Test
+  public void testValueModeElements() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < 100; i++) {
+      if (i > 0) sb.append(',');
+      sb.append("{\"id\":").append(i).append(",\"items\":[").append(i).append(",{\"x\":\"y\"}]}");
+    }
+    sb.append(']');
+    final List<Object> values = new ArrayList<>();
+    final List<JsonEvent.Type> types = new ArrayList<>();
+    JsonParser parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+        types.add(event.getType());
+        if (event.getType() == JsonEvent.Type.VALUE) {
+          assertEquals(1, event.getDepth());
+          values.add(event.getValue());
+        }
+      }
+    });
+    parser.valueMode(1);
+    feed(parser, sb.toString(), 7);
+    parser.end();
+    assertEquals(102, types.size());
+    assertEquals(JsonEvent.Type.START_ARRAY, types.get(0));
+    assertEquals(JsonEvent.Type.END_ARRAY, types.get(101));
+    assertEquals(100, values.size());
+    for (int i = 0; i < 100; i++) {
+      JsonObject obj = (JsonObject) values.get(i);
+      assertEquals(i, obj.getNumber("id").intValue());
+      JsonArray items = obj.getArray("items");
+      assertEquals(2, items.size());
+      Iterator iter = items.iterator();
+      assertEquals(i, ((Number) iter.next()).intValue());
+      assertEquals(new JsonObject().putString("x", "y"), iter.next());
+    }
+  }
+
+  @Test
+  public void testMultipleDocuments() {
+    List<String> events = parse("{\"a\":1}\n[2]  3 \"four\"\n5", 0, 2);
+    assertEquals(5, events.size());
+    assertEquals("VALUE {\"a\":1} 0", events.get(0));
+    assertEquals("VALUE [2] 0", events.get(1));
+    assertEquals("VALUE 3 0", events.get(2));
+    assertEquals("VALUE four 0", events.get(3));
+    assertEquals("VALUE 5 0", events.get(4));
+  }
+
+  @Test
+  public void testInvalid() {
+    invalid("{\"a\" 1}");
+    invalid("{\"a\":1,}");
+    invalid("[1 2]");
+    invalid("[1,]");
+    invalid("{]");
+    invalid("tru");
+    invalid("[nul]");
+    invalid("\"a\\x\"");
+    invalid("\"a\nb\"");
+    invalid("[1.2.3]");
+    invalid("01");
+    invalid("[-01]");
+    invalid("1.");
+    invalid("[1.e5]");
+    invalid("-");
+    invalid("[-]");
+    invalid("1e");
+    invalid("[1e+]");
+    invalid("[1-2]");
+    invalid("[1e5.0]");
+    invalid("{\"a\":1");
+    invalid("]");
+  }
+
+  @Test
+  public void testNumbers() {
+    List<String> events = parse("[0, -0, 10, -12, 0.5, -0.5e-3, 1E2, 2e+1, 123456789012345678901]", -1, 3);
+    assertEquals(11, events.size());
+    assertEquals("VALUE 0 1", events.get(1));
+    assertEquals("VALUE 0 1", events.get(2));
+    assertEquals("VALUE 10 1", events.get(3));
+    assertEquals("VALUE -12 1", events.get(4));
+    assertEquals("VALUE 0.5 1", events.get(5));
+    assertEquals("VALUE -5.0E-4 1", events.get(6));
+    assertEquals("VALUE 100.0 1", events.get(7));
+    assertEquals("VALUE 20.0 1", events.get(8));
+    assertEquals("VALUE 123456789012345678901 1", events.get(9));
+  }
+
+  @Test
+  public void testReaderIndex() {
+    // A buffer whose channel buffer has been partly read is still parsed from index 0, as getByte sees it
+    ChannelBuffer cb = ChannelBuffers.dynamicBuffer();
+    cb.writeBytes("[1,2] ".getBytes());
+    cb.readerIndex(3);
+    final List<Object> values = new ArrayList<>();
+    JsonParser parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+        values.add(event.getValue());
+      }
+    });
+    parser.valueMode(0);
+    parser.handle(new Buffer(cb));
+    parser.end();
+    assertEquals(1, values.size());
+    assertEquals("[1,2]", ((JsonArray) values.get(0)).encode());
+  }
+
+  @Test
+  public void testEventCopy() {
+    final List<JsonEvent> events = new ArrayList<>();
+    final List<JsonEvent> copies = new ArrayList<>();
+    JsonParser parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+        events.add(event);
+        copies.add(event.copy());
+      }
+    });
+    feed(parser, "{\"a\":1}", 1);
+    parser.end();
+    assertEquals(3, copies.size());
+    // The parser passes the same instance every time, copies keep their fields
+    assertSame(events.get(0), events.get(2));
+    assertEquals(JsonEvent.Type.START_OBJECT, copies.get(0).getType());
+    assertEquals("a", copies.get(1).getFieldName());
+    assertEquals(1, copies.get(1).getValue());
+    assertEquals(JsonEvent.Type.END_OBJECT, copies.get(2).getType());
+  }
+
+  private void invalid(String json) {
+    final List<Exception> errors = new ArrayList<>();
+    JsonParser parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+      }
+    });
+    parser.exceptionHandler(new Handler<Exception>() {
+      public void handle(Exception e) {
+        errors.add(e);
+      }
+    });
+    feed(parser, json, 1);
+    parser.end();
+    assertEquals(json, 1, errors.size());
+    assertTrue(errors.get(0) instanceof DecodeException);
+
+    // Without an exception handler the error is thrown
+    parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+      }
+    });
+    try {
+      feed(parser, json, json.length());
+      parser.end();
+      fail("Should throw exception");
+    } catch (DecodeException e) {
+      // OK
+    }
+  }
+
+  private List<String> parse(String json, int valueDepth, int chunkSize) {
+    final List<String> events = new ArrayList<>();
+    JsonParser parser = JsonParser.newParser(new Handler<JsonEvent>() {
+      public void handle(JsonEvent event) {
+        StringBuilder sb = new StringBuilder(event.getType().toString());
+        if (event.getFieldName() != null) {
+          sb.append(' ').append(event.getFieldName());
+        }
+        if (event.getType() == JsonEvent.Type.VALUE) {
+          Object value = event.getValue();
+          if (value instanceof JsonObject) {
+            value = ((JsonObject) value).encode();
+          } else if (value instanceof JsonArray) {
+            value = ((JsonArray) value).encode();
+          }
+          sb.append(' ').append(value);
+        }
+        events.add(sb.append(' ').append(event.getDepth()).toString());
+      }
+    });
+    if (valueDepth >= 0) {
+      parser.valueMode(valueDepth);
+    }
+    feed(parser, json, chunkSize);
+    parser.end();
+    return events;
+  }
+
+  private void feed(JsonParser parser, String json, int chunkSize) {
+    Buffer buff = new Buffer(json, "UTF-8");
+    for (int pos = 0; pos < buff.length(); pos += chunkSize) {
+      parser.handle(buff.getBuffer(pos, Math.min(pos + chunkSize, buff.length())));
+    }
+  }
+}
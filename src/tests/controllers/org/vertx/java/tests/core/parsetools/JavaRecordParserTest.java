@@ -20,6 +20,7 @@ import junit.framework.TestCase;
 import org.junit.Test;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.buffer.impl.BufferPool;
 import org.vertx.java.core.parsetools.RecordParser;
 import org.vertx.java.framework.TestUtils;
 
@@ -42,6 +43,84 @@ public class JavaRecordParserTest extends TestCase {
     delimited(new byte[]{0, 3, 2, 5, 6, 4, 6});
   }
 
+  @Test
+  /*
+  Test parsing with delimiters when the parser keeps its leftover data in pooled buffers
+   */
+  public void testDelimitedPooled() {
+    boolean enabled = BufferPool.isEnabled();
+    BufferPool.setEnabled(true);
+    try {
+      delimited(new byte[]{(byte) '\n'});
+      delimited(new byte[]{0, 3, 2, 5, 6, 4, 6});
+    } finally {
+      BufferPool.setEnabled(enabled);
+    }
+  }
+
+  @Test
+  /*
+  Test parsing with delimiters when the records contain partial matches of the delimiter
+   */
+  public void testDelimitedPartialMatches() {
+    partialMatches(new byte[]{1, 1, 2}, new byte[][]{{0, 1, 1, 1}, {1}, {1, 1}, {}, {2, 1, 1, 3}, {1, 2}});
+    partialMatches(new byte[]{'\r', '\n'}, new byte[][]{{'a', '\r', 'b'}, {'\r'}, {'c', '\r', '\r'}, {'\n'}});
+    partialMatches(new byte[]{1, 2, 1, 2, 3}, new byte[][]{{1, 2, 1, 2, 1, 2}, {1, 2, 1}, {3, 1, 2, 1, 2, 2}});
+  }
+
+  private void partialMatches(byte[] delim, byte[][] records) {
+    Buffer input = new Buffer();
+    Buffer[] expected = new Buffer[records.length];
+    for (int i = 0; i < records.length; i++) {
+      expected[i] = new Buffer(records[i]);
+      input.appendBytes(records[i]);
+      input.appendBytes(delim);
+    }
+    for (int i = 1; i <= input.length(); i++) {
+      final List<Buffer> results = new ArrayList<>();
+      RecordParser parser = RecordParser.newDelimited(delim, new Handler<Buffer>() {
+        public void handle(Buffer buff) {
+          results.add(buff);
+        }
+      });
+      feedChunks(input, parser, new Integer[]{i});
+      assertEquals(records.length, results.size());
+      for (int j = 0; j < records.length; j++) {
+        assertTrue(TestUtils.buffersEqual(expected[j], results.get(j)));
+      }
+    }
+  }
+
+  @Test
+  /*
+  Test records which are much bigger than the chunks they arrive in
+   */
+  public void testLongRecords() {
+    longRecords(new byte[]{(byte) '\n'});
+    longRecords(new byte[]{(byte) '\r', (byte) '\n'});
+  }
+
+  private void longRecords(byte[] delim) {
+    Buffer[] expected = new Buffer[3];
+    Buffer input = new Buffer();
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = TestUtils.generateRandomBuffer(1024 * 1024, true, delim[0]);
+      input.appendBuffer(expected[i]);
+      input.appendBytes(delim);
+    }
+    final List<Buffer> results = new ArrayList<>();
+    RecordParser parser = RecordParser.newDelimited(delim, new Handler<Buffer>() {
+      public void handle(Buffer buff) {
+        results.add(buff);
+      }
+    });
+    feedChunks(input, parser, new Integer[]{1000, 1, 4096});
+    assertEquals(expected.length, results.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertTrue(TestUtils.buffersEqual(expected[i], results.get(i)));
+    }
+  }
+
   @Test
   /*
   Test parsing with fixed size records
@@ -18,9 +18,20 @@ package vertx.tests.core.blockingaction;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
+import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.impl.BlockingAction;
+import org.vertx.java.core.impl.BlockingActionBatch;
+import org.vertx.java.core.impl.Context;
+import org.vertx.java.core.impl.NamedWorkerPool;
+import org.vertx.java.core.impl.VertxImpl;
+import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.framework.TestClientBase;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -82,5 +93,246 @@ public class TestClient extends TestClientBase {
     }
   }
 
+  public void testBlockingActionOnNamedPool() {
+    final NamedWorkerPool pool = VertxInternal.instance.declareWorkerPool("test-pool", 1, 0,
+        NamedWorkerPool.RejectionPolicy.FAIL);
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    // Occupies the only thread in the pool until the latch is released
+    new BlockingAction<String>("test-pool", new AsyncResultHandler<String>() {
+      public void handle(AsyncResult<String> event) {
+        tu.azzert(event.succeeded());
+        tu.azzert(event.result.startsWith("vert.x-test-pool-thread-"));
+        tu.azzert(pool.getRejectedCount() == 1);
+        tu.testComplete();
+      }
+    }) {
+      public String action() throws Exception {
+        latch.await();
+        return Thread.currentThread().getName();
+      }
+    }.run();
+
+    // The pool is saturated so this one is rejected
+    new BlockingAction<String>("test-pool", new AsyncResultHandler<String>() {
+      public void handle(AsyncResult<String> event) {
+        tu.azzert(!event.succeeded());
+        tu.azzert(event.exception instanceof RejectedExecutionException);
+        latch.countDown();
+      }
+    }) {
+      public String action() throws Exception {
+        return "foo";
+      }
+    }.run();
+  }
+
+  public void testBlockingActionOnNamedPoolCallerRuns() {
+    final NamedWorkerPool pool = VertxInternal.instance.declareWorkerPool("test-pool-caller-runs", 1, 0,
+        NamedWorkerPool.RejectionPolicy.CALLER_RUNS);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final String callerThread = Thread.currentThread().getName();
+
+    // Occupies the only thread in the pool until the latch is released
+    new BlockingAction<String>("test-pool-caller-runs", new AsyncResultHandler<String>() {
+      public void handle(AsyncResult<String> event) {
+        tu.azzert(event.succeeded());
+        tu.azzert(event.result.startsWith("vert.x-test-pool-caller-runs-thread-"));
+        tu.azzert(pool.getRejectedCount() == 1);
+        tu.testComplete();
+      }
+    }) {
+      public String action() throws Exception {
+        latch.await();
+        return Thread.currentThread().getName();
+      }
+    }.run();
+
+    // The pool is saturated so this one runs on the calling thread
+    new BlockingAction<String>("test-pool-caller-runs", new AsyncResultHandler<String>() {
+      public void handle(AsyncResult<String> event) {
+        tu.azzert(event.succeeded());
+        tu.azzert(callerThread.equals(event.result));
+        latch.countDown();
+      }
+    }) {
+      public String action() throws Exception {
+        return Thread.currentThread().getName();
+      }
+    }.run();
+  }
+
+  public void testWorkerContextOnSaturatedPool() {
+    final NamedWorkerPool pool = VertxInternal.instance.declareWorkerPool("test-pool-saturated", 1, 0,
+        NamedWorkerPool.RejectionPolicy.FAIL);
+    final Context testContext = VertxInternal.instance.getContext();
+    final CountDownLatch latch = new CountDownLatch(1);
+    Context busyContext = VertxInternal.instance.createWorkerContext(pool);
+    final Context otherContext = VertxInternal.instance.createWorkerContext(pool);
+
+    // Occupies the only thread in the pool until the latch is released
+    busyContext.execute(new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+        }
+        testContext.execute(new Runnable() {
+          public void run() {
+            // The rejected context is not wedged and accepts tasks again
+            otherContext.execute(new Runnable() {
+              public void run() {
+                tu.azzert(Thread.currentThread().getName().startsWith("vert.x-test-pool-saturated-thread-"));
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+
+    // The pool is saturated so the task is dropped and reported, rather than thrown at the caller
+    otherContext.execute(new Runnable() {
+      public void run() {
+        tu.azzert(false, "Task should be dropped");
+      }
+    });
+    tu.azzert(pool.getRejectedCount() == 1);
+    latch.countDown();
+  }
+
+  public void testCloseWorkerPools() {
+    NamedWorkerPool pool = VertxInternal.instance.declareWorkerPool("test-pool-close", 1, -1,
+        NamedWorkerPool.RejectionPolicy.FAIL);
+    VertxInternal.instance.closeWorkerPools();
+    tu.azzert(pool.getExecutor().isShutdown());
+    tu.azzert(VertxInternal.instance.getNamedWorkerPool("test-pool-close") == null);
+    tu.azzert(VertxInternal.instance.getNamedWorkerPools().isEmpty());
+    tu.testComplete();
+  }
+
+  public void testVirtualWorkerThreads() {
+    final VertxImpl vertx = new VertxImpl();
+    vertx.setVirtualWorkerThreads(true);
+    tu.azzert(vertx.isVirtualWorkerThreads());
+
+    // Falls back to the fixed size pool on a JDK without virtual threads
+    boolean supported;
+    try {
+      Thread.class.getMethod("ofVirtual");
+      supported = true;
+    } catch (NoSuchMethodException e) {
+      supported = false;
+    }
+    final String prefix = supported ? "vert.x-virtual-worker-thread-" : "vert.x-worker-thread-";
+    final String poolPrefix = supported ? "vert.x-test-virtual-pool-virtual-thread-" : "vert.x-test-virtual-pool-thread-";
+    final NamedWorkerPool pool = vertx.declareWorkerPool("test-virtual-pool", 1, -1,
+        NamedWorkerPool.RejectionPolicy.FAIL);
+
+    final Context testContext = VertxInternal.instance.getContext();
+    final int numTasks = 100;
+    final List<Integer> executed = new ArrayList<>();
+    final Context workerContext = vertx.startInBackground(new Runnable() {
+      public void run() {
+      }
+    });
+    for (int i = 0; i < numTasks; i++) {
+      final int index = i;
+      workerContext.execute(new Runnable() {
+        public void run() {
+          // The pool has no ordering of its own, but tasks for a worker context still run one at a time and in order
+          tu.azzert(Thread.currentThread().getName().startsWith(prefix));
+          executed.add(index);
+          if (index == numTasks - 1) {
+            testContext.execute(new Runnable() {
+              public void run() {
+                for (int j = 0; j < numTasks; j++) {
+                  tu.azzert(executed.get(j) == j);
+                }
+                // Named pools use the same kind of threads
+                pool.getExecutor().execute(new Runnable() {
+                  public void run() {
+                    final boolean poolThreadOK = Thread.currentThread().getName().startsWith(poolPrefix);
+                    testContext.execute(new Runnable() {
+                      public void run() {
+                        tu.azzert(poolThreadOK);
+                        vertx.closeWorkerPools();
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+                try {
+                  vertx.setVirtualWorkerThreads(false);
+                  tu.azzert(false, "Should throw exception");
+                } catch (IllegalStateException e) {
+                  // OK
+                }
+                vertx.getBackgroundPool().shutdown();
+                vertx.getTimer().stop();
+              }
+            });
+          }
+        }
+      });
+    }
+  }
+
+  public void testBlockingActionBatch() {
+    final int numActions = 100;
+
+    class AggHandler {
+      int count;
+      void complete(int index) {
+        // Handlers are called in the order the actions were added
+        tu.azzert(index == count);
+        count++;
+      }
+    }
+
+    final AggHandler agg = new AggHandler();
+
+    BlockingActionBatch batch = new BlockingActionBatch();
+    for (int i = 0; i < numActions; i++) {
+      final int index = i;
+      final boolean fail = i % 2 == 1;
+      batch.add(new BlockingAction<Integer>(new AsyncResultHandler<Integer>() {
+        public void handle(AsyncResult<Integer> event) {
+          tu.checkContext();
+          if (fail) {
+            tu.azzert(!event.succeeded());
+            tu.azzert("Wibble".equals(event.exception.getMessage()));
+          } else {
+            tu.azzert(event.succeeded());
+            tu.azzert(event.result == index);
+          }
+          agg.complete(index);
+        }
+      }) {
+        public Integer action() throws Exception {
+          if (fail) {
+            throw new Exception("Wibble");
+          }
+          return index;
+        }
+      });
+    }
+    tu.azzert(batch.size() == numActions);
+    batch.run(new SimpleHandler() {
+      public void handle() {
+        // Called after all the action handlers
+        tu.checkContext();
+        tu.azzert(agg.count == numActions);
+        // An empty batch still calls its done handler
+        new BlockingActionBatch().run(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    tu.azzert(batch.size() == 0);
+  }
 
 }
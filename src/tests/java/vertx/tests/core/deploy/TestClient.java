@@ -17,12 +17,18 @@
 package vertx.tests.core.deploy;
 
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.deploy.Container;
+import org.vertx.java.deploy.impl.ClassBytesCache;
+import org.vertx.java.deploy.impl.DeploymentTimings;
+import org.vertx.java.deploy.impl.VerticleManager;
 import org.vertx.java.framework.TestClientBase;
 
+import java.net.URL;
+
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
@@ -73,5 +79,84 @@ public class TestClient extends TestClientBase {
     });
 
   }
-}
 
+  public void testDeploymentTimings() {
+    final int instances = 4;
+    final String name = "timings-test";
+    VerticleManager mgr = VerticleManager.instance;
+    mgr.deploy(false, name, "vertx.tests.core.deploy.SlowStartVerticle", null, mgr.getDeploymentURLs(), instances,
+        new SimpleHandler() {
+      public void handle() {
+        DeploymentTimings timings = VerticleManager.instance.getDeploymentTimings(name);
+        tu.azzert(timings != null);
+        tu.azzert(timings.getStartedInstances() == instances);
+        tu.azzert(timings.getSetupTime() >= 0);
+        tu.azzert(timings.getCreationTime() >= 0);
+        // Every instance spends at least SLEEP ms in its start method
+        long start = timings.getStartTime();
+        tu.azzert(start >= instances * SlowStartVerticle.SLEEP, "start: " + start);
+        // The phases happen within the elapsed time of the deployment. They are totals over instances which run
+        // concurrently, and each total is rounded down to a millisecond separately
+        long elapsed = timings.getElapsedTime();
+        tu.azzert(elapsed >= SlowStartVerticle.SLEEP, "elapsed: " + elapsed);
+        tu.azzert(timings.getSetupTime() + timings.getCreationTime() + start <= (elapsed + 1) * instances,
+                  timings.toString());
+        tu.testComplete();
+      }
+    });
+  }
+
+  public void testDeployOnNamedPool() {
+    Container.instance.declareWorkerPool("deploy-test-pool", 1, -1);
+    eb.registerHandler("test-handler", new Handler<Message<String>>() {
+      int count;
+      public void handle(Message<String> message) {
+        // Both the worker verticle and its blocking actions run on the pool it was deployed on
+        tu.azzert(message.body.startsWith("started:vert.x-deploy-test-pool-thread-") ||
+                  message.body.startsWith("action:vert.x-deploy-test-pool-thread-"), message.body);
+        if (++count == 2) {
+          eb.unregisterHandler("test-handler", this);
+          tu.testComplete();
+        }
+      }
+    });
+
+    Container.instance.deployWorkerVerticle("vertx.tests.core.deploy.PoolVerticle", null, 1, "deploy-test-pool", null);
+  }
+
+  public void testDeployOnUndeclaredPool() {
+    try {
+      Container.instance.deployVerticle("vertx.tests.core.deploy.ChildVerticle", null, 1, "no-such-pool", null);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      // OK
+    }
+    tu.testComplete();
+  }
+
+  public void testRedeployReusesClassCache() {
+    final VerticleManager mgr = VerticleManager.instance;
+    final URL[] urls = mgr.getDeploymentURLs();
+    final long[] reads = new long[1];
+    // Created up front so loading this handler's own class doesn't count as a read by the second deployment
+    final Handler<Void> redeployed = new SimpleHandler() {
+      public void handle() {
+        // The second deployment defines its classes from the bytes the first one read
+        ClassBytesCache cache = mgr.getClassCache(urls);
+        tu.azzert(cache.getReadCount() == reads[0], "reads: " + cache.getReadCount());
+        // The second deployment was made from the first one so this undeploys both
+        mgr.undeploy("class-cache-1", null);
+        tu.testComplete();
+      }
+    };
+    mgr.deploy(false, "class-cache-1", "vertx.tests.core.deploy.SlowStartVerticle", null, urls, 2,
+        new SimpleHandler() {
+      public void handle() {
+        ClassBytesCache cache = mgr.getClassCache(urls);
+        tu.azzert(cache != null);
+        reads[0] = cache.getReadCount();
+        mgr.deploy(false, "class-cache-2", "vertx.tests.core.deploy.SlowStartVerticle", null, urls, 2, redeployed);
+      }
+    });
+  }
+}
@@ -21,6 +21,7 @@ import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.buffer.impl.BufferPool;
 import org.vertx.java.core.file.AsyncFile;
 import org.vertx.java.core.file.FileProps;
 import org.vertx.java.core.file.FileSystem;
@@ -496,6 +497,32 @@ public class TestClient extends TestClientBase {
     }
   }
 
+  public void testPropsMultiple() throws Exception {
+    final String fileName = "some-file.txt";
+    final long fileSize = 1234;
+    createFileWithJunk(fileName, fileSize);
+    String linkName = "some-link.txt";
+    Files.createSymbolicLink(Paths.get(TEST_DIR + pathSep + linkName), Paths.get(fileName));
+
+    String[] paths = new String[] { TEST_DIR + pathSep + fileName, TEST_DIR + pathSep + "no-such-file.txt",
+                                    TEST_DIR + pathSep + linkName };
+    FileSystem.instance.lprops(paths, new AsyncResultHandler<FileProps[]>() {
+      public void handle(AsyncResult<FileProps[]> ar) {
+        tu.checkContext();
+        if (ar.exception != null) {
+          tu.exception(ar.exception, "stat failed");
+        } else {
+          tu.azzert(ar.result.length == 3);
+          tu.azzert(fileSize == ar.result[0].size);
+          tu.azzert(ar.result[0].isRegularFile);
+          tu.azzert(ar.result[1] == null);
+          tu.azzert(ar.result[2].isSymbolicLink);
+          tu.testComplete();
+        }
+      }
+    });
+  }
+
   public void testLink() throws Exception {
     String fileName = "some-file.txt";
     final long fileSize = 1234;
@@ -1015,6 +1042,14 @@ public class TestClient extends TestClientBase {
   }
 
   public void testPumpFileStreams() throws Exception {
+    pumpFileStreams(false);
+  }
+
+  public void testPumpFileStreamsDirect() throws Exception {
+    pumpFileStreams(true);
+  }
+
+  private void pumpFileStreams(final boolean direct) throws Exception {
     final String fileName1 = "some-file.dat";
     final String fileName2 = "some-other-file.dat";
 
@@ -1028,6 +1063,7 @@ public class TestClient extends TestClientBase {
         tu.checkContext();
         if (ar.exception == null) {
           final ReadStream rs = ar.result.getReadStream();
+          BufferPool.setDirectByDefault(direct);
 
           //Open file for writing
           FileSystem.instance.open(TEST_DIR + pathSep + fileName2, null, true, true, true, new AsyncResultHandler<AsyncFile>() {
@@ -1057,6 +1093,7 @@ public class TestClient extends TestClientBase {
                             tu.exception(e, "failed to read");
                             return;
                           }
+                          BufferPool.setDirectByDefault(false);
                           tu.azzert(TestUtils.buffersEqual(new Buffer(content), new Buffer(readBytes)));
                           tu.testComplete();
                         }
@@ -1154,6 +1191,26 @@ public class TestClient extends TestClientBase {
     FileSystem.instance.exists(TEST_DIR + pathSep + fileName, handler);
   }
 
+  public void testExistsMultiple() throws Exception {
+    final String fileName = "some-file.dat";
+    createFileWithJunk(fileName, 100);
+
+    String[] paths = new String[] { TEST_DIR + pathSep + "no-such-file.dat", TEST_DIR + pathSep + fileName };
+    FileSystem.instance.exists(paths, new AsyncResultHandler<Boolean[]>() {
+      public void handle(AsyncResult<Boolean[]> ar) {
+        tu.checkContext();
+        if (ar.exception == null) {
+          tu.azzert(ar.result.length == 2);
+          tu.azzert(!ar.result[0]);
+          tu.azzert(ar.result[1]);
+          tu.testComplete();
+        } else {
+          tu.exception(ar.exception, "failed to check");
+        }
+      }
+    });
+  }
+
   public void testFSProps() throws Exception {
     String fileName = "some-file.txt";
     createFileWithJunk(fileName, 1234);
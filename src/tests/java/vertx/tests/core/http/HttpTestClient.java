@@ -16,30 +16,51 @@
 
 package vertx.tests.core.http;
 
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.SimpleHandler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.http.FormPart;
+import org.vertx.java.core.http.HeaderBlock;
 import org.vertx.java.core.http.HttpClient;
 import org.vertx.java.core.http.HttpClientRequest;
 import org.vertx.java.core.http.HttpClientResponse;
 import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpServerResponse;
+import org.vertx.java.core.net.NetClient;
 import org.vertx.java.core.net.NetServer;
+import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.core.shareddata.SharedData;
 import org.vertx.java.framework.TestClientBase;
 import org.vertx.java.framework.TestUtils;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -177,6 +198,30 @@ public class HttpTestClient extends TestClientBase {
     tu.azzert(client.setTrafficClass(trafficClass) == client);
     tu.azzert(client.getTrafficClass() == trafficClass);
 
+    tu.azzert(client.getMaxRequestsPerConnection() == 0);
+    tu.azzert(client.setMaxRequestsPerConnection(100) == client);
+    tu.azzert(client.getMaxRequestsPerConnection() == 100);
+    tu.azzert(client.getIdleReadTimeout() == 0);
+    tu.azzert(client.setIdleReadTimeout(5000) == client);
+    tu.azzert(client.getIdleReadTimeout() == 5000);
+    tu.azzert(client.getIdleWriteTimeout() == 0);
+    tu.azzert(client.setIdleWriteTimeout(6000) == client);
+    tu.azzert(client.getIdleWriteTimeout() == 6000);
+
+    try {
+      client.setMaxRequestsPerConnection(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    try {
+      client.setIdleReadTimeout(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
     tu.testComplete();
 
   }
@@ -285,6 +330,101 @@ public class HttpTestClient extends TestClientBase {
     tu.azzert(server.setTrafficClass(trafficClass) == server);
     tu.azzert(server.getTrafficClass() == trafficClass);
 
+    tu.azzert(!server.isPipelining());
+    tu.azzert(server.setPipelining(true) == server);
+    tu.azzert(server.isPipelining());
+
+    int pbs = new Random().nextInt(1024 * 1024) + 1;
+    tu.azzert(server.setPipeliningBufferSize(pbs) == server);
+    tu.azzert(server.getPipeliningBufferSize() == pbs);
+
+    try {
+      server.setPipeliningBufferSize(0);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    tu.azzert(server.getSendFileChunkSize() == 16384);
+    tu.azzert(server.setSendFileChunkSize(32768) == server);
+    tu.azzert(server.getSendFileChunkSize() == 32768);
+
+    try {
+      server.setSendFileChunkSize(0);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    tu.azzert(!server.isCompression());
+    tu.azzert(server.setCompression(true) == server);
+    tu.azzert(server.isCompression());
+    tu.azzert(server.getCompressionThreshold() == 1024);
+    tu.azzert(server.getCompressibleContentTypes().contains("application/json"));
+
+    try {
+      server.setCompressionThreshold(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    tu.azzert(server.getMaxConnections() == 0);
+    tu.azzert(server.setMaxConnections(100) == server);
+    tu.azzert(server.getMaxConnections() == 100);
+    tu.azzert(server.getMaxInFlightRequests() == 0);
+    tu.azzert(server.setMaxInFlightRequests(50) == server);
+    tu.azzert(server.getMaxInFlightRequests() == 50);
+    tu.azzert(server.getMaxQueueLatency() == 0);
+    tu.azzert(server.setMaxQueueLatency(200) == server);
+    tu.azzert(server.getMaxQueueLatency() == 200);
+    tu.azzert(server.getShedConnectionCount() == 0);
+
+    try {
+      server.setMaxConnections(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    try {
+      server.setMaxInFlightRequests(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    try {
+      server.setMaxQueueLatency(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    tu.azzert(server.getMaxRequestsPerConnection() == 0);
+    tu.azzert(server.setMaxRequestsPerConnection(100) == server);
+    tu.azzert(server.getMaxRequestsPerConnection() == 100);
+    tu.azzert(server.getIdleReadTimeout() == 0);
+    tu.azzert(server.setIdleReadTimeout(5000) == server);
+    tu.azzert(server.getIdleReadTimeout() == 5000);
+    tu.azzert(server.getIdleWriteTimeout() == 0);
+    tu.azzert(server.setIdleWriteTimeout(6000) == server);
+    tu.azzert(server.getIdleWriteTimeout() == 6000);
+
+    try {
+      server.setMaxRequestsPerConnection(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    try {
+      server.setIdleWriteTimeout(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
     tu.testComplete();
 
   }
@@ -1101,6 +1241,108 @@ public class HttpTestClient extends TestClientBase {
     testResponseHeaders(true);
   }
 
+  public void testResponseHeaderBlock() {
+    final Map<String, String> headers = genMap(10);
+    final Map<String, String> blockHeaders = new HashMap<>();
+    blockHeaders.put("Content-Type", "text/html; charset=UTF-8");
+    blockHeaders.put("Cache-Control", "max-age=3600");
+    final HeaderBlock block = new HeaderBlock(blockHeaders);
+    tu.azzert(block.getHeaders().equals(blockHeaders));
+    // Header values are encoded as ISO-8859-1
+    Buffer encoded = new Buffer();
+    new HeaderBlock(Collections.singletonMap("Content-Disposition", "attachment; filename=caf\u00e9.txt"))
+        .writeTo(encoded);
+    tu.azzert("Content-Disposition: attachment; filename=caf\u00e9.txt\r\n".equals(encoded.toString("ISO-8859-1")));
+    try {
+      block.getHeaders().put("foo", "bar");
+      tu.azzert(false, "Should throw exception");
+    } catch (UnsupportedOperationException e) {
+      //OK
+    }
+    try {
+      new HeaderBlock(Collections.singletonMap("foo", "bar\r\nquux: wibble"));
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        req.response.putAllHeaders(headers);
+        req.response.putHeaderBlock(block);
+        req.response.end("Hello");
+      }
+    });
+
+    HttpClientRequest req = getRequest(true, "GET", "some-uri", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.checkContext();
+        tu.azzert(resp.getAllHeaders().size() == headers.size() + blockHeaders.size() + 2);
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+          tu.azzert(entry.getValue().equals(resp.getHeader(entry.getKey())));
+        }
+        for (Map.Entry<String, String> entry : blockHeaders.entrySet()) {
+          tu.azzert(entry.getValue().equals(resp.getHeader(entry.getKey())));
+        }
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert("Hello".equals(body.toString()));
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    req.end();
+  }
+
+  public void testHeaderBlockRefusesFramingHeaders() {
+    for (String name: new String[] {"Content-Length", "content-length", "Transfer-Encoding", "TRANSFER-ENCODING",
+                                    "Connection", "Date"}) {
+      Map<String, String> headers = new HashMap<>();
+      headers.put("Content-Type", "text/plain");
+      headers.put(name, name.equalsIgnoreCase("Content-Length") ? "10" : "chunked");
+      try {
+        new HeaderBlock(headers);
+        tu.azzert(false, "Should throw exception for " + name);
+      } catch (IllegalArgumentException e) {
+        //OK
+      }
+    }
+    tu.testComplete();
+  }
+
+  public void testResponseDateHeader() {
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        if (req.path.equals("/own-date")) {
+          req.response.putHeader("Date", "Sun, 06 Nov 1994 08:49:37 GMT");
+        }
+        req.response.end();
+      }
+    });
+
+    final long before = System.currentTimeMillis();
+    getRequest(true, "GET", "/date", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.checkContext();
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        try {
+          long date = format.parse(resp.getHeader("Date")).getTime();
+          tu.azzert(date >= before - before % 1000 && date <= System.currentTimeMillis());
+        } catch (ParseException e) {
+          tu.azzert(false, "Invalid date " + resp.getHeader("Date"));
+        }
+        getRequest(true, "GET", "/own-date", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert("Sun, 06 Nov 1994 08:49:37 GMT".equals(resp.getHeader("Date")));
+            tu.testComplete();
+          }
+        }).end();
+      }
+    }).end();
+  }
+
   private void testResponseHeaders(final boolean individually) {
     final Map<String, String> headers = genMap(10);
     startServer(new Handler<HttpServerRequest>() {
@@ -1120,7 +1362,8 @@ public class HttpTestClient extends TestClientBase {
     HttpClientRequest req = getRequest(true, "GET", "some-uri", new Handler<HttpClientResponse>() {
       public void handle(HttpClientResponse resp) {
         tu.checkContext();
-        tu.azzert(resp.getAllHeaders().size() == headers.size() + 1);
+        // Content-Length and Date are added by the server
+        tu.azzert(resp.getAllHeaders().size() == headers.size() + 2);
         for (Map.Entry<String, String> entry : headers.entrySet()) {
           tu.azzert(entry.getValue().equals(resp.getHeader(entry.getKey())));
         }
@@ -1748,6 +1991,59 @@ public class HttpTestClient extends TestClientBase {
     }
   }
 
+  public void testPipeliningConcurrent() {
+    testPipeliningConcurrent(64 * 1024);
+  }
+
+  public void testPipeliningBufferFull() {
+    testPipeliningConcurrent(16);
+  }
+
+  private void testPipeliningConcurrent(int bufferSize) {
+
+    final int requests = 20;
+
+    server = new HttpServer().setPipelining(true).setPipeliningBufferSize(bufferSize);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      final List<HttpServerRequest> received = new ArrayList<>();
+      public void handle(final HttpServerRequest req) {
+        //None of the requests can be answered until they have all been received, and they are answered in the
+        //reverse order, so this only works if the requests are handled concurrently and the responses reordered
+        received.add(req);
+        if (received.size() == requests) {
+          for (int i = requests - 1; i >= 0; i--) {
+            HttpServerRequest theReq = received.get(i);
+            theReq.response.setChunked(true);
+            theReq.response.putHeader("count", theReq.getHeader("count"));
+            theReq.response.write("This is content " + theReq.getHeader("count"));
+            theReq.response.end();
+          }
+        }
+      }
+    });
+    server.listen(8080, "localhost");
+
+    for (int count = 0; count < requests; count++) {
+      final int theCount = count;
+      HttpClientRequest req = client.get("some-uri", new Handler<HttpClientResponse>() {
+        public void handle(final HttpClientResponse response) {
+          tu.azzert(theCount == Integer.parseInt(response.getHeader("count")), theCount + ":" + response.getHeader
+              ("count"));
+          response.bodyHandler(new Handler<Buffer>() {
+            public void handle(Buffer buff) {
+              tu.azzert(("This is content " + theCount).equals(buff.toString()));
+              if (theCount == requests - 1) {
+                tu.testComplete();
+              }
+            }
+          });
+        }
+      });
+      req.putHeader("count", String.valueOf(count));
+      req.end();
+    }
+  }
+
   public void testSendFile() throws Exception {
     final String content = TestUtils.randomUnicodeString(10000);
     final File file = setupFile("test-send-file.dat", content);
@@ -1773,6 +2069,39 @@ public class HttpTestClient extends TestClientBase {
     });
   }
 
+  public void testSendFileSSL() throws Exception {
+    // Several read-ahead blocks, ending in a partial chunk
+    final Buffer content = TestUtils.generateRandomBuffer(100001);
+    final File file = new File("./test-send-file-ssl.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes());
+    }
+
+    server = new HttpServer().setSSL(true).setKeyStorePath("./src/tests/keystores/server-keystore.jks")
+        .setKeyStorePassword("wibble").setSendFileChunkSize(1000);
+    tu.azzert(server.getSendFileChunkSize() == 1000);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response.sendFile(file.getAbsolutePath());
+      }
+    });
+    server.listen(4043, "localhost");
+
+    client.setSSL(true).setTrustAll(true).setPort(4043);
+    client.getNow("some-uri", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse response) {
+        tu.azzert(response.statusCode == 200);
+        response.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer buff) {
+            tu.azzert(TestUtils.buffersEqual(content, buff));
+            file.delete();
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
   private File setupFile(String fileName, String content) throws Exception {
     fileName = "./" + fileName;
     File file = new File(fileName);
@@ -2118,6 +2447,585 @@ public class HttpTestClient extends TestClientBase {
     return sb.toString();
   }
 
+  public void testCompressionFixedLength() {
+    testCompression("gzip", 10000, false);
+  }
+
+  public void testCompressionChunked() {
+    testCompression("deflate", 10000, true);
+  }
+
+  public void testCompressionInBackground() {
+    testCompression("gzip", 500000, false);
+  }
+
+  private void testCompression(final String encoding, int size, final boolean chunked) {
+    final String content = compressibleString(size);
+    server = new HttpServer().setCompression(true);
+    tu.azzert(server.isCompression());
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        req.response.putHeader("Content-Type", "application/json");
+        if (chunked) {
+          req.response.setChunked(true);
+          for (int i = 0; i < 10; i++) {
+            req.response.write(content.substring(i * content.length() / 10, (i + 1) * content.length() / 10));
+          }
+          req.response.end();
+        } else {
+          req.response.end(content);
+        }
+      }
+    });
+    server.listen(8080, "localhost");
+
+    HttpClientRequest req = getRequest(true, "GET", "some-uri", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.checkContext();
+        tu.azzert(encoding.equals(resp.getHeader("Content-Encoding")));
+        tu.azzert("Accept-Encoding".equals(resp.getHeader("Vary")));
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(body.length() < content.length() / 5);
+            if (!chunked) {
+              tu.azzert(body.length() == Integer.parseInt(resp.getHeader("Content-Length")));
+            }
+            tu.azzert(content.equals(decompress(body, encoding).toString()));
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    req.putHeader("Accept-Encoding", "br;q=1.0, " + encoding);
+    req.end();
+  }
+
+  public void testCompressionSkipped() {
+    final String content = compressibleString(10000);
+    server = new HttpServer().setCompression(true).setCompressionThreshold(2000)
+        .setCompressibleContentTypes(Collections.singleton("text/*"));
+    tu.azzert(server.getCompressionThreshold() == 2000);
+    tu.azzert(server.getCompressibleContentTypes().equals(Collections.singleton("text/*")));
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        req.response.putHeader("Content-Type", req.getHeader("type"));
+        req.response.end(content.substring(0, Integer.parseInt(req.getHeader("size"))));
+      }
+    });
+    server.listen(8080, "localhost");
+
+    final String[][] requests = {
+      // type, size, Accept-Encoding, expected Content-Encoding, expected Vary
+      {"text/plain", "10000", "gzip", "gzip", "Accept-Encoding"},
+      {"text/plain", "10000", "gzip;q=0, identity", null, "Accept-Encoding"},
+      {"text/plain", "1000", "gzip", null, null},
+      {"application/json", "10000", "gzip", null, null}
+    };
+    final AtomicInteger count = new AtomicInteger();
+    for (final String[] request: requests) {
+      HttpClientRequest req = getRequest(true, "GET", "some-uri", new Handler<HttpClientResponse>() {
+        public void handle(final HttpClientResponse resp) {
+          tu.azzert(equal(request[3], resp.getHeader("Content-Encoding")), request[0] + " " + request[1]);
+          tu.azzert(equal(request[4], resp.getHeader("Vary")), request[0] + " " + request[1]);
+          resp.bodyHandler(new Handler<Buffer>() {
+            public void handle(Buffer body) {
+              if (request[3] != null) {
+                body = decompress(body, request[3]);
+              }
+              tu.azzert(content.substring(0, Integer.parseInt(request[1])).equals(body.toString()));
+              if (count.incrementAndGet() == requests.length) {
+                tu.testComplete();
+              }
+            }
+          });
+        }
+      });
+      req.putHeader("type", request[0]);
+      req.putHeader("size", request[1]);
+      req.putHeader("Accept-Encoding", request[2]);
+      req.end();
+    }
+  }
+
+  public void testShedInFlight() {
+    final AtomicReference<HttpServerRequest> held = new AtomicReference<>();
+    server = new HttpServer().setMaxInFlightRequests(1);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        if (held.compareAndSet(null, req)) {
+          // Hold the first request open and try another while it is in flight
+          client.getNow("second", new Handler<HttpClientResponse>() {
+            public void handle(HttpClientResponse resp) {
+              tu.azzert(resp.statusCode == 503);
+              tu.azzert("1".equals(resp.getHeader("Retry-After")));
+              tu.azzert(server.getShedInFlightCount() == 1);
+              held.get().response.end();
+            }
+          });
+        } else {
+          req.response.end();
+        }
+      }
+    });
+    server.listen(8080, "localhost");
+
+    // Without keep alive the second request gets a connection of its own rather than being pipelined
+    client.setKeepAlive(false).setMaxPoolSize(2);
+    client.getNow("first", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        // The first request has ended so there is room for another
+        client.getNow("third", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 200);
+            tu.azzert(server.getShedInFlightCount() == 1);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testShedInFlightUntilWritten() {
+    final Buffer body = TestUtils.generateRandomBuffer(4 * 1024 * 1024);
+    final AtomicReference<NetSocket> rawSocket = new AtomicReference<>();
+    server = new HttpServer().setMaxInFlightRequests(1).setSendBufferSize(8192);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        if (req.uri.equals("first")) {
+          // Ended, but it can't all be written until the client reads it
+          req.response.end(body);
+          client.getNow("second", new Handler<HttpClientResponse>() {
+            public void handle(HttpClientResponse resp) {
+              tu.azzert(resp.statusCode == 503);
+              tu.azzert(server.getShedInFlightCount() == 1);
+              rawSocket.get().resume();
+            }
+          });
+        } else {
+          req.response.end();
+        }
+      }
+    });
+    server.listen(8080, "localhost");
+
+    final NetClient netClient = new NetClient().setReceiveBufferSize(8192);
+    netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        rawSocket.set(socket);
+        socket.pause();
+        socket.dataHandler(new Handler<Buffer>() {
+          int received;
+          public void handle(Buffer data) {
+            received += data.length();
+            if (received >= body.length()) {
+              netClient.close();
+              tu.testComplete();
+            }
+          }
+        });
+        socket.write("GET first HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      }
+    });
+  }
+
+  public void testShedConnections() {
+    final AtomicReference<HttpServerRequest> held = new AtomicReference<>();
+    server = new HttpServer().setMaxConnections(1);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        tu.azzert(held.compareAndSet(null, req));
+        // Hold the first connection busy so the next request needs a second one
+        client.getNow("second", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 503);
+            tu.azzert("1".equals(resp.getHeader("Retry-After")));
+            tu.azzert("close".equals(resp.getHeader("Connection")));
+            tu.azzert(server.getShedConnectionCount() == 1);
+            held.get().response.end();
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost");
+
+    // Without keep alive the second request gets a connection of its own rather than being pipelined
+    client.setKeepAlive(false).setMaxPoolSize(2);
+    client.getNow("first", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.testComplete();
+      }
+    });
+  }
+
+  public void testShedLatency() {
+    server = new HttpServer().setMaxQueueLatency(50);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.checkContext();
+        if (req.path.contains("block")) {
+          // Keep the event loop busy so the probe queued behind this request runs late
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException e) {
+          }
+        }
+        req.response.end();
+      }
+    });
+    server.listen(8080, "localhost");
+
+    client.getNow("block", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        client.getNow("next", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 503);
+            tu.azzert("1".equals(resp.getHeader("Retry-After")));
+            tu.azzert(server.getShedLatencyCount() == 1);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testIdleReadTimeout() {
+    server = new HttpServer().setIdleReadTimeout(300);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response.end();
+      }
+    });
+    server.listen(8080, "localhost");
+
+    final long[] answered = new long[1];
+    final NetClient netClient = new NetClient();
+    netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            answered[0] = System.currentTimeMillis();
+          }
+        });
+        socket.closedHandler(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            // The keep alive connection is closed once it has been idle for the timeout, give or take a tick
+            tu.azzert(answered[0] != 0);
+            tu.azzert(System.currentTimeMillis() - answered[0] >= 300 - 100);
+            netClient.close();
+            tu.testComplete();
+          }
+        });
+        socket.write("GET /foo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      }
+    });
+  }
+
+  public void testServerMaxRequestsPerConnection() {
+    final AtomicInteger requests = new AtomicInteger();
+    server = new HttpServer().setMaxRequestsPerConnection(2);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        requests.incrementAndGet();
+        req.response.end();
+      }
+    });
+    server.listen(8080, "localhost");
+
+    final NetClient netClient = new NetClient();
+    netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        final Buffer received = new Buffer();
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            received.appendBuffer(data);
+          }
+        });
+        socket.closedHandler(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            // The third request was pipelined after the last one allowed so it is never answered
+            String responses = received.toString();
+            tu.azzert(requests.get() == 2);
+            tu.azzert(responses.split("HTTP/1.1 200 OK", -1).length == 3, responses);
+            tu.azzert(responses.indexOf("Connection: close") > responses.lastIndexOf("HTTP/1.1 200 OK"), responses);
+            netClient.close();
+            tu.testComplete();
+          }
+        });
+        Buffer pipelined = new Buffer();
+        for (int i = 0; i < 3; i++) {
+          pipelined.appendString("GET /foo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        }
+        socket.write(pipelined);
+      }
+    });
+  }
+
+  public void testClientMaxRequestsPerConnection() {
+    // A raw server, so the connections the client makes can be counted
+    final AtomicInteger connections = new AtomicInteger();
+    final NetServer netServer = new NetServer();
+    netServer.connectHandler(new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        connections.incrementAndGet();
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            String str = data.toString();
+            for (int i = str.indexOf("\r\n\r\n"); i != -1; i = str.indexOf("\r\n\r\n", i + 4)) {
+              socket.write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n");
+            }
+          }
+        });
+      }
+    });
+    netServer.listen(8080, "localhost");
+
+    client.setMaxRequestsPerConnection(2);
+    sendSequentially(5, new SimpleHandler() {
+      public void handle() {
+        tu.azzert(connections.get() == 3, "connections " + connections.get());
+        netServer.close(new SimpleHandler() {
+          public void handle() {
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testMultipartUpload() {
+    final Buffer content = TestUtils.generateRandomBuffer(100000);
+    final String path = "./test-multipart-upload.dat";
+    new File(path).delete();
+    server = new HttpServer();
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        final Map<String, String> fields = new HashMap<>();
+        req.partHandler(new Handler<FormPart>() {
+          public void handle(final FormPart part) {
+            tu.checkContext();
+            if (part.isFile()) {
+              tu.azzert("upload".equals(part.name));
+              tu.azzert("foo.dat".equals(part.filename));
+              tu.azzert("application/octet-stream".equals(part.contentType));
+              tu.azzert("application/octet-stream".equals(part.getHeader("content-type")));
+              part.streamToFile(path, new AsyncResultHandler<Void>() {
+                public void handle(AsyncResult<Void> ar) {
+                  tu.checkContext();
+                  tu.azzert(ar.succeeded());
+                  tu.azzert("hello world".equals(fields.get("description")));
+                  tu.azzert("caf\u00e9".equals(fields.get("title")));
+                  try {
+                    Buffer written = new Buffer(Files.readAllBytes(new File(path).toPath()));
+                    tu.azzert(TestUtils.buffersEqual(content, written));
+                  } catch (IOException e) {
+                    tu.azzert(false, e.getMessage());
+                  }
+                  new File(path).delete();
+                  req.response.end();
+                }
+              });
+            } else {
+              part.bodyHandler(new Handler<Buffer>() {
+                public void handle(Buffer body) {
+                  fields.put(part.name, body.toString("UTF-8"));
+                }
+              });
+            }
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost");
+
+    Buffer body = new Buffer("preamble\r\n")
+        .appendString(fieldPart("description", "hello world"))
+        .appendString(fieldPart("title", "caf\u00e9"), "UTF-8")
+        .appendString("--" + BOUNDARY + "\r\n")
+        .appendString("Content-Disposition: form-data; name=\"upload\"; filename=\"foo.dat\"\r\n")
+        .appendString("Content-Type: application/octet-stream\r\n\r\n")
+        .appendBuffer(content)
+        .appendString("\r\n--" + BOUNDARY + "--\r\nepilogue");
+    sendMultipart(body, 200);
+  }
+
+  public void testMultipartUploadReplacesFile() throws Exception {
+    final Buffer content = TestUtils.generateRandomBuffer(1000);
+    final String path = "./test-multipart-upload.dat";
+    // An existing file longer than the upload, none of which should be left
+    try (FileOutputStream out = new FileOutputStream(path)) {
+      out.write(TestUtils.generateRandomBuffer(100000).getBytes());
+    }
+    server = new HttpServer();
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        req.partHandler(new Handler<FormPart>() {
+          public void handle(final FormPart part) {
+            part.streamToFile(path, new AsyncResultHandler<Void>() {
+              public void handle(AsyncResult<Void> ar) {
+                tu.checkContext();
+                tu.azzert(ar.succeeded());
+                try {
+                  Buffer written = new Buffer(Files.readAllBytes(new File(path).toPath()));
+                  tu.azzert(TestUtils.buffersEqual(content, written));
+                } catch (IOException e) {
+                  tu.azzert(false, e.getMessage());
+                }
+                new File(path).delete();
+                req.response.end();
+              }
+            });
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost");
+
+    Buffer body = new Buffer()
+        .appendString("--" + BOUNDARY + "\r\n")
+        .appendString("Content-Disposition: form-data; name=\"upload\"; filename=\"foo.dat\"\r\n\r\n")
+        .appendBuffer(content)
+        .appendString("\r\n--" + BOUNDARY + "--\r\n");
+    sendMultipart(body, 200);
+  }
+
+  public void testMultipartMalformed() {
+    server = new HttpServer();
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        final AtomicInteger exceptions = new AtomicInteger();
+        req.exceptionHandler(new Handler<Exception>() {
+          public void handle(Exception e) {
+            exceptions.incrementAndGet();
+          }
+        });
+        req.partHandler(new Handler<FormPart>() {
+          public void handle(FormPart part) {
+            part.exceptionHandler(new Handler<Exception>() {
+              public void handle(Exception e) {
+                exceptions.incrementAndGet();
+              }
+            });
+          }
+        });
+        req.endHandler(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            // Both the unfinished part and the request are told
+            tu.azzert(exceptions.get() == 2);
+            req.response.statusCode = 400;
+            req.response.end();
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost");
+
+    // No closing boundary
+    sendMultipart(new Buffer(fieldPart("description", "hello world")).appendString("more"), 400);
+  }
+
+  public void testPartHandlerNotMultipart() {
+    server = new HttpServer();
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        try {
+          req.partHandler(new Handler<FormPart>() {
+            public void handle(FormPart part) {
+            }
+          });
+          tu.azzert(false, "Should throw exception");
+        } catch (IllegalStateException e) {
+          // OK
+        }
+        req.response.end();
+      }
+    });
+    server.listen(8080, "localhost");
+
+    client.getNow("some-uri", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.testComplete();
+      }
+    });
+  }
+
+  private static final String BOUNDARY = "----vertx-test-boundary-7MA4YWxkTrZu0gW";
+
+  private static String fieldPart(String name, String value) {
+    return "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n";
+  }
+
+  // Sends the body in small chunks, so boundaries are split across them
+  private void sendMultipart(Buffer body, final int expectedStatus) {
+    HttpClientRequest req = client.post("some-uri", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == expectedStatus, "status " + resp.statusCode);
+        tu.testComplete();
+      }
+    });
+    req.putHeader("Content-Type", "multipart/form-data; boundary=\"" + BOUNDARY + "\"");
+    req.setChunked(true);
+    for (int pos = 0; pos < body.length(); pos += 997) {
+      req.write(body.getBuffer(pos, Math.min(pos + 997, body.length())));
+    }
+    req.end();
+  }
+
+  private void sendSequentially(final int count, final SimpleHandler done) {
+    client.getNow("some-uri", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        resp.endHandler(new SimpleHandler() {
+          public void handle() {
+            if (count == 1) {
+              done.handle(null);
+            } else {
+              sendSequentially(count - 1, done);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private static String compressibleString(int size) {
+    StringBuilder sb = new StringBuilder(size);
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i % 13).append("\"},");
+    }
+    return sb.substring(0, size);
+  }
+
+  private static boolean equal(String expected, String actual) {
+    return expected == null ? actual == null : expected.equals(actual);
+  }
+
+  private static Buffer decompress(Buffer body, String encoding) {
+    try (InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(new ByteArrayInputStream(body.getBytes())) :
+        new InflaterInputStream(new ByteArrayInputStream(body.getBytes()))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] bytes = new byte[4096];
+      int n;
+      while ((n = in.read(bytes)) != -1) {
+        out.write(bytes, 0, n);
+      }
+      return new Buffer(out.toByteArray());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private HttpClientRequest getRequest(boolean specificMethod, String method, String uri,
                                        Handler<HttpClientResponse> responseHandler) {
     HttpClientRequest req = null;
@@ -210,6 +210,71 @@ public class RouteMatcherTestClient extends TestClientBase {
   }
 
 
+  public void testRouteFirstMatchWins() {
+    RouteMatcher matcher = new RouteMatcher();
+    addEchoRoute(matcher, false, "/users/:id", "user");
+    addEchoRoute(matcher, false, "/users/me", "me");
+    addEchoRoute(matcher, true, "\\/files\\/(.+)", "regex");
+    addEchoRoute(matcher, false, "/files/:name", "file");
+    addEchoRoute(matcher, false, "/static/:dir/index", "index");
+    addEchoRoute(matcher, false, "/static/css/:file", "css");
+    addEchoRoute(matcher, false, "/v1.0/:op", "dotted");
+    addEchoRoute(matcher, true, ".*", "any");
+
+    final HttpServer server = new HttpServer();
+    server.requestHandler(matcher);
+    server.listen(8080, "localhost");
+
+    final HttpClient client = new HttpClient().setPort(8080).setHost("localhost");
+    final String[][] expected = {
+      {"/users/me", "user id=me"},
+      {"/files/a/b", "regex param0=a/b"},
+      {"/static/css/index", "index dir=css"},
+      {"/static/css/site.css", "css file=site.css"},
+      {"/v1x0/get", "dotted op=get"},
+      {"/v1.0/get", "dotted op=get"},
+      {"/users/", "any "},
+      {"/users/me/more", "any "}
+    };
+    sendEchoRequest(client, server, expected, 0);
+  }
+
+  private void addEchoRoute(RouteMatcher matcher, boolean regex, String pattern, final String name) {
+    Handler<HttpServerRequest> handler = new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        StringBuilder sb = new StringBuilder(name).append(' ');
+        for (Map.Entry<String, String> entry : req.getAllParams().entrySet()) {
+          sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        req.response.end(sb.toString());
+      }
+    };
+    if (regex) {
+      matcher.getWithRegEx(pattern, handler);
+    } else {
+      matcher.get(pattern, handler);
+    }
+  }
+
+  private void sendEchoRequest(final HttpClient client, final HttpServer server, final String[][] expected,
+                               final int pos) {
+    client.getNow(expected[pos][0], new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(200 == resp.statusCode);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(expected[pos][1].equals(body.toString()), expected[pos][0] + " routed to " + body);
+            if (pos + 1 < expected.length) {
+              sendEchoRequest(client, server, expected, pos + 1);
+            } else {
+              closeClientAndServer(client, server);
+            }
+          }
+        });
+      }
+    });
+  }
+
   private void testRoute(final boolean regex, final String pattern, final Map<String, String> params,
                          final String method, final String uri)  {
     testRoute(regex, pattern, params, method, uri, true, false);
@@ -0,0 +1,580 @@
+/*
+ * Copyright 2011-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package vertx.tests.core.http;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.SimpleHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.HttpClient;
+import org.vertx.java.core.http.HttpClientRequest;
+import org.vertx.java.core.http.HttpClientResponse;
+import org.vertx.java.core.http.HttpServer;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.core.http.StaticFileHandler;
+import org.vertx.java.core.net.NetClient;
+import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.parsetools.RecordParser;
+import org.vertx.java.framework.TestClientBase;
+import org.vertx.java.framework.TestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author <a href="http://tfox.org">Tim Fox</a>
+ */
+public class StaticFileHandlerTestClient extends TestClientBase {
+
+  private static final String WEB_ROOT = "./static-file-test";
+
+  private HttpClient client;
+  private HttpServer server;
+  private File webRoot;
+
+  @Override
+  public void start() {
+    super.start();
+    client = new HttpClient().setHost("localhost").setPort(8080);
+    webRoot = new File(WEB_ROOT);
+    delete(webRoot);
+    webRoot.mkdirs();
+    tu.appReady();
+  }
+
+  @Override
+  public void stop() {
+    client.close();
+    delete(webRoot);
+    if (server != null) {
+      server.close(new SimpleHandler() {
+        public void handle() {
+          tu.checkContext();
+          StaticFileHandlerTestClient.super.stop();
+        }
+      });
+    } else {
+      super.stop();
+    }
+  }
+
+  public void testServeFile() throws Exception {
+    final Buffer content = writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.azzert(resp.getHeader("ETag") != null);
+        tu.azzert(resp.getHeader("Last-Modified") != null);
+        tu.azzert("bytes".equals(resp.getHeader("Accept-Ranges")));
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(TestUtils.buffersEqual(content, body));
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testServeStreamedFile() throws Exception {
+    final Buffer content = writeFile("foo.dat", 1000000);
+    startServer(new StaticFileHandler(WEB_ROOT).setMaxCachedFileSize(1000));
+    get("/foo.dat", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.azzert("1000000".equals(resp.getHeader("Content-Length")));
+        tu.azzert("bytes".equals(resp.getHeader("Accept-Ranges")));
+        tu.azzert(resp.getHeader("ETag") != null);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(TestUtils.buffersEqual(content, body));
+            get("/foo.dat", "Range", "bytes=50000-150099", new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 206);
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(TestUtils.buffersEqual(content.getBuffer(50000, 150100), body));
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStreamedFileTruncated() throws Exception {
+    writeFile("foo.dat", 100000);
+    startServer(new StaticFileHandler(WEB_ROOT).setMaxCachedFileSize(1000).setValidationPeriod(60000));
+    get("/foo.dat", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            try {
+              writeFile("foo.dat", 70000);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+            // The handler still thinks the file is 100000 bytes, so it can only close the connection
+            final NetClient netClient = new NetClient();
+            netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+              public void handle(NetSocket socket) {
+                final Buffer received = new Buffer();
+                socket.dataHandler(new Handler<Buffer>() {
+                  public void handle(Buffer data) {
+                    received.appendBuffer(data);
+                  }
+                });
+                socket.closedHandler(new SimpleHandler() {
+                  public void handle() {
+                    String str = received.toString();
+                    tu.azzert(str.startsWith("HTTP/1.1 200 OK\r\n"), str);
+                    tu.azzert(received.length() < 100000);
+                    netClient.close();
+                    tu.testComplete();
+                  }
+                });
+                socket.write("GET /foo.dat HTTP/1.1\r\nHost: localhost\r\n\r\n");
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStreamedFileReplaced() throws Exception {
+    writeFile("foo.dat", 100000);
+    startServer(new StaticFileHandler(WEB_ROOT).setMaxCachedFileSize(1000).setValidationPeriod(0));
+    get("/foo.dat", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            // Replace the file with a new one, rather than writing over it, so the old one kept open is stale
+            final Buffer content = TestUtils.generateRandomBuffer(120000);
+            try {
+              File tmp = new File(webRoot, "foo.tmp");
+              writeFile(tmp.getName(), content.getBytes());
+              Files.move(tmp.toPath(), new File(webRoot, "foo.dat").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+            get("/foo.dat", null, null, new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 200);
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(TestUtils.buffersEqual(content, body));
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStreamedFileCloseHandler() throws Exception {
+    writeFile("foo.dat", 10000000);
+    final StaticFileHandler handler = new StaticFileHandler(WEB_ROOT).setMaxCachedFileSize(1000);
+    server = new HttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        // A close handler set before the file is sent is still called
+        req.response.closeHandler(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            tu.testComplete();
+          }
+        });
+        handler.handle(req);
+      }
+    }).listen(8080, "localhost");
+    final NetClient netClient = new NetClient();
+    netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            netClient.close();
+          }
+        });
+        socket.write("GET /foo.dat HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      }
+    });
+  }
+
+  public void testIndexPage() throws Exception {
+    final Buffer content = writeFile("index.html", 100);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(TestUtils.buffersEqual(content, body));
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testNotFound() throws Exception {
+    writeFile("foo.txt", 100);
+    new File("static-file-secret.txt").createNewFile();
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/bar.txt", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 404);
+        get("/../static-file-secret.txt", null, null, new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 404);
+            new File("static-file-secret.txt").delete();
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testMethodNotAllowed() throws Exception {
+    writeFile("foo.txt", 100);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    client.request("POST", "/foo.txt", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 405);
+        tu.azzert("GET, HEAD".equals(resp.getHeader("Allow")));
+        tu.testComplete();
+      }
+    }).end();
+  }
+
+  public void testHead() throws Exception {
+    writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    // The HttpClient doesn't know a response to a HEAD request has no body, so we talk to the server directly
+    final NetClient netClient = new NetClient();
+    netClient.connect(8080, "localhost", new Handler<NetSocket>() {
+      public void handle(NetSocket socket) {
+        socket.dataHandler(RecordParser.newDelimited("\r\n\r\n", new Handler<Buffer>() {
+          public void handle(Buffer head) {
+            String str = head.toString();
+            tu.azzert(str.startsWith("HTTP/1.1 200 OK\r\n"), str);
+            tu.azzert(str.contains("\r\nContent-Length: 1000"), str);
+            netClient.close();
+            tu.testComplete();
+          }
+        }));
+        socket.write("HEAD /foo.txt HTTP/1.1\r\nHost: localhost\r\n\r\n");
+      }
+    });
+  }
+
+  public void testIfNoneMatch() throws Exception {
+    writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        final String etag = resp.getHeader("ETag");
+        get("/foo.txt", "If-None-Match", "\"other\", " + etag, new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 304);
+            tu.azzert(etag.equals(resp.getHeader("ETag")));
+            get("/foo.txt", "If-None-Match", "\"other\"", new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 200);
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testIfModifiedSince() throws Exception {
+    writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        get("/foo.txt", "If-Modified-Since", resp.getHeader("Last-Modified"), new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.azzert(resp.statusCode == 304);
+            get("/foo.txt", "If-Modified-Since", "Sun, 06 Nov 1994 08:49:37 GMT", new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 200);
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testRange() throws Exception {
+    final Buffer content = writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/foo.txt", "Range", "bytes=10-19", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 206);
+        tu.azzert("bytes 10-19/1000".equals(resp.getHeader("Content-Range")));
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(TestUtils.buffersEqual(content.getBuffer(10, 20), body));
+            get("/foo.txt", "Range", "bytes=-100", new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 206);
+                tu.azzert("bytes 900-999/1000".equals(resp.getHeader("Content-Range")));
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(TestUtils.buffersEqual(content.getBuffer(900, 1000), body));
+                    get("/foo.txt", "Range", "bytes=1000-", new Handler<HttpClientResponse>() {
+                      public void handle(final HttpClientResponse resp) {
+                        tu.azzert(resp.statusCode == 416);
+                        tu.azzert("bytes */1000".equals(resp.getHeader("Content-Range")));
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testFileChanged() throws Exception {
+    writeFile("foo.txt", 1000);
+    startServer(new StaticFileHandler(WEB_ROOT).setValidationPeriod(0));
+    get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            final Buffer content;
+            try {
+              content = writeFile("foo.txt", 500);
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+            get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 200);
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(TestUtils.buffersEqual(content, body));
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testCompressedVariant() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      sb.append("line ").append(i).append(" of some highly compressible text\n");
+    }
+    final String text = sb.toString();
+    writeFile("foo.txt", text.getBytes("UTF-8"));
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/foo.txt", "Accept-Encoding", "gzip, deflate", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.azzert("gzip".equals(resp.getHeader("Content-Encoding")));
+        tu.azzert("Accept-Encoding".equals(resp.getHeader("Vary")));
+        final String etag = resp.getHeader("ETag");
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(body.length() < text.length() / 2);
+            tu.azzert(text.equals(gunzip(body).toString()));
+            get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 200);
+                tu.azzert(resp.getHeader("Content-Encoding") == null);
+                tu.azzert("Accept-Encoding".equals(resp.getHeader("Vary")));
+                tu.azzert(!etag.equals(resp.getHeader("ETag")));
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(text.equals(body.toString()));
+                    HttpClientRequest req = client.get("/foo.txt", new Handler<HttpClientResponse>() {
+                      public void handle(HttpClientResponse resp) {
+                        tu.azzert(resp.statusCode == 304);
+                        tu.testComplete();
+                      }
+                    });
+                    req.putHeader("Accept-Encoding", "gzip");
+                    req.putHeader("If-None-Match", etag);
+                    req.end();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testServerCompressedETag() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      sb.append("line ").append(i).append(" of some highly compressible text\n");
+    }
+    final String text = sb.toString();
+    writeFile("foo.txt", text.getBytes("UTF-8"));
+    // Too large to cache, so the handler has no compressed variant and the server compresses it
+    server = new HttpServer().setCompression(true)
+        .requestHandler(new StaticFileHandler(WEB_ROOT).setMaxCachedFileSize(1000)).listen(8080, "localhost");
+    get("/foo.txt", "Accept-Encoding", "gzip", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.azzert("gzip".equals(resp.getHeader("Content-Encoding")));
+        final String etag = resp.getHeader("ETag");
+        tu.azzert(etag.startsWith("W/\""), etag);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(text.equals(gunzip(body).toString()));
+            get("/foo.txt", null, null, new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.getHeader("Content-Encoding") == null);
+                tu.azzert(etag.substring(2).equals(resp.getHeader("ETag")));
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    get("/foo.txt", "If-None-Match", etag, new Handler<HttpClientResponse>() {
+                      public void handle(final HttpClientResponse resp) {
+                        tu.azzert(resp.statusCode == 304);
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testGzipSibling() throws Exception {
+    final Buffer content = writeFile("app.js", 1000);
+    // Not the gzipped content of the file, so we can tell it was what was served
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write("the sibling".getBytes("UTF-8"));
+    }
+    writeFile("app.js.gz", bytes.toByteArray());
+    startServer(new StaticFileHandler(WEB_ROOT));
+    get("/app.js", "Accept-Encoding", "gzip", new Handler<HttpClientResponse>() {
+      public void handle(final HttpClientResponse resp) {
+        tu.azzert(resp.statusCode == 200);
+        tu.azzert("gzip".equals(resp.getHeader("Content-Encoding")));
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert("the sibling".equals(gunzip(body).toString()));
+            // Ranges are of the file itself
+            HttpClientRequest req = client.get("/app.js", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(resp.statusCode == 206);
+                tu.azzert(resp.getHeader("Content-Encoding") == null);
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer body) {
+                    tu.azzert(TestUtils.buffersEqual(content.getBuffer(0, 100), body));
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+            req.putHeader("Accept-Encoding", "gzip");
+            req.putHeader("Range", "bytes=0-99");
+            req.end();
+          }
+        });
+      }
+    });
+  }
+
+  private void startServer(StaticFileHandler handler) {
+    server = new HttpServer().requestHandler(handler).listen(8080, "localhost");
+  }
+
+  private void get(String uri, String header, String value, Handler<HttpClientResponse> handler) {
+    HttpClientRequest req = client.get(uri, handler);
+    if (header != null) {
+      req.putHeader(header, value);
+    }
+    req.end();
+  }
+
+  private Buffer writeFile(String name, int size) throws IOException {
+    Buffer content = TestUtils.generateRandomBuffer(size);
+    writeFile(name, content.getBytes());
+    return content;
+  }
+
+  private void writeFile(String name, byte[] content) throws IOException {
+    try (FileOutputStream out = new FileOutputStream(new File(webRoot, name))) {
+      out.write(content);
+    }
+  }
+
+  private static Buffer gunzip(Buffer body) {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.getBytes()))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] bytes = new byte[4096];
+      int n;
+      while ((n = in.read(bytes)) != -1) {
+        out.write(bytes, 0, n);
+      }
+      return new Buffer(out.toByteArray());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child: children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -16,6 +16,10 @@
 
 package vertx.tests.core.isolation;
 
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.deploy.impl.VerticleManager;
 import org.vertx.java.framework.TestClientBase;
 
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,4 +51,24 @@ public class TestClient extends TestClientBase {
     tu.testComplete();
   }
 
+  public void testSharedClassLoader() {
+    final int instances = 4;
+    EventBus.instance.registerHandler("counting-verticle", new Handler<Message<Integer>>() {
+      int count;
+      int max;
+      public void handle(Message<Integer> message) {
+        // All the instances see the same static counter
+        max = Math.max(max, message.body);
+        if (++count == instances) {
+          tu.azzert(max == instances);
+          EventBus.instance.unregisterHandler("counting-verticle", this);
+          tu.testComplete();
+        }
+      }
+    });
+    VerticleManager mgr = VerticleManager.instance;
+    mgr.deploy(false, null, CountingVerticle.class.getName(), null, mgr.getDeploymentURLs(), instances, null, true,
+        null);
+  }
+
 }
@@ -25,6 +25,7 @@ import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.net.NetClient;
 import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.NetSocket;
+import org.vertx.java.core.net.impl.TimingWheel;
 import org.vertx.java.core.shareddata.SharedData;
 import org.vertx.java.framework.TestClientBase;
 import org.vertx.java.framework.TestUtils;
@@ -190,6 +191,17 @@ public class TestClient extends TestClientBase {
     tu.azzert(client.setTrafficClass(trafficClass) == client);
     tu.azzert(client.getTrafficClass() == trafficClass);
 
+    tu.azzert(client.getSendFileChunkSize() == 16384);
+    tu.azzert(client.setSendFileChunkSize(1000) == client);
+    tu.azzert(client.getSendFileChunkSize() == 1000);
+
+    try {
+      client.setSendFileChunkSize(0);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
     tu.testComplete();
 
   }
@@ -298,10 +310,87 @@ public class TestClient extends TestClientBase {
     tu.azzert(server.setTrafficClass(trafficClass) == server);
     tu.azzert(server.getTrafficClass() == trafficClass);
 
+    tu.azzert(server.getSendFileChunkSize() == 16384);
+    tu.azzert(server.setSendFileChunkSize(1000) == server);
+    tu.azzert(server.getSendFileChunkSize() == 1000);
+
+    try {
+      server.setSendFileChunkSize(0);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    tu.azzert(server.getIdleReadTimeout() == 0);
+    tu.azzert(server.setIdleReadTimeout(5000) == server);
+    tu.azzert(server.getIdleReadTimeout() == 5000);
+    tu.azzert(server.getIdleWriteTimeout() == 0);
+    tu.azzert(server.setIdleWriteTimeout(6000) == server);
+    tu.azzert(server.getIdleWriteTimeout() == 6000);
+
+    try {
+      server.setIdleReadTimeout(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
+    try {
+      server.setIdleWriteTimeout(-1);
+      tu.azzert(false, "Should throw exception");
+    } catch (IllegalArgumentException e) {
+      //OK
+    }
+
     tu.testComplete();
 
   }
 
+  public void testIdleReadTimeout() {
+    final NetServer server = new NetServer().setIdleReadTimeout(300);
+    server.connectHandler(new Handler<NetSocket>() {
+      public void handle(NetSocket sock) {
+        tu.checkContext();
+      }
+    });
+    server.listen(1234);
+
+    client.connect(1234, new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        final AtomicInteger writes = new AtomicInteger();
+        final long[] lastWrite = new long[1];
+        // Keep the connection busy for a while, then leave it idle
+        Vertx.instance.setPeriodic(100, new Handler<Long>() {
+          public void handle(Long id) {
+            if (writes.incrementAndGet() == 5) {
+              Vertx.instance.cancelTimer(id);
+            }
+            lastWrite[0] = System.currentTimeMillis();
+            socket.write("foo");
+          }
+        });
+        socket.closedHandler(new SimpleHandler() {
+          public void handle() {
+            tu.checkContext();
+            tu.azzert(writes.get() == 5, "Closed while still being written to");
+            tu.azzert(System.currentTimeMillis() - lastWrite[0] >= 300 - 100);
+            server.close(new SimpleHandler() {
+              public void handle() {
+                // Once the wheel has ticked with nothing left in it, it is dropped
+                Vertx.instance.setTimer(TimingWheel.TICK_MILLIS * 3, new Handler<Long>() {
+                  public void handle(Long id) {
+                    tu.azzert(TimingWheel.getWheelCount() == 0);
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
   private Handler<NetSocket> getEchoHandler() {
     return new Handler<NetSocket>() {
       public void handle(NetSocket socket) {